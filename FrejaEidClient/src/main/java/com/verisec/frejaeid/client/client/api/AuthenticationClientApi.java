@@ -9,14 +9,22 @@ import com.verisec.frejaeid.client.enums.TransactionStatus;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import com.verisec.frejaeid.client.service.LeaseStore;
+import com.verisec.frejaeid.client.service.PolledResults;
+import com.verisec.frejaeid.client.service.PollingCoordinator;
+import com.verisec.frejaeid.client.service.ResultPublisher;
+import com.verisec.frejaeid.client.service.TransactionListener;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Performs authentication actions.
  */
-public interface AuthenticationClientApi {
+public interface AuthenticationClientApi extends Closeable {
 
     /**
      * Initiates authentication transaction. It will be active for two minutes.
@@ -76,6 +84,33 @@ public interface AuthenticationClientApi {
                                               int maxWaitingTimeInSec)
             throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException;
 
+    /**
+     * Variant of {@linkplain #pollForResult(AuthenticationResultRequest, int)} that reports
+     * every observed change of {@linkplain TransactionStatus} to given
+     * listener, e.g. to show progress to the user. Status changes and the
+     * final result come from the same polls.
+     * <p>
+     * Default implementation throws
+     * {@linkplain UnsupportedOperationException}.
+     *
+     * @param authenticationResultRequest contains transaction reference.
+     * @param maxWaitingTimeInSec         is a maximum time in seconds to wait for a
+     *                                    final TransactionStatus.
+     * @param listener                    receives status changes.
+     * @return {@linkplain AuthenticationResult}
+     * @throws FrejaEidClientInternalException if internal validation of request
+     *                                         fails.
+     * @throws FrejaEidException               if server returns an error.
+     * @throws FrejaEidClientPollingException  if the maximum polling time
+     *                                         expires before the action is completed.
+     */
+    public default AuthenticationResult pollForResult(AuthenticationResultRequest authenticationResultRequest,
+                                                      int maxWaitingTimeInSec,
+                                                      TransactionListener<AuthenticationResult> listener)
+            throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * Cancels an initiated authentication request.
      *
@@ -94,4 +129,222 @@ public interface AuthenticationClientApi {
      */
     public byte[] generateQRCodeForAuthentication(String reference)
             throws FrejaEidClientInternalException, FrejaEidException, IOException;
+
+    /**
+     * Non-blocking variant of
+     * {@linkplain #initiate(InitiateAuthenticationRequest)}.
+     * <p>
+     * Default implementation calls
+     * {@linkplain #initiate(InitiateAuthenticationRequest)} in the calling
+     * thread and returns a completed stage.
+     *
+     * @param initiateAuthenticationRequest instance of
+     *                                      {@linkplain InitiateAuthenticationRequest} with corresponding parameters.
+     * @return stage completed with authentication transaction reference. Stage
+     * is completed exceptionally with {@linkplain FrejaEidClientInternalException}
+     * if internal validation of request fails or with
+     * {@linkplain FrejaEidException} if server returns an error.
+     */
+    public default CompletionStage<String> initiateAsync(InitiateAuthenticationRequest initiateAuthenticationRequest) {
+        return CompletedStages.of(() -> initiate(initiateAuthenticationRequest));
+    }
+
+    /**
+     * Non-blocking variant of
+     * {@linkplain #getResult(AuthenticationResultRequest)}.
+     * <p>
+     * Default implementation calls
+     * {@linkplain #getResult(AuthenticationResultRequest)} in the calling
+     * thread and returns a completed stage.
+     *
+     * @param authenticationResultRequest contains transaction reference.
+     * @return stage completed with {@linkplain AuthenticationResult}. Stage is
+     * completed exceptionally with {@linkplain FrejaEidClientInternalException}
+     * if internal validation of request fails or with
+     * {@linkplain FrejaEidException} if server returns an error.
+     */
+    public default CompletionStage<AuthenticationResult> getResultAsync(
+            AuthenticationResultRequest authenticationResultRequest) {
+        return CompletedStages.of(() -> getResult(authenticationResultRequest));
+    }
+
+    /**
+     * Non-blocking variant of
+     * {@linkplain #getResults(AuthenticationResultsRequest)}.
+     * <p>
+     * Default implementation calls
+     * {@linkplain #getResults(AuthenticationResultsRequest)} in the calling
+     * thread and returns a completed stage.
+     *
+     * @param authenticationResultsRequest will request all authentications
+     * @return stage completed with a complete list of authentications,
+     * successfully initiated within last 10 minutes. Stage is completed
+     * exceptionally with {@linkplain FrejaEidClientInternalException} if
+     * internal validation of request fails or with
+     * {@linkplain FrejaEidException} if server returns an error.
+     */
+    public default CompletionStage<List<AuthenticationResult>> getResultsAsync(
+            AuthenticationResultsRequest authenticationResultsRequest) {
+        return CompletedStages.of(() -> getResults(authenticationResultsRequest));
+    }
+
+    /**
+     * Non-blocking variant of
+     * {@linkplain #pollForResult(AuthenticationResultRequest, int)}. No thread
+     * is blocked while waiting between two polls.
+     * <p>
+     * Default implementation calls
+     * {@linkplain #pollForResult(AuthenticationResultRequest, int)} in the
+     * calling thread and returns a completed stage.
+     *
+     * @param authenticationResultRequest contains transaction reference.
+     * @param maxWaitingTimeInSec         is a maximum time in seconds to wait for a
+     *                                    final TransactionStatus.
+     * @return stage completed with {@linkplain AuthenticationResult} with the
+     * final {@linkplain TransactionStatus}. Stage is completed exceptionally
+     * with {@linkplain FrejaEidClientPollingException} if the maximum polling
+     * time expires before the action is completed, with
+     * {@linkplain FrejaEidClientInternalException} if internal validation of
+     * request fails or with {@linkplain FrejaEidException} if server returns
+     * an error.
+     */
+    public default CompletionStage<AuthenticationResult> pollForResultAsync(
+            AuthenticationResultRequest authenticationResultRequest, int maxWaitingTimeInSec) {
+        return CompletedStages.of(() -> pollForResult(authenticationResultRequest, maxWaitingTimeInSec));
+    }
+
+    /**
+     * Non-blocking variant of
+     * {@linkplain #pollForResult(AuthenticationResultRequest, int, TransactionListener)}.
+     * <p>
+     * Default implementation throws
+     * {@linkplain UnsupportedOperationException}.
+     *
+     * @param authenticationResultRequest contains transaction reference.
+     * @param maxWaitingTimeInSec         is a maximum time in seconds to wait for a
+     *                                    final TransactionStatus.
+     * @param listener                    receives status changes.
+     * @return stage completed as the one returned by
+     * {@linkplain #pollForResultAsync(AuthenticationResultRequest, int)}.
+     */
+    public default CompletionStage<AuthenticationResult> pollForResultAsync(
+            AuthenticationResultRequest authenticationResultRequest, int maxWaitingTimeInSec,
+            TransactionListener<AuthenticationResult> listener) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns publisher of the {@linkplain AuthenticationResult}s with distinct
+     * {@linkplain TransactionStatus}es of given authentication transaction. Every
+     * subscriber starts its own polling, which completes once final status is
+     * published and fails with {@linkplain FrejaEidClientPollingException} if
+     * the maximum polling time expires before that. Polls are made only while
+     * the subscriber has outstanding demand.
+     * <p>
+     * Default implementation throws
+     * {@linkplain UnsupportedOperationException}.
+     *
+     * @param authenticationResultRequest contains transaction reference.
+     * @param maxWaitingTimeInSec         is a maximum time in seconds to wait for a
+     *                                    final TransactionStatus.
+     * @return {@linkplain ResultPublisher}
+     * @throws FrejaEidClientInternalException if internal validation of request
+     *                                         fails.
+     */
+    public default ResultPublisher<AuthenticationResult> getResultPublisher(
+            AuthenticationResultRequest authenticationResultRequest, int maxWaitingTimeInSec)
+            throws FrejaEidClientInternalException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Polls for results of many authentication transactions at once. Polls
+     * of all transactions share one polling pipeline, no thread is blocked
+     * per transaction and at most {@code maxConcurrentRequests} result
+     * requests are sent to the server at a time.
+     * <p>
+     * Default implementation throws
+     * {@linkplain UnsupportedOperationException}.
+     *
+     * @param authenticationResultRequests contain transaction references.
+     * @param maxWaitingTimeInSec          is a maximum time in seconds to
+     *                                     wait for a final TransactionStatus
+     *                                     of each transaction.
+     * @param maxConcurrentRequests        is a maximum number of result
+     *                                     requests sent to the server at a
+     *                                     time.
+     * @param listener                     receives status changes of all
+     *                                     transactions, may be {@code null}.
+     * @return results handed out as polling for each transaction completes,
+     * every stage completed as the one returned by
+     * {@linkplain #pollForResultAsync(AuthenticationResultRequest, int)}.
+     * @throws FrejaEidClientInternalException if internal validation of any
+     *                                         request fails or maximum number
+     *                                         of concurrent requests is not
+     *                                         positive.
+     */
+    public default PolledResults<AuthenticationResult> pollForResults(
+            Collection<AuthenticationResultRequest> authenticationResultRequests, int maxWaitingTimeInSec,
+            int maxConcurrentRequests, TransactionListener<AuthenticationResult> listener)
+            throws FrejaEidClientInternalException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Creates coordinator polling for results of authentication transactions shared
+     * by the nodes of a cluster. Transactions submitted to it on any node are
+     * sharded over the live nodes by consistent hashing of their references,
+     * every transaction is polled by exactly one node at a time and the
+     * transactions of a node that dies are taken over by the others. Polling
+     * starts right away and stops when the coordinator is closed.
+     * <p>
+     * Default implementation throws
+     * {@linkplain UnsupportedOperationException}.
+     *
+     * @param nodeId     identifies this node, unique within the cluster.
+     * @param leaseStore storage shared by the nodes of the cluster.
+     * @param listener   receives status changes of the transactions polled
+     *                   by this node, may be {@code null}.
+     * @return started {@linkplain PollingCoordinator}
+     * @throws FrejaEidClientInternalException if node ID is empty or lease
+     *                                         store is not set.
+     */
+    public default PollingCoordinator<AuthenticationResult> createPollingCoordinator(
+            String nodeId, LeaseStore leaseStore, TransactionListener<AuthenticationResult> listener)
+            throws FrejaEidClientInternalException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Non-blocking variant of
+     * {@linkplain #cancel(CancelAuthenticationRequest)}.
+     * <p>
+     * Default implementation calls
+     * {@linkplain #cancel(CancelAuthenticationRequest)} in the calling thread
+     * and returns a completed stage.
+     *
+     * @param cancelAuthenticationRequest contains transaction reference.
+     * @return stage completed when transaction is canceled. Stage is completed
+     * exceptionally with {@linkplain FrejaEidClientInternalException} if
+     * internal validation of request fails or with
+     * {@linkplain FrejaEidException} if server returns an error.
+     */
+    public default CompletionStage<Void> cancelAsync(CancelAuthenticationRequest cancelAuthenticationRequest) {
+        return CompletedStages.of(() -> {
+            cancel(cancelAuthenticationRequest);
+            return null;
+        });
+    }
+
+    /**
+     * Releases the HTTP transport used by this client. Connections are closed
+     * once no other client shares the transport. Calling this method more
+     * than once has no effect.
+     * <p>
+     * Default implementation does nothing.
+     */
+    @Override
+    public default void close() {
+    }
+
 }
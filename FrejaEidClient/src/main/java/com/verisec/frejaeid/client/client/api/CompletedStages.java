@@ -0,0 +1,46 @@
+package com.verisec.frejaeid.client.client.api;
+
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Backs the default non-blocking methods of the client interfaces, so that
+ * implementations written against earlier versions of the interfaces keep
+ * compiling and linking.
+ */
+final class CompletedStages {
+
+    /**
+     * Blocking call of a client.
+     */
+    interface Call<T> {
+
+        T call() throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException;
+
+    }
+
+    private CompletedStages() {
+    }
+
+    /**
+     * Performs the call in the calling thread.
+     *
+     * @return stage completed with the response of the call, or exceptionally
+     * with the exception it failed with.
+     */
+    static <T> CompletionStage<T> of(Call<T> call) {
+        CompletableFuture<T> stage = new CompletableFuture<>();
+        try {
+            stage.complete(call.call());
+        } catch (FrejaEidClientInternalException | FrejaEidException | FrejaEidClientPollingException
+                | RuntimeException ex) {
+            stage.completeExceptionally(ex);
+        }
+        return stage;
+    }
+
+}
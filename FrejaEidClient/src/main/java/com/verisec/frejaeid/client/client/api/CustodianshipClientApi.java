@@ -4,7 +4,9 @@ import com.verisec.frejaeid.client.beans.custodianship.get.GetUserCustodianshipS
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidException;
 
-public interface CustodianshipClientApi {
+import java.io.Closeable;
+
+public interface CustodianshipClientApi extends Closeable {
     /**
      * Gets the custodianship status for a specific user.
      *
@@ -19,4 +21,15 @@ public interface CustodianshipClientApi {
      */
     public String getUserCustodianshipStatus(GetUserCustodianshipStatusRequest getUserCustodianshipStatusRequest)
             throws FrejaEidClientInternalException, FrejaEidException;
+
+    /**
+     * Releases the HTTP transport used by this client. Connections are closed
+     * once no other client shares the transport. Calling this method more
+     * than once has no effect.
+     * <p>
+     * Default implementation does nothing.
+     */
+    @Override
+    public default void close() {
+    }
 }
@@ -5,10 +5,12 @@ import com.verisec.frejaeid.client.beans.usermanagement.customidentifier.set.Set
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidException;
 
+import java.io.Closeable;
+
 /**
  * Performs actions with custom identifier.
  */
-public interface CustomIdentifierClientApi {
+public interface CustomIdentifierClientApi extends Closeable {
 
     /**
      * Sets a custom identifier for a specific user. The existing user
@@ -38,4 +40,15 @@ public interface CustomIdentifierClientApi {
     public void delete(DeleteCustomIdentifierRequest deleteCustomIdentifierRequest)
             throws FrejaEidClientInternalException, FrejaEidException;
 
+    /**
+     * Releases the HTTP transport used by this client. Connections are closed
+     * once no other client shares the transport. Calling this method more
+     * than once has no effect.
+     * <p>
+     * Default implementation does nothing.
+     */
+    @Override
+    public default void close() {
+    }
+
 }
@@ -13,13 +13,21 @@ import com.verisec.frejaeid.client.enums.TransactionStatus;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import com.verisec.frejaeid.client.service.LeaseStore;
+import com.verisec.frejaeid.client.service.PolledResults;
+import com.verisec.frejaeid.client.service.PollingCoordinator;
+import com.verisec.frejaeid.client.service.TransactionListener;
 
+import java.io.Closeable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Performs actions with organisation eID.
  */
-public interface OrganisationIdClientApi {
+public interface OrganisationIdClientApi extends Closeable {
 
     /**
      * Initiates adding organisation id for a specific person.
@@ -67,6 +75,33 @@ public interface OrganisationIdClientApi {
                                               int maxWaitingTimeInSec)
             throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException;
 
+    /**
+     * Variant of {@linkplain #pollForResult(OrganisationIdResultRequest, int)} that reports
+     * every observed change of {@linkplain TransactionStatus} to given
+     * listener, e.g. to show progress to the user. Status changes and the
+     * final result come from the same polls.
+     * <p>
+     * Default implementation throws
+     * {@linkplain UnsupportedOperationException}.
+     *
+     * @param organisationIdResultRequest contains transaction reference.
+     * @param maxWaitingTimeInSec         is a maximum time in seconds to wait for a
+     *                                    final TransactionStatus.
+     * @param listener                    receives status changes.
+     * @return {@linkplain OrganisationIdResult}
+     * @throws FrejaEidClientInternalException if internal validation of request
+     *                                         fails.
+     * @throws FrejaEidException               if server returns an error.
+     * @throws FrejaEidClientPollingException  if the maximum polling time
+     *                                         expires before the action is completed.
+     */
+    public default OrganisationIdResult pollForResult(OrganisationIdResultRequest organisationIdResultRequest,
+                                                      int maxWaitingTimeInSec,
+                                                      TransactionListener<OrganisationIdResult> listener)
+            throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * Cancels an initiated organisation id request.
      *
@@ -117,4 +152,209 @@ public interface OrganisationIdClientApi {
     public UpdateOrganisationIdResponse update(UpdateOrganisationIdRequest updateOrganisationIdRequest)
             throws FrejaEidClientInternalException, FrejaEidException;
 
+    /**
+     * Non-blocking variant of
+     * {@linkplain #initiateAdd(InitiateAddOrganisationIdRequest)}.
+     * <p>
+     * Default implementation calls
+     * {@linkplain #initiateAdd(InitiateAddOrganisationIdRequest)} in the
+     * calling thread and returns a completed stage.
+     *
+     * @param initiateAddOrganisationIdRequest instance of
+     *                                         {@linkplain InitiateAddOrganisationIdRequest} with corresponding
+     *                                         parameters.
+     * @return stage completed with add organisation ID transaction reference.
+     * Stage is completed exceptionally with
+     * {@linkplain FrejaEidClientInternalException} if internal validation of
+     * request fails or with {@linkplain FrejaEidException} if server returns
+     * an error.
+     */
+    public default CompletionStage<String> initiateAddAsync(
+            InitiateAddOrganisationIdRequest initiateAddOrganisationIdRequest) {
+        return CompletedStages.of(() -> initiateAdd(initiateAddOrganisationIdRequest));
+    }
+
+    /**
+     * Non-blocking variant of
+     * {@linkplain #getResult(OrganisationIdResultRequest)}.
+     * <p>
+     * Default implementation calls
+     * {@linkplain #getResult(OrganisationIdResultRequest)} in the calling
+     * thread and returns a completed stage.
+     *
+     * @param organisationIdResultRequest contains transaction reference.
+     * @return stage completed with {@linkplain OrganisationIdResult}. Stage is
+     * completed exceptionally with {@linkplain FrejaEidClientInternalException}
+     * if internal validation of request fails or with
+     * {@linkplain FrejaEidException} if server returns an error.
+     */
+    public default CompletionStage<OrganisationIdResult> getResultAsync(
+            OrganisationIdResultRequest organisationIdResultRequest) {
+        return CompletedStages.of(() -> getResult(organisationIdResultRequest));
+    }
+
+    /**
+     * Non-blocking variant of
+     * {@linkplain #pollForResult(OrganisationIdResultRequest, int)}. No thread
+     * is blocked while waiting between two polls.
+     * <p>
+     * Default implementation calls
+     * {@linkplain #pollForResult(OrganisationIdResultRequest, int)} in the
+     * calling thread and returns a completed stage.
+     *
+     * @param organisationIdResultRequest contains transaction reference.
+     * @param maxWaitingTimeInSec         is a maximum time in seconds to wait for a
+     *                                    final TransactionStatus.
+     * @return stage completed with {@linkplain OrganisationIdResult} with the
+     * final {@linkplain TransactionStatus}. Stage is completed exceptionally
+     * with {@linkplain FrejaEidClientPollingException} if the maximum polling
+     * time expires before the action is completed, with
+     * {@linkplain FrejaEidClientInternalException} if internal validation of
+     * request fails or with {@linkplain FrejaEidException} if server returns
+     * an error.
+     */
+    public default CompletionStage<OrganisationIdResult> pollForResultAsync(
+            OrganisationIdResultRequest organisationIdResultRequest, int maxWaitingTimeInSec) {
+        return CompletedStages.of(() -> pollForResult(organisationIdResultRequest, maxWaitingTimeInSec));
+    }
+
+    /**
+     * Non-blocking variant of
+     * {@linkplain #pollForResult(OrganisationIdResultRequest, int, TransactionListener)}.
+     * <p>
+     * Default implementation throws
+     * {@linkplain UnsupportedOperationException}.
+     *
+     * @param organisationIdResultRequest contains transaction reference.
+     * @param maxWaitingTimeInSec         is a maximum time in seconds to wait for a
+     *                                    final TransactionStatus.
+     * @param listener                    receives status changes.
+     * @return stage completed as the one returned by
+     * {@linkplain #pollForResultAsync(OrganisationIdResultRequest, int)}.
+     */
+    public default CompletionStage<OrganisationIdResult> pollForResultAsync(
+            OrganisationIdResultRequest organisationIdResultRequest, int maxWaitingTimeInSec,
+            TransactionListener<OrganisationIdResult> listener) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Non-blocking variant of
+     * {@linkplain #cancelAdd(CancelAddOrganisationIdRequest)}.
+     * <p>
+     * Default implementation calls
+     * {@linkplain #cancelAdd(CancelAddOrganisationIdRequest)} in the calling
+     * thread and returns a completed stage.
+     *
+     * @param cancelAddOrganisationIdRequest contains transaction reference.
+     * @return stage completed when transaction is canceled. Stage is completed
+     * exceptionally with {@linkplain FrejaEidClientInternalException} if
+     * internal validation of request fails or with
+     * {@linkplain FrejaEidException} if server returns an error.
+     */
+    public default CompletionStage<Void> cancelAddAsync(CancelAddOrganisationIdRequest cancelAddOrganisationIdRequest) {
+        return CompletedStages.of(() -> {
+            cancelAdd(cancelAddOrganisationIdRequest);
+            return null;
+        });
+    }
+
+    /**
+     * Resumes polling for results of add organisation ID transactions left
+     * outstanding in the poll journal set on the client builder, e.g. by a
+     * previous run of the application. Adding organisation ID can take days,
+     * so transactions pending at restart are picked up without being
+     * initiated again. At most {@code maxConcurrentPolls} transactions are
+     * polled at a time.
+     * <p>
+     * Default implementation throws
+     * {@linkplain UnsupportedOperationException}.
+     *
+     * @param maxWaitingTimeInSec is a maximum time in seconds to wait for a
+     *                            final TransactionStatus of each transaction.
+     * @param maxConcurrentPolls  is a maximum number of transactions polled
+     *                            at a time.
+     * @param listener            receives status changes, may be
+     *                            {@code null}.
+     * @return stages completed as the ones returned by
+     * {@linkplain #pollForResultAsync(OrganisationIdResultRequest, int)},
+     * keyed by transaction reference. Empty if no poll journal is set.
+     * @throws FrejaEidClientInternalException if maximum number of concurrent
+     *                                         polls is not positive.
+     */
+    public default Map<String, CompletionStage<OrganisationIdResult>> resumePolling(
+            int maxWaitingTimeInSec, int maxConcurrentPolls, TransactionListener<OrganisationIdResult> listener)
+            throws FrejaEidClientInternalException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Polls for results of many add organisation ID transactions at once.
+     * Polls of all transactions share one polling pipeline, no thread is
+     * blocked per transaction and at most {@code maxConcurrentRequests}
+     * result requests are sent to the server at a time.
+     * <p>
+     * Default implementation throws
+     * {@linkplain UnsupportedOperationException}.
+     *
+     * @param organisationIdResultRequests contain transaction references.
+     * @param maxWaitingTimeInSec          is a maximum time in seconds to
+     *                                     wait for a final TransactionStatus
+     *                                     of each transaction.
+     * @param maxConcurrentRequests        is a maximum number of result
+     *                                     requests sent to the server at a
+     *                                     time.
+     * @param listener                     receives status changes of all
+     *                                     transactions, may be {@code null}.
+     * @return results handed out as polling for each transaction completes,
+     * every stage completed as the one returned by
+     * {@linkplain #pollForResultAsync(OrganisationIdResultRequest, int)}.
+     * @throws FrejaEidClientInternalException if internal validation of any
+     *                                         request fails or maximum number
+     *                                         of concurrent requests is not
+     *                                         positive.
+     */
+    public default PolledResults<OrganisationIdResult> pollForResults(
+            Collection<OrganisationIdResultRequest> organisationIdResultRequests, int maxWaitingTimeInSec,
+            int maxConcurrentRequests, TransactionListener<OrganisationIdResult> listener)
+            throws FrejaEidClientInternalException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Creates coordinator polling for results of add organisation ID transactions shared
+     * by the nodes of a cluster. Transactions submitted to it on any node are
+     * sharded over the live nodes by consistent hashing of their references,
+     * every transaction is polled by exactly one node at a time and the
+     * transactions of a node that dies are taken over by the others. Polling
+     * starts right away and stops when the coordinator is closed.
+     * <p>
+     * Default implementation throws
+     * {@linkplain UnsupportedOperationException}.
+     *
+     * @param nodeId     identifies this node, unique within the cluster.
+     * @param leaseStore storage shared by the nodes of the cluster.
+     * @param listener   receives status changes of the transactions polled
+     *                   by this node, may be {@code null}.
+     * @return started {@linkplain PollingCoordinator}
+     * @throws FrejaEidClientInternalException if node ID is empty or lease
+     *                                         store is not set.
+     */
+    public default PollingCoordinator<OrganisationIdResult> createPollingCoordinator(
+            String nodeId, LeaseStore leaseStore, TransactionListener<OrganisationIdResult> listener)
+            throws FrejaEidClientInternalException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Releases the HTTP transport used by this client. Connections are closed
+     * once no other client shares the transport. Calling this method more
+     * than once has no effect.
+     * <p>
+     * Default implementation does nothing.
+     */
+    @Override
+    public default void close() {
+    }
+
 }
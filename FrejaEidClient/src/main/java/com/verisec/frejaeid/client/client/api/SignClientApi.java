@@ -8,14 +8,22 @@ import com.verisec.frejaeid.client.beans.sign.init.InitiateSignRequest;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import com.verisec.frejaeid.client.service.LeaseStore;
+import com.verisec.frejaeid.client.service.PolledResults;
+import com.verisec.frejaeid.client.service.PollingCoordinator;
+import com.verisec.frejaeid.client.service.ResultPublisher;
+import com.verisec.frejaeid.client.service.TransactionListener;
 import com.verisec.frejaeid.client.enums.TransactionStatus;
 
+import java.io.Closeable;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Performs sign actions.
  */
-public interface SignClientApi {
+public interface SignClientApi extends Closeable {
 
     /**
      * Initiates a signing request. Transaction can be active between two
@@ -76,6 +84,32 @@ public interface SignClientApi {
     public SignResult pollForResult(SignResultRequest signResultRequest, int maxWaitingTimeInSec)
             throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException;
 
+    /**
+     * Variant of {@linkplain #pollForResult(SignResultRequest, int)} that reports
+     * every observed change of {@linkplain TransactionStatus} to given
+     * listener, e.g. to show progress to the user. Status changes and the
+     * final result come from the same polls.
+     * <p>
+     * Default implementation throws
+     * {@linkplain UnsupportedOperationException}.
+     *
+     * @param signResultRequest   contains transaction reference.
+     * @param maxWaitingTimeInSec is a maximum time in seconds to wait for a
+     *                            final TransactionStatus.
+     * @param listener            receives status changes.
+     * @return {@linkplain SignResult}
+     * @throws FrejaEidClientInternalException if internal validation of request
+     *                                         fails.
+     * @throws FrejaEidException               if server returns an error.
+     * @throws FrejaEidClientPollingException  if the maximum polling time
+     *                                         expires before the action is completed.
+     */
+    public default SignResult pollForResult(SignResultRequest signResultRequest, int maxWaitingTimeInSec,
+                                            TransactionListener<SignResult> listener)
+            throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * Cancels an initiated sign request.
      *
@@ -86,4 +120,211 @@ public interface SignClientApi {
      */
     public void cancel(CancelSignRequest cancelSignRequest) throws FrejaEidClientInternalException, FrejaEidException;
 
+    /**
+     * Non-blocking variant of {@linkplain #initiate(InitiateSignRequest)}.
+     * <p>
+     * Default implementation calls {@linkplain #initiate(InitiateSignRequest)}
+     * in the calling thread and returns a completed stage.
+     *
+     * @param initiateSignRequest instance of {@linkplain InitiateSignRequest}
+     *                            with corresponding parameters.
+     * @return stage completed with sign transaction reference. Stage is
+     * completed exceptionally with {@linkplain FrejaEidClientInternalException}
+     * if internal validation of request fails or with
+     * {@linkplain FrejaEidException} if server returns an error.
+     */
+    public default CompletionStage<String> initiateAsync(InitiateSignRequest initiateSignRequest) {
+        return CompletedStages.of(() -> initiate(initiateSignRequest));
+    }
+
+    /**
+     * Non-blocking variant of {@linkplain #getResult(SignResultRequest)}.
+     * <p>
+     * Default implementation calls {@linkplain #getResult(SignResultRequest)}
+     * in the calling thread and returns a completed stage.
+     *
+     * @param signResultRequest contains transaction reference.
+     * @return stage completed with {@linkplain SignResult}. Stage is completed
+     * exceptionally with {@linkplain FrejaEidClientInternalException} if
+     * internal validation of request fails or with
+     * {@linkplain FrejaEidException} if server returns an error.
+     */
+    public default CompletionStage<SignResult> getResultAsync(SignResultRequest signResultRequest) {
+        return CompletedStages.of(() -> getResult(signResultRequest));
+    }
+
+    /**
+     * Non-blocking variant of {@linkplain #getResults(SignResultsRequest)}.
+     * <p>
+     * Default implementation calls
+     * {@linkplain #getResults(SignResultsRequest)} in the calling thread and
+     * returns a completed stage.
+     *
+     * @param signResultsRequest will request all sign results
+     * @return stage completed with a complete list of sign results. Stage is
+     * completed exceptionally with {@linkplain FrejaEidClientInternalException}
+     * if internal validation of request fails or with
+     * {@linkplain FrejaEidException} if server returns an error.
+     */
+    public default CompletionStage<List<SignResult>> getResultsAsync(SignResultsRequest signResultsRequest) {
+        return CompletedStages.of(() -> getResults(signResultsRequest));
+    }
+
+    /**
+     * Non-blocking variant of
+     * {@linkplain #pollForResult(SignResultRequest, int)}. No thread is
+     * blocked while waiting between two polls.
+     * <p>
+     * Default implementation calls
+     * {@linkplain #pollForResult(SignResultRequest, int)} in the calling
+     * thread and returns a completed stage.
+     *
+     * @param signResultRequest   contains transaction reference.
+     * @param maxWaitingTimeInSec is a maximum time in seconds to wait for a
+     *                            final TransactionStatus.
+     * @return stage completed with {@linkplain SignResult} with the final
+     * {@linkplain TransactionStatus}. Stage is completed exceptionally with
+     * {@linkplain FrejaEidClientPollingException} if the maximum polling time
+     * expires before the action is completed, with
+     * {@linkplain FrejaEidClientInternalException} if internal validation of
+     * request fails or with {@linkplain FrejaEidException} if server returns
+     * an error.
+     */
+    public default CompletionStage<SignResult> pollForResultAsync(SignResultRequest signResultRequest,
+                                                                  int maxWaitingTimeInSec) {
+        return CompletedStages.of(() -> pollForResult(signResultRequest, maxWaitingTimeInSec));
+    }
+
+    /**
+     * Non-blocking variant of
+     * {@linkplain #pollForResult(SignResultRequest, int, TransactionListener)}.
+     * <p>
+     * Default implementation throws
+     * {@linkplain UnsupportedOperationException}.
+     *
+     * @param signResultRequest   contains transaction reference.
+     * @param maxWaitingTimeInSec is a maximum time in seconds to wait for a
+     *                            final TransactionStatus.
+     * @param listener            receives status changes.
+     * @return stage completed as the one returned by
+     * {@linkplain #pollForResultAsync(SignResultRequest, int)}.
+     */
+    public default CompletionStage<SignResult> pollForResultAsync(SignResultRequest signResultRequest,
+                                                                  int maxWaitingTimeInSec,
+                                                                  TransactionListener<SignResult> listener) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns publisher of the {@linkplain SignResult}s with distinct
+     * {@linkplain TransactionStatus}es of given sign transaction. Every
+     * subscriber starts its own polling, which completes once final status is
+     * published and fails with {@linkplain FrejaEidClientPollingException} if
+     * the maximum polling time expires before that. Polls are made only while
+     * the subscriber has outstanding demand.
+     * <p>
+     * Default implementation throws
+     * {@linkplain UnsupportedOperationException}.
+     *
+     * @param signResultRequest   contains transaction reference.
+     * @param maxWaitingTimeInSec is a maximum time in seconds to wait for a
+     *                            final TransactionStatus.
+     * @return {@linkplain ResultPublisher}
+     * @throws FrejaEidClientInternalException if internal validation of request
+     *                                         fails.
+     */
+    public default ResultPublisher<SignResult> getResultPublisher(SignResultRequest signResultRequest,
+                                                                  int maxWaitingTimeInSec)
+            throws FrejaEidClientInternalException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Polls for results of many sign transactions at once, e.g. one per
+     * document. Polls of all transactions share one polling pipeline, no
+     * thread is blocked per transaction and at most
+     * {@code maxConcurrentRequests} result requests are sent to the server
+     * at a time.
+     * <p>
+     * Default implementation throws
+     * {@linkplain UnsupportedOperationException}.
+     *
+     * @param signResultRequests    contain transaction references.
+     * @param maxWaitingTimeInSec   is a maximum time in seconds to wait for a
+     *                              final TransactionStatus of each
+     *                              transaction.
+     * @param maxConcurrentRequests is a maximum number of result requests
+     *                              sent to the server at a time.
+     * @param listener              receives status changes of all
+     *                              transactions, may be {@code null}.
+     * @return results handed out as polling for each transaction completes,
+     * every stage completed as the one returned by
+     * {@linkplain #pollForResultAsync(SignResultRequest, int)}.
+     * @throws FrejaEidClientInternalException if internal validation of any
+     *                                         request fails or maximum number
+     *                                         of concurrent requests is not
+     *                                         positive.
+     */
+    public default PolledResults<SignResult> pollForResults(Collection<SignResultRequest> signResultRequests,
+                                                            int maxWaitingTimeInSec, int maxConcurrentRequests,
+                                                            TransactionListener<SignResult> listener)
+            throws FrejaEidClientInternalException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Creates coordinator polling for results of sign transactions shared
+     * by the nodes of a cluster. Transactions submitted to it on any node are
+     * sharded over the live nodes by consistent hashing of their references,
+     * every transaction is polled by exactly one node at a time and the
+     * transactions of a node that dies are taken over by the others. Polling
+     * starts right away and stops when the coordinator is closed.
+     * <p>
+     * Default implementation throws
+     * {@linkplain UnsupportedOperationException}.
+     *
+     * @param nodeId     identifies this node, unique within the cluster.
+     * @param leaseStore storage shared by the nodes of the cluster.
+     * @param listener   receives status changes of the transactions polled
+     *                   by this node, may be {@code null}.
+     * @return started {@linkplain PollingCoordinator}
+     * @throws FrejaEidClientInternalException if node ID is empty or lease
+     *                                         store is not set.
+     */
+    public default PollingCoordinator<SignResult> createPollingCoordinator(
+            String nodeId, LeaseStore leaseStore, TransactionListener<SignResult> listener)
+            throws FrejaEidClientInternalException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Non-blocking variant of {@linkplain #cancel(CancelSignRequest)}.
+     * <p>
+     * Default implementation calls {@linkplain #cancel(CancelSignRequest)} in
+     * the calling thread and returns a completed stage.
+     *
+     * @param cancelSignRequest contains transaction reference.
+     * @return stage completed when transaction is canceled. Stage is completed
+     * exceptionally with {@linkplain FrejaEidClientInternalException} if
+     * internal validation of request fails or with
+     * {@linkplain FrejaEidException} if server returns an error.
+     */
+    public default CompletionStage<Void> cancelAsync(CancelSignRequest cancelSignRequest) {
+        return CompletedStages.of(() -> {
+            cancel(cancelSignRequest);
+            return null;
+        });
+    }
+
+    /**
+     * Releases the HTTP transport used by this client. Connections are closed
+     * once no other client shares the transport. Calling this method more
+     * than once has no effect.
+     * <p>
+     * Default implementation does nothing.
+     */
+    @Override
+    public default void close() {
+    }
+
 }
@@ -4,6 +4,7 @@ import com.verisec.frejaeid.client.beans.authentication.cancel.CancelAuthenticat
 import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResultsRequest;
 import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResultRequest;
 import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResult;
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResults;
 import com.verisec.frejaeid.client.beans.authentication.init.InitiateAuthenticationRequest;
 import com.verisec.frejaeid.client.beans.general.SslSettings;
 import com.verisec.frejaeid.client.client.api.AuthenticationClientApi;
@@ -12,13 +13,20 @@ import com.verisec.frejaeid.client.enums.TransactionContext;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidException;
-import com.verisec.frejaeid.client.http.HttpService;
+import com.verisec.frejaeid.client.http.AsyncHttpServiceApi;
 import com.verisec.frejaeid.client.http.HttpServiceApi;
+import com.verisec.frejaeid.client.service.LeaseStore;
+import com.verisec.frejaeid.client.service.PolledResults;
+import com.verisec.frejaeid.client.service.PollingCoordinator;
+import com.verisec.frejaeid.client.service.ResultPublisher;
+import com.verisec.frejaeid.client.service.TransactionListener;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 import javax.net.ssl.SSLContext;
 
 /**
@@ -30,9 +38,10 @@ public class AuthenticationClient extends BasicClient implements AuthenticationC
 
     private AuthenticationClient(String serverCustomUrl, int pollingTimeoutInMillseconds,
                                  TransactionContext transactionContext, HttpServiceApi httpService,
-                                 String resourceServiceUrl)
+                                 AsyncHttpServiceApi asyncHttpService, String resourceServiceUrl)
             throws FrejaEidClientInternalException {
-        super(serverCustomUrl, pollingTimeoutInMillseconds, transactionContext, httpService, resourceServiceUrl);
+        super(serverCustomUrl, pollingTimeoutInMillseconds, transactionContext, httpService, asyncHttpService,
+              resourceServiceUrl);
     }
 
     /**
@@ -100,11 +109,19 @@ public class AuthenticationClient extends BasicClient implements AuthenticationC
     public AuthenticationResult pollForResult(AuthenticationResultRequest authenticationResultRequest,
                                               int maxWaitingTimeInSec)
             throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException {
+        return pollForResult(authenticationResultRequest, maxWaitingTimeInSec, null);
+    }
+
+    @Override
+    public AuthenticationResult pollForResult(AuthenticationResultRequest authenticationResultRequest,
+                                              int maxWaitingTimeInSec,
+                                              TransactionListener<AuthenticationResult> listener)
+            throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException {
         requestValidationService.validateResultRequest(authenticationResultRequest);
         LOG.debug("Polling {}s for result for authentication transaction reference {}.", maxWaitingTimeInSec,
                   authenticationResultRequest.getAuthRef());
         AuthenticationResult authenticationResult = authenticationService.pollForResult(authenticationResultRequest,
-                                                                                        maxWaitingTimeInSec);
+                                                                                        maxWaitingTimeInSec, listener);
         LOG.debug("Received {} status for authentication transaction reference {}, after polling for result.",
                   authenticationResult.getStatus(), authenticationResult.getAuthRef());
         return authenticationResult;
@@ -129,6 +146,114 @@ public class AuthenticationClient extends BasicClient implements AuthenticationC
         return qrCodeBytes;
     }
 
+    @Override
+    public CompletionStage<String> initiateAsync(InitiateAuthenticationRequest initiateAuthenticationRequest) {
+        try {
+            requestValidationService.validateInitAuthRequest(initiateAuthenticationRequest,
+                                                             authenticationService.getTransactionContext());
+        } catch (FrejaEidClientInternalException ex) {
+            return failedFuture(ex);
+        }
+        LOG.debug("Initiating asynchronously authentication transaction for user info type {}, minimum registration " +
+                          "level of user {} and requesting attributes {}.",
+                  initiateAuthenticationRequest.getUserInfoType(),
+                  initiateAuthenticationRequest.getMinRegistrationLevel().getState(),
+                  initiateAuthenticationRequest.getAttributesToReturn());
+        return authenticationService.initiateAsync(initiateAuthenticationRequest).thenApply(response -> {
+            LOG.debug("Received authentication transaction reference {}.", response.getAuthRef());
+            return response.getAuthRef();
+        });
+    }
+
+    @Override
+    public CompletionStage<AuthenticationResult> getResultAsync(
+            AuthenticationResultRequest authenticationResultRequest) {
+        try {
+            requestValidationService.validateResultRequest(authenticationResultRequest);
+        } catch (FrejaEidClientInternalException ex) {
+            return failedFuture(ex);
+        }
+        LOG.debug("Getting asynchronously result for authentication transaction reference {}.",
+                  authenticationResultRequest.getAuthRef());
+        return authenticationService.getResultAsync(authenticationResultRequest);
+    }
+
+    @Override
+    public CompletionStage<List<AuthenticationResult>> getResultsAsync(
+            AuthenticationResultsRequest authenticationResultsRequest) {
+        try {
+            requestValidationService.validateResultsRequest(authenticationResultsRequest);
+        } catch (FrejaEidClientInternalException ex) {
+            return failedFuture(ex);
+        }
+        LOG.debug("Getting asynchronously all authentication transaction results.");
+        return authenticationService.getResultsAsync(authenticationResultsRequest)
+                .thenApply(AuthenticationResults::getAuthenticationResults);
+    }
+
+    @Override
+    public CompletionStage<AuthenticationResult> pollForResultAsync(
+            AuthenticationResultRequest authenticationResultRequest, int maxWaitingTimeInSec) {
+        return pollForResultAsync(authenticationResultRequest, maxWaitingTimeInSec, null);
+    }
+
+    @Override
+    public CompletionStage<AuthenticationResult> pollForResultAsync(
+            AuthenticationResultRequest authenticationResultRequest, int maxWaitingTimeInSec,
+            TransactionListener<AuthenticationResult> listener) {
+        try {
+            requestValidationService.validateResultRequest(authenticationResultRequest);
+        } catch (FrejaEidClientInternalException ex) {
+            return failedFuture(ex);
+        }
+        LOG.debug("Polling asynchronously {}s for result for authentication transaction reference {}.",
+                  maxWaitingTimeInSec, authenticationResultRequest.getAuthRef());
+        return authenticationService.pollForResultAsync(authenticationResultRequest, maxWaitingTimeInSec, listener);
+    }
+
+    @Override
+    public ResultPublisher<AuthenticationResult> getResultPublisher(
+            AuthenticationResultRequest authenticationResultRequest, int maxWaitingTimeInSec)
+            throws FrejaEidClientInternalException {
+        requestValidationService.validateResultRequest(authenticationResultRequest);
+        LOG.debug("Publishing results of authentication transaction reference {} for {}s.",
+                  authenticationResultRequest.getAuthRef(), maxWaitingTimeInSec);
+        return authenticationService.getResultPublisher(authenticationResultRequest, maxWaitingTimeInSec);
+    }
+
+    @Override
+    public PolledResults<AuthenticationResult> pollForResults(
+            Collection<AuthenticationResultRequest> authenticationResultRequests, int maxWaitingTimeInSec,
+            int maxConcurrentRequests, TransactionListener<AuthenticationResult> listener)
+            throws FrejaEidClientInternalException {
+        requestValidationService.validateResultRequests(authenticationResultRequests, maxConcurrentRequests);
+        LOG.debug("Polling asynchronously {}s for results of {} authentication transactions.", maxWaitingTimeInSec,
+                  authenticationResultRequests.size());
+        return authenticationService.pollForResults(authenticationResultRequests, maxWaitingTimeInSec,
+                                                    maxConcurrentRequests, listener);
+    }
+
+    @Override
+    public PollingCoordinator<AuthenticationResult> createPollingCoordinator(
+            String nodeId, LeaseStore leaseStore, TransactionListener<AuthenticationResult> listener)
+            throws FrejaEidClientInternalException {
+        requestValidationService.validatePollingCoordinatorSettings(nodeId, leaseStore);
+        LOG.debug("Starting coordinated polling for results of authentication transactions on node {}.", nodeId);
+        return authenticationService.createPollingCoordinator(nodeId, leaseStore, listener);
+    }
+
+    @Override
+    public CompletionStage<Void> cancelAsync(CancelAuthenticationRequest cancelAuthenticationRequest) {
+        try {
+            requestValidationService.validateCancelRequest(cancelAuthenticationRequest);
+        } catch (FrejaEidClientInternalException ex) {
+            return failedFuture(ex);
+        }
+        LOG.debug("Canceling asynchronously authentication transaction with reference {}.",
+                  cancelAuthenticationRequest.getAuthRef());
+        return authenticationService.cancelAsync(cancelAuthenticationRequest).thenApply(response -> null);
+    }
+
     public static class Builder extends GenericBuilder {
 
         public static final Logger LOG = LogManager.getLogger(Builder.class);
@@ -146,18 +271,18 @@ public class AuthenticationClient extends BasicClient implements AuthenticationC
 
         @Override
         public AuthenticationClient build() throws FrejaEidClientInternalException {
-            if (httpService == null) {
-                httpService = new HttpService(sslContext, connectionTimeout, readTimeout);
-            }
             if (pollingTimeout == 0) {
                 pollingTimeout = DEFAULT_POLLING_TIMEOUT_IN_MILLISECONDS;
             }
             checkSetParameters();
+            initHttpServices(true);
             LOG.debug("Successfully created AuthenticationClient with server URL {}, polling timeout {}ms and " +
                               "transaction context {}.",
                       serverCustomUrl, pollingTimeout, transactionContext.getContext());
 
-            return new AuthenticationClient(serverCustomUrl, pollingTimeout, transactionContext, httpService, resourceServiceUrl);
+            return withTransport(withPollingSettings(
+                    new AuthenticationClient(serverCustomUrl, pollingTimeout, transactionContext, httpService,
+                                             asyncHttpService, resourceServiceUrl)));
         }
 
     }
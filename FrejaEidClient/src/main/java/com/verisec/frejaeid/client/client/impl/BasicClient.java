@@ -1,43 +1,48 @@
 package com.verisec.frejaeid.client.client.impl;
 
 import com.verisec.frejaeid.client.enums.FrejaEnvironment;
-import com.verisec.frejaeid.client.enums.KeyStoreType;
+import com.verisec.frejaeid.client.enums.HttpProtocolVersion;
 import com.verisec.frejaeid.client.enums.TransactionContext;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.http.AsyncHttpService;
+import com.verisec.frejaeid.client.http.AsyncHttpServiceApi;
+import com.verisec.frejaeid.client.http.CircuitBreaker;
+import com.verisec.frejaeid.client.http.ConnectionPoolSettings;
+import com.verisec.frejaeid.client.http.HttpService;
 import com.verisec.frejaeid.client.http.HttpServiceApi;
+import com.verisec.frejaeid.client.http.RetryPolicy;
+import com.verisec.frejaeid.client.http.SharedHttpTransport;
+import com.verisec.frejaeid.client.service.BasicService;
 import com.verisec.frejaeid.client.service.AuthenticationService;
 import com.verisec.frejaeid.client.service.OrganisationIdService;
+import com.verisec.frejaeid.client.service.PollingStrategy;
 import com.verisec.frejaeid.client.service.RequestValidationService;
 import com.verisec.frejaeid.client.service.SignService;
 import com.verisec.frejaeid.client.service.CustomIdentifierService;
 import com.verisec.frejaeid.client.service.CustodianshipService;
 import com.verisec.frejaeid.client.util.JsonService;
+import com.verisec.frejaeid.client.util.SslContextFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.security.KeyManagementException;
-import java.security.KeyStore;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.UnrecoverableKeyException;
-import java.security.cert.CertificateException;
-import java.security.cert.CertificateFactory;
-import java.security.cert.X509Certificate;
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
-import javax.net.ssl.KeyManagerFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.net.ssl.SSLContext;
-import javax.net.ssl.TrustManagerFactory;
 
 
-public class BasicClient {
+public class BasicClient implements Closeable {
+
+    public static final Logger LOG = LogManager.getLogger(BasicClient.class);
 
     private static final int DEFAULT_CONNECTION_TIMEOUT_IN_MILLISECONDS = 20000;
     private static final int DEFAULT_READ_TIMEOUT_IN_MILLISECONDS = 20000;
     protected static final int DEFAULT_POLLING_TIMEOUT_IN_MILLISECONDS = 3000;
-    private static final int MINIMUM_POLLING_TIMEOUT_IN_MILLISECONDS = 1000;
+    private static final int MINIMUM_POLLING_TIMEOUT_IN_MILLISECONDS =
+            (int) PollingStrategy.MINIMUM_INTERVAL_IN_MILLISECONDS;
     private static final int MAXIMUM_POLLING_TIMEOUT_IN_MILLISECONDS = 60000;
     protected JsonService jsonService;
     protected AuthenticationService authenticationService;
@@ -46,22 +51,45 @@ public class BasicClient {
     protected CustomIdentifierService customIdentifierService;
     protected RequestValidationService requestValidationService;
     protected CustodianshipService custodianshipService;
+    private SharedHttpTransport transport;
+    private final AtomicBoolean closed = new AtomicBoolean();
 
     protected BasicClient(String serverCustomUrl, int pollingTimeoutInMillseconds,
-                          TransactionContext transactionContext, HttpServiceApi httpService, String resourceServiceUrl)
+                          TransactionContext transactionContext, HttpServiceApi httpService,
+                          AsyncHttpServiceApi asyncHttpService, String resourceServiceUrl)
             throws FrejaEidClientInternalException {
         jsonService = new JsonService();
         signService = new SignService(serverCustomUrl, pollingTimeoutInMillseconds, transactionContext, httpService,
-                                      resourceServiceUrl);
+                                      asyncHttpService, resourceServiceUrl);
         organisationIdService = new OrganisationIdService(serverCustomUrl, pollingTimeoutInMillseconds, httpService,
-                                                          resourceServiceUrl);
+                                                          asyncHttpService, resourceServiceUrl);
         customIdentifierService = new CustomIdentifierService(serverCustomUrl, httpService, resourceServiceUrl);
-        authenticationService = new AuthenticationService(serverCustomUrl, httpService, pollingTimeoutInMillseconds,
-                                                          transactionContext, resourceServiceUrl);
+        authenticationService = new AuthenticationService(serverCustomUrl, httpService, asyncHttpService,
+                                                          pollingTimeoutInMillseconds, transactionContext,
+                                                          resourceServiceUrl);
         requestValidationService = new RequestValidationService();
         custodianshipService = new CustodianshipService(serverCustomUrl, httpService, resourceServiceUrl);
     }
 
+    /**
+     * Releases the HTTP transport used by this client. Connections are closed
+     * once no other client shares the transport. Calling this method more
+     * than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (transport != null && closed.compareAndSet(false, true)) {
+            LOG.debug("Closing {}.", getClass().getSimpleName());
+            transport.release();
+        }
+    }
+
+    protected static <T> CompletableFuture<T> failedFuture(Throwable throwable) {
+        CompletableFuture<T> failedFuture = new CompletableFuture<>();
+        failedFuture.completeExceptionally(throwable);
+        return failedFuture;
+    }
+
     public abstract static class GenericBuilder {
 
         public static final Logger LOG = LogManager.getLogger(GenericBuilder.class);
@@ -73,9 +101,33 @@ public class BasicClient {
         protected static final String FREJA_ENVIRONMENT_PROD = "PRODUCTION";
         protected static final String FREJA_ENVIRONMENT_TEST = "TEST";
         protected HttpServiceApi httpService;
+        protected AsyncHttpServiceApi asyncHttpService;
         protected SSLContext sslContext;
         protected TransactionContext transactionContext;
         protected String resourceServiceUrl = null;
+        protected int maxConnectionsTotal = ConnectionPoolSettings.DEFAULT_MAX_CONNECTIONS_TOTAL;
+        protected int maxConnectionsPerRoute = ConnectionPoolSettings.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+        protected int validateAfterInactivity =
+                ConnectionPoolSettings.DEFAULT_VALIDATE_AFTER_INACTIVITY_IN_MILLISECONDS;
+        protected long connectionTimeToLive = ConnectionPoolSettings.DEFAULT_CONNECTION_TIME_TO_LIVE_IN_MILLISECONDS;
+        protected int adaptiveMaxConnectionsLimit = 0;
+        protected long keepAliveDuration = ConnectionPoolSettings.DEFAULT_KEEP_ALIVE_DURATION_IN_MILLISECONDS;
+        protected long evictionInterval = ConnectionPoolSettings.DEFAULT_EVICTION_INTERVAL_IN_MILLISECONDS;
+        protected int warmUpConnections = 0;
+        protected boolean batchPolling = false;
+        protected PollingStrategy pollingStrategy = PollingStrategy.fixed();
+        protected Executor pollingExecutor;
+        protected boolean cancelOnPollingTimeout = false;
+        protected int finalResultCacheSize = BasicService.DEFAULT_FINAL_RESULT_CACHE_SIZE;
+        protected long finalResultCacheTimeToLive =
+                BasicService.DEFAULT_FINAL_RESULT_CACHE_TIME_TO_LIVE_IN_MILLISECONDS;
+        protected long expiryGracePeriod = BasicService.DEFAULT_EXPIRY_GRACE_PERIOD_IN_MILLISECONDS;
+        protected RetryPolicy retryPolicy = RetryPolicy.createDefault();
+        protected CircuitBreaker circuitBreaker;
+        protected SharedHttpTransport sharedTransport;
+        protected HttpProtocolVersion httpProtocolVersion = HttpProtocolVersion.HTTP_1_1;
+        private SharedHttpTransport transport;
+        private boolean httpServicesInjected = false;
 
         public GenericBuilder(SSLContext sslContext, FrejaEnvironment frejaEnvironment) {
             if (sslContext != null) {
@@ -87,28 +139,7 @@ public class BasicClient {
         public GenericBuilder(String keystorePath, String keystorePass, String certificatePath,
                               FrejaEnvironment frejaEnvironment)
                 throws FrejaEidClientInternalException {
-            int numberOfFails = 0;
-            for (KeyStoreType keyStoreType : KeyStoreType.values()) {
-                try (InputStream keyStoreStream = new FileInputStream(keystorePath)) {
-                    KeyStore keyStore = KeyStore.getInstance(keyStoreType.getType());
-                    keyStore.load(keyStoreStream, keystorePass.toCharArray());
-                    LOG.debug("Creating SSL context with keystore file on path {}.", keystorePath);
-                    createSSLContext(keyStore, keystorePass, certificatePath);
-
-                } catch (FrejaEidClientInternalException | IOException | KeyStoreException
-                        | NoSuchAlgorithmException | CertificateException e) {
-                    LOG.error("Failed to initialize SSL context with keystore type {} and path {}.", keyStoreType,
-                              keystorePath, e);
-                    numberOfFails++;
-                    continue;
-                }
-                break;
-            }
-            if (numberOfFails == KeyStoreType.values().length) {
-                throw new FrejaEidClientInternalException(
-                        String.format("Failed to initiate SSL context with supported keystore types %s.",
-                                      KeyStoreType.getAllKeyStoreTypes()));
-            }
+            this.sslContext = SslContextFactory.create(keystorePath, keystorePass, certificatePath);
             setServerUrl(frejaEnvironment);
         }
 
@@ -123,42 +154,6 @@ public class BasicClient {
             }
         }
 
-        private KeyStore createTrustStoreWithCertificate(String certificatePath)
-                throws FrejaEidClientInternalException {
-            LOG.debug("Creating trust store with certificate on path {}.", certificatePath);
-            try (InputStream stream = new FileInputStream(certificatePath)) {
-                CertificateFactory cf = CertificateFactory.getInstance("X.509");
-                X509Certificate caCert = (X509Certificate) cf.generateCertificate(stream);
-                KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
-                trustStore.load(null);
-                trustStore.setCertificateEntry("rootCA", caCert);
-                return trustStore;
-            } catch (KeyStoreException | NoSuchAlgorithmException | IOException | CertificateException ex) {
-                throw new FrejaEidClientInternalException("Failed to create trust store with certificate. ", ex);
-            }
-        }
-
-        private void createSSLContext(KeyStore keyStore, String keystorePass, String certificatePath)
-                throws FrejaEidClientInternalException {
-            try {
-                KeyManagerFactory keyManagerFactory =
-                        KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
-                keyManagerFactory.init(keyStore, keystorePass.toCharArray());
-                TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
-                if (certificatePath != null) {
-                    keyStore = createTrustStoreWithCertificate(certificatePath);
-                }
-                tmf.init(keyStore);
-                SSLContext sslContext = SSLContext.getInstance("SSL");
-                sslContext.init(keyManagerFactory.getKeyManagers(), tmf.getTrustManagers(), null);
-                LOG.debug("Successfully created SSL context.");
-                this.sslContext = sslContext;
-            } catch (KeyManagementException | KeyStoreException
-                    | NoSuchAlgorithmException | UnrecoverableKeyException ex) {
-                throw new FrejaEidClientInternalException("Failed to create SSL context. ", ex);
-            }
-        }
-
         /**
          * Connection timeout is time to establish the connection with remote
          * host.
@@ -201,8 +196,333 @@ public class BasicClient {
             return this;
         }
 
+        /**
+         * Maximum number of pooled connections. Requests above this number wait
+         * for a free connection up to the connection timeout.
+         *
+         * @param maxConnectionsTotal maximum number of connections. Default
+         *                            value is {@value ConnectionPoolSettings#DEFAULT_MAX_CONNECTIONS_TOTAL}.
+         * @return clientBuilder
+         */
+        public GenericBuilder setMaxConnectionsTotal(int maxConnectionsTotal) {
+            LOG.debug("Maximum number of connections set to {}.", maxConnectionsTotal);
+            this.maxConnectionsTotal = maxConnectionsTotal;
+            return this;
+        }
+
+        /**
+         * Maximum number of pooled connections to a single host. Must not be
+         * greater than the maximum number of connections in total.
+         *
+         * @param maxConnectionsPerRoute maximum number of connections per host.
+         *                               Default value is
+         *                               {@value ConnectionPoolSettings#DEFAULT_MAX_CONNECTIONS_PER_ROUTE}.
+         * @return clientBuilder
+         */
+        public GenericBuilder setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            LOG.debug("Maximum number of connections per route set to {}.", maxConnectionsPerRoute);
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * Period of inactivity after which a pooled connection is checked for
+         * staleness before it is reused.
+         *
+         * @param validateAfterInactivity in milliseconds. Non-positive value
+         *                                disables the check. Default value is
+         *                                {@value
+         *                                ConnectionPoolSettings#DEFAULT_VALIDATE_AFTER_INACTIVITY_IN_MILLISECONDS}
+         *                                milliseconds.
+         * @return clientBuilder
+         */
+        public GenericBuilder setValidateAfterInactivity(int validateAfterInactivity) {
+            LOG.debug("Validate after inactivity set to {}ms.", validateAfterInactivity);
+            this.validateAfterInactivity = validateAfterInactivity;
+            return this;
+        }
+
+        /**
+         * Maximum lifetime of a pooled connection, after which it is closed
+         * instead of being reused.
+         *
+         * @param connectionTimeToLive in milliseconds. Non-positive value means
+         *                             connections are kept until closed by the
+         *                             server, which is the default.
+         * @return clientBuilder
+         */
+        public GenericBuilder setConnectionTimeToLive(long connectionTimeToLive) {
+            LOG.debug("Connection time to live set to {}ms.", connectionTimeToLive);
+            this.connectionTimeToLive = connectionTimeToLive;
+            return this;
+        }
+
+        /**
+         * Enables adaptive pool sizing. The pool starts with the maximum number
+         * of connections in total and grows with the number of requests in
+         * flight, up to the given limit.
+         *
+         * @param adaptiveMaxConnectionsLimit upper bound of the pool size. Must
+         *                                    not be lower than the maximum
+         *                                    number of connections in total.
+         * @return clientBuilder
+         */
+        public GenericBuilder setAdaptiveConnectionPool(int adaptiveMaxConnectionsLimit) {
+            LOG.debug("Adaptive connection pool enabled with limit of {} connections.", adaptiveMaxConnectionsLimit);
+            this.adaptiveMaxConnectionsLimit = adaptiveMaxConnectionsLimit;
+            return this;
+        }
+
+        /**
+         * Maximum time an idle connection is kept in the pool. Shorter
+         * {@code Keep-Alive} timeout announced by the server takes precedence.
+         *
+         * @param keepAliveDuration in milliseconds. Default value is
+         *                          {@value ConnectionPoolSettings#DEFAULT_KEEP_ALIVE_DURATION_IN_MILLISECONDS}.
+         * @return clientBuilder
+         */
+        public GenericBuilder setKeepAliveDuration(long keepAliveDuration) {
+            LOG.debug("Connection keep-alive duration set to {}ms.", keepAliveDuration);
+            this.keepAliveDuration = keepAliveDuration;
+            return this;
+        }
+
+        /**
+         * How often expired and idle connections are closed in the background.
+         *
+         * @param evictionInterval in milliseconds. Non-positive value disables
+         *                         eviction. Default value is
+         *                         {@value ConnectionPoolSettings#DEFAULT_EVICTION_INTERVAL_IN_MILLISECONDS}.
+         * @return clientBuilder
+         */
+        public GenericBuilder setIdleConnectionEvictionInterval(long evictionInterval) {
+            LOG.debug("Idle connection eviction interval set to {}ms.", evictionInterval);
+            this.evictionInterval = evictionInterval;
+            return this;
+        }
+
+        /**
+         * Policy for retrying idempotent requests, such as fetching results,
+         * on I/O errors and temporary HTTP failures. Other requests are never
+         * retried.
+         *
+         * @param retryPolicy instance of {@linkplain RetryPolicy}. Default
+         *                    value is {@linkplain RetryPolicy#createDefault()},
+         *                    {@linkplain RetryPolicy#disabled()} turns retries
+         *                    off.
+         * @return clientBuilder
+         */
+        public GenericBuilder setRetryPolicy(RetryPolicy retryPolicy) {
+            LOG.debug("Retry policy set to maximum {} retries.",
+                      retryPolicy != null ? retryPolicy.getMaxRetries() : null);
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Circuit breaker guarding requests to each Freja eID method. Keep a
+         * reference to the passed instance to observe circuit states. When
+         * not set, a circuit breaker with default thresholds is created for
+         * every client. Has no effect when shared transport is used, the
+         * circuit breaker of the transport applies then.
+         *
+         * @param circuitBreaker instance of {@linkplain CircuitBreaker},
+         *                       {@linkplain CircuitBreaker#disabled()} turns
+         *                       circuit breaking off.
+         * @return clientBuilder
+         */
+        public GenericBuilder setCircuitBreaker(CircuitBreaker circuitBreaker) {
+            LOG.debug("Circuit breaker set.");
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        /**
+         * Opens and validates given number of pooled connections to Freja eID
+         * service and resource service before the client is returned from
+         * {@code build()}, so that first transactions do not pay for DNS
+         * lookup, TCP connect and TLS handshake. Connections that cannot be
+         * opened are logged and do not fail the build. Only applies to
+         * {@linkplain HttpProtocolVersion#HTTP_1_1} transport.
+         *
+         * @param connections number of connections per service. Capped by
+         *                    maximum number of connections per route. Default
+         *                    value is 0, which disables warm-up.
+         * @return clientBuilder
+         */
+        public GenericBuilder warmUp(int connections) {
+            LOG.debug("Connection warm-up set to {} connections.", connections);
+            this.warmUpConnections = connections;
+            return this;
+        }
+
+        /**
+         * Only used for authentication and sign clients. When enabled, pending
+         * {@code pollForResult} calls are satisfied by one results request per
+         * relying party and polling timeout instead of one result request per
+         * transaction. Transactions missing from the results are polled
+         * individually.
+         *
+         * @param batchPolling whether to poll for results in batches. Default
+         *                     value is {@code false}.
+         * @return clientBuilder
+         */
+        public GenericBuilder setBatchPolling(boolean batchPolling) {
+            LOG.debug("Batch polling set to {}.", batchPolling);
+            this.batchPolling = batchPolling;
+            return this;
+        }
+
+        /**
+         * Decides intervals between polls made by {@code pollForResult}
+         * methods. Does not apply to batch polling, which polls every polling
+         * timeout.
+         *
+         * @param pollingStrategy instance of {@linkplain PollingStrategy}.
+         *                        Default value is
+         *                        {@linkplain PollingStrategy#fixed()}, which
+         *                        polls every polling timeout.
+         * @return clientBuilder
+         */
+        public GenericBuilder setPollingStrategy(PollingStrategy pollingStrategy) {
+            LOG.debug("Polling strategy set.");
+            this.pollingStrategy = pollingStrategy;
+            return this;
+        }
+
+        /**
+         * Only used for authentication, sign and organisation ID clients. When
+         * enabled, a transaction is cancelled on the server as soon as
+         * {@code pollForResult} gives up on it, i.e. when it throws
+         * {@linkplain com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException},
+         * when the future returned by {@code pollForResultAsync} is cancelled
+         * or when the thread waiting in {@code pollForResult} is interrupted.
+         * The user then no longer sees the transaction in the mobile
+         * application. Cancel request is sent in the background and its
+         * failure is only logged.
+         *
+         * @param cancelOnPollingTimeout whether to cancel abandoned
+         *                               transactions. Default value is
+         *                               {@code false}.
+         * @return clientBuilder
+         */
+        public GenericBuilder setCancelOnPollingTimeout(boolean cancelOnPollingTimeout) {
+            LOG.debug("Cancel on polling timeout set to {}.", cancelOnPollingTimeout);
+            this.cancelOnPollingTimeout = cancelOnPollingTimeout;
+            return this;
+        }
+
+        /**
+         * Only used for authentication, sign and organisation ID clients.
+         * Results in a final status never change, so they can be cached and
+         * repeated {@code getResult} calls for them, e.g. from callback
+         * handlers, answered without contacting the server. Polling for a
+         * result already cached completes right away.
+         * <p>
+         * The cache is disabled by default. Results may contain personal data
+         * of users, such as requested attributes, which stays in memory of
+         * the client for up to {@code timeToLive} once the cache is enabled.
+         * Choose the size and time to live with your data retention policy in
+         * mind.
+         *
+         * @param maxSize    maximum number of cached results per client, the
+         *                   least recently used are evicted first. Zero
+         *                   disables the cache. Default value is 0.
+         * @param timeToLive how long in milliseconds a result stays cached.
+         *                   Default value is 10 minutes.
+         * @return clientBuilder
+         */
+        public GenericBuilder setFinalResultCache(int maxSize, long timeToLive) {
+            LOG.debug("Final result cache set to {} results for {}ms.", maxSize, timeToLive);
+            this.finalResultCacheSize = maxSize;
+            this.finalResultCacheTimeToLive = timeToLive;
+            return this;
+        }
+
+        /**
+         * Only used for sign and organisation ID clients. Polling for a
+         * transaction goes on for this long after its expiry, to cover clock
+         * differences between the client and Freja eID, before
+         * {@linkplain com.verisec.frejaeid.client.enums.TransactionStatus#EXPIRED}
+         * is reported. The status is reported only after the server still
+         * returned no final status once the grace period passed.
+         *
+         * @param gracePeriod in milliseconds, cannot be negative. Default value
+         *                    is 5 seconds.
+         * @return clientBuilder
+         */
+        public GenericBuilder setExpiryGracePeriod(long gracePeriod) {
+            LOG.debug("Expiry grace period set to {}ms.", gracePeriod);
+            this.expiryGracePeriod = gracePeriod;
+            return this;
+        }
+
+        /**
+         * Executor running the blocking HTTP requests made by
+         * {@code pollForResult} methods and batch polling. By default they run
+         * on a bounded set of threads shared by all clients, as many as the
+         * default maximum of pooled connections, and polls beyond that wait
+         * for a free thread. On Java 21 or later an executor starting a
+         * virtual thread per task, e.g.
+         * {@code Executors.newVirtualThreadPerTaskExecutor()}, lets tens of
+         * thousands of transactions be polled concurrently without a platform
+         * thread per request in flight. Waiting between polls never occupies a
+         * thread of the executor.
+         *
+         * @param pollingExecutor executor for polls, {@code null} for the
+         *                        shared polling threads. Default value is
+         *                        {@code null}.
+         * @return clientBuilder
+         */
+        public GenericBuilder setPollingExecutor(Executor pollingExecutor) {
+            LOG.debug("Polling executor set.");
+            this.pollingExecutor = pollingExecutor;
+            return this;
+        }
+
+        /**
+         * HTTP protocol used for communication with Freja eID services. With
+         * {@linkplain HttpProtocolVersion#HTTP_2} concurrent requests are
+         * multiplexed over shared connections and connection pool settings of
+         * this builder are ignored.
+         *
+         * @param httpProtocolVersion protocol version. Default value is
+         *                            {@linkplain HttpProtocolVersion#HTTP_1_1}.
+         * @return clientBuilder
+         */
+        public GenericBuilder setHttpProtocolVersion(HttpProtocolVersion httpProtocolVersion) {
+            LOG.debug("HTTP protocol version set to {}.", httpProtocolVersion);
+            this.httpProtocolVersion = httpProtocolVersion;
+            return this;
+        }
+
+        /**
+         * Uses given transport instead of creating a new connection pool for
+         * this client. Connection and read timeouts, protocol version and
+         * connection pool settings of this builder are ignored, those of the
+         * transport apply.
+         * Built client releases its reference to the transport when it is
+         * closed.
+         *
+         * @param sharedTransport instance of {@linkplain SharedHttpTransport}
+         *                        shared with other clients.
+         * @return clientBuilder
+         */
+        public GenericBuilder setSharedTransport(SharedHttpTransport sharedTransport) {
+            LOG.debug("Shared HTTP transport set.");
+            this.sharedTransport = sharedTransport;
+            return this;
+        }
+
         GenericBuilder setHttpService(HttpServiceApi httpService) {
             this.httpService = httpService;
+            this.httpServicesInjected = true;
+            return this;
+        }
+
+        GenericBuilder setAsyncHttpService(AsyncHttpServiceApi asyncHttpService) {
+            this.asyncHttpService = asyncHttpService;
+            this.httpServicesInjected = true;
             return this;
         }
 
@@ -233,6 +553,86 @@ public class BasicClient {
 
         public abstract <T extends BasicClient> T build() throws FrejaEidClientInternalException;
 
+        /**
+         * Takes a reference to the shared transport, or creates a transport
+         * owned by the client being built, unless HTTP services were set
+         * directly.
+         */
+        protected void initHttpServices(boolean asyncHttpServiceRequired) throws FrejaEidClientInternalException {
+            transport = null;
+            if (httpServicesInjected) {
+                return;
+            }
+            if (sharedTransport != null) {
+                transport = sharedTransport.acquire();
+            } else if (httpProtocolVersion == HttpProtocolVersion.HTTP_2) {
+                transport = SharedHttpTransport.createHttp2(sslContext, connectionTimeout, readTimeout, retryPolicy,
+                                                            createCircuitBreaker());
+            } else {
+                ConnectionPoolSettings connectionPoolSettings = createConnectionPoolSettings();
+                CircuitBreaker clientCircuitBreaker = createCircuitBreaker();
+                transport = new SharedHttpTransport(
+                        new HttpService(sslContext, connectionTimeout, readTimeout, connectionPoolSettings,
+                                        retryPolicy, clientCircuitBreaker),
+                        asyncHttpServiceRequired
+                        ? new AsyncHttpService(sslContext, connectionTimeout, readTimeout, connectionPoolSettings,
+                                               retryPolicy, clientCircuitBreaker)
+                        : null);
+            }
+            httpService = transport.getHttpService();
+            asyncHttpService = asyncHttpServiceRequired ? transport.getAsyncHttpService() : null;
+            if (warmUpConnections > 0 && httpService instanceof HttpService) {
+                ((HttpService) httpService).warmUp(Arrays.asList(serverCustomUrl, resourceServiceUrl),
+                                                   warmUpConnections);
+            }
+        }
+
+        /**
+         * Applies polling settings of this builder to services of the client
+         * being built.
+         */
+        protected <T extends BasicClient> T withPollingSettings(T client) {
+            BasicClient basicClient = client;
+            basicClient.authenticationService.setPollingStrategy(pollingStrategy);
+            basicClient.authenticationService.setPollingExecutor(pollingExecutor);
+            basicClient.authenticationService.setCancelOnPollingTimeout(cancelOnPollingTimeout);
+            basicClient.authenticationService.setBatchPolling(batchPolling);
+            basicClient.signService.setPollingStrategy(pollingStrategy);
+            basicClient.signService.setPollingExecutor(pollingExecutor);
+            basicClient.signService.setCancelOnPollingTimeout(cancelOnPollingTimeout);
+            basicClient.signService.setBatchPolling(batchPolling);
+            basicClient.organisationIdService.setPollingStrategy(pollingStrategy);
+            basicClient.organisationIdService.setPollingExecutor(pollingExecutor);
+            basicClient.organisationIdService.setCancelOnPollingTimeout(cancelOnPollingTimeout);
+            basicClient.authenticationService.setFinalResultCache(finalResultCacheSize, finalResultCacheTimeToLive);
+            basicClient.signService.setFinalResultCache(finalResultCacheSize, finalResultCacheTimeToLive);
+            basicClient.organisationIdService.setFinalResultCache(finalResultCacheSize, finalResultCacheTimeToLive);
+            basicClient.signService.setExpiryGracePeriod(expiryGracePeriod);
+            basicClient.organisationIdService.setExpiryGracePeriod(expiryGracePeriod);
+            return client;
+        }
+
+        protected <T extends BasicClient> T withTransport(T client) {
+            ((BasicClient) client).transport = transport;
+            return client;
+        }
+
+        protected CircuitBreaker createCircuitBreaker() {
+            return circuitBreaker != null ? circuitBreaker : CircuitBreaker.createDefault();
+        }
+
+        protected ConnectionPoolSettings createConnectionPoolSettings() throws FrejaEidClientInternalException {
+            return ConnectionPoolSettings.createCustom()
+                    .setMaxConnectionsTotal(maxConnectionsTotal)
+                    .setMaxConnectionsPerRoute(maxConnectionsPerRoute)
+                    .setValidateAfterInactivity(validateAfterInactivity)
+                    .setConnectionTimeToLive(connectionTimeToLive)
+                    .setAdaptiveMaxConnectionsLimit(adaptiveMaxConnectionsLimit)
+                    .setKeepAliveDuration(keepAliveDuration)
+                    .setEvictionInterval(evictionInterval)
+                    .build();
+        }
+
         protected void checkSetParameters() throws FrejaEidClientInternalException {
             if (pollingTimeout < MINIMUM_POLLING_TIMEOUT_IN_MILLISECONDS
                     || pollingTimeout > MAXIMUM_POLLING_TIMEOUT_IN_MILLISECONDS) {
@@ -244,6 +644,15 @@ public class BasicClient {
             if (transactionContext == null) {
                 transactionContext = TransactionContext.PERSONAL;
             }
+            if (retryPolicy == null) {
+                throw new FrejaEidClientInternalException("RetryPolicy cannot be null.");
+            }
+            if (pollingStrategy == null) {
+                throw new FrejaEidClientInternalException("PollingStrategy cannot be null.");
+            }
+            if (expiryGracePeriod < 0) {
+                throw new FrejaEidClientInternalException("Expiry grace period cannot be negative.");
+            }
         }
 
     }
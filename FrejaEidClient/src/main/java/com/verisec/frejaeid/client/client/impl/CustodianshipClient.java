@@ -8,7 +8,6 @@ import com.verisec.frejaeid.client.enums.FrejaEnvironment;
 import com.verisec.frejaeid.client.enums.TransactionContext;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidException;
-import com.verisec.frejaeid.client.http.HttpService;
 import com.verisec.frejaeid.client.http.HttpServiceApi;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -20,7 +19,7 @@ public class CustodianshipClient extends BasicClient implements CustodianshipCli
 
     private CustodianshipClient(String serverCustomUrl, int pollingTimeout, HttpServiceApi httpService)
             throws FrejaEidClientInternalException {
-        super(serverCustomUrl, pollingTimeout, TransactionContext.PERSONAL, httpService, null);
+        super(serverCustomUrl, pollingTimeout, TransactionContext.PERSONAL, httpService, null, null);
     }
 
     public static CustodianshipClient.Builder create(SslSettings sslSettings, FrejaEnvironment frejaEnvironment)
@@ -62,17 +61,15 @@ public class CustodianshipClient extends BasicClient implements CustodianshipCli
         @Override
         public CustodianshipClient build() throws FrejaEidClientInternalException {
             transactionContext = TransactionContext.PERSONAL;
-            if (httpService == null) {
-                httpService = new HttpService(sslContext, connectionTimeout, readTimeout);
-            }
             if (pollingTimeout == 0) {
                 pollingTimeout = DEFAULT_POLLING_TIMEOUT_IN_MILLISECONDS;
             }
             checkSetParameters();
+            initHttpServices(false);
             LOG.debug("Successfully created CustodianshipClient with server URL {}, polling timeout {}ms and " +
                               "transaction context {}.",
                       serverCustomUrl, pollingTimeout, transactionContext.getContext());
-            return new CustodianshipClient(serverCustomUrl, pollingTimeout, httpService);
+            return withTransport(new CustodianshipClient(serverCustomUrl, pollingTimeout, httpService));
         }
 
     }
@@ -5,7 +5,6 @@ import com.verisec.frejaeid.client.beans.usermanagement.customidentifier.delete.
 import com.verisec.frejaeid.client.beans.usermanagement.customidentifier.set.SetCustomIdentifierRequest;
 import com.verisec.frejaeid.client.enums.FrejaEnvironment;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
-import com.verisec.frejaeid.client.http.HttpService;
 import com.verisec.frejaeid.client.http.HttpServiceApi;
 
 import javax.net.ssl.SSLContext;
@@ -25,7 +24,7 @@ public class CustomIdentifierClient extends BasicClient implements CustomIdentif
 
     private CustomIdentifierClient(String serverCustomUrl, int pollingTimeout, HttpServiceApi httpService)
             throws FrejaEidClientInternalException {
-        super(serverCustomUrl, pollingTimeout, TransactionContext.PERSONAL, httpService, null);
+        super(serverCustomUrl, pollingTimeout, TransactionContext.PERSONAL, httpService, null, null);
     }
 
     /**
@@ -89,17 +88,15 @@ public class CustomIdentifierClient extends BasicClient implements CustomIdentif
         @Override
         public CustomIdentifierClient build() throws FrejaEidClientInternalException {
             transactionContext = TransactionContext.PERSONAL;
-            if (httpService == null) {
-                httpService = new HttpService(sslContext, connectionTimeout, readTimeout);
-            }
             if (pollingTimeout == 0) {
                 pollingTimeout = DEFAULT_POLLING_TIMEOUT_IN_MILLISECONDS;
             }
             checkSetParameters();
+            initHttpServices(false);
             LOG.debug("Successfully created CustomIdentifierClient with server URL {}, polling timeout {}ms and " +
                               "transaction context {}.",
                       serverCustomUrl, pollingTimeout, transactionContext.getContext());
-            return new CustomIdentifierClient(serverCustomUrl, pollingTimeout, httpService);
+            return withTransport(new CustomIdentifierClient(serverCustomUrl, pollingTimeout, httpService));
         }
 
     }
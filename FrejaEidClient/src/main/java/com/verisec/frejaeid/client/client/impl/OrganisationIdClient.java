@@ -14,17 +14,27 @@ import com.verisec.frejaeid.client.client.api.OrganisationIdClientApi;
 import com.verisec.frejaeid.client.enums.FrejaEnvironment;
 import com.verisec.frejaeid.client.enums.TransactionContext;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
-import com.verisec.frejaeid.client.http.HttpService;
+import com.verisec.frejaeid.client.http.AsyncHttpServiceApi;
 import com.verisec.frejaeid.client.http.HttpServiceApi;
 
 import javax.net.ssl.SSLContext;
 
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import com.verisec.frejaeid.client.service.LeaseStore;
+import com.verisec.frejaeid.client.service.PollJournal;
+import com.verisec.frejaeid.client.service.PolledResults;
+import com.verisec.frejaeid.client.service.PollingCoordinator;
+import com.verisec.frejaeid.client.service.TransactionListener;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 
 
@@ -34,12 +44,14 @@ import java.util.concurrent.TimeUnit;
 public class OrganisationIdClient extends BasicClient implements OrganisationIdClientApi {
 
     public static final Logger LOG = LogManager.getLogger(OrganisationIdClient.class);
-    private static final long DEFAULT_EXPIRY_TIME_IN_MILLIS = TimeUnit.DAYS.toMillis(7);
+    public static final long DEFAULT_EXPIRY_TIME_IN_MILLIS = TimeUnit.DAYS.toMillis(7);
     private static final int DEFAULT_POLLING_TIMEOUT_IN_MILLISECONDS = 60000;
 
-    private OrganisationIdClient(String serverCustomUrl, int pollingTimeoutInMillseconds, HttpServiceApi httpService)
+    private OrganisationIdClient(String serverCustomUrl, int pollingTimeoutInMillseconds, HttpServiceApi httpService,
+                                 AsyncHttpServiceApi asyncHttpService)
             throws FrejaEidClientInternalException {
-        super(serverCustomUrl, pollingTimeoutInMillseconds, TransactionContext.ORGANISATIONAL, httpService, null);
+        super(serverCustomUrl, pollingTimeoutInMillseconds, TransactionContext.ORGANISATIONAL, httpService,
+              asyncHttpService, null);
     }
 
     /**
@@ -96,11 +108,19 @@ public class OrganisationIdClient extends BasicClient implements OrganisationIdC
     public OrganisationIdResult pollForResult(OrganisationIdResultRequest getOneOrganisationIdResultRequest,
                                               int maxWaitingTimeInSec)
             throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException {
+        return pollForResult(getOneOrganisationIdResultRequest, maxWaitingTimeInSec, null);
+    }
+
+    @Override
+    public OrganisationIdResult pollForResult(OrganisationIdResultRequest getOneOrganisationIdResultRequest,
+                                              int maxWaitingTimeInSec,
+                                              TransactionListener<OrganisationIdResult> listener)
+            throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException {
         requestValidationService.validateResultRequest(getOneOrganisationIdResultRequest);
         LOG.debug("Polling {}s for result for adding organisation ID transaction reference {}.", maxWaitingTimeInSec,
                   getOneOrganisationIdResultRequest.getOrgIdRef());
         OrganisationIdResult organisationIdResult =
-                organisationIdService.pollForResult(getOneOrganisationIdResultRequest, maxWaitingTimeInSec);
+                organisationIdService.pollForResult(getOneOrganisationIdResultRequest, maxWaitingTimeInSec, listener);
         LOG.debug("Received {} status for adding organisation ID transaction reference {}, after polling for result.",
                   organisationIdResult.getStatus(), organisationIdResult.getOrgIdRef());
         return organisationIdResult;
@@ -147,10 +167,120 @@ public class OrganisationIdClient extends BasicClient implements OrganisationIdC
         return response;
     }
 
+    @Override
+    public CompletionStage<String> initiateAddAsync(InitiateAddOrganisationIdRequest initiateAddOrganisationIdRequest) {
+        try {
+            requestValidationService.validateInitAddOrganisationIdRequest(initiateAddOrganisationIdRequest);
+        } catch (FrejaEidClientInternalException ex) {
+            return failedFuture(ex);
+        }
+        LOG.debug("Initiating asynchronously adding organisation ID with user info type {}, minimum registration " +
+                          "level of user {} and expiry time {} min.",
+                  initiateAddOrganisationIdRequest.getUserInfoType(),
+                  initiateAddOrganisationIdRequest.getMinRegistrationLevel().getState(),
+                  initiateAddOrganisationIdRequest.getExpiry() == null ? DEFAULT_EXPIRY_TIME_IN_MILLIS :
+                          initiateAddOrganisationIdRequest.getExpiry());
+        return organisationIdService.initiateAddAsync(initiateAddOrganisationIdRequest).thenApply(response -> {
+            LOG.debug("Received add organisation ID transaction reference {}.", response.getOrgIdRef());
+            return response.getOrgIdRef();
+        });
+    }
+
+    @Override
+    public CompletionStage<OrganisationIdResult> getResultAsync(
+            OrganisationIdResultRequest organisationIdResultRequest) {
+        try {
+            requestValidationService.validateResultRequest(organisationIdResultRequest);
+        } catch (FrejaEidClientInternalException ex) {
+            return failedFuture(ex);
+        }
+        LOG.debug("Getting asynchronously result for add organisation ID transaction reference {}.",
+                  organisationIdResultRequest.getOrgIdRef());
+        return organisationIdService.getResultAsync(organisationIdResultRequest);
+    }
+
+    @Override
+    public CompletionStage<OrganisationIdResult> pollForResultAsync(
+            OrganisationIdResultRequest organisationIdResultRequest, int maxWaitingTimeInSec) {
+        return pollForResultAsync(organisationIdResultRequest, maxWaitingTimeInSec, null);
+    }
+
+    @Override
+    public CompletionStage<OrganisationIdResult> pollForResultAsync(
+            OrganisationIdResultRequest organisationIdResultRequest, int maxWaitingTimeInSec,
+            TransactionListener<OrganisationIdResult> listener) {
+        try {
+            requestValidationService.validateResultRequest(organisationIdResultRequest);
+        } catch (FrejaEidClientInternalException ex) {
+            return failedFuture(ex);
+        }
+        LOG.debug("Polling asynchronously {}s for result for adding organisation ID transaction reference {}.",
+                  maxWaitingTimeInSec, organisationIdResultRequest.getOrgIdRef());
+        return organisationIdService.pollForResultAsync(organisationIdResultRequest, maxWaitingTimeInSec, listener);
+    }
+
+    @Override
+    public CompletionStage<Void> cancelAddAsync(CancelAddOrganisationIdRequest cancelAddOrganisationIdRequest) {
+        try {
+            requestValidationService.validateCancelRequest(cancelAddOrganisationIdRequest);
+        } catch (FrejaEidClientInternalException ex) {
+            return failedFuture(ex);
+        }
+        LOG.debug("Canceling asynchronously add organisation ID transaction with reference {}.",
+                  cancelAddOrganisationIdRequest.getOrgIdRef());
+        return organisationIdService.cancelAddAsync(cancelAddOrganisationIdRequest).thenApply(response -> null);
+    }
+
+    @Override
+    public Map<String, CompletionStage<OrganisationIdResult>> resumePolling(
+            int maxWaitingTimeInSec, int maxConcurrentPolls, TransactionListener<OrganisationIdResult> listener)
+            throws FrejaEidClientInternalException {
+        Map<String, CompletionStage<OrganisationIdResult>> futureResults = new LinkedHashMap<>(
+                organisationIdService.resumePolling(maxWaitingTimeInSec, maxConcurrentPolls, listener));
+        LOG.debug("Resumed polling {}s for results of {} add organisation ID transactions.", maxWaitingTimeInSec,
+                  futureResults.size());
+        return futureResults;
+    }
+
+    @Override
+    public PolledResults<OrganisationIdResult> pollForResults(
+            Collection<OrganisationIdResultRequest> organisationIdResultRequests, int maxWaitingTimeInSec,
+            int maxConcurrentRequests, TransactionListener<OrganisationIdResult> listener)
+            throws FrejaEidClientInternalException {
+        requestValidationService.validateResultRequests(organisationIdResultRequests, maxConcurrentRequests);
+        LOG.debug("Polling asynchronously {}s for results of {} add organisation ID transactions.",
+                  maxWaitingTimeInSec, organisationIdResultRequests.size());
+        return organisationIdService.pollForResults(organisationIdResultRequests, maxWaitingTimeInSec,
+                                                    maxConcurrentRequests, listener);
+    }
+
+    @Override
+    public PollingCoordinator<OrganisationIdResult> createPollingCoordinator(
+            String nodeId, LeaseStore leaseStore, TransactionListener<OrganisationIdResult> listener)
+            throws FrejaEidClientInternalException {
+        requestValidationService.validatePollingCoordinatorSettings(nodeId, leaseStore);
+        LOG.debug("Starting coordinated polling for results of add organisation ID transactions on node {}.", nodeId);
+        return organisationIdService.createPollingCoordinator(nodeId, leaseStore, listener);
+    }
+
+    /**
+     * Releases the HTTP transport and closes the poll journal, if any.
+     */
+    @Override
+    public void close() {
+        super.close();
+        PollJournal pollJournal = organisationIdService.getPollJournal();
+        if (pollJournal != null) {
+            pollJournal.close();
+        }
+    }
+
     public static class Builder extends GenericBuilder {
 
         public static final Logger LOG = LogManager.getLogger(Builder.class);
 
+        private Path pollJournalPath;
+
         private Builder(SSLContext sslContext, FrejaEnvironment frejaEnvironment) {
             super(sslContext, frejaEnvironment);
         }
@@ -173,20 +303,46 @@ public class OrganisationIdClient extends BasicClient implements OrganisationIdC
             return (Builder) super.setPollingTimeout(pollingTimeout);
         }
 
+        /**
+         * Keeps a journal of pending add organisation ID transactions in
+         * given file, so that polling for them can be resumed with
+         * {@linkplain OrganisationIdClient#resumePolling} after a restart.
+         * The file is memory-mapped and must not be used by more than one
+         * client at a time, the client closes it when it is closed.
+         *
+         * @param pollJournalPath path of the journal file, created if it does
+         *                        not exist. Default value is {@code null},
+         *                        no journal is kept.
+         * @return builder
+         */
+        public Builder setPollJournal(Path pollJournalPath) {
+            LOG.debug("Poll journal set to {}.", pollJournalPath);
+            this.pollJournalPath = pollJournalPath;
+            return this;
+        }
+
         @Override
         public OrganisationIdClient build() throws FrejaEidClientInternalException {
             transactionContext = TransactionContext.ORGANISATIONAL;
-            if (httpService == null) {
-                httpService = new HttpService(sslContext, connectionTimeout, readTimeout);
-            }
             if (pollingTimeout == 0) {
                 pollingTimeout = DEFAULT_POLLING_TIMEOUT_IN_MILLISECONDS;
             }
             checkSetParameters();
+            initHttpServices(true);
             LOG.debug("Successfully created OrganisationIdClient with server URL {}, polling timeout {}ms and " +
                               "transaction context {}.",
                       serverCustomUrl, pollingTimeout, transactionContext.getContext());
-            return new OrganisationIdClient(serverCustomUrl, pollingTimeout, httpService);
+            OrganisationIdClient client = withTransport(withPollingSettings(
+                    new OrganisationIdClient(serverCustomUrl, pollingTimeout, httpService, asyncHttpService)));
+            if (pollJournalPath != null) {
+                try {
+                    client.organisationIdService.setPollJournal(PollJournal.open(pollJournalPath));
+                } catch (FrejaEidClientInternalException ex) {
+                    client.close();
+                    throw ex;
+                }
+            }
+            return client;
         }
 
     }
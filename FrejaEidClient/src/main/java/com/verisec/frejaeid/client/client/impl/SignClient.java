@@ -4,6 +4,7 @@ import com.verisec.frejaeid.client.beans.general.SslSettings;
 import com.verisec.frejaeid.client.beans.sign.cancel.CancelSignRequest;
 import com.verisec.frejaeid.client.beans.sign.get.SignResultRequest;
 import com.verisec.frejaeid.client.beans.sign.get.SignResult;
+import com.verisec.frejaeid.client.beans.sign.get.SignResults;
 import com.verisec.frejaeid.client.beans.sign.get.SignResultsRequest;
 import com.verisec.frejaeid.client.beans.sign.init.InitiateSignRequest;
 import com.verisec.frejaeid.client.client.api.SignClientApi;
@@ -12,12 +13,19 @@ import com.verisec.frejaeid.client.enums.TransactionContext;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidException;
-import com.verisec.frejaeid.client.http.HttpService;
+import com.verisec.frejaeid.client.http.AsyncHttpServiceApi;
 import com.verisec.frejaeid.client.http.HttpServiceApi;
+import com.verisec.frejaeid.client.service.LeaseStore;
+import com.verisec.frejaeid.client.service.PolledResults;
+import com.verisec.frejaeid.client.service.PollingCoordinator;
+import com.verisec.frejaeid.client.service.ResultPublisher;
+import com.verisec.frejaeid.client.service.TransactionListener;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 import javax.net.ssl.SSLContext;
 
@@ -28,13 +36,13 @@ import javax.net.ssl.SSLContext;
 public class SignClient extends BasicClient implements SignClientApi {
 
     public static final Logger LOG = LogManager.getLogger(SignClient.class);
-    private static final long DEFAULT_EXPIRY_TIME_IN_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    public static final long DEFAULT_EXPIRY_TIME_IN_MILLIS = TimeUnit.MINUTES.toMillis(2);
     private static final int DEFAULT_POLLING_TIMEOUT_IN_MILLISECONDS = 60000;
 
     private SignClient(String serverCustomUrl, int pollingTimeoutInMillseconds, TransactionContext transactionContext,
-                       HttpServiceApi httpService)
+                       HttpServiceApi httpService, AsyncHttpServiceApi asyncHttpService)
             throws FrejaEidClientInternalException {
-        super(serverCustomUrl, pollingTimeoutInMillseconds, transactionContext, httpService, null);
+        super(serverCustomUrl, pollingTimeoutInMillseconds, transactionContext, httpService, asyncHttpService, null);
     }
 
     /**
@@ -101,10 +109,17 @@ public class SignClient extends BasicClient implements SignClientApi {
     @Override
     public SignResult pollForResult(SignResultRequest getOneSignResultRequest, int maxWaitingTimeInSec)
             throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException {
+        return pollForResult(getOneSignResultRequest, maxWaitingTimeInSec, null);
+    }
+
+    @Override
+    public SignResult pollForResult(SignResultRequest getOneSignResultRequest, int maxWaitingTimeInSec,
+                                    TransactionListener<SignResult> listener)
+            throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException {
         requestValidationService.validateResultRequest(getOneSignResultRequest);
         LOG.debug("Polling {}s for result for sign transaction reference {}.", maxWaitingTimeInSec,
                   getOneSignResultRequest.getSignRef());
-        SignResult signResult = signService.pollForResult(getOneSignResultRequest, maxWaitingTimeInSec);
+        SignResult signResult = signService.pollForResult(getOneSignResultRequest, maxWaitingTimeInSec, listener);
         LOG.debug("Received {} status for sign transaction reference {}, after polling for result.",
                   signResult.getStatus(), signResult.getSignRef());
         return signResult;
@@ -118,6 +133,105 @@ public class SignClient extends BasicClient implements SignClientApi {
         LOG.debug("Successfully canceled sign transaction with reference {}.", cancelSignRequest.getSignRef());
     }
 
+    @Override
+    public CompletionStage<String> initiateAsync(InitiateSignRequest initiateSignRequest) {
+        try {
+            requestValidationService.validateInitSignRequest(initiateSignRequest, signService.getTransactionContext());
+        } catch (FrejaEidClientInternalException ex) {
+            return failedFuture(ex);
+        }
+        LOG.debug("Initiating asynchronously sign transaction for user info type {}, minimum registration level of " +
+                          "user {}, requesting attributes {} and expiry time {} ms.",
+                  initiateSignRequest.getUserInfoType(), initiateSignRequest.getMinRegistrationLevel().getState(),
+                  initiateSignRequest.getAttributesToReturn(), initiateSignRequest.getExpiry() == null ?
+                          DEFAULT_EXPIRY_TIME_IN_MILLIS : initiateSignRequest.getExpiry());
+        return signService.initiateAsync(initiateSignRequest).thenApply(response -> {
+            LOG.debug("Received sign transaction reference {}.", response.getSignRef());
+            return response.getSignRef();
+        });
+    }
+
+    @Override
+    public CompletionStage<SignResult> getResultAsync(SignResultRequest signResultRequest) {
+        try {
+            requestValidationService.validateResultRequest(signResultRequest);
+        } catch (FrejaEidClientInternalException ex) {
+            return failedFuture(ex);
+        }
+        LOG.debug("Getting asynchronously result for sign transaction reference {}.", signResultRequest.getSignRef());
+        return signService.getResultAsync(signResultRequest);
+    }
+
+    @Override
+    public CompletionStage<List<SignResult>> getResultsAsync(SignResultsRequest signResultsRequest) {
+        try {
+            requestValidationService.validateResultsRequest(signResultsRequest);
+        } catch (FrejaEidClientInternalException ex) {
+            return failedFuture(ex);
+        }
+        LOG.debug("Getting asynchronously all sign transaction results.");
+        return signService.getResultsAsync(signResultsRequest).thenApply(SignResults::getSignatureResults);
+    }
+
+    @Override
+    public CompletionStage<SignResult> pollForResultAsync(SignResultRequest signResultRequest,
+                                                          int maxWaitingTimeInSec) {
+        return pollForResultAsync(signResultRequest, maxWaitingTimeInSec, null);
+    }
+
+    @Override
+    public CompletionStage<SignResult> pollForResultAsync(SignResultRequest signResultRequest, int maxWaitingTimeInSec,
+                                                          TransactionListener<SignResult> listener) {
+        try {
+            requestValidationService.validateResultRequest(signResultRequest);
+        } catch (FrejaEidClientInternalException ex) {
+            return failedFuture(ex);
+        }
+        LOG.debug("Polling asynchronously {}s for result for sign transaction reference {}.", maxWaitingTimeInSec,
+                  signResultRequest.getSignRef());
+        return signService.pollForResultAsync(signResultRequest, maxWaitingTimeInSec, listener);
+    }
+
+    @Override
+    public ResultPublisher<SignResult> getResultPublisher(SignResultRequest signResultRequest, int maxWaitingTimeInSec)
+            throws FrejaEidClientInternalException {
+        requestValidationService.validateResultRequest(signResultRequest);
+        LOG.debug("Publishing results of sign transaction reference {} for {}s.", signResultRequest.getSignRef(),
+                  maxWaitingTimeInSec);
+        return signService.getResultPublisher(signResultRequest, maxWaitingTimeInSec);
+    }
+
+    @Override
+    public PolledResults<SignResult> pollForResults(Collection<SignResultRequest> signResultRequests,
+                                                    int maxWaitingTimeInSec, int maxConcurrentRequests,
+                                                    TransactionListener<SignResult> listener)
+            throws FrejaEidClientInternalException {
+        requestValidationService.validateResultRequests(signResultRequests, maxConcurrentRequests);
+        LOG.debug("Polling asynchronously {}s for results of {} sign transactions.", maxWaitingTimeInSec,
+                  signResultRequests.size());
+        return signService.pollForResults(signResultRequests, maxWaitingTimeInSec, maxConcurrentRequests, listener);
+    }
+
+    @Override
+    public PollingCoordinator<SignResult> createPollingCoordinator(
+            String nodeId, LeaseStore leaseStore, TransactionListener<SignResult> listener)
+            throws FrejaEidClientInternalException {
+        requestValidationService.validatePollingCoordinatorSettings(nodeId, leaseStore);
+        LOG.debug("Starting coordinated polling for results of sign transactions on node {}.", nodeId);
+        return signService.createPollingCoordinator(nodeId, leaseStore, listener);
+    }
+
+    @Override
+    public CompletionStage<Void> cancelAsync(CancelSignRequest cancelSignRequest) {
+        try {
+            requestValidationService.validateCancelRequest(cancelSignRequest);
+        } catch (FrejaEidClientInternalException ex) {
+            return failedFuture(ex);
+        }
+        LOG.debug("Canceling asynchronously sign transaction with reference {}.", cancelSignRequest.getSignRef());
+        return signService.cancelAsync(cancelSignRequest).thenApply(response -> null);
+    }
+
     public static class Builder extends GenericBuilder {
 
         public static final Logger LOG = LogManager.getLogger(Builder.class);
@@ -146,17 +260,17 @@ public class SignClient extends BasicClient implements SignClientApi {
 
         @Override
         public SignClient build() throws FrejaEidClientInternalException {
-            if (httpService == null) {
-                httpService = new HttpService(sslContext, connectionTimeout, readTimeout);
-            }
             if (pollingTimeout == 0) {
                 pollingTimeout = DEFAULT_POLLING_TIMEOUT_IN_MILLISECONDS;
             }
             checkSetParameters();
+            initHttpServices(true);
             LOG.debug("Successfully created SignClient with server URL {}, polling timeout {}ms and transaction " +
                               "context {}.",
                       serverCustomUrl, pollingTimeout, transactionContext.getContext());
-            return new SignClient(serverCustomUrl, pollingTimeout, transactionContext, httpService);
+            return withTransport(withPollingSettings(
+                    new SignClient(serverCustomUrl, pollingTimeout, transactionContext, httpService,
+                                   asyncHttpService)));
         }
 
     }
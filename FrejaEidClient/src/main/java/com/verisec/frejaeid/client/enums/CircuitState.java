@@ -0,0 +1,13 @@
+package com.verisec.frejaeid.client.enums;
+
+/**
+ * State of the circuit breaker guarding one Freja eID method. Requests are
+ * sent normally while {@linkplain #CLOSED}, fail fast without being sent while
+ * {@linkplain #OPEN}, and in {@linkplain #HALF_OPEN} a single probe request is
+ * let through to check whether the method recovered.
+ */
+public enum CircuitState {
+    CLOSED,
+    OPEN,
+    HALF_OPEN;
+}
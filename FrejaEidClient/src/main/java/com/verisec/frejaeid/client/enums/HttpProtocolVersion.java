@@ -0,0 +1,11 @@
+package com.verisec.frejaeid.client.enums;
+
+/**
+ * HTTP protocol used for communication with Freja eID services. With
+ * {@linkplain #HTTP_2} concurrent requests are multiplexed over a small number
+ * of connections instead of each taking a pooled connection.
+ */
+public enum HttpProtocolVersion {
+    HTTP_1_1,
+    HTTP_2;
+}
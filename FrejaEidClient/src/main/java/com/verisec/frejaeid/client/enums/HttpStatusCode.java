@@ -8,8 +8,11 @@ public enum HttpStatusCode {
     NOT_FOUND(404),
     GONE(410),
     UNPROCESSABLE_ENTITY(422),
+    TOO_MANY_REQUESTS(429),
     INTERNAL_SERVER_ERROR(500),
-    SERVICE_UNAVAILABLE(503);
+    BAD_GATEWAY(502),
+    SERVICE_UNAVAILABLE(503),
+    GATEWAY_TIMEOUT(504);
 
     private final int code;
 
@@ -0,0 +1,39 @@
+package com.verisec.frejaeid.client.exceptions;
+
+import com.verisec.frejaeid.client.enums.CircuitState;
+
+/**
+ * Occurs when request is rejected without being sent, because recent requests
+ * to the same Freja eID method failed and its circuit is open.
+ */
+public class FrejaEidClientCircuitOpenException extends FrejaEidClientInternalException {
+
+    private final String methodUrl;
+    private final CircuitState circuitState;
+    private final long retryAfterInMilliseconds;
+
+    public FrejaEidClientCircuitOpenException(String message, String methodUrl, CircuitState circuitState,
+                                              long retryAfterInMilliseconds) {
+        super(message);
+        this.methodUrl = methodUrl;
+        this.circuitState = circuitState;
+        this.retryAfterInMilliseconds = retryAfterInMilliseconds;
+    }
+
+    public String getMethodUrl() {
+        return methodUrl;
+    }
+
+    public CircuitState getCircuitState() {
+        return circuitState;
+    }
+
+    /**
+     * @return time in milliseconds after which a probe request will be let
+     * through, zero if a probe is already in flight.
+     */
+    public long getRetryAfterInMilliseconds() {
+        return retryAfterInMilliseconds;
+    }
+
+}
@@ -0,0 +1,263 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.beans.common.FrejaHttpResponse;
+import com.verisec.frejaeid.client.beans.common.RelyingPartyRequest;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientCircuitOpenException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import com.verisec.frejaeid.client.util.RequestTemplate;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.util.EntityUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+
+/**
+ * Sends requests over non-blocking I/O. A small number of I/O reactor
+ * threads carries all in-flight requests, so no caller thread is blocked
+ * while waiting for the Freja eID service to respond. Responses are parsed
+ * and returned futures completed on the response executor, so neither
+ * parsing nor stages depending on the futures hold up the I/O reactor.
+ * Cancelling a returned future aborts its request.
+ */
+public class AsyncHttpService extends BasicHttpService implements AsyncHttpServiceApi, Closeable {
+
+    public static final Logger LOG = LogManager.getLogger(AsyncHttpService.class);
+
+    private static final ScheduledExecutorService RETRY_SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "frejaeid-async-retry-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private final CloseableHttpAsyncClient httpAsyncClient;
+    private final RetryPolicy retryPolicy;
+    private final RetryBudget retryBudget;
+    private final Executor responseExecutor;
+
+    public AsyncHttpService(SSLContext sslContext, int connectionTimeout, int readTimeout) {
+        this(sslContext, connectionTimeout, readTimeout, ConnectionPoolSettings.createDefault());
+    }
+
+    public AsyncHttpService(SSLContext sslContext, int connectionTimeout, int readTimeout,
+                            ConnectionPoolSettings connectionPoolSettings) {
+        this(sslContext, connectionTimeout, readTimeout, connectionPoolSettings, RetryPolicy.createDefault());
+    }
+
+    public AsyncHttpService(SSLContext sslContext, int connectionTimeout, int readTimeout,
+                            ConnectionPoolSettings connectionPoolSettings, RetryPolicy retryPolicy) {
+        this(sslContext, connectionTimeout, readTimeout, connectionPoolSettings, retryPolicy,
+             CircuitBreaker.createDefault());
+    }
+
+    public AsyncHttpService(SSLContext sslContext, int connectionTimeout, int readTimeout,
+                            ConnectionPoolSettings connectionPoolSettings, RetryPolicy retryPolicy,
+                            CircuitBreaker circuitBreaker) {
+        this(sslContext, connectionTimeout, readTimeout, connectionPoolSettings, retryPolicy, circuitBreaker,
+             ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Waiting for a pooled connection does not block any thread here, so in
+     * adaptive mode the pool is simply allowed to reach the adaptive limit.
+     * Retries of idempotent requests are scheduled, no thread sleeps between
+     * attempts.
+     *
+     * @param responseExecutor parses responses and completes returned
+     *                         futures, the common fork join pool by default.
+     */
+    public AsyncHttpService(SSLContext sslContext, int connectionTimeout, int readTimeout,
+                            ConnectionPoolSettings connectionPoolSettings, RetryPolicy retryPolicy,
+                            CircuitBreaker circuitBreaker, Executor responseExecutor) {
+        super(circuitBreaker);
+        this.retryPolicy = retryPolicy;
+        this.retryBudget = new RetryBudget(retryPolicy);
+        this.responseExecutor = responseExecutor;
+        HttpAsyncClientBuilder httpAsyncClientBuilder = HttpAsyncClients.custom().useSystemProperties();
+        if (sslContext != null) {
+            httpAsyncClientBuilder.setSSLContext(sslContext);
+        }
+        RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(connectionTimeout)
+                .setConnectionRequestTimeout(connectionTimeout).setSocketTimeout(readTimeout).build();
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom().setConnectTimeout(connectionTimeout)
+                .setSoTimeout(readTimeout).build();
+        httpAsyncClient = httpAsyncClientBuilder.setDefaultRequestConfig(requestConfig)
+                .setDefaultIOReactorConfig(ioReactorConfig)
+                .setMaxConnTotal(connectionPoolSettings.isAdaptive()
+                                 ? connectionPoolSettings.getAdaptiveMaxConnectionsLimit()
+                                 : connectionPoolSettings.getMaxConnectionsTotal())
+                .setMaxConnPerRoute(connectionPoolSettings.isAdaptive()
+                                    ? connectionPoolSettings.getAdaptiveMaxConnectionsLimit()
+                                    : connectionPoolSettings.getMaxConnectionsPerRoute())
+                .setConnectionTimeToLive(connectionPoolSettings.getConnectionTimeToLiveInMilliseconds(),
+                                         TimeUnit.MILLISECONDS)
+                .setKeepAliveStrategy(
+                        new KeepAliveStrategy(connectionPoolSettings.getKeepAliveDurationInMilliseconds()))
+                .disableConnectionState()
+                .build();
+        LOG.debug("Successfully created asynchronous HTTP client with connection timeout {}ms and read timeout {}ms.",
+                  connectionTimeout, readTimeout);
+    }
+
+    @Override
+    public <Response extends FrejaHttpResponse> CompletableFuture<Response> sendAsync(
+            String methodUrl, RequestTemplate requestTemplate, final RelyingPartyRequest relyingPartyRequest,
+            final Class<Response> responseType, String relyingPartyId) {
+        final CompletableFuture<Response> futureResponse = new CompletableFuture<>();
+        HttpPost request;
+        try {
+            request = createPostRequest(methodUrl, requestTemplate, relyingPartyRequest, relyingPartyId);
+        } catch (FrejaEidClientInternalException ex) {
+            futureResponse.completeExceptionally(ex);
+            return futureResponse;
+        }
+        try {
+            circuitBreaker.acquirePermission(methodUrl);
+        } catch (FrejaEidClientCircuitOpenException ex) {
+            futureResponse.completeExceptionally(ex);
+            return futureResponse;
+        }
+        retryBudget.onRequest();
+        execute(methodUrl, request, requestTemplate != null && requestTemplate.isIdempotent(), 0,
+                relyingPartyRequest, responseType, futureResponse);
+        return futureResponse;
+    }
+
+    /**
+     * Sends request and completes future with the response, or schedules
+     * another attempt if request is idempotent and retry policy and retry
+     * budget allow it.
+     */
+    private <Response extends FrejaHttpResponse> void execute(
+            final String methodUrl, final HttpPost request, final boolean idempotent, final int retry,
+            final RelyingPartyRequest relyingPartyRequest, final Class<Response> responseType,
+            final CompletableFuture<Response> futureResponse) {
+        try {
+            startIfNecessary();
+            FutureCallback<HttpResponse> callback = new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(HttpResponse httpResponse) {
+                    LOG.debug("Successfully sent {}.", relyingPartyRequest.getClass());
+                    int statusCode = httpResponse.getStatusLine().getStatusCode();
+                    if (idempotent && retryPolicy.isRetryable(statusCode)) {
+                        Header retryAfter = httpResponse.getFirstHeader(HttpHeaders.RETRY_AFTER);
+                        long delay = retryPolicy.getRetryDelay(retry, retryAfter != null ? retryAfter.getValue()
+                                                                                         : null);
+                        if (delay >= 0 && retryBudget.tryRetry()) {
+                            EntityUtils.consumeQuietly(httpResponse.getEntity());
+                            LOG.debug("Received HTTP code {} from {}, retrying in {}ms.", statusCode,
+                                      request.getURI(), delay);
+                            scheduleRetry(delay);
+                            return;
+                        }
+                    }
+                    circuitBreaker.onResponse(methodUrl, statusCode);
+                    completeOffReactor(() -> {
+                        try {
+                            futureResponse.complete(handleResponse(httpResponse, responseType));
+                        } catch (FrejaEidClientInternalException | FrejaEidException ex) {
+                            futureResponse.completeExceptionally(ex);
+                        } catch (IOException | RuntimeException ex) {
+                            futureResponse.completeExceptionally(
+                                    new FrejaEidClientInternalException("Failed to send HTTP request.", ex));
+                        }
+                    });
+                }
+
+                @Override
+                public void failed(Exception ex) {
+                    if (idempotent && ex instanceof IOException && !(ex instanceof SSLException)) {
+                        long delay = retryPolicy.getRetryDelay(retry, null);
+                        if (delay >= 0 && retryBudget.tryRetry()) {
+                            LOG.debug("Request to {} failed, retrying in {}ms.", request.getURI(), delay, ex);
+                            scheduleRetry(delay);
+                            return;
+                        }
+                    }
+                    circuitBreaker.onException(methodUrl, ex);
+                    completeOffReactor(() -> futureResponse.completeExceptionally(
+                            new FrejaEidClientInternalException("Failed to send HTTP request.", ex)));
+                }
+
+                @Override
+                public void cancelled() {
+                    circuitBreaker.onCancelled(methodUrl);
+                    futureResponse.cancel(false);
+                }
+
+                private void scheduleRetry(long delay) {
+                    RETRY_SCHEDULER.schedule(() -> {
+                        if (!futureResponse.isDone()) {
+                            execute(methodUrl, request, true, retry + 1, relyingPartyRequest, responseType,
+                                    futureResponse);
+                        } else {
+                            circuitBreaker.onCancelled(methodUrl);
+                        }
+                    }, delay, TimeUnit.MILLISECONDS);
+                }
+            };
+            final Future<HttpResponse> futureHttpResponse = httpAsyncClient.execute(request, callback);
+            futureResponse.whenComplete((response, throwable) -> {
+                if (futureResponse.isCancelled()) {
+                    futureHttpResponse.cancel(true);
+                }
+            });
+        } catch (RuntimeException ex) {
+            circuitBreaker.onFailure(methodUrl);
+            futureResponse.completeExceptionally(
+                    new FrejaEidClientInternalException("Failed to send HTTP request.", ex));
+        }
+    }
+
+    /**
+     * Shuts down I/O reactor threads and closes all pooled connections.
+     *
+     * @throws IOException if connections cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        httpAsyncClient.close();
+    }
+
+    /**
+     * Runs completion of a returned future on the response executor, or on
+     * the calling I/O reactor thread if the executor rejects it, e.g. while
+     * shutting down.
+     */
+    private void completeOffReactor(Runnable completion) {
+        try {
+            responseExecutor.execute(completion);
+        } catch (RejectedExecutionException ex) {
+            LOG.debug("Response executor rejected completion of a request, completing it on the I/O reactor.", ex);
+            completion.run();
+        }
+    }
+
+    private void startIfNecessary() {
+        if (!httpAsyncClient.isRunning()) {
+            httpAsyncClient.start();
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.beans.common.FrejaHttpResponse;
+import com.verisec.frejaeid.client.beans.common.RelyingPartyRequest;
+import com.verisec.frejaeid.client.util.RequestTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking sibling of {@linkplain HttpServiceApi}. Returned futures are
+ * completed exceptionally with the same exceptions that
+ * {@linkplain HttpServiceApi#send} throws.
+ */
+public interface AsyncHttpServiceApi {
+
+    public <Response extends FrejaHttpResponse> CompletableFuture<Response> sendAsync(
+            String methodUrl, RequestTemplate requestTemplate, RelyingPartyRequest relyingPartyRequest,
+            Class<Response> responseType, String relyingPartyId);
+
+}
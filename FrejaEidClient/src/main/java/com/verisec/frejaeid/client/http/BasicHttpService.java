@@ -0,0 +1,158 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.beans.common.FrejaHttpErrorResponse;
+import com.verisec.frejaeid.client.beans.common.FrejaHttpResponse;
+import com.verisec.frejaeid.client.beans.common.RelyingPartyRequest;
+import com.verisec.frejaeid.client.enums.HttpStatusCode;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import com.verisec.frejaeid.client.util.JsonService;
+import com.verisec.frejaeid.client.util.RequestTemplate;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPost;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Holds request building and response mapping shared by blocking and
+ * non-blocking HTTP services, so every transport maps HTTP status codes to
+ * exceptions in the same way.
+ */
+public abstract class BasicHttpService {
+
+    private static final String VERSION_PLACEHOLDER = "%version%";
+    private static final String FREJA_EID_CLIENT_VERSION_INFO = "FrejaEidClient/" + VERSION_PLACEHOLDER;
+    private static final String JAVA_VM_VERSION_INFO = "(Java/" + VERSION_PLACEHOLDER + ")";
+
+    protected final JsonService jsonService;
+    protected final String userAgentHeader;
+    protected final CircuitBreaker circuitBreaker;
+
+    protected BasicHttpService() {
+        this(CircuitBreaker.createDefault());
+    }
+
+    protected BasicHttpService(CircuitBreaker circuitBreaker) {
+        jsonService = new JsonService();
+        userAgentHeader = makeUserAgentHeader();
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * @return circuit breaker guarding requests sent by this service.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    protected HttpPost createPostRequest(String methodUrl, RequestTemplate requestTemplate,
+                                         RelyingPartyRequest relyingPartyRequest, String relyingPartyId)
+            throws FrejaEidClientInternalException {
+        HttpPost request = new HttpPost(methodUrl);
+        request.addHeader("Content-Type", "application/json");
+        request.addHeader(HttpHeaders.USER_AGENT, userAgentHeader);
+        request.setEntity(createRequestEntity(requestTemplate, relyingPartyRequest, relyingPartyId));
+        return request;
+    }
+
+    protected HttpEntity createRequestEntity(RequestTemplate requestTemplate, RelyingPartyRequest relyingPartyRequest,
+                                             String relyingPartyId) throws FrejaEidClientInternalException {
+        return new RequestEntity(jsonService, requestTemplate, relyingPartyRequest, relyingPartyId);
+    }
+
+    protected <Response extends FrejaHttpResponse> Response handleResponse(HttpResponse httpResponse,
+                                                                           Class<Response> responseType)
+            throws FrejaEidClientInternalException, FrejaEidException, IOException {
+        HttpEntity entity = httpResponse.getEntity();
+        return handleResponse(httpResponse.getStatusLine().getStatusCode(),
+                              entity != null ? entity.getContent() : null, responseType);
+    }
+
+    /**
+     * Maps received HTTP response to the expected response type or to the
+     * appropriate exception depending on HTTP status code. Successful
+     * responses are parsed straight from the body stream, only error
+     * responses are buffered. Body stream is closed before returning.
+     */
+    @SuppressWarnings("unchecked")
+    protected <Response extends FrejaHttpResponse> Response handleResponse(int httpStatusCodeValue,
+                                                                           InputStream content,
+                                                                           Class<Response> responseType)
+            throws FrejaEidClientInternalException, FrejaEidException, IOException {
+        HttpStatusCode httpStatusCode = HttpStatusCode.getHttpStatusCode(httpStatusCodeValue);
+        if (httpStatusCode == HttpStatusCode.OK && content != null) {
+            try (InputStream body = content) {
+                return jsonService.deserializeFromJson(body, responseType);
+            }
+        }
+        String responseString = "";
+        if (httpStatusCode != HttpStatusCode.NO_CONTENT && content != null) {
+            try (InputStream body = content) {
+                responseString = new String(readAllBytes(body), StandardCharsets.UTF_8);
+            }
+        }
+        if (httpStatusCode == null) {
+            throw new FrejaEidException(
+                    String.format("Received unsupported HTTP status code %s. Received HTTP message: %s.",
+                                  httpStatusCodeValue, responseString));
+        }
+        switch (httpStatusCode) {
+            case OK:
+                return jsonService.deserializeFromJson(responseString.getBytes(StandardCharsets.UTF_8),
+                                                       responseType);
+            case NO_CONTENT:
+                return (Response) new FrejaHttpResponse() {
+                };
+            case BAD_REQUEST:
+            case UNPROCESSABLE_ENTITY:
+                FrejaHttpErrorResponse errorResponse =
+                        jsonService.deserializeFromJson(responseString.getBytes(StandardCharsets.UTF_8),
+                                                        FrejaHttpErrorResponse.class);
+                throw new FrejaEidException(errorResponse.getMessage(), errorResponse.getCode());
+            default:
+                throw new FrejaEidException(String.format("HTTP code %s message: %s", httpStatusCodeValue,
+                                                          responseString));
+        }
+    }
+
+    protected static byte[] readAllBytes(InputStream inputStream) throws FrejaEidClientInternalException {
+        final int bufferLengthInKB = 1024;
+        byte[] buffer = new byte[bufferLengthInKB];
+        int line;
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            while ((line = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, line);
+            }
+            return outputStream.toByteArray();
+        } catch (IOException ex) {
+            throw new FrejaEidClientInternalException("Failed to read bytes from input stream", ex);
+        }
+    }
+
+    final String makeUserAgentHeader() {
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append(FREJA_EID_CLIENT_VERSION_INFO.replace(VERSION_PLACEHOLDER, getLibVersion()));
+        stringBuilder.append(" ");
+        stringBuilder.append(JAVA_VM_VERSION_INFO.replace(VERSION_PLACEHOLDER, System.getProperty("java.version")));
+        return stringBuilder.toString();
+    }
+
+    final String getLibVersion() {
+        ClassLoader classLoader = BasicHttpService.class.getClassLoader();
+        try (InputStreamReader is = new InputStreamReader(classLoader.getResourceAsStream("version.txt"));
+             BufferedReader bufferedReader = new BufferedReader(is)) {
+            String line = bufferedReader.readLine();
+            return line != null ? line : "N/A";
+        } catch (IOException e) {
+            return "N/A";
+        }
+    }
+
+}
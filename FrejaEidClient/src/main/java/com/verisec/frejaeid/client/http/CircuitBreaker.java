@@ -0,0 +1,324 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.enums.CircuitState;
+import com.verisec.frejaeid.client.enums.HttpStatusCode;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientCircuitOpenException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.util.MethodUrl;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Circuit breaker keyed by Freja eID method. After a number of consecutive
+ * failed requests to a method its circuit opens and further requests fail
+ * fast with {@linkplain FrejaEidClientCircuitOpenException} instead of waiting
+ * for connection and read timeouts. Once the open duration passes, a single
+ * probe request is let through; its success closes the circuit, its failure
+ * opens it again.
+ * <p>
+ * Only I/O errors and {@code 502}, {@code 503} and {@code 504} responses count
+ * as failures. Any other response proves the method is reachable. Timeouts
+ * waiting for a connection from the local pool say nothing about the server
+ * and are not counted.
+ * <p>
+ * Circuits are keyed by the path of the method as in {@linkplain MethodUrl},
+ * whatever base path the server URL has. State of a circuit is guarded by a
+ * {@linkplain ReentrantLock}, so virtual threads sending requests through it
+ * are never pinned to their carriers.
+ */
+public final class CircuitBreaker {
+
+    public static final Logger LOG = LogManager.getLogger(CircuitBreaker.class);
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_DURATION_IN_MILLISECONDS = 30000;
+
+    private final int failureThreshold;
+    private final long openDurationInNanoseconds;
+    private static final MethodUrl[] METHOD_URLS_BY_PATH_LENGTH = MethodUrl.values();
+
+    static {
+        // longest first, so that a method whose path ends with another method's path is matched as itself
+        Arrays.sort(METHOD_URLS_BY_PATH_LENGTH,
+                    Comparator.comparingInt((MethodUrl methodUrl) -> methodUrl.toString().length()).reversed());
+    }
+
+    private final ConcurrentMap<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    /**
+     * Returns circuit breaker that opens after
+     * {@value #DEFAULT_FAILURE_THRESHOLD} consecutive failures for
+     * {@value #DEFAULT_OPEN_DURATION_IN_MILLISECONDS} milliseconds.
+     *
+     * @return circuitBreaker
+     */
+    public static CircuitBreaker createDefault() {
+        return new CircuitBreaker(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION_IN_MILLISECONDS);
+    }
+
+    /**
+     * Returns circuit breaker that never opens.
+     *
+     * @return circuitBreaker
+     */
+    public static CircuitBreaker disabled() {
+        return new CircuitBreaker(0, 0);
+    }
+
+    /**
+     * Returns circuit breaker with given thresholds.
+     *
+     * @param failureThreshold           number of consecutive failures after
+     *                                   which circuit opens.
+     * @param openDurationInMilliseconds time circuit stays open before a probe
+     *                                   request is let through.
+     * @return circuitBreaker
+     * @throws FrejaEidClientInternalException if any of the values is not
+     *                                         positive.
+     */
+    public static CircuitBreaker create(int failureThreshold, long openDurationInMilliseconds)
+            throws FrejaEidClientInternalException {
+        if (failureThreshold <= 0 || openDurationInMilliseconds <= 0) {
+            throw new FrejaEidClientInternalException(
+                    "Circuit breaker failure threshold and open duration must be greater than zero.");
+        }
+        return new CircuitBreaker(failureThreshold, openDurationInMilliseconds);
+    }
+
+    private CircuitBreaker(int failureThreshold, long openDurationInMilliseconds) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationInNanoseconds = TimeUnit.MILLISECONDS.toNanos(openDurationInMilliseconds);
+    }
+
+    /**
+     * @param methodUrl Freja eID method.
+     * @return current state of the circuit guarding given method.
+     */
+    public CircuitState getState(MethodUrl methodUrl) {
+        Circuit circuit = circuits.get(methodUrl.toString());
+        return circuit != null ? circuit.getState(System.nanoTime()) : CircuitState.CLOSED;
+    }
+
+    /**
+     * @return states of all methods that have been called, keyed by method
+     * path as in {@linkplain MethodUrl}.
+     */
+    public Map<String, CircuitState> getStates() {
+        long now = System.nanoTime();
+        Map<String, CircuitState> states = new TreeMap<>();
+        for (Map.Entry<String, Circuit> circuit : circuits.entrySet()) {
+            states.put(circuit.getKey(), circuit.getValue().getState(now));
+        }
+        return Collections.unmodifiableMap(states);
+    }
+
+    public boolean isEnabled() {
+        return failureThreshold > 0;
+    }
+
+    /**
+     * Checks whether request to given URL may be sent. Outcome of every
+     * permitted request must be recorded exactly once, otherwise a half-open
+     * circuit would wait for its probe forever.
+     *
+     * @throws FrejaEidClientCircuitOpenException if circuit of the method is
+     *                                            open.
+     */
+    void acquirePermission(String url) throws FrejaEidClientCircuitOpenException {
+        if (!isEnabled()) {
+            return;
+        }
+        String methodPath = toMethodPath(url);
+        circuit(methodPath).acquirePermission(methodPath, System.nanoTime());
+    }
+
+    void onSuccess(String url) {
+        if (isEnabled()) {
+            circuit(toMethodPath(url)).onSuccess();
+        }
+    }
+
+    void onFailure(String url) {
+        if (isEnabled()) {
+            String methodPath = toMethodPath(url);
+            circuit(methodPath).onFailure(methodPath, System.nanoTime());
+        }
+    }
+
+    /**
+     * Records request that failed with an exception instead of getting a
+     * response.
+     */
+    void onException(String url, Throwable throwable) {
+        if (throwable instanceof ConnectionPoolTimeoutException) {
+            onCancelled(url);
+        } else {
+            onFailure(url);
+        }
+    }
+
+    /**
+     * Records request whose outcome is unknown, e.g. cancelled one. Circuit
+     * state is left as it is, only a pending probe is released.
+     */
+    void onCancelled(String url) {
+        if (isEnabled()) {
+            circuit(toMethodPath(url)).onCancelled();
+        }
+    }
+
+    /**
+     * Records outcome of a request that got a response.
+     */
+    void onResponse(String url, int statusCode) {
+        if (isFailure(statusCode)) {
+            onFailure(url);
+        } else {
+            onSuccess(url);
+        }
+    }
+
+    static boolean isFailure(int statusCode) {
+        HttpStatusCode httpStatusCode = HttpStatusCode.getHttpStatusCode(statusCode);
+        return httpStatusCode == HttpStatusCode.BAD_GATEWAY || httpStatusCode == HttpStatusCode.SERVICE_UNAVAILABLE
+                || httpStatusCode == HttpStatusCode.GATEWAY_TIMEOUT;
+    }
+
+    private Circuit circuit(String methodPath) {
+        Circuit circuit = circuits.get(methodPath);
+        if (circuit == null) {
+            Circuit newCircuit = new Circuit();
+            circuit = circuits.putIfAbsent(methodPath, newCircuit);
+            if (circuit == null) {
+                circuit = newCircuit;
+            }
+        }
+        return circuit;
+    }
+
+    /**
+     * @return path of the Freja eID method the URL points to, without the
+     * base path of the server URL. Path of the URL if it points to no known
+     * method.
+     */
+    static String toMethodPath(String url) {
+        String path;
+        try {
+            path = new URI(url).getPath();
+        } catch (URISyntaxException ex) {
+            return url;
+        }
+        if (path == null || path.isEmpty()) {
+            return url;
+        }
+        for (MethodUrl methodUrl : METHOD_URLS_BY_PATH_LENGTH) {
+            if (path.endsWith(methodUrl.toString())) {
+                return methodUrl.toString();
+            }
+        }
+        return path;
+    }
+
+    private final class Circuit {
+
+        private CircuitState state = CircuitState.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean probeInFlight;
+        private final Lock lock = new ReentrantLock();
+
+        CircuitState getState(long now) {
+            lock.lock();
+            try {
+                if (state == CircuitState.OPEN && now - openedAt >= openDurationInNanoseconds) {
+                    return CircuitState.HALF_OPEN;
+                }
+                return state;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void acquirePermission(String methodPath, long now) throws FrejaEidClientCircuitOpenException {
+            lock.lock();
+            try {
+                if (state == CircuitState.CLOSED) {
+                    return;
+                }
+                if (state == CircuitState.OPEN) {
+                    long remaining = openDurationInNanoseconds - (now - openedAt);
+                    if (remaining > 0) {
+                        throw new FrejaEidClientCircuitOpenException(
+                                String.format("Circuit for %s is open, request was not sent.", methodPath),
+                                methodPath, CircuitState.OPEN, TimeUnit.NANOSECONDS.toMillis(remaining));
+                    }
+                    state = CircuitState.HALF_OPEN;
+                    probeInFlight = false;
+                    LOG.debug("Circuit for {} is half-open, sending probe request.", methodPath);
+                }
+                if (probeInFlight) {
+                    throw new FrejaEidClientCircuitOpenException(
+                            String.format("Circuit for %s is half-open and probe request is in flight, request was "
+                                                  + "not sent.", methodPath), methodPath, CircuitState.HALF_OPEN, 0);
+                }
+                probeInFlight = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void onSuccess() {
+            lock.lock();
+            try {
+                consecutiveFailures = 0;
+                probeInFlight = false;
+                state = CircuitState.CLOSED;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void onCancelled() {
+            lock.lock();
+            try {
+                probeInFlight = false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void onFailure(String methodPath, long now) {
+            lock.lock();
+            try {
+                consecutiveFailures++;
+                if (state == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                    if (state != CircuitState.OPEN) {
+                        LOG.warn("Circuit for {} opened after {} consecutive failures.", methodPath,
+                                 consecutiveFailures);
+                    }
+                    state = CircuitState.OPEN;
+                    openedAt = now;
+                    probeInFlight = false;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,253 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+
+/**
+ * Sizing and lifetime limits of the HTTP connection pool shared by all
+ * requests sent from one client.
+ */
+public final class ConnectionPoolSettings {
+
+    public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 20;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+    public static final int DEFAULT_VALIDATE_AFTER_INACTIVITY_IN_MILLISECONDS = 2000;
+    public static final long DEFAULT_CONNECTION_TIME_TO_LIVE_IN_MILLISECONDS = -1;
+    public static final long DEFAULT_KEEP_ALIVE_DURATION_IN_MILLISECONDS = 30000;
+    public static final long DEFAULT_EVICTION_INTERVAL_IN_MILLISECONDS = 5000;
+
+    private final int maxConnectionsTotal;
+    private final int maxConnectionsPerRoute;
+    private final int validateAfterInactivityInMilliseconds;
+    private final long connectionTimeToLiveInMilliseconds;
+    private final int adaptiveMaxConnectionsLimit;
+    private final long keepAliveDurationInMilliseconds;
+    private final long evictionIntervalInMilliseconds;
+
+    /**
+     * Returns settings with a fixed pool of
+     * {@value #DEFAULT_MAX_CONNECTIONS_TOTAL} connections.
+     *
+     * @return connectionPoolSettings
+     */
+    public static ConnectionPoolSettings createDefault() {
+        return new Builder().buildUnchecked();
+    }
+
+    /**
+     * Returns builder for connection pool settings. Settings that are not set
+     * keep their default values.
+     *
+     * @return builder
+     */
+    public static Builder createCustom() {
+        return new Builder();
+    }
+
+    /**
+     * Returns validated connection pool settings.
+     *
+     * @param maxConnectionsTotal                   initial maximum number of
+     *                                              connections in the pool.
+     * @param maxConnectionsPerRoute                initial maximum number of
+     *                                              connections to a single host.
+     * @param validateAfterInactivityInMilliseconds period of inactivity after
+     *                                              which a pooled connection is
+     *                                              checked before being reused.
+     *                                              Non-positive value disables
+     *                                              the check.
+     * @param connectionTimeToLiveInMilliseconds    maximum lifetime of a
+     *                                              connection. Non-positive
+     *                                              value means connections live
+     *                                              until closed by the server.
+     * @param adaptiveMaxConnectionsLimit           when greater than zero, pool
+     *                                              grows with the number of
+     *                                              requests in flight up to this
+     *                                              limit. Zero keeps the pool
+     *                                              size fixed.
+     * @return connectionPoolSettings
+     * @throws FrejaEidClientInternalException if limits are not positive or
+     *                                         are inconsistent.
+     */
+    public static ConnectionPoolSettings create(int maxConnectionsTotal, int maxConnectionsPerRoute,
+                                                int validateAfterInactivityInMilliseconds,
+                                                long connectionTimeToLiveInMilliseconds,
+                                                int adaptiveMaxConnectionsLimit)
+            throws FrejaEidClientInternalException {
+        return createCustom()
+                .setMaxConnectionsTotal(maxConnectionsTotal)
+                .setMaxConnectionsPerRoute(maxConnectionsPerRoute)
+                .setValidateAfterInactivity(validateAfterInactivityInMilliseconds)
+                .setConnectionTimeToLive(connectionTimeToLiveInMilliseconds)
+                .setAdaptiveMaxConnectionsLimit(adaptiveMaxConnectionsLimit)
+                .build();
+    }
+
+    private ConnectionPoolSettings(Builder builder) {
+        this.maxConnectionsTotal = builder.maxConnectionsTotal;
+        this.maxConnectionsPerRoute = builder.maxConnectionsPerRoute;
+        this.validateAfterInactivityInMilliseconds = builder.validateAfterInactivityInMilliseconds;
+        this.connectionTimeToLiveInMilliseconds = builder.connectionTimeToLiveInMilliseconds;
+        this.adaptiveMaxConnectionsLimit = builder.adaptiveMaxConnectionsLimit;
+        this.keepAliveDurationInMilliseconds = builder.keepAliveDurationInMilliseconds;
+        this.evictionIntervalInMilliseconds = builder.evictionIntervalInMilliseconds;
+    }
+
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public int getValidateAfterInactivityInMilliseconds() {
+        return validateAfterInactivityInMilliseconds;
+    }
+
+    public long getConnectionTimeToLiveInMilliseconds() {
+        return connectionTimeToLiveInMilliseconds;
+    }
+
+    public int getAdaptiveMaxConnectionsLimit() {
+        return adaptiveMaxConnectionsLimit;
+    }
+
+    public boolean isAdaptive() {
+        return adaptiveMaxConnectionsLimit > 0;
+    }
+
+    public long getKeepAliveDurationInMilliseconds() {
+        return keepAliveDurationInMilliseconds;
+    }
+
+    public long getEvictionIntervalInMilliseconds() {
+        return evictionIntervalInMilliseconds;
+    }
+
+    public static class Builder {
+
+        private int maxConnectionsTotal = DEFAULT_MAX_CONNECTIONS_TOTAL;
+        private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+        private int validateAfterInactivityInMilliseconds = DEFAULT_VALIDATE_AFTER_INACTIVITY_IN_MILLISECONDS;
+        private long connectionTimeToLiveInMilliseconds = DEFAULT_CONNECTION_TIME_TO_LIVE_IN_MILLISECONDS;
+        private int adaptiveMaxConnectionsLimit = 0;
+        private long keepAliveDurationInMilliseconds = DEFAULT_KEEP_ALIVE_DURATION_IN_MILLISECONDS;
+        private long evictionIntervalInMilliseconds = DEFAULT_EVICTION_INTERVAL_IN_MILLISECONDS;
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxConnectionsTotal initial maximum number of connections in
+         *                            the pool.
+         * @return builder
+         */
+        public Builder setMaxConnectionsTotal(int maxConnectionsTotal) {
+            this.maxConnectionsTotal = maxConnectionsTotal;
+            return this;
+        }
+
+        /**
+         * @param maxConnectionsPerRoute initial maximum number of connections
+         *                               to a single host.
+         * @return builder
+         */
+        public Builder setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * @param validateAfterInactivityInMilliseconds period of inactivity
+         *                                              after which a pooled
+         *                                              connection is checked
+         *                                              before being reused.
+         *                                              Non-positive value
+         *                                              disables the check.
+         * @return builder
+         */
+        public Builder setValidateAfterInactivity(int validateAfterInactivityInMilliseconds) {
+            this.validateAfterInactivityInMilliseconds = validateAfterInactivityInMilliseconds;
+            return this;
+        }
+
+        /**
+         * @param connectionTimeToLiveInMilliseconds maximum lifetime of a
+         *                                           connection. Non-positive
+         *                                           value means connections
+         *                                           live until closed.
+         * @return builder
+         */
+        public Builder setConnectionTimeToLive(long connectionTimeToLiveInMilliseconds) {
+            this.connectionTimeToLiveInMilliseconds = connectionTimeToLiveInMilliseconds;
+            return this;
+        }
+
+        /**
+         * @param adaptiveMaxConnectionsLimit when greater than zero, pool grows
+         *                                    with the number of requests in
+         *                                    flight up to this limit.
+         * @return builder
+         */
+        public Builder setAdaptiveMaxConnectionsLimit(int adaptiveMaxConnectionsLimit) {
+            this.adaptiveMaxConnectionsLimit = adaptiveMaxConnectionsLimit;
+            return this;
+        }
+
+        /**
+         * @param keepAliveDurationInMilliseconds how long an idle connection is
+         *                                        kept when the server does not
+         *                                        send a {@code Keep-Alive}
+         *                                        timeout. Shorter server
+         *                                        timeout always wins.
+         * @return builder
+         */
+        public Builder setKeepAliveDuration(long keepAliveDurationInMilliseconds) {
+            this.keepAliveDurationInMilliseconds = keepAliveDurationInMilliseconds;
+            return this;
+        }
+
+        /**
+         * @param evictionIntervalInMilliseconds how often expired and idle
+         *                                       connections are closed in the
+         *                                       background. Non-positive value
+         *                                       disables eviction.
+         * @return builder
+         */
+        public Builder setEvictionInterval(long evictionIntervalInMilliseconds) {
+            this.evictionIntervalInMilliseconds = evictionIntervalInMilliseconds;
+            return this;
+        }
+
+        /**
+         * @return connectionPoolSettings
+         * @throws FrejaEidClientInternalException if limits are not positive
+         *                                         or are inconsistent.
+         */
+        public ConnectionPoolSettings build() throws FrejaEidClientInternalException {
+            if (maxConnectionsTotal <= 0 || maxConnectionsPerRoute <= 0) {
+                throw new FrejaEidClientInternalException("Maximum number of connections must be greater than zero.");
+            }
+            if (maxConnectionsPerRoute > maxConnectionsTotal) {
+                throw new FrejaEidClientInternalException(
+                        "Maximum number of connections per route cannot exceed maximum number of connections in "
+                                + "total.");
+            }
+            if (adaptiveMaxConnectionsLimit < 0
+                    || (adaptiveMaxConnectionsLimit > 0 && adaptiveMaxConnectionsLimit < maxConnectionsTotal)) {
+                throw new FrejaEidClientInternalException(
+                        "Adaptive connection limit cannot be lower than maximum number of connections in total.");
+            }
+            if (keepAliveDurationInMilliseconds <= 0) {
+                throw new FrejaEidClientInternalException("Keep-alive duration must be greater than zero.");
+            }
+            return buildUnchecked();
+        }
+
+        private ConnectionPoolSettings buildUnchecked() {
+            return new ConnectionPoolSettings(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,300 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.beans.common.FrejaHttpResponse;
+import com.verisec.frejaeid.client.beans.common.RelyingPartyRequest;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientCircuitOpenException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import com.verisec.frejaeid.client.util.RequestTemplate;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.util.EntityUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+
+/**
+ * Sends blocking and non-blocking requests over HTTP/2 using the HTTP client
+ * of the Java platform. Concurrent requests to the same host are multiplexed
+ * over a shared connection, so no connection pool is needed. Falls back to
+ * HTTP/1.1 if the server does not negotiate HTTP/2. Idempotent requests are
+ * retried by the same {@linkplain RetryPolicy} rules as on the HTTP/1.1
+ * transport.
+ */
+public class Http2Service extends BasicHttpService implements HttpServiceApi, AsyncHttpServiceApi {
+
+    public static final Logger LOG = LogManager.getLogger(Http2Service.class);
+
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+    private final RetryPolicy retryPolicy;
+    private final RetryBudget retryBudget;
+
+    public Http2Service(SSLContext sslContext, int connectionTimeout, int readTimeout) {
+        this(sslContext, connectionTimeout, readTimeout, CircuitBreaker.createDefault());
+    }
+
+    public Http2Service(SSLContext sslContext, int connectionTimeout, int readTimeout,
+                        CircuitBreaker circuitBreaker) {
+        this(sslContext, connectionTimeout, readTimeout, RetryPolicy.createDefault(), circuitBreaker);
+    }
+
+    public Http2Service(SSLContext sslContext, int connectionTimeout, int readTimeout, RetryPolicy retryPolicy,
+                        CircuitBreaker circuitBreaker) {
+        super(circuitBreaker);
+        this.retryPolicy = retryPolicy;
+        this.retryBudget = new RetryBudget(retryPolicy);
+        HttpClient.Builder httpClientBuilder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectionTimeout));
+        if (sslContext != null) {
+            httpClientBuilder.sslContext(sslContext);
+        }
+        this.httpClient = httpClientBuilder.build();
+        this.readTimeout = Duration.ofMillis(readTimeout);
+        LOG.debug("Successfully created HTTP/2 client with connection timeout {}ms and read timeout {}ms.",
+                  connectionTimeout, readTimeout);
+    }
+
+    @Override
+    public <Response extends FrejaHttpResponse> Response send(String methodUrl, RequestTemplate requestTemplate,
+                                                              RelyingPartyRequest relyingPartyRequest,
+                                                              Class<Response> responseType, String relyingPartyId)
+            throws FrejaEidClientInternalException, FrejaEidException {
+        HttpRequest request = createRequest(methodUrl, requestTemplate, relyingPartyRequest, relyingPartyId);
+        try {
+            HttpResponse<InputStream> httpResponse = execute(methodUrl, request, isIdempotent(requestTemplate),
+                                                             HttpResponse.BodyHandlers.ofInputStream());
+            LOG.debug("Successfully sent {} over {}.", relyingPartyRequest.getClass(), httpResponse.version());
+            return handleResponse(httpResponse.statusCode(), httpResponse.body(), responseType);
+        } catch (IOException e) {
+            throw new FrejaEidClientInternalException("Failed to send HTTP request.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FrejaEidClientInternalException("Failed to send HTTP request.", e);
+        }
+    }
+
+    @Override
+    public <Response extends FrejaHttpResponse> CompletableFuture<Response> sendAsync(
+            String methodUrl, RequestTemplate requestTemplate, final RelyingPartyRequest relyingPartyRequest,
+            final Class<Response> responseType, String relyingPartyId) {
+        final CompletableFuture<Response> futureResponse = new CompletableFuture<>();
+        HttpRequest request;
+        try {
+            request = createRequest(methodUrl, requestTemplate, relyingPartyRequest, relyingPartyId);
+        } catch (FrejaEidClientInternalException ex) {
+            futureResponse.completeExceptionally(ex);
+            return futureResponse;
+        }
+        try {
+            circuitBreaker.acquirePermission(methodUrl);
+        } catch (FrejaEidClientCircuitOpenException ex) {
+            futureResponse.completeExceptionally(ex);
+            return futureResponse;
+        }
+        retryBudget.onRequest();
+        sendAsync(request, isIdempotent(requestTemplate), 0)
+                .whenComplete((httpResponse, failure) -> {
+                    if (failure != null) {
+                        circuitBreaker.onFailure(methodUrl);
+                        futureResponse.completeExceptionally(
+                                new FrejaEidClientInternalException("Failed to send HTTP request.", failure));
+                        return;
+                    }
+                    circuitBreaker.onResponse(methodUrl, httpResponse.statusCode());
+                    LOG.debug("Successfully sent {} over {}.", relyingPartyRequest.getClass(),
+                              httpResponse.version());
+                    try {
+                        futureResponse.complete(handleResponse(httpResponse.statusCode(),
+                                                               new ByteArrayInputStream(httpResponse.body()),
+                                                               responseType));
+                    } catch (FrejaEidClientInternalException | FrejaEidException ex) {
+                        futureResponse.completeExceptionally(ex);
+                    } catch (IOException | RuntimeException ex) {
+                        futureResponse.completeExceptionally(
+                                new FrejaEidClientInternalException("Failed to send HTTP request.", ex));
+                    }
+                });
+        return futureResponse;
+    }
+
+    @Override
+    public byte[] httpGet(String methodUrl, Map<String, String> parameters)
+            throws FrejaEidClientInternalException, FrejaEidException {
+        try {
+            URIBuilder uriBuilder = new URIBuilder(methodUrl);
+            for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+                uriBuilder.addParameter(parameter.getKey(), parameter.getValue());
+            }
+            HttpRequest request = HttpRequest.newBuilder(uriBuilder.build())
+                    .timeout(readTimeout)
+                    .header("Content-Type", "application/json")
+                    .header(HttpHeaders.USER_AGENT, userAgentHeader)
+                    .GET()
+                    .build();
+            HttpResponse<byte[]> httpResponse = execute(methodUrl, request, true,
+                                                        HttpResponse.BodyHandlers.ofByteArray());
+            LOG.debug("Successfully sent HttpGet request to address {}.", methodUrl);
+            if (httpResponse.statusCode() == 200) {
+                return httpResponse.body();
+            }
+            throw new FrejaEidException(String.format("HTTP code %s message: %s", httpResponse.statusCode(),
+                                                      new String(httpResponse.body(), "UTF-8")));
+        } catch (IOException | URISyntaxException e) {
+            throw new FrejaEidClientInternalException("Failed to send HTTP request.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FrejaEidClientInternalException("Failed to send HTTP request.", e);
+        }
+    }
+
+    /**
+     * Sends request unless circuit of the method is open, and records the
+     * outcome in the circuit breaker. Outcome of an interrupted request or
+     * one that failed with an error is unknown, the permission is released
+     * nevertheless.
+     */
+    private <T> HttpResponse<T> execute(String methodUrl, HttpRequest request, boolean idempotent,
+                                        HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException, InterruptedException, FrejaEidClientCircuitOpenException {
+        circuitBreaker.acquirePermission(methodUrl);
+        boolean recorded = false;
+        try {
+            HttpResponse<T> httpResponse = execute(request, idempotent, bodyHandler);
+            recorded = true;
+            circuitBreaker.onResponse(methodUrl, httpResponse.statusCode());
+            return httpResponse;
+        } catch (IOException | RuntimeException ex) {
+            recorded = true;
+            circuitBreaker.onFailure(methodUrl);
+            throw ex;
+        } finally {
+            if (!recorded) {
+                circuitBreaker.onCancelled(methodUrl);
+            }
+        }
+    }
+
+    /**
+     * Sends request and, if request is idempotent, sends it again as long as
+     * retry policy and retry budget allow. Response of the last attempt is
+     * returned, whatever its status.
+     */
+    private <T> HttpResponse<T> execute(HttpRequest request, boolean idempotent,
+                                        HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException, InterruptedException {
+        retryBudget.onRequest();
+        for (int retry = 0; ; retry++) {
+            HttpResponse<T> httpResponse;
+            try {
+                httpResponse = httpClient.send(request, bodyHandler);
+            } catch (IOException ex) {
+                long delay = idempotent && isRetryable(ex) ? retryPolicy.getRetryDelay(retry, null) : -1;
+                if (delay < 0 || !retryBudget.tryRetry()) {
+                    throw ex;
+                }
+                LOG.debug("Request to {} failed, retrying in {}ms.", request.uri(), delay, ex);
+                Thread.sleep(delay);
+                continue;
+            }
+            long delay = getRetryDelay(httpResponse, idempotent, retry);
+            if (delay < 0 || !retryBudget.tryRetry()) {
+                return httpResponse;
+            }
+            if (httpResponse.body() instanceof Closeable) {
+                ((Closeable) httpResponse.body()).close();
+            }
+            LOG.debug("Received HTTP code {} from {}, retrying in {}ms.", httpResponse.statusCode(), request.uri(),
+                      delay);
+            Thread.sleep(delay);
+        }
+    }
+
+    /**
+     * Non-blocking variant of
+     * {@linkplain #execute(HttpRequest, boolean, HttpResponse.BodyHandler)},
+     * waiting between attempts occupies no thread.
+     */
+    private CompletableFuture<HttpResponse<byte[]>> sendAsync(final HttpRequest request, final boolean idempotent,
+                                                              final int retry) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((httpResponse, failure) -> {
+                    long delay;
+                    if (failure != null) {
+                        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                                          ? failure.getCause() : failure;
+                        delay = idempotent && cause instanceof IOException && isRetryable((IOException) cause)
+                                ? retryPolicy.getRetryDelay(retry, null) : -1;
+                    } else {
+                        delay = getRetryDelay(httpResponse, idempotent, retry);
+                    }
+                    if (delay < 0 || !retryBudget.tryRetry()) {
+                        return failure != null ? CompletableFuture.<HttpResponse<byte[]>>failedFuture(failure)
+                               : CompletableFuture.completedFuture(httpResponse);
+                    }
+                    LOG.debug("Request to {} not completed, retrying in {}ms.", request.uri(), delay, failure);
+                    Executor delayedExecutor = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS);
+                    return CompletableFuture.runAsync(() -> {
+                    }, delayedExecutor).thenCompose(ignore -> sendAsync(request, idempotent, retry + 1));
+                })
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * @return delay before retrying request answered with given response, or
+     * {@code -1} if it should not be retried.
+     */
+    private long getRetryDelay(HttpResponse<?> httpResponse, boolean idempotent, int retry) {
+        if (!idempotent || !retryPolicy.isRetryable(httpResponse.statusCode())) {
+            return -1;
+        }
+        return retryPolicy.getRetryDelay(retry, httpResponse.headers().firstValue(HttpHeaders.RETRY_AFTER)
+                .orElse(null));
+    }
+
+    private static boolean isRetryable(IOException ex) {
+        return !(ex instanceof SSLException) && !(ex.getCause() instanceof SSLException);
+    }
+
+    private static boolean isIdempotent(RequestTemplate requestTemplate) {
+        return requestTemplate != null && requestTemplate.isIdempotent();
+    }
+
+    private HttpRequest createRequest(String methodUrl, RequestTemplate requestTemplate,
+                                      RelyingPartyRequest relyingPartyRequest, String relyingPartyId)
+            throws FrejaEidClientInternalException {
+        byte[] body;
+        try {
+            body = EntityUtils.toByteArray(createRequestEntity(requestTemplate, relyingPartyRequest,
+                                                               relyingPartyId));
+        } catch (IOException ex) {
+            throw new FrejaEidClientInternalException("Failed to create HTTP request.", ex);
+        }
+        return HttpRequest.newBuilder(URI.create(methodUrl))
+                .timeout(readTimeout)
+                .header("Content-Type", "application/json")
+                .header(HttpHeaders.USER_AGENT, userAgentHeader)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+}
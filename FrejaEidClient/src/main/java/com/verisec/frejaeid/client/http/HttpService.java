@@ -1,65 +1,109 @@
 package com.verisec.frejaeid.client.http;
 
-import com.verisec.frejaeid.client.beans.common.FrejaHttpErrorResponse;
 import com.verisec.frejaeid.client.beans.common.FrejaHttpResponse;
 import com.verisec.frejaeid.client.beans.common.RelyingPartyRequest;
 import com.verisec.frejaeid.client.enums.HttpStatusCode;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientCircuitOpenException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidException;
-import com.verisec.frejaeid.client.util.JsonService;
 import com.verisec.frejaeid.client.util.RequestTemplate;
 
-import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.io.InterruptedIOException;
+import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.charset.StandardCharsets;
-import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
 
-import org.apache.commons.codec.binary.Base64;
-import org.apache.http.HttpEntity;
+import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
+import org.apache.http.NoHttpResponseException;
 import org.apache.http.client.HttpRequestRetryHandler;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-public class HttpService implements HttpServiceApi {
+public class HttpService extends BasicHttpService implements HttpServiceApi, Closeable {
 
     public static final Logger LOG = LogManager.getLogger(HttpService.class);
 
     private static final int DEFAULT_TRIES_NUMBER_HTTP_POOL = 3;
-    private JsonService jsonService;
-    private final HttpClient httpClient;
-    private static final String POST_PARAMS_DELIMITER = "&";
-
-    private static final String VERSION_PLACEHOLDER = "%version%";
-    private static final String FREJA_EID_CLIENT_VERSION_INFO = "FrejaEidClient/" + VERSION_PLACEHOLDER;
-    private static final String JAVA_VM_VERSION_INFO = "(Java/" + VERSION_PLACEHOLDER + ")";
-    private static String userAgentHeader;
+    private static final ScheduledExecutorService CONNECTION_EVICTOR =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "frejaeid-connection-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private final CloseableHttpClient httpClient;
+    private final PoolingHttpClientConnectionManager poolingHttpConnectionManager;
+    private final ConnectionPoolSettings connectionPoolSettings;
+    private final AtomicInteger requestsInFlight = new AtomicInteger();
+    private volatile int currentMaxConnectionsTotal;
+    private final Lock poolResizeLock = new ReentrantLock();
+    private final AtomicLong evictedConnectionCount = new AtomicLong();
+    private final AtomicLong staleConnectionCount = new AtomicLong();
+    private final ScheduledFuture<?> evictionTask;
+    private final int connectionTimeout;
+    private final RetryPolicy retryPolicy;
+    private final RetryBudget retryBudget;
 
     public HttpService(SSLContext sslContext, int connectionTimeout, int readTimeout) {
+        this(sslContext, connectionTimeout, readTimeout, ConnectionPoolSettings.createDefault());
+    }
+
+    public HttpService(SSLContext sslContext, int connectionTimeout, int readTimeout,
+                       ConnectionPoolSettings connectionPoolSettings) {
+        this(sslContext, connectionTimeout, readTimeout, connectionPoolSettings, RetryPolicy.createDefault());
+    }
+
+    public HttpService(SSLContext sslContext, int connectionTimeout, int readTimeout,
+                       ConnectionPoolSettings connectionPoolSettings, RetryPolicy retryPolicy) {
+        this(sslContext, connectionTimeout, readTimeout, connectionPoolSettings, retryPolicy,
+             CircuitBreaker.createDefault());
+    }
 
-        jsonService = new JsonService();
+    public HttpService(SSLContext sslContext, int connectionTimeout, int readTimeout,
+                       ConnectionPoolSettings connectionPoolSettings, RetryPolicy retryPolicy,
+                       CircuitBreaker circuitBreaker) {
+        super(circuitBreaker);
 
         HttpClientBuilder httpClientBuilder = HttpClients.custom().useSystemProperties();
         if (sslContext != null) {
@@ -71,31 +115,45 @@ public class HttpService implements HttpServiceApi {
         httpClientBuilder.setRetryHandler(new HttpRequestRetryHandler() {
             @Override
             public boolean retryRequest(IOException exception, int executionCount, HttpContext context) {
-                if (executionCount > DEFAULT_TRIES_NUMBER_HTTP_POOL) {
+                if (!(exception instanceof NoHttpResponseException)) {
                     return false;
                 }
-                return exception instanceof org.apache.http.NoHttpResponseException;
+                staleConnectionCount.incrementAndGet();
+                return executionCount <= DEFAULT_TRIES_NUMBER_HTTP_POOL;
             }
         });
+        httpClientBuilder.setKeepAliveStrategy(
+                new KeepAliveStrategy(connectionPoolSettings.getKeepAliveDurationInMilliseconds()));
+        // connections are bound to the client certificate of SSL context, not to a user, so they can be reused
+        httpClientBuilder.disableConnectionState();
 
-        PoolingHttpClientConnectionManager poolingHttpConnectionManager = null;
-        if (sslContext != null) {
-            SSLConnectionSocketFactory sslConFactory;
-            sslConFactory = new SSLConnectionSocketFactory(sslContext);
-            final RegistryBuilder<ConnectionSocketFactory> registryBuilder =
-                    RegistryBuilder.<ConnectionSocketFactory>create();
-            registryBuilder.register("http", PlainConnectionSocketFactory.getSocketFactory());
-            registryBuilder.register("https", sslConFactory);
-            poolingHttpConnectionManager = new PoolingHttpClientConnectionManager(registryBuilder.build());
-        } else {
-            poolingHttpConnectionManager = new PoolingHttpClientConnectionManager();
-        }
-        poolingHttpConnectionManager.setMaxTotal(20);
-        poolingHttpConnectionManager.setDefaultMaxPerRoute(20);
+        SSLConnectionSocketFactory sslConFactory = sslContext != null ? new SSLConnectionSocketFactory(sslContext)
+                : SSLConnectionSocketFactory.getSocketFactory();
+        final RegistryBuilder<ConnectionSocketFactory> registryBuilder =
+                RegistryBuilder.<ConnectionSocketFactory>create();
+        registryBuilder.register("http", PlainConnectionSocketFactory.getSocketFactory());
+        registryBuilder.register("https", sslConFactory);
+        poolingHttpConnectionManager =
+                new PoolingHttpClientConnectionManager(registryBuilder.build(), null, null, null,
+                                                       connectionPoolSettings.getConnectionTimeToLiveInMilliseconds(),
+                                                       TimeUnit.MILLISECONDS);
+        poolingHttpConnectionManager.setMaxTotal(connectionPoolSettings.getMaxConnectionsTotal());
+        poolingHttpConnectionManager.setDefaultMaxPerRoute(connectionPoolSettings.getMaxConnectionsPerRoute());
+        poolingHttpConnectionManager.setValidateAfterInactivity(
+                connectionPoolSettings.getValidateAfterInactivityInMilliseconds());
+        this.connectionPoolSettings = connectionPoolSettings;
+        this.connectionTimeout = connectionTimeout;
+        this.retryPolicy = retryPolicy;
+        this.retryBudget = new RetryBudget(retryPolicy);
+        this.currentMaxConnectionsTotal = connectionPoolSettings.getMaxConnectionsTotal();
         httpClient = httpClientBuilder.setConnectionManager(poolingHttpConnectionManager).build();
+        long evictionInterval = connectionPoolSettings.getEvictionIntervalInMilliseconds();
+        evictionTask = evictionInterval > 0 ? ConnectionEviction.schedule(this, evictionInterval) : null;
         LOG.debug("Successfully created HTTP client with SSL context, connection timeout {}ms and read timeout {}ms.",
                   connectionTimeout, readTimeout);
-        userAgentHeader = makeUserAgentHeader();
+        LOG.debug("Connection pool limited to {} connections in total and {} per route, adaptive limit {}.",
+                  connectionPoolSettings.getMaxConnectionsTotal(), connectionPoolSettings.getMaxConnectionsPerRoute(),
+                  connectionPoolSettings.getAdaptiveMaxConnectionsLimit());
     }
 
     @Override
@@ -105,65 +163,19 @@ public class HttpService implements HttpServiceApi {
             throws FrejaEidClientInternalException, FrejaEidException {
 
         HttpResponse httpResponse = null;
-        HttpPost request = null;
         HttpStatusCode httpStatusCode = null;
 
+        adjustPoolSize(requestsInFlight.incrementAndGet());
         try {
-            request = new HttpPost(methodUrl);
-            String requestBody = "";
-            if (requestTemplate != null) {
-                String jsonRequest = jsonService.serializeToJson(relyingPartyRequest);
-
-                String jsonRequestB64 = Base64.encodeBase64String(jsonRequest.getBytes(StandardCharsets.UTF_8));
-                requestBody = MessageFormat.format(requestTemplate.getTemplate(), jsonRequestB64);
-            }
-
-            if (relyingPartyId != null) {
-                String relyingPartyIdRequest = MessageFormat.format(RequestTemplate.RELYING_PARTY_ID.getTemplate(),
-                                                                    relyingPartyId);
-                requestBody += requestTemplate != null ? POST_PARAMS_DELIMITER + relyingPartyIdRequest :
-                        relyingPartyIdRequest;
-            }
-
-            StringEntity params = new StringEntity(requestBody, StandardCharsets.UTF_8);
-            request.addHeader("Content-Type", "application/json");
-            request.addHeader(HttpHeaders.USER_AGENT, userAgentHeader);
-            request.setEntity(params);
-            httpResponse = httpClient.execute(request);
+            HttpPost request = createPostRequest(methodUrl, requestTemplate, relyingPartyRequest, relyingPartyId);
+            httpResponse = execute(methodUrl, request, requestTemplate != null && requestTemplate.isIdempotent());
             LOG.debug("Successfully sent {}.", relyingPartyRequest.getClass());
-            HttpEntity entity = httpResponse.getEntity();
-            int httpStatusCodeValue = httpResponse.getStatusLine().getStatusCode();
-            httpStatusCode = HttpStatusCode.getHttpStatusCode(httpStatusCodeValue);
-            String responseString = "";
-            if (httpStatusCode != HttpStatusCode.NO_CONTENT) {
-                responseString = EntityUtils.toString(entity, StandardCharsets.UTF_8);
-            }
-            if (httpStatusCode == null) {
-                throw new FrejaEidException(
-                        String.format("Received unsupported HTTP status code %s. Received HTTP message: %s.",
-                                      httpResponse.getStatusLine().getStatusCode(), responseString));
-            }
-            switch (httpStatusCode) {
-                case OK:
-                    return jsonService.deserializeFromJson(responseString.getBytes(StandardCharsets.UTF_8),
-                                                           responseType);
-                case NO_CONTENT:
-                    return (Response) new FrejaHttpResponse() {
-                    };
-                case BAD_REQUEST:
-                case UNPROCESSABLE_ENTITY:
-                    FrejaHttpErrorResponse errorResponse =
-                            jsonService.deserializeFromJson(responseString.getBytes(StandardCharsets.UTF_8),
-                                                            FrejaHttpErrorResponse.class);
-                    throw new FrejaEidException(errorResponse.getMessage(), errorResponse.getCode());
-                default:
-                    throw new FrejaEidException(String.format("HTTP code %s message: %s",
-                                                              httpResponse.getStatusLine().getStatusCode(),
-                                                              responseString));
-            }
+            httpStatusCode = HttpStatusCode.getHttpStatusCode(httpResponse.getStatusLine().getStatusCode());
+            return handleResponse(httpResponse, responseType);
         } catch (IOException e) {
             throw new FrejaEidClientInternalException("Failed to send HTTP request.", e);
         } finally {
+            requestsInFlight.decrementAndGet();
             if (httpResponse != null && httpStatusCode != HttpStatusCode.NO_CONTENT) {
                 try {
                     httpResponse.getEntity().getContent().close();
@@ -188,11 +200,12 @@ public class HttpService implements HttpServiceApi {
             uriBuilder.addParameter(parameter.getKey(), parameter.getValue());
         }
 
+        adjustPoolSize(requestsInFlight.incrementAndGet());
         try {
             request = new HttpGet(uriBuilder.build());
             request.addHeader("Content-Type", "application/json");
             request.addHeader(HttpHeaders.USER_AGENT, userAgentHeader);
-            httpResponse = httpClient.execute(request);
+            httpResponse = execute(methodUrl, request, true);
             LOG.debug("Successfully sent HttpGet request to address {}.", methodUrl);
             int httpStatusCodeValue = httpResponse.getStatusLine().getStatusCode();
             httpStatusCode = HttpStatusCode.getHttpStatusCode(httpStatusCodeValue);
@@ -217,6 +230,7 @@ public class HttpService implements HttpServiceApi {
         } catch (IOException | URISyntaxException e) {
             throw new FrejaEidClientInternalException("Failed to send HTTP request.", e);
         } finally {
+            requestsInFlight.decrementAndGet();
             if (httpResponse != null && httpStatusCode != HttpStatusCode.NO_CONTENT) {
                 try {
                     httpResponse.getEntity().getContent().close();
@@ -227,36 +241,268 @@ public class HttpService implements HttpServiceApi {
         }
     }
 
-    final String makeUserAgentHeader() {
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append(FREJA_EID_CLIENT_VERSION_INFO.replace(VERSION_PLACEHOLDER, getLibVersion()));
-        stringBuilder.append(" ");
-        stringBuilder.append(JAVA_VM_VERSION_INFO.replace(VERSION_PLACEHOLDER, System.getProperty("java.version")));
-        return stringBuilder.toString();
+    /**
+     * Executes request unless circuit of the method is open, and records the
+     * outcome in the circuit breaker. Outcome of a request that failed with
+     * an error is unknown, the permission is released nevertheless.
+     */
+    private HttpResponse execute(String methodUrl, HttpUriRequest request, boolean idempotent)
+            throws IOException, FrejaEidClientCircuitOpenException {
+        circuitBreaker.acquirePermission(methodUrl);
+        boolean recorded = false;
+        try {
+            HttpResponse httpResponse = execute(request, idempotent);
+            recorded = true;
+            circuitBreaker.onResponse(methodUrl, httpResponse.getStatusLine().getStatusCode());
+            return httpResponse;
+        } catch (IOException | RuntimeException ex) {
+            recorded = true;
+            circuitBreaker.onException(methodUrl, ex);
+            throw ex;
+        } finally {
+            if (!recorded) {
+                circuitBreaker.onCancelled(methodUrl);
+            }
+        }
+    }
+
+    /**
+     * Executes request and, if request is idempotent, retries it as long as
+     * retry policy and retry budget allow. Response of the last attempt is
+     * returned, whatever its status.
+     */
+    private HttpResponse execute(HttpUriRequest request, boolean idempotent) throws IOException {
+        retryBudget.onRequest();
+        for (int retry = 0; ; retry++) {
+            HttpResponse httpResponse;
+            try {
+                httpResponse = httpClient.execute(request);
+            } catch (IOException ex) {
+                if (!idempotent || ex instanceof SSLException) {
+                    throw ex;
+                }
+                long delay = retryPolicy.getRetryDelay(retry, null);
+                if (delay < 0 || !retryBudget.tryRetry()) {
+                    throw ex;
+                }
+                LOG.debug("Request to {} failed, retrying in {}ms.", request.getURI(), delay, ex);
+                sleep(delay);
+                continue;
+            }
+            int statusCode = httpResponse.getStatusLine().getStatusCode();
+            if (!idempotent || !retryPolicy.isRetryable(statusCode)) {
+                return httpResponse;
+            }
+            Header retryAfter = httpResponse.getFirstHeader(HttpHeaders.RETRY_AFTER);
+            long delay = retryPolicy.getRetryDelay(retry, retryAfter != null ? retryAfter.getValue() : null);
+            if (delay < 0 || !retryBudget.tryRetry()) {
+                return httpResponse;
+            }
+            EntityUtils.consumeQuietly(httpResponse.getEntity());
+            LOG.debug("Received HTTP code {} from {}, retrying in {}ms.", statusCode, request.getURI(), delay);
+            sleep(delay);
+        }
     }
 
-    final String getLibVersion() {
-        ClassLoader classLoader = this.getClass().getClassLoader();
-        try (InputStreamReader is = new InputStreamReader(classLoader.getResourceAsStream("version.txt"));
-             BufferedReader bufferedReader = new BufferedReader(is)) {
-            String line = bufferedReader.readLine();
-            return line != null ? line : "N/A";
-        } catch (IOException e) {
-            return "N/A";
+    private static void sleep(long delay) throws InterruptedIOException {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry HTTP request.");
+        }
+    }
+
+    /**
+     * Opens up to given number of connections to the host of every URL and
+     * returns them to the pool, so that first requests do not pay for DNS
+     * lookup, TCP connect and TLS handshake. Connections are requested at
+     * once, otherwise the pool would hand out the same connection every time.
+     * Number of connections per host is capped by the pool limit per route.
+     * Hosts that cannot be reached are logged and skipped.
+     *
+     * @param urls        URLs whose hosts should be connected to.
+     * @param connections number of connections to open per host.
+     * @return number of connections opened and returned to the pool.
+     */
+    public int warmUp(Collection<String> urls, int connections) {
+        Set<HttpRoute> routes = new LinkedHashSet<>();
+        for (String url : urls) {
+            if (url == null) {
+                continue;
+            }
+            try {
+                URI uri = new URI(url);
+                HttpHost host = new HttpHost(uri.getHost(), uri.getPort(), uri.getScheme());
+                routes.add(new HttpRoute(host, null, "https".equalsIgnoreCase(host.getSchemeName())));
+            } catch (URISyntaxException | IllegalArgumentException ex) {
+                LOG.warn("Cannot warm up connections to invalid URL {}.", url, ex);
+            }
+        }
+        int connectionsPerRoute = Math.min(connections, poolingHttpConnectionManager.getDefaultMaxPerRoute());
+        int warmedUp = 0;
+        for (HttpRoute route : routes) {
+            warmedUp += warmUp(route, connectionsPerRoute);
+        }
+        LOG.debug("Warmed up {} connections to {} hosts.", warmedUp, routes.size());
+        return warmedUp;
+    }
+
+    private int warmUp(HttpRoute route, int connections) {
+        List<HttpClientConnection> warmedUp = new ArrayList<>(connections);
+        HttpClientContext context = HttpClientContext.create();
+        HttpClientConnection connection = null;
+        try {
+            for (int i = 0; i < connections; i++) {
+                ConnectionRequest connectionRequest = poolingHttpConnectionManager.requestConnection(route, null);
+                connection = connectionRequest.get(connectionTimeout, TimeUnit.MILLISECONDS);
+                if (!connection.isOpen()) {
+                    poolingHttpConnectionManager.connect(connection, route, connectionTimeout, context);
+                    poolingHttpConnectionManager.routeComplete(connection, route, context);
+                }
+                warmedUp.add(connection);
+                connection = null;
+            }
+        } catch (IOException | ExecutionException ex) {
+            LOG.warn("Failed to warm up connection to {}.", route.getTargetHost(), ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (connection != null) {
+            try {
+                connection.shutdown();
+            } catch (IOException ignore) {
+                // connection is discarded anyway
+            }
+            poolingHttpConnectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+        }
+        for (HttpClientConnection pooledConnection : warmedUp) {
+            poolingHttpConnectionManager.releaseConnection(
+                    pooledConnection, null, connectionPoolSettings.getKeepAliveDurationInMilliseconds(),
+                    TimeUnit.MILLISECONDS);
+        }
+        return warmedUp.size();
+    }
+
+    /**
+     * Closes all pooled connections.
+     *
+     * @throws IOException if connections cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (evictionTask != null) {
+            evictionTask.cancel(false);
+        }
+        httpClient.close();
+    }
+
+    /**
+     * @return number of idle or expired connections closed in the background.
+     */
+    public long getEvictedConnectionCount() {
+        return evictedConnectionCount.get();
+    }
+
+    /**
+     * @return number of requests sent over a pooled connection that had
+     * already been closed by the server and had to be retried.
+     */
+    public long getStaleConnectionCount() {
+        return staleConnectionCount.get();
+    }
+
+    /**
+     * Closes connections whose keep-alive or time to live has expired and
+     * connections idle for longer than keep-alive duration, so that requests
+     * after an idle period open a fresh connection instead of hitting one the
+     * server has dropped.
+     */
+    void evictConnections() {
+        try {
+            PoolStats before = poolingHttpConnectionManager.getTotalStats();
+            poolingHttpConnectionManager.closeExpiredConnections();
+            poolingHttpConnectionManager.closeIdleConnections(
+                    connectionPoolSettings.getKeepAliveDurationInMilliseconds(), TimeUnit.MILLISECONDS);
+            int evicted = before.getAvailable() - poolingHttpConnectionManager.getTotalStats().getAvailable();
+            if (evicted > 0) {
+                evictedConnectionCount.addAndGet(evicted);
+                LOG.debug("Evicted {} idle or expired connections.", evicted);
+            }
+        } catch (RuntimeException ex) {
+            LOG.warn("Failed to evict idle connections.", ex);
+        }
+    }
+
+    /**
+     * In adaptive mode, doubles the pool (up to the configured limit) as soon
+     * as the number of requests in flight reaches its current size, so bursts
+     * are served by new connections instead of waiting for a free one.
+     */
+    void adjustPoolSize(int inFlight) {
+        if (!connectionPoolSettings.isAdaptive() || inFlight < currentMaxConnectionsTotal) {
+            return;
+        }
+        poolResizeLock.lock();
+        try {
+            int maxConnectionsTotal = currentMaxConnectionsTotal;
+            int limit = connectionPoolSettings.getAdaptiveMaxConnectionsLimit();
+            if (inFlight < maxConnectionsTotal || maxConnectionsTotal >= limit) {
+                return;
+            }
+            int newMaxConnectionsTotal = Math.min(limit, Math.max(maxConnectionsTotal * 2, inFlight + 1));
+            poolingHttpConnectionManager.setMaxTotal(newMaxConnectionsTotal);
+            poolingHttpConnectionManager.setDefaultMaxPerRoute(newMaxConnectionsTotal);
+            currentMaxConnectionsTotal = newMaxConnectionsTotal;
+            LOG.debug("Connection pool grown from {} to {} connections with {} requests in flight.",
+                      maxConnectionsTotal, newMaxConnectionsTotal, inFlight);
+        } finally {
+            poolResizeLock.unlock();
         }
     }
 
-    private static byte[] readAllBytes(InputStream inputStream) throws FrejaEidClientInternalException {
-        final int bufferLengthInKB = 1024;
-        byte[] buffer = new byte[bufferLengthInKB];
-        int line;
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            while ((line = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, line);
+    int getCurrentMaxConnectionsTotal() {
+        return currentMaxConnectionsTotal;
+    }
+
+    /**
+     * Periodic eviction of idle connections. The shared evictor outlives
+     * services, so the service is referenced weakly: one that is never closed
+     * can still be collected, after which eviction shuts its connection pool
+     * down and cancels itself.
+     */
+    private static final class ConnectionEviction implements Runnable {
+
+        private final WeakReference<HttpService> httpService;
+        private final PoolingHttpClientConnectionManager connectionManager;
+        private volatile ScheduledFuture<?> task;
+
+        private ConnectionEviction(HttpService httpService) {
+            this.httpService = new WeakReference<>(httpService);
+            this.connectionManager = httpService.poolingHttpConnectionManager;
+        }
+
+        static ScheduledFuture<?> schedule(HttpService httpService, long evictionInterval) {
+            ConnectionEviction eviction = new ConnectionEviction(httpService);
+            eviction.task = CONNECTION_EVICTOR.scheduleWithFixedDelay(eviction, evictionInterval, evictionInterval,
+                                                                      TimeUnit.MILLISECONDS);
+            return eviction.task;
+        }
+
+        @Override
+        public void run() {
+            HttpService service = httpService.get();
+            if (service != null) {
+                service.evictConnections();
+                return;
             }
-            return outputStream.toByteArray();
-        } catch (IOException ex) {
-            throw new FrejaEidClientInternalException("Failed to read bytes from input stream", ex);
+            ScheduledFuture<?> scheduledTask = task;
+            if (scheduledTask != null) {
+                scheduledTask.cancel(false);
+            }
+            LOG.debug("HTTP service was not closed before being garbage collected, shutting its connections down.");
+            connectionManager.shutdown();
         }
+
     }
 }
@@ -0,0 +1,46 @@
+package com.verisec.frejaeid.client.http;
+
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Keeps idle connections for the {@code timeout} announced in the
+ * {@code Keep-Alive} response header, but never longer than the configured
+ * duration. Without this, connections are considered reusable forever and
+ * the first request after an idle period lands on a socket the server has
+ * already closed.
+ */
+final class KeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+    private static final String TIMEOUT_PARAMETER = "timeout";
+
+    private final long maxKeepAliveDurationInMilliseconds;
+
+    KeepAliveStrategy(long maxKeepAliveDurationInMilliseconds) {
+        this.maxKeepAliveDurationInMilliseconds = maxKeepAliveDurationInMilliseconds;
+    }
+
+    @Override
+    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+        HeaderElementIterator iterator = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+        while (iterator.hasNext()) {
+            HeaderElement element = iterator.nextElement();
+            if (TIMEOUT_PARAMETER.equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                try {
+                    long timeoutInMilliseconds = Long.parseLong(element.getValue().trim()) * 1000;
+                    // non-positive duration would mean "forever" to the pool
+                    return Math.min(Math.max(timeoutInMilliseconds, 1), maxKeepAliveDurationInMilliseconds);
+                } catch (NumberFormatException ignore) {
+                    // malformed header falls back to configured duration
+                }
+            }
+        }
+        return maxKeepAliveDurationInMilliseconds;
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.beans.common.RelyingPartyRequest;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.util.JsonService;
+import com.verisec.frejaeid.client.util.RequestTemplate;
+import org.apache.commons.codec.binary.Base64OutputStream;
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request body in the form {@code template(base64(json))&relyingPartyId=id}
+ * written straight to the connection. JSON is streamed through a Base64
+ * encoder, so no String or byte array copy of the body is built. The body
+ * is sent chunked, its length is not known until it is serialized and
+ * serializing it twice just to count it would double the cost of every
+ * request.
+ */
+final class RequestEntity extends AbstractHttpEntity {
+
+    private static final byte[] POST_PARAMS_DELIMITER = "&".getBytes(StandardCharsets.UTF_8);
+
+    private final JsonService jsonService;
+    private final RequestTemplate requestTemplate;
+    private final RelyingPartyRequest relyingPartyRequest;
+    private final byte[] relyingPartyId;
+
+    RequestEntity(JsonService jsonService, RequestTemplate requestTemplate, RelyingPartyRequest relyingPartyRequest,
+                  String relyingPartyId) {
+        this.jsonService = jsonService;
+        this.requestTemplate = requestTemplate;
+        this.relyingPartyRequest = relyingPartyRequest;
+        this.relyingPartyId = relyingPartyId != null ? relyingPartyId.getBytes(StandardCharsets.UTF_8) : null;
+        setChunked(true);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    /**
+     * Used by transports that cannot write to an output stream, body is
+     * buffered in that case.
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writeTo(outputStream);
+        return new ByteArrayInputStream(outputStream.toByteArray());
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        if (requestTemplate != null) {
+            requestTemplate.writePrefix(outputStream);
+            try (OutputStream base64OutputStream = new Base64OutputStream(new ShieldedOutputStream(outputStream),
+                                                                          true, 0, null)) {
+                jsonService.serializeToJson(relyingPartyRequest, base64OutputStream);
+            } catch (FrejaEidClientInternalException ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+            requestTemplate.writeSuffix(outputStream);
+        }
+        if (relyingPartyId != null) {
+            if (requestTemplate != null) {
+                outputStream.write(POST_PARAMS_DELIMITER);
+            }
+            RequestTemplate.RELYING_PARTY_ID.writePrefix(outputStream);
+            outputStream.write(relyingPartyId);
+            RequestTemplate.RELYING_PARTY_ID.writeSuffix(outputStream);
+        }
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * Keeps Base64 encoder from flushing or closing the connection stream.
+     * Flushing mid-body would send the request in several segments, which
+     * turns a write on a stale pooled connection into a broken pipe instead
+     * of a retriable missing response.
+     */
+    private static final class ShieldedOutputStream extends FilterOutputStream {
+
+        private ShieldedOutputStream(OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
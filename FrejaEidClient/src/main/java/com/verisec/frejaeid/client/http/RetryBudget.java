@@ -0,0 +1,49 @@
+package com.verisec.frejaeid.client.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiting retries to a fraction of sent requests. Every request
+ * deposits a fraction of a token and every retry withdraws a whole one. The
+ * bucket starts full and is capped at the minimum budget, so once an outage
+ * drains it retries only continue at the rate earned by new requests.
+ */
+final class RetryBudget {
+
+    private static final long TOKEN = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    RetryBudget(RetryPolicy retryPolicy) {
+        this.deposit = (long) (retryPolicy.getRetryBudgetRatio() * TOKEN);
+        this.capacity = Math.max(retryPolicy.getMinRetryBudget(), 1) * TOKEN;
+        this.balance = new AtomicLong(retryPolicy.getMinRetryBudget() * TOKEN);
+    }
+
+    void onRequest() {
+        if (deposit == 0) {
+            return;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current >= capacity) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(capacity, current + deposit)));
+    }
+
+    boolean tryRetry() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+}
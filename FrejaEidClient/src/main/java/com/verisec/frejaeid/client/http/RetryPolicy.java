@@ -0,0 +1,228 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.enums.HttpStatusCode;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import org.apache.http.client.utils.DateUtils;
+
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry rules for idempotent requests, such as fetching transaction results.
+ * Requests failed on I/O or answered with {@code 429}, {@code 502},
+ * {@code 503} or {@code 504} are sent again after an exponentially growing,
+ * randomized delay. Delay requested by the server in {@code Retry-After}
+ * header is honoured. Number of retries is additionally limited by a retry
+ * budget shared by all requests of one transport, so retries cannot multiply
+ * load while Freja eID service is struggling.
+ */
+public final class RetryPolicy {
+
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    public static final long DEFAULT_INITIAL_BACKOFF_IN_MILLISECONDS = 200;
+    public static final long DEFAULT_MAX_BACKOFF_IN_MILLISECONDS = 5000;
+    public static final double DEFAULT_RETRY_BUDGET_RATIO = 0.1;
+    public static final int DEFAULT_MIN_RETRY_BUDGET = 10;
+
+    private final int maxRetries;
+    private final long initialBackoffInMilliseconds;
+    private final long maxBackoffInMilliseconds;
+    private final double retryBudgetRatio;
+    private final int minRetryBudget;
+
+    /**
+     * Returns policy with up to {@value #DEFAULT_MAX_RETRIES} retries per
+     * request and a retry budget of 10% of sent requests.
+     *
+     * @return retryPolicy
+     */
+    public static RetryPolicy createDefault() {
+        return new Builder().buildUnchecked();
+    }
+
+    /**
+     * Returns policy that never retries.
+     *
+     * @return retryPolicy
+     */
+    public static RetryPolicy disabled() {
+        return new Builder().setMaxRetries(0).buildUnchecked();
+    }
+
+    /**
+     * Returns builder for retry policy. Settings that are not set keep their
+     * default values.
+     *
+     * @return builder
+     */
+    public static Builder createCustom() {
+        return new Builder();
+    }
+
+    private RetryPolicy(Builder builder) {
+        this.maxRetries = builder.maxRetries;
+        this.initialBackoffInMilliseconds = builder.initialBackoffInMilliseconds;
+        this.maxBackoffInMilliseconds = builder.maxBackoffInMilliseconds;
+        this.retryBudgetRatio = builder.retryBudgetRatio;
+        this.minRetryBudget = builder.minRetryBudget;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public long getInitialBackoffInMilliseconds() {
+        return initialBackoffInMilliseconds;
+    }
+
+    public long getMaxBackoffInMilliseconds() {
+        return maxBackoffInMilliseconds;
+    }
+
+    public double getRetryBudgetRatio() {
+        return retryBudgetRatio;
+    }
+
+    public int getMinRetryBudget() {
+        return minRetryBudget;
+    }
+
+    /**
+     * @param statusCode HTTP status code of the response.
+     * @return {@code true} if response signals a temporary condition.
+     */
+    public boolean isRetryable(int statusCode) {
+        HttpStatusCode httpStatusCode = HttpStatusCode.getHttpStatusCode(statusCode);
+        return httpStatusCode == HttpStatusCode.TOO_MANY_REQUESTS || httpStatusCode == HttpStatusCode.BAD_GATEWAY
+                || httpStatusCode == HttpStatusCode.SERVICE_UNAVAILABLE
+                || httpStatusCode == HttpStatusCode.GATEWAY_TIMEOUT;
+    }
+
+    /**
+     * Returns delay before given retry. Without {@code Retry-After} header the
+     * delay is picked at random between zero and the exponential backoff
+     * (full jitter), so that clients failed at the same time do not retry at
+     * the same time.
+     *
+     * @param retry      zero based number of the retry.
+     * @param retryAfter value of {@code Retry-After} header, either delay in
+     *                   seconds or HTTP date, or {@code null}.
+     * @return delay in milliseconds, or {@code -1} if request should not be
+     * retried, either because retries are exhausted or server asked to wait
+     * longer than maximum backoff.
+     */
+    public long getRetryDelay(int retry, String retryAfter) {
+        if (retry >= maxRetries) {
+            return -1;
+        }
+        long retryAfterInMilliseconds = parseRetryAfter(retryAfter);
+        if (retryAfterInMilliseconds > maxBackoffInMilliseconds) {
+            return -1;
+        }
+        if (retryAfterInMilliseconds >= 0) {
+            return retryAfterInMilliseconds;
+        }
+        long backoff = initialBackoffInMilliseconds << Math.min(retry, 30);
+        if (backoff <= 0 || backoff > maxBackoffInMilliseconds) {
+            backoff = maxBackoffInMilliseconds;
+        }
+        return ThreadLocalRandom.current().nextLong(backoff + 1);
+    }
+
+    private static long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null || retryAfter.trim().isEmpty()) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException ignore) {
+            // not delta seconds, try HTTP date
+        }
+        Date date = DateUtils.parseDate(retryAfter.trim());
+        if (date == null) {
+            return -1;
+        }
+        return Math.max(0, date.getTime() - System.currentTimeMillis());
+    }
+
+    public static class Builder {
+
+        private int maxRetries = DEFAULT_MAX_RETRIES;
+        private long initialBackoffInMilliseconds = DEFAULT_INITIAL_BACKOFF_IN_MILLISECONDS;
+        private long maxBackoffInMilliseconds = DEFAULT_MAX_BACKOFF_IN_MILLISECONDS;
+        private double retryBudgetRatio = DEFAULT_RETRY_BUDGET_RATIO;
+        private int minRetryBudget = DEFAULT_MIN_RETRY_BUDGET;
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxRetries maximum number of retries of one request. Zero
+         *                   disables retries.
+         * @return builder
+         */
+        public Builder setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * @param initialBackoffInMilliseconds upper bound of the delay before
+         *                                     the first retry, doubled for
+         *                                     every next retry.
+         * @return builder
+         */
+        public Builder setInitialBackoff(long initialBackoffInMilliseconds) {
+            this.initialBackoffInMilliseconds = initialBackoffInMilliseconds;
+            return this;
+        }
+
+        /**
+         * @param maxBackoffInMilliseconds upper bound of any delay. Requests
+         *                                 for which server asks to wait longer
+         *                                 are not retried.
+         * @return builder
+         */
+        public Builder setMaxBackoff(long maxBackoffInMilliseconds) {
+            this.maxBackoffInMilliseconds = maxBackoffInMilliseconds;
+            return this;
+        }
+
+        /**
+         * @param retryBudgetRatio number of retries earned by every sent
+         *                         request, e.g. 0.1 allows one retry per ten
+         *                         requests.
+         * @param minRetryBudget   number of retries available at any time,
+         *                         regardless of the number of sent requests.
+         * @return builder
+         */
+        public Builder setRetryBudget(double retryBudgetRatio, int minRetryBudget) {
+            this.retryBudgetRatio = retryBudgetRatio;
+            this.minRetryBudget = minRetryBudget;
+            return this;
+        }
+
+        /**
+         * @return retryPolicy
+         * @throws FrejaEidClientInternalException if any of the values is
+         *                                         negative or backoff limits
+         *                                         are inconsistent.
+         */
+        public RetryPolicy build() throws FrejaEidClientInternalException {
+            if (maxRetries < 0 || initialBackoffInMilliseconds < 0 || maxBackoffInMilliseconds < 0
+                    || retryBudgetRatio < 0 || minRetryBudget < 0) {
+                throw new FrejaEidClientInternalException("Retry policy values cannot be negative.");
+            }
+            if (initialBackoffInMilliseconds > maxBackoffInMilliseconds) {
+                throw new FrejaEidClientInternalException("Initial backoff cannot exceed maximum backoff.");
+            }
+            return buildUnchecked();
+        }
+
+        private RetryPolicy buildUnchecked() {
+            return new RetryPolicy(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,272 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.beans.general.SslSettings;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.util.SslContextFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.net.ssl.SSLContext;
+
+/**
+ * HTTP transport with one connection pool that can be shared by several
+ * clients, so that they reuse the same TLS sessions and keep-alive
+ * connections to Freja eID services.
+ * <p>
+ * Transport is reference counted. Creator holds the first reference and
+ * releases it with {@linkplain #close()}, every client built with the
+ * transport holds one more and releases it when the client is closed.
+ * Connections are closed when the last reference is released.
+ */
+public final class SharedHttpTransport implements Closeable {
+
+    public static final Logger LOG = LogManager.getLogger(SharedHttpTransport.class);
+
+    public static final int DEFAULT_CONNECTION_TIMEOUT_IN_MILLISECONDS = 20000;
+    public static final int DEFAULT_READ_TIMEOUT_IN_MILLISECONDS = 20000;
+
+    private final HttpServiceApi httpService;
+    private final AsyncHttpServiceApi asyncHttpService;
+    private final AtomicInteger references = new AtomicInteger(1);
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * Returns transport with default timeouts and connection pool settings.
+     *
+     * @param sslSettings instance of {@linkplain SslSettings} used for all
+     *                    connections of this transport.
+     * @return sharedHttpTransport
+     * @throws FrejaEidClientInternalException if SSL context cannot be
+     *                                         created.
+     */
+    public static SharedHttpTransport create(SslSettings sslSettings) throws FrejaEidClientInternalException {
+        return create(sslSettings, DEFAULT_CONNECTION_TIMEOUT_IN_MILLISECONDS, DEFAULT_READ_TIMEOUT_IN_MILLISECONDS,
+                      ConnectionPoolSettings.createDefault());
+    }
+
+    /**
+     * Returns transport with given timeouts and connection pool settings.
+     *
+     * @param sslSettings            instance of {@linkplain SslSettings} used
+     *                               for all connections of this transport.
+     * @param connectionTimeout      in milliseconds.
+     * @param readTimeout            in milliseconds.
+     * @param connectionPoolSettings instance of
+     *                               {@linkplain ConnectionPoolSettings}.
+     * @return sharedHttpTransport
+     * @throws FrejaEidClientInternalException if SSL context cannot be
+     *                                         created.
+     */
+    public static SharedHttpTransport create(SslSettings sslSettings, int connectionTimeout, int readTimeout,
+                                             ConnectionPoolSettings connectionPoolSettings)
+            throws FrejaEidClientInternalException {
+        return create(sslSettings, connectionTimeout, readTimeout, connectionPoolSettings,
+                      RetryPolicy.createDefault());
+    }
+
+    /**
+     * Returns transport with given timeouts, connection pool settings and
+     * retry policy.
+     *
+     * @param sslSettings            instance of {@linkplain SslSettings} used
+     *                               for all connections of this transport.
+     * @param connectionTimeout      in milliseconds.
+     * @param readTimeout            in milliseconds.
+     * @param connectionPoolSettings instance of
+     *                               {@linkplain ConnectionPoolSettings}.
+     * @param retryPolicy            instance of {@linkplain RetryPolicy}.
+     * @return sharedHttpTransport
+     * @throws FrejaEidClientInternalException if SSL context cannot be
+     *                                         created.
+     */
+    public static SharedHttpTransport create(SslSettings sslSettings, int connectionTimeout, int readTimeout,
+                                             ConnectionPoolSettings connectionPoolSettings, RetryPolicy retryPolicy)
+            throws FrejaEidClientInternalException {
+        return create(sslSettings, connectionTimeout, readTimeout, connectionPoolSettings, retryPolicy,
+                      CircuitBreaker.createDefault());
+    }
+
+    /**
+     * Returns transport with given timeouts, connection pool settings, retry
+     * policy and circuit breaker.
+     *
+     * @param sslSettings            instance of {@linkplain SslSettings} used
+     *                               for all connections of this transport.
+     * @param connectionTimeout      in milliseconds.
+     * @param readTimeout            in milliseconds.
+     * @param connectionPoolSettings instance of
+     *                               {@linkplain ConnectionPoolSettings}.
+     * @param retryPolicy            instance of {@linkplain RetryPolicy}.
+     * @param circuitBreaker         instance of {@linkplain CircuitBreaker}
+     *                               guarding all requests of this transport.
+     * @return sharedHttpTransport
+     * @throws FrejaEidClientInternalException if SSL context cannot be
+     *                                         created.
+     */
+    public static SharedHttpTransport create(SslSettings sslSettings, int connectionTimeout, int readTimeout,
+                                             ConnectionPoolSettings connectionPoolSettings, RetryPolicy retryPolicy,
+                                             CircuitBreaker circuitBreaker)
+            throws FrejaEidClientInternalException {
+        if (circuitBreaker == null) {
+            throw new FrejaEidClientInternalException("CircuitBreaker cannot be null.");
+        }
+        if (connectionPoolSettings == null) {
+            throw new FrejaEidClientInternalException("ConnectionPoolSettings cannot be null.");
+        }
+        if (retryPolicy == null) {
+            throw new FrejaEidClientInternalException("RetryPolicy cannot be null.");
+        }
+        SSLContext sslContext = SslContextFactory.create(sslSettings);
+        LOG.debug("Creating shared HTTP transport.");
+        return new SharedHttpTransport(new HttpService(sslContext, connectionTimeout, readTimeout,
+                                                       connectionPoolSettings, retryPolicy, circuitBreaker),
+                                       new AsyncHttpService(sslContext, connectionTimeout, readTimeout,
+                                                            connectionPoolSettings, retryPolicy, circuitBreaker));
+    }
+
+    /**
+     * Returns transport multiplexing all requests over HTTP/2 with given
+     * timeouts.
+     *
+     * @param sslSettings       instance of {@linkplain SslSettings} used for
+     *                          all connections of this transport.
+     * @param connectionTimeout in milliseconds.
+     * @param readTimeout       in milliseconds.
+     * @return sharedHttpTransport
+     * @throws FrejaEidClientInternalException if SSL context cannot be
+     *                                         created.
+     */
+    public static SharedHttpTransport createHttp2(SslSettings sslSettings, int connectionTimeout, int readTimeout)
+            throws FrejaEidClientInternalException {
+        SSLContext sslContext = SslContextFactory.create(sslSettings);
+        LOG.debug("Creating shared HTTP/2 transport.");
+        return createHttp2(sslContext, connectionTimeout, readTimeout);
+    }
+
+    /**
+     * Returns transport multiplexing all requests over HTTP/2.
+     */
+    public static SharedHttpTransport createHttp2(SSLContext sslContext, int connectionTimeout, int readTimeout) {
+        return createHttp2(sslContext, connectionTimeout, readTimeout, CircuitBreaker.createDefault());
+    }
+
+    /**
+     * Returns transport multiplexing all requests over HTTP/2, guarded by
+     * given circuit breaker.
+     */
+    public static SharedHttpTransport createHttp2(SSLContext sslContext, int connectionTimeout, int readTimeout,
+                                                  CircuitBreaker circuitBreaker) {
+        return createHttp2(sslContext, connectionTimeout, readTimeout, RetryPolicy.createDefault(), circuitBreaker);
+    }
+
+    /**
+     * Returns transport multiplexing all requests over HTTP/2 with given retry
+     * policy, guarded by given circuit breaker.
+     */
+    public static SharedHttpTransport createHttp2(SSLContext sslContext, int connectionTimeout, int readTimeout,
+                                                  RetryPolicy retryPolicy, CircuitBreaker circuitBreaker) {
+        Http2Service http2Service = new Http2Service(sslContext, connectionTimeout, readTimeout, retryPolicy,
+                                                     circuitBreaker);
+        return new SharedHttpTransport(http2Service, http2Service);
+    }
+
+    /**
+     * Creates transport around given services. Asynchronous service is
+     * optional. Services that implement {@linkplain Closeable} are closed
+     * when the last reference is released.
+     */
+    public SharedHttpTransport(HttpServiceApi httpService, AsyncHttpServiceApi asyncHttpService) {
+        this.httpService = httpService;
+        this.asyncHttpService = asyncHttpService;
+    }
+
+    /**
+     * Takes one more reference to this transport.
+     *
+     * @return this transport.
+     * @throws FrejaEidClientInternalException if transport is already closed.
+     */
+    public SharedHttpTransport acquire() throws FrejaEidClientInternalException {
+        while (true) {
+            int current = references.get();
+            if (current == 0) {
+                throw new FrejaEidClientInternalException("Shared HTTP transport is already closed.");
+            }
+            if (references.compareAndSet(current, current + 1)) {
+                return this;
+            }
+        }
+    }
+
+    /**
+     * Releases one reference to this transport and closes all connections when
+     * the last reference is released.
+     */
+    public void release() {
+        int remaining = references.decrementAndGet();
+        if (remaining > 0) {
+            return;
+        }
+        if (remaining < 0) {
+            references.incrementAndGet();
+            return;
+        }
+        LOG.debug("Last reference to HTTP transport released, closing connections.");
+        closeQuietly(httpService);
+        if (asyncHttpService != httpService) {
+            closeQuietly(asyncHttpService);
+        }
+    }
+
+    /**
+     * Releases the reference held by the creator of this transport. Calling
+     * this method more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            release();
+        }
+    }
+
+    public HttpServiceApi getHttpService() {
+        return httpService;
+    }
+
+    public AsyncHttpServiceApi getAsyncHttpService() {
+        return asyncHttpService;
+    }
+
+    /**
+     * @return circuit breaker guarding requests of this transport, or
+     * {@code null} if transport was created around services without one.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return httpService instanceof BasicHttpService ? ((BasicHttpService) httpService).getCircuitBreaker()
+                                                       : null;
+    }
+
+    /**
+     * @return {@code true} if all references are released and connections
+     * are closed.
+     */
+    public boolean isReleased() {
+        return references.get() == 0;
+    }
+
+    private static void closeQuietly(Object service) {
+        if (!(service instanceof Closeable)) {
+            return;
+        }
+        try {
+            ((Closeable) service).close();
+        } catch (IOException ex) {
+            LOG.warn("Failed to close HTTP connections.", ex);
+        }
+    }
+
+}
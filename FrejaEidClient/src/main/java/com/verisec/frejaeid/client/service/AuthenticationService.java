@@ -12,20 +12,30 @@ import com.verisec.frejaeid.client.enums.TransactionContext;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import com.verisec.frejaeid.client.http.AsyncHttpServiceApi;
 import com.verisec.frejaeid.client.http.HttpServiceApi;
 import com.verisec.frejaeid.client.util.MethodUrl;
 import com.verisec.frejaeid.client.util.RequestTemplate;
 
-import java.util.concurrent.TimeUnit;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 public class AuthenticationService extends BasicService {
 
     private final int pollingTimeoutInMilliseconds;
     private final TransactionContext transactionContext;
+    private BatchPoller<AuthenticationResult> batchPoller;
 
     public AuthenticationService(String serverAddress, HttpServiceApi httpService, int pollingTimeoutInMilliseconds,
                                  TransactionContext transactionContext, String resourceServiceUrl) {
-        super(serverAddress, httpService, resourceServiceUrl);
+        this(serverAddress, httpService, null, pollingTimeoutInMilliseconds, transactionContext, resourceServiceUrl);
+    }
+
+    public AuthenticationService(String serverAddress, HttpServiceApi httpService,
+                                 AsyncHttpServiceApi asyncHttpService, int pollingTimeoutInMilliseconds,
+                                 TransactionContext transactionContext, String resourceServiceUrl) {
+        super(serverAddress, httpService, asyncHttpService, resourceServiceUrl);
         this.pollingTimeoutInMilliseconds = pollingTimeoutInMilliseconds;
         this.transactionContext = transactionContext;
     }
@@ -38,67 +48,194 @@ public class AuthenticationService extends BasicService {
 
     public InitiateAuthenticationResponse initiate(InitiateAuthenticationRequest initiateAuthenticationRequest)
             throws FrejaEidClientInternalException, FrejaEidException {
-        MethodUrl methodUrl = transactionContext == TransactionContext.ORGANISATIONAL ?
-                MethodUrl.ORGANISATION_AUTHENTICATION_INIT : MethodUrl.AUTHENTICATION_INIT;
-        return httpService.send(getUrl(serverAddress, methodUrl), RequestTemplate.INIT_AUTHENTICATION,
+        return httpService.send(getUrl(serverAddress, getInitMethodUrl()), RequestTemplate.INIT_AUTHENTICATION,
                                 initiateAuthenticationRequest, InitiateAuthenticationResponse.class,
                                 initiateAuthenticationRequest.getRelyingPartyId());
     }
 
     public AuthenticationResult getResult(AuthenticationResultRequest authenticationResultRequest)
             throws FrejaEidClientInternalException, FrejaEidException {
-        MethodUrl methodUrl = transactionContext == TransactionContext.ORGANISATIONAL ?
-                MethodUrl.ORGANISATION_AUTHENTICATION_GET_ONE_RESULT : MethodUrl.AUTHENTICATION_GET_RESULT;
-        return httpService.send(getUrl(serverAddress, methodUrl), RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE,
-                                authenticationResultRequest, AuthenticationResult.class,
-                                authenticationResultRequest.getRelyingPartyId());
+        MethodUrl methodUrl = getResultMethodUrl();
+        return getResultSingleFlight(
+                methodUrl, authenticationResultRequest.getAuthRef(), authenticationResultRequest.getRelyingPartyId(),
+                () -> httpService.send(getUrl(serverAddress, methodUrl), RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE,
+                                       authenticationResultRequest, AuthenticationResult.class,
+                                       authenticationResultRequest.getRelyingPartyId()));
     }
 
     public AuthenticationResult pollForResult(AuthenticationResultRequest authenticationResultRequest,
                                               int maxWaitingTimeInSec)
             throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException {
-        long pollingEndTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(maxWaitingTimeInSec);
-        while (maxWaitingTimeInSec == 0 || isPollingTimeExpired(pollingEndTime)) {
-            AuthenticationResult getAuthenticationResult = getResult(authenticationResultRequest);
-            if (maxWaitingTimeInSec == 0 || isFinalStatus(getAuthenticationResult.getStatus())) {
-                return getAuthenticationResult;
-            }
-            try {
-                Thread.sleep(pollingTimeoutInMilliseconds);
-            } catch (InterruptedException ex) {
-                throw new FrejaEidClientInternalException(
-                        String.format("An error occured while waiting to make another request with %ss polling " +
-                                              "timeout.", maxWaitingTimeInSec), ex);
-            }
-        }
-        throw new FrejaEidClientPollingException(
-                String.format("A timeout of %ss was reached while sending request.", maxWaitingTimeInSec));
+        return pollForResult(authenticationResultRequest, maxWaitingTimeInSec, null);
+    }
+
+    public AuthenticationResult pollForResult(AuthenticationResultRequest authenticationResultRequest,
+                                              int maxWaitingTimeInSec,
+                                              TransactionListener<AuthenticationResult> listener)
+            throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException {
+        CompletableFuture<AuthenticationResult> futureResult = batchPoller != null
+                ? batchPoller.register(authenticationResultRequest.getAuthRef(),
+                                       authenticationResultRequest.getRelyingPartyId(), maxWaitingTimeInSec, listener)
+                : pollForResultOnEngine(() -> getResult(authenticationResultRequest), pollingTimeoutInMilliseconds,
+                                        maxWaitingTimeInSec, listener);
+        return awaitResult(cancelOnAbandon(futureResult, authenticationResultRequest), maxWaitingTimeInSec);
     }
 
     public AuthenticationResults getResults(AuthenticationResultsRequest authenticationResultsRequest)
             throws FrejaEidClientInternalException, FrejaEidException {
-        MethodUrl methodUrl = transactionContext == TransactionContext.ORGANISATIONAL ?
-                MethodUrl.ORGANISATION_AUTHENTICATION_GET_RESULTS : MethodUrl.AUTHENTICATION_GET_RESULTS;
-        return httpService.send(getUrl(serverAddress, methodUrl), RequestTemplate.AUTHENTICATION_RESULTS_TEMPLATE,
-                                authenticationResultsRequest, AuthenticationResults.class,
-                                authenticationResultsRequest.getRelyingPartyId());
+        return httpService.send(getUrl(serverAddress, getResultsMethodUrl()),
+                                RequestTemplate.AUTHENTICATION_RESULTS_TEMPLATE, authenticationResultsRequest,
+                                AuthenticationResults.class, authenticationResultsRequest.getRelyingPartyId());
     }
 
     public EmptyFrejaResponse cancel(CancelAuthenticationRequest cancelAuthenticationRequest)
             throws FrejaEidClientInternalException, FrejaEidException {
-        MethodUrl methodUrl = transactionContext == TransactionContext.ORGANISATIONAL ?
-                MethodUrl.ORGANISATION_AUTHENTICATION_CANCEL : MethodUrl.AUTHENTICATION_CANCEL;
-        return httpService.send(getUrl(serverAddress, methodUrl), RequestTemplate.CANCEL_AUTHENTICATION_TEMPLATE,
-                                cancelAuthenticationRequest, EmptyFrejaResponse.class,
-                                cancelAuthenticationRequest.getRelyingPartyId());
+        return httpService.send(getUrl(serverAddress, getCancelMethodUrl()),
+                                RequestTemplate.CANCEL_AUTHENTICATION_TEMPLATE, cancelAuthenticationRequest,
+                                EmptyFrejaResponse.class, cancelAuthenticationRequest.getRelyingPartyId());
+    }
+
+    public CompletableFuture<InitiateAuthenticationResponse> initiateAsync(
+            InitiateAuthenticationRequest initiateAuthenticationRequest) {
+        return asyncHttpService.sendAsync(getUrl(serverAddress, getInitMethodUrl()),
+                                          RequestTemplate.INIT_AUTHENTICATION, initiateAuthenticationRequest,
+                                          InitiateAuthenticationResponse.class,
+                                          initiateAuthenticationRequest.getRelyingPartyId());
+    }
+
+    public CompletableFuture<AuthenticationResult> getResultAsync(
+            AuthenticationResultRequest authenticationResultRequest) {
+        MethodUrl methodUrl = getResultMethodUrl();
+        return getResultSingleFlightAsync(
+                methodUrl, authenticationResultRequest.getAuthRef(), authenticationResultRequest.getRelyingPartyId(),
+                () -> asyncHttpService.sendAsync(getUrl(serverAddress, methodUrl),
+                                                 RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE,
+                                                 authenticationResultRequest, AuthenticationResult.class,
+                                                 authenticationResultRequest.getRelyingPartyId()));
+    }
+
+    public CompletableFuture<AuthenticationResult> pollForResultAsync(
+            final AuthenticationResultRequest authenticationResultRequest, int maxWaitingTimeInSec) {
+        return pollForResultAsync(authenticationResultRequest, maxWaitingTimeInSec, null);
+    }
+
+    public CompletableFuture<AuthenticationResult> pollForResultAsync(
+            final AuthenticationResultRequest authenticationResultRequest, int maxWaitingTimeInSec,
+            TransactionListener<AuthenticationResult> listener) {
+        return startPolling(authenticationResultRequest, () -> getResultAsync(authenticationResultRequest),
+                            maxWaitingTimeInSec, listener);
+    }
+
+    public PolledResults<AuthenticationResult> pollForResults(
+            Collection<AuthenticationResultRequest> authenticationResultRequests, int maxWaitingTimeInSec,
+            int maxConcurrentRequests, TransactionListener<AuthenticationResult> listener) {
+        return pollForResults(authenticationResultRequests, AuthenticationResultRequest::getAuthRef,
+                              maxConcurrentRequests,
+                              (authenticationResultRequest, requestLimiter) -> startPolling(
+                                      authenticationResultRequest,
+                                      () -> requestLimiter.submit(() -> getResultAsync(authenticationResultRequest)),
+                                      maxWaitingTimeInSec, listener));
+    }
+
+    /**
+     * Returns publisher polling with {@linkplain #getResultAsync} on demand of
+     * its subscribers.
+     */
+    public ResultPublisher<AuthenticationResult> getResultPublisher(
+            final AuthenticationResultRequest authenticationResultRequest, int maxWaitingTimeInSec) {
+        return new ResultPublisher<>(() -> getResultAsync(authenticationResultRequest), this::isFinalStatus,
+                                     getPollingStrategy(), pollingTimeoutInMilliseconds, maxWaitingTimeInSec);
+    }
+
+    public CompletableFuture<AuthenticationResults> getResultsAsync(
+            AuthenticationResultsRequest authenticationResultsRequest) {
+        return asyncHttpService.sendAsync(getUrl(serverAddress, getResultsMethodUrl()),
+                                          RequestTemplate.AUTHENTICATION_RESULTS_TEMPLATE,
+                                          authenticationResultsRequest, AuthenticationResults.class,
+                                          authenticationResultsRequest.getRelyingPartyId());
+    }
+
+    public CompletableFuture<EmptyFrejaResponse> cancelAsync(CancelAuthenticationRequest cancelAuthenticationRequest) {
+        return asyncHttpService.sendAsync(getUrl(serverAddress, getCancelMethodUrl()),
+                                          RequestTemplate.CANCEL_AUTHENTICATION_TEMPLATE, cancelAuthenticationRequest,
+                                          EmptyFrejaResponse.class, cancelAuthenticationRequest.getRelyingPartyId());
+    }
+
+    /**
+     * Enables polling for results through one results request per relying
+     * party and polling interval, shared by all pending pollers.
+     *
+     * @param batchPolling whether to poll in batches.
+     */
+    public void setBatchPolling(boolean batchPolling) {
+        if (!batchPolling) {
+            batchPoller = null;
+            return;
+        }
+        batchPoller = new BatchPoller<>(
+                relyingPartyId -> getResults(AuthenticationResultsRequest.create(relyingPartyId))
+                        .getAuthenticationResults(),
+                (reference, relyingPartyId) -> getResult(AuthenticationResultRequest.create(reference, relyingPartyId)),
+                this::isFinalStatus, pollingTimeoutInMilliseconds, getPollingExecutor());
+    }
+
+    /**
+     * Creates and starts coordinator polling with {@linkplain #getResult}
+     * for the transactions shared by the nodes of a cluster through the lease
+     * store.
+     */
+    public PollingCoordinator<AuthenticationResult> createPollingCoordinator(
+            String nodeId, LeaseStore leaseStore, TransactionListener<AuthenticationResult> listener) {
+        PollingCoordinator<AuthenticationResult> pollingCoordinator = new PollingCoordinator<>(
+                nodeId, leaseStore,
+                (reference, relyingPartyId) -> getResult(AuthenticationResultRequest.create(reference, relyingPartyId)),
+                this::isFinalStatus, pollingTimeoutInMilliseconds, getPollingExecutor(), listener);
+        pollingCoordinator.start();
+        return pollingCoordinator;
+    }
+
+    private CompletableFuture<AuthenticationResult> startPolling(
+            AuthenticationResultRequest authenticationResultRequest,
+            Supplier<CompletableFuture<AuthenticationResult>> resultSupplier, int maxWaitingTimeInSec,
+            TransactionListener<AuthenticationResult> listener) {
+        CompletableFuture<AuthenticationResult> futureResult = batchPoller != null
+                ? batchPoller.register(authenticationResultRequest.getAuthRef(),
+                                       authenticationResultRequest.getRelyingPartyId(), maxWaitingTimeInSec, listener)
+                : pollForResultAsync(resultSupplier, pollingTimeoutInMilliseconds, maxWaitingTimeInSec, listener);
+        return cancelOnAbandon(futureResult, authenticationResultRequest);
+    }
+
+    private CompletableFuture<AuthenticationResult> cancelOnAbandon(
+            CompletableFuture<AuthenticationResult> futureResult,
+            final AuthenticationResultRequest authenticationResultRequest) {
+        return cancelOnAbandon(futureResult, authenticationResultRequest.getAuthRef(),
+                               () -> cancel(CancelAuthenticationRequest.create(
+                                       authenticationResultRequest.getAuthRef(),
+                                       authenticationResultRequest.getRelyingPartyId())));
     }
 
     public TransactionContext getTransactionContext() {
         return transactionContext;
     }
 
-    private boolean isPollingTimeExpired(long pollingEndTime) {
-        return (System.currentTimeMillis() + pollingTimeoutInMilliseconds) < pollingEndTime;
+    private MethodUrl getInitMethodUrl() {
+        return transactionContext == TransactionContext.ORGANISATIONAL ?
+                MethodUrl.ORGANISATION_AUTHENTICATION_INIT : MethodUrl.AUTHENTICATION_INIT;
+    }
+
+    private MethodUrl getResultMethodUrl() {
+        return transactionContext == TransactionContext.ORGANISATIONAL ?
+                MethodUrl.ORGANISATION_AUTHENTICATION_GET_ONE_RESULT : MethodUrl.AUTHENTICATION_GET_RESULT;
+    }
+
+    private MethodUrl getResultsMethodUrl() {
+        return transactionContext == TransactionContext.ORGANISATIONAL ?
+                MethodUrl.ORGANISATION_AUTHENTICATION_GET_RESULTS : MethodUrl.AUTHENTICATION_GET_RESULTS;
+    }
+
+    private MethodUrl getCancelMethodUrl() {
+        return transactionContext == TransactionContext.ORGANISATIONAL ?
+                MethodUrl.ORGANISATION_AUTHENTICATION_CANCEL : MethodUrl.AUTHENTICATION_CANCEL;
     }
 
 }
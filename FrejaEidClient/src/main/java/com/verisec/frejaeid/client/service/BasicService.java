@@ -1,36 +1,202 @@
 package com.verisec.frejaeid.client.service;
 
+import com.verisec.frejaeid.client.beans.common.Result;
 import com.verisec.frejaeid.client.enums.TransactionStatus;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import com.verisec.frejaeid.client.http.AsyncHttpServiceApi;
 import com.verisec.frejaeid.client.http.HttpServiceApi;
 import com.verisec.frejaeid.client.util.MethodUrl;
+import com.verisec.frejaeid.client.util.SingleFlight;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class BasicService {
 
+    public static final Logger LOG = LogManager.getLogger(BasicService.class);
+    public static final int DEFAULT_FINAL_RESULT_CACHE_SIZE = 0;
+    public static final long DEFAULT_FINAL_RESULT_CACHE_TIME_TO_LIVE_IN_MILLISECONDS = TimeUnit.MINUTES.toMillis(10);
+    public static final long DEFAULT_EXPIRY_GRACE_PERIOD_IN_MILLISECONDS =
+            ExpiryTracker.DEFAULT_GRACE_PERIOD_IN_MILLISECONDS;
+
     protected HttpServiceApi httpService;
+    protected AsyncHttpServiceApi asyncHttpService;
     protected String serverAddress;
     private final String resourceServiceUrl;
     private static final String BIND_USER_TRANSACTION_URL_PREFIX = "frejaeid://bindUserToTransaction"
             + "?transactionReference=";
     private static final String QR_CODE_PARAMETER_NAME = "qrcodedata";
+    private final SingleFlight<ResultKey, Result> resultRequestsInFlight = new SingleFlight<>();
+    private PollingStrategy pollingStrategy = PollingStrategy.fixed();
+    private Executor pollingExecutor;
+    private boolean cancelOnPollingTimeout;
+    private final ExpiryTracker expiryTracker = new ExpiryTracker();
+    private volatile FinalResultCache<ResultKey> finalResults;
 
     public BasicService(String serverAddress, HttpServiceApi httpService, String resourceServiceUrl) {
+        this(serverAddress, httpService, null, resourceServiceUrl);
+    }
+
+    public BasicService(String serverAddress, HttpServiceApi httpService, AsyncHttpServiceApi asyncHttpService,
+                        String resourceServiceUrl) {
         this.httpService = httpService;
+        this.asyncHttpService = asyncHttpService;
         this.serverAddress = serverAddress;
         this.resourceServiceUrl = resourceServiceUrl;
     }
 
+    /**
+     * @param pollingStrategy decides intervals between polls for result.
+     */
+    public void setPollingStrategy(PollingStrategy pollingStrategy) {
+        this.pollingStrategy = pollingStrategy;
+    }
+
+    public PollingStrategy getPollingStrategy() {
+        return pollingStrategy;
+    }
+
+    /**
+     * @param pollingExecutor runs blocking polls for result, {@code null} for
+     *                        the workers of the shared polling engine.
+     */
+    public void setPollingExecutor(Executor pollingExecutor) {
+        this.pollingExecutor = pollingExecutor;
+    }
+
+    public Executor getPollingExecutor() {
+        return pollingExecutor;
+    }
+
+    /**
+     * @param cancelOnPollingTimeout whether transactions whose polling for
+     *                               result times out or is cancelled get
+     *                               cancelled on the server.
+     */
+    public void setCancelOnPollingTimeout(boolean cancelOnPollingTimeout) {
+        this.cancelOnPollingTimeout = cancelOnPollingTimeout;
+    }
+
+    public boolean isCancelOnPollingTimeout() {
+        return cancelOnPollingTimeout;
+    }
+
+    /**
+     * Sets up the cache of results in a final status, which answers repeated
+     * requests for them without contacting the server. Cached results may
+     * hold personal data of users, which is then kept in memory for up to the
+     * time to live.
+     *
+     * @param maxSize                  maximum number of cached results, zero
+     *                                 disables the cache, which is the
+     *                                 default.
+     * @param timeToLiveInMilliseconds how long a result stays cached.
+     */
+    public void setFinalResultCache(int maxSize, long timeToLiveInMilliseconds) {
+        this.finalResults = maxSize > 0 && timeToLiveInMilliseconds > 0
+                ? new FinalResultCache<>(maxSize, timeToLiveInMilliseconds) : null;
+    }
+
+    /**
+     * Sets how long after the expiry of a transaction polling goes on before
+     * {@linkplain TransactionStatus#EXPIRED} is reported, covering clock
+     * differences between the client and the server. The status is reported
+     * only after the server still returned no final status once this period
+     * passed.
+     *
+     * @param gracePeriodInMilliseconds applies to transactions initiated
+     *                                  from now on.
+     */
+    public void setExpiryGracePeriod(long gracePeriodInMilliseconds) {
+        expiryTracker.setGracePeriod(gracePeriodInMilliseconds);
+    }
+
+    /**
+     * Tracks expiry of an initiated transaction, polling for its result is
+     * then driven by it.
+     *
+     * @param reference                   of the transaction.
+     * @param expiry                      in milliseconds since January 1,
+     *                                    1970, 00:00 UTC, {@code null} for
+     *                                    the default.
+     * @param defaultTimeToExpiryInMillis used when no expiry is set.
+     */
+    protected void trackExpiry(String reference, Long expiry, long defaultTimeToExpiryInMillis) {
+        if (reference != null) {
+            expiryTracker.track(reference, expiry != null ? expiry
+                                                           : System.currentTimeMillis() + defaultTimeToExpiryInMillis);
+        }
+    }
+
     protected String getUrl(String serverAddress, MethodUrl url) {
         return serverAddress + url.toString();
     }
 
+    /**
+     * Concurrent requests for the result of the same transaction share one
+     * HTTP exchange and its response. Results in a final status are cached,
+     * later requests for them are answered from the cache.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T extends Result> T getResultSingleFlight(MethodUrl methodUrl, String reference, String relyingPartyId,
+                                                         SingleFlight.Call<T> call)
+            throws FrejaEidClientInternalException, FrejaEidException {
+        ResultKey key = new ResultKey(methodUrl, reference, relyingPartyId);
+        Result cachedResult = getFinalResult(key);
+        if (cachedResult != null) {
+            return (T) cachedResult;
+        }
+        return (T) cacheIfFinal(key, resultRequestsInFlight.execute(key, (SingleFlight.Call<Result>) call));
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <T extends Result> CompletableFuture<T> getResultSingleFlightAsync(
+            MethodUrl methodUrl, String reference, String relyingPartyId, Supplier<CompletableFuture<T>> call) {
+        final ResultKey key = new ResultKey(methodUrl, reference, relyingPartyId);
+        Result cachedResult = getFinalResult(key);
+        if (cachedResult != null) {
+            return CompletableFuture.completedFuture((T) cachedResult);
+        }
+        return (CompletableFuture<T>) resultRequestsInFlight.executeAsync(
+                key, (Supplier<CompletableFuture<Result>>) (Supplier<?>) call)
+                .thenApply(result -> cacheIfFinal(key, result));
+    }
+
+    private Result getFinalResult(ResultKey key) {
+        FinalResultCache<ResultKey> cache = finalResults;
+        Result result = cache != null ? cache.get(key) : null;
+        if (result != null) {
+            LOG.debug("Result of transaction {} in final status {} served from cache.", key, result.getStatus());
+        }
+        return result;
+    }
+
+    private Result cacheIfFinal(ResultKey key, Result result) {
+        FinalResultCache<ResultKey> cache = finalResults;
+        if (cache != null && result != null && isFinalStatus(result.getStatus())) {
+            cache.put(key, result);
+        }
+        return result;
+    }
+
     protected boolean isFinalStatus(TransactionStatus status) {
         return (status == TransactionStatus.CANCELED || status == TransactionStatus.RP_CANCELED
                 || status == TransactionStatus.EXPIRED || status == TransactionStatus.APPROVED
@@ -46,4 +212,372 @@ public class BasicService {
         return httpService.httpGet(getUrl(resourceServiceUrl, MethodUrl.QR_CODE_GENERATE), parameterMap);
     }
 
+    /**
+     * Polls with blocking call on the shared polling engine until final
+     * status is received or maximum waiting time passes. The calling thread
+     * only waits for the outcome with {@linkplain #awaitResult}, polls
+     * themselves run on the polling executor if one is set, on the engine's
+     * elastic worker threads otherwise.
+     */
+    protected <T extends Result> CompletableFuture<T> pollForResultOnEngine(SingleFlight.Call<T> resultCall,
+                                                                            int pollingTimeoutInMilliseconds,
+                                                                            int maxWaitingTimeInSec,
+                                                                            TransactionListener<T> listener) {
+        return pollForResultOnEngine(null, null, resultCall, pollingTimeoutInMilliseconds, maxWaitingTimeInSec,
+                                     listener);
+    }
+
+    /**
+     * Polls on the shared polling engine for the result of a transaction
+     * whose expiry may be tracked, see
+     * {@linkplain #pollForResultAsync(String, Function, Supplier, int, int, TransactionListener)}.
+     */
+    protected <T extends Result> CompletableFuture<T> pollForResultOnEngine(String reference,
+                                                                            Function<String, T> expiredResult,
+                                                                            SingleFlight.Call<T> resultCall,
+                                                                            int pollingTimeoutInMilliseconds,
+                                                                            int maxWaitingTimeInSec,
+                                                                            TransactionListener<T> listener) {
+        return pollForResultAsync(reference, expiredResult,
+                                  () -> PollingScheduler.SHARED.execute(resultCall, pollingExecutor),
+                                  pollingTimeoutInMilliseconds, maxWaitingTimeInSec, listener);
+    }
+
+    /**
+     * Waits for the outcome of polling started on the shared polling engine.
+     * Interrupting the waiting thread stops further polls, interrupt status of
+     * the thread is kept so that callers can observe the cancellation.
+     */
+    protected <T extends Result> T awaitResult(CompletableFuture<T> futureResult, int maxWaitingTimeInSec)
+            throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException {
+        try {
+            return futureResult.get();
+        } catch (InterruptedException ex) {
+            futureResult.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new FrejaEidClientInternalException(
+                    String.format("An error occurred while waiting to make another request with %ss polling timeout.",
+                                  maxWaitingTimeInSec), ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof FrejaEidClientInternalException) {
+                throw (FrejaEidClientInternalException) cause;
+            }
+            if (cause instanceof FrejaEidException) {
+                throw (FrejaEidException) cause;
+            }
+            if (cause instanceof FrejaEidClientPollingException) {
+                throw (FrejaEidClientPollingException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new FrejaEidClientInternalException("Polling for result failed.", cause);
+        }
+    }
+
+    /**
+     * Non-blocking counterpart of {@linkplain #pollForResultOnEngine}. Waiting between
+     * polls is handed to the shared polling engine, so a pending transaction
+     * occupies no thread.
+     */
+    protected <T extends Result> CompletableFuture<T> pollForResultAsync(Supplier<CompletableFuture<T>> resultSupplier,
+                                                                         int pollingTimeoutInMilliseconds,
+                                                                         int maxWaitingTimeInSec,
+                                                                         TransactionListener<T> listener) {
+        return pollForResultAsync(null, null, resultSupplier, pollingTimeoutInMilliseconds, maxWaitingTimeInSec,
+                                  listener);
+    }
+
+    /**
+     * Polls for the result of a transaction whose expiry may be tracked. A
+     * poll is made as soon as the transaction expires. If the server still
+     * reports no final status once the grace period after expiry passes,
+     * polling completes with the result created by {@code expiredResult},
+     * carrying {@linkplain TransactionStatus#EXPIRED}.
+     *
+     * @param reference     of the transaction, {@code null} if its expiry is
+     *                      not tracked.
+     * @param expiredResult creates the result of the expired transaction.
+     */
+    protected <T extends Result> CompletableFuture<T> pollForResultAsync(String reference,
+                                                                         Function<String, T> expiredResult,
+                                                                         Supplier<CompletableFuture<T>> resultSupplier,
+                                                                         int pollingTimeoutInMilliseconds,
+                                                                         int maxWaitingTimeInSec,
+                                                                         TransactionListener<T> listener) {
+        Long expiryDeadline = reference == null || expiredResult == null
+                ? null : expiryTracker.getExpiryDeadline(reference);
+        Poll<T> poll = new Poll<>(resultSupplier, pollingStrategy, pollingTimeoutInMilliseconds,
+                                  maxWaitingTimeInSec, listener, reference, expiryDeadline, expiredResult);
+        poll.run();
+        return poll.futureResult;
+    }
+
+    /**
+     * Polls for results of many transactions at once. Polls of all of them
+     * are multiplexed onto the shared polling engine, while at most
+     * {@code maxConcurrentRequests} result requests are sent to the server at
+     * a time. Repeated references are polled for once.
+     *
+     * @param resultRequests        of the transactions.
+     * @param reference             returns reference of the transaction of a
+     *                              result request.
+     * @param maxConcurrentRequests is a maximum number of result requests in
+     *                              flight at a time.
+     * @param poll                  starts polling for a result, sending its
+     *                              result requests through the limiter.
+     */
+    protected <R, T extends Result> PolledResults<T> pollForResults(
+            Collection<R> resultRequests, Function<R, String> reference, int maxConcurrentRequests,
+            BiFunction<R, RequestLimiter, CompletableFuture<T>> poll) {
+        RequestLimiter requestLimiter = new RequestLimiter(maxConcurrentRequests);
+        PolledResults<T> polledResults = new PolledResults<>();
+        for (R resultRequest : resultRequests) {
+            String transactionReference = reference.apply(resultRequest);
+            if (!polledResults.contains(transactionReference)) {
+                polledResults.add(transactionReference, poll.apply(resultRequest, requestLimiter));
+            }
+        }
+        return polledResults;
+    }
+
+    /**
+     * If enabled, cancels the transaction on the server once polling for its
+     * result times out or the future of the result is cancelled, e.g. by an
+     * interrupt of the thread waiting for it. Cancel request is sent in the
+     * background, its failure is only logged.
+     */
+    protected <T extends Result> CompletableFuture<T> cancelOnAbandon(CompletableFuture<T> futureResult,
+                                                                      final String reference,
+                                                                      final SingleFlight.Call<?> cancelCall) {
+        if (!cancelOnPollingTimeout) {
+            return futureResult;
+        }
+        futureResult.whenComplete((result, throwable) -> {
+            Throwable cause = unwrap(throwable);
+            if (!(cause instanceof FrejaEidClientPollingException || cause instanceof CancellationException)) {
+                return;
+            }
+            LOG.debug("Polling for result of transaction {} abandoned, cancelling transaction.", reference);
+            PollingScheduler.SHARED.execute(cancelCall, pollingExecutor).whenComplete((response, ex) -> {
+                if (ex != null) {
+                    LOG.warn("Failed to cancel abandoned transaction {}.", reference, ex);
+                }
+            });
+        });
+        return futureResult;
+    }
+
+    /**
+     * Notifies listener, if any, shielding polling from its failures.
+     */
+    protected static <T extends Result> void notifyStatusChange(TransactionListener<T> listener, T result) {
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.onStatusChange(result);
+        } catch (RuntimeException ex) {
+            LOG.warn("Transaction listener failed on status {} of transaction {}.", result.getStatus(),
+                     result.getReference(), ex);
+        }
+    }
+
+    protected static void notifyPollingAbandoned(TransactionListener<?> listener, String reference,
+                                                 FrejaEidException cause) {
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.onPollingAbandoned(reference, cause);
+        } catch (RuntimeException ex) {
+            LOG.warn("Transaction listener failed on abandoned polling of transaction {}.", reference, ex);
+        }
+    }
+
+    /**
+     * Errors returned by the server for a bad request carry the error code of
+     * Freja eID, e.g. for an invalid reference, and repeating the request
+     * cannot change them. Other errors, e.g. HTTP status 429 or 5xx, are
+     * transient.
+     */
+    protected static boolean isDefinitiveError(Throwable throwable) {
+        return throwable instanceof FrejaEidException && ((FrejaEidException) throwable).getErrorCode() != 0;
+    }
+
+    protected static Throwable unwrap(Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            return throwable.getCause();
+        }
+        return throwable;
+    }
+
+    /**
+     * State of one polling for result. Polls of one transaction never overlap,
+     * next one is scheduled only after the previous response is handled.
+     * Deadline is measured with {@linkplain System#nanoTime()}, so changes of
+     * the wall clock neither cut polling short nor stretch it. Interval before
+     * the last poll is trimmed to the time remaining, the last poll is made
+     * when maximum waiting time expires. Likewise, if expiry of the
+     * transaction is tracked, a poll is made when it expires and another once
+     * the grace period after it passes, after which the transaction counts as
+     * expired.
+     */
+    private final class Poll<T extends Result> implements Runnable {
+
+        private final CompletableFuture<T> futureResult = new CompletableFuture<>();
+        private final Supplier<CompletableFuture<T>> resultSupplier;
+        private final PollingStrategy pollingStrategy;
+        private final int pollingTimeoutInMilliseconds;
+        private final int maxWaitingTimeInSec;
+        private final long deadline;
+        private TransactionStatus lastStatus;
+        private final TransactionListener<T> listener;
+        private int unchangedPolls;
+        private final String reference;
+        private final Long expiryDeadline;
+        private final long gracePeriodInMilliseconds;
+        private final Function<String, T> expiredResult;
+
+        private Poll(Supplier<CompletableFuture<T>> resultSupplier, PollingStrategy pollingStrategy,
+                     int pollingTimeoutInMilliseconds, int maxWaitingTimeInSec, TransactionListener<T> listener,
+                     String reference, Long expiryDeadline, Function<String, T> expiredResult) {
+            this.resultSupplier = resultSupplier;
+            this.listener = listener;
+            this.pollingStrategy = pollingStrategy;
+            this.pollingTimeoutInMilliseconds = pollingTimeoutInMilliseconds;
+            this.maxWaitingTimeInSec = maxWaitingTimeInSec;
+            this.deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxWaitingTimeInSec);
+            this.reference = reference;
+            this.expiryDeadline = expiryDeadline;
+            this.gracePeriodInMilliseconds = expiryTracker.getGracePeriodInMilliseconds();
+            this.expiredResult = expiredResult;
+        }
+
+        @Override
+        public void run() {
+            if (futureResult.isDone()) {
+                return;
+            }
+            resultSupplier.get().whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                    futureResult.completeExceptionally(unwrap(throwable));
+                    return;
+                }
+                try {
+                    onResult(result);
+                    if (result != null && isFinalStatus(result.getStatus())) {
+                        untrackExpiry();
+                        futureResult.complete(result);
+                    } else if (maxWaitingTimeInSec == 0) {
+                        futureResult.complete(result);
+                    } else {
+                        scheduleNext();
+                    }
+                } catch (RuntimeException ex) {
+                    futureResult.completeExceptionally(ex);
+                }
+            });
+        }
+
+        /**
+         * Empty response carries no status and counts as an unchanged one.
+         */
+        private void onResult(T result) {
+            if (result == null || result.getStatus() == lastStatus) {
+                unchangedPolls++;
+                return;
+            }
+            unchangedPolls = 1;
+            lastStatus = result.getStatus();
+            notifyStatusChange(listener, result);
+        }
+
+        private void scheduleNext() {
+            long remaining = PollingScheduler.millisecondsUntil(deadline);
+            if (remaining <= 0) {
+                timeOut();
+                return;
+            }
+            long interval = Math.min(pollingStrategy.getInterval(unchangedPolls, pollingTimeoutInMilliseconds),
+                                     remaining);
+            if (expiryDeadline != null) {
+                long untilExpiry = PollingScheduler.millisecondsUntil(expiryDeadline);
+                long untilEviction = PollingScheduler.millisecondsUntil(
+                        expiryDeadline + TimeUnit.MILLISECONDS.toNanos(gracePeriodInMilliseconds));
+                if (untilEviction <= 0) {
+                    expire();
+                    return;
+                }
+                interval = Math.min(interval, untilExpiry > 0 ? untilExpiry : untilEviction);
+            }
+            PollingScheduler.SHARED.schedule(this, interval);
+        }
+
+        /**
+         * Only called right after a poll, so the server has confirmed that
+         * the transaction is not in a final status after the grace period.
+         */
+        private void expire() {
+            T result = expiredResult.apply(reference);
+            LOG.debug("Transaction {} expired without final status from the server.", reference);
+            untrackExpiry();
+            if (lastStatus != result.getStatus()) {
+                lastStatus = result.getStatus();
+                notifyStatusChange(listener, result);
+            }
+            futureResult.complete(result);
+        }
+
+        private void untrackExpiry() {
+            if (reference != null) {
+                expiryTracker.untrack(reference);
+            }
+        }
+
+        private void timeOut() {
+            futureResult.completeExceptionally(new FrejaEidClientPollingException(
+                    String.format("A timeout of %ss was reached while sending request.", maxWaitingTimeInSec)));
+        }
+
+    }
+
+    private static final class ResultKey {
+
+        private final MethodUrl methodUrl;
+        private final String reference;
+        private final String relyingPartyId;
+
+        private ResultKey(MethodUrl methodUrl, String reference, String relyingPartyId) {
+            this.methodUrl = methodUrl;
+            this.reference = reference;
+            this.relyingPartyId = relyingPartyId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(methodUrl, reference, relyingPartyId);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            final ResultKey other = (ResultKey) obj;
+            return methodUrl == other.methodUrl && Objects.equals(reference, other.reference)
+                    && Objects.equals(relyingPartyId, other.relyingPartyId);
+        }
+
+        @Override
+        public String toString() {
+            return methodUrl + " " + reference;
+        }
+
+    }
+
 }
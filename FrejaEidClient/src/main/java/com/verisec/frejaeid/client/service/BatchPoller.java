@@ -0,0 +1,286 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.beans.common.Result;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Satisfies individual pollers with one results request per relying party
+ * and polling interval. Every interval the results of all transactions of a
+ * relying party are fetched once and handed out to the pollers waiting for
+ * those references. References missing from the results, e.g. transactions
+ * older than the results window, are polled individually and concurrently on
+ * the shared polling engine, the next interval starts once all of them
+ * returned.
+ * <p>
+ * Transient errors, e.g. HTTP status 503, are logged and polling goes on
+ * until the maximum waiting time of each poller passes. Only errors carrying
+ * a Freja eID error code, which repeating the request cannot change, fail the
+ * affected pollers.
+ *
+ * @param <T> type of the transaction result.
+ */
+final class BatchPoller<T extends Result> {
+
+    public static final Logger LOG = LogManager.getLogger(BatchPoller.class);
+
+    private final ResultsCall<T> resultsCall;
+    private final ResultCall<T> resultCall;
+    private final Predicate<TransactionStatus> finalStatus;
+    private final int pollingTimeoutInMilliseconds;
+    private final Executor pollingExecutor;
+    private final ConcurrentMap<String, RelyingPartyPollers> pollers = new ConcurrentHashMap<>();
+
+    interface ResultsCall<T> {
+
+        List<T> getResults(String relyingPartyId) throws FrejaEidClientInternalException, FrejaEidException;
+
+    }
+
+    interface ResultCall<T> {
+
+        T getResult(String reference, String relyingPartyId)
+                throws FrejaEidClientInternalException, FrejaEidException;
+
+    }
+
+    BatchPoller(ResultsCall<T> resultsCall, ResultCall<T> resultCall, Predicate<TransactionStatus> finalStatus,
+                int pollingTimeoutInMilliseconds, Executor pollingExecutor) {
+        this.resultsCall = resultsCall;
+        this.resultCall = resultCall;
+        this.finalStatus = finalStatus;
+        this.pollingTimeoutInMilliseconds = pollingTimeoutInMilliseconds;
+        this.pollingExecutor = pollingExecutor;
+    }
+
+    /**
+     * Registers poller for the transaction with given reference.
+     *
+     * @return future completed with the final result, or exceptionally with
+     * {@linkplain FrejaEidClientPollingException} once maximum waiting time
+     * passes.
+     */
+    CompletableFuture<T> register(final String reference, final String relyingPartyId, int maxWaitingTimeInSec,
+                                  final TransactionListener<T> listener) {
+        if (maxWaitingTimeInSec == 0) {
+            return PollingScheduler.SHARED
+                    .execute(() -> resultCall.getResult(reference, relyingPartyId), pollingExecutor)
+                    .thenApply(result -> {
+                        BasicService.notifyStatusChange(listener, result);
+                        return result;
+                    });
+        }
+        Poller<T> poller = new Poller<>(reference, maxWaitingTimeInSec, listener);
+        String key = Objects.toString(relyingPartyId, "");
+        while (true) {
+            RelyingPartyPollers relyingPartyPollers =
+                    pollers.computeIfAbsent(key, k -> new RelyingPartyPollers(k, relyingPartyId));
+            if (relyingPartyPollers.add(poller)) {
+                return poller.futureResult;
+            }
+            pollers.remove(key, relyingPartyPollers);
+        }
+    }
+
+    int getRelyingPartyCount() {
+        return pollers.size();
+    }
+
+    private static final class Poller<T extends Result> {
+
+        private final CompletableFuture<T> futureResult = new CompletableFuture<>();
+        private final String reference;
+        private final int maxWaitingTimeInSec;
+        private final long deadline;
+        private final TransactionListener<T> listener;
+        private TransactionStatus lastStatus;
+
+        private Poller(String reference, int maxWaitingTimeInSec, TransactionListener<T> listener) {
+            this.reference = reference;
+            this.listener = listener;
+            this.maxWaitingTimeInSec = maxWaitingTimeInSec;
+            this.deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxWaitingTimeInSec);
+        }
+
+    }
+
+    private final class RelyingPartyPollers {
+
+        private final String key;
+        private final String relyingPartyId;
+        private final Map<String, List<Poller<T>>> pollersByReference = new HashMap<>();
+        private boolean polling;
+        private boolean retired;
+
+        private RelyingPartyPollers(String key, String relyingPartyId) {
+            this.key = key;
+            this.relyingPartyId = relyingPartyId;
+        }
+
+        /**
+         * Adds poller and starts polling for this relying party unless it is
+         * already running.
+         *
+         * @return {@code false} if these pollers are retired, the poller then
+         * has to be added to new ones.
+         */
+        private synchronized boolean add(Poller<T> poller) {
+            if (retired) {
+                return false;
+            }
+            pollersByReference.computeIfAbsent(poller.reference, reference -> new ArrayList<>()).add(poller);
+            if (!polling) {
+                polling = true;
+                PollingScheduler.SHARED.schedule(this::poll, 0, pollingExecutor);
+            }
+            return true;
+        }
+
+        /**
+         * Drops completed pollers and, after a poll, times out those whose
+         * maximum waiting time has expired. Once no poller is left polling
+         * stops and these pollers are removed from the batch poller.
+         *
+         * @return pending pollers by reference, empty if polling has stopped.
+         */
+        private Map<String, List<Poller<T>>> prune(boolean expire) {
+            Map<String, List<Poller<T>>> pending = collectPending(expire);
+            if (pending.isEmpty()) {
+                pollers.remove(key, this);
+            }
+            return pending;
+        }
+
+        private synchronized Map<String, List<Poller<T>>> collectPending(boolean expire) {
+            Map<String, List<Poller<T>>> pending = new HashMap<>();
+            Iterator<List<Poller<T>>> references = pollersByReference.values().iterator();
+            while (references.hasNext()) {
+                List<Poller<T>> referencePollers = references.next();
+                referencePollers.removeIf(poller -> poller.futureResult.isDone()
+                        || (expire && PollingScheduler.millisecondsUntil(poller.deadline) <= 0 && timeOut(poller)));
+                if (referencePollers.isEmpty()) {
+                    references.remove();
+                } else {
+                    pending.put(referencePollers.get(0).reference, new ArrayList<>(referencePollers));
+                }
+            }
+            if (pending.isEmpty()) {
+                polling = false;
+                retired = true;
+            }
+            return pending;
+        }
+
+        /**
+         * @return polling timeout, trimmed to the time remaining until the
+         * earliest deadline of pending pollers.
+         */
+        private synchronized long getNextPollDelay() {
+            long delay = pollingTimeoutInMilliseconds;
+            for (List<Poller<T>> referencePollers : pollersByReference.values()) {
+                for (Poller<T> poller : referencePollers) {
+                    delay = Math.min(delay, PollingScheduler.millisecondsUntil(poller.deadline));
+                }
+            }
+            return delay;
+        }
+
+        private void poll() {
+            Map<String, List<Poller<T>>> pending = prune(false);
+            if (pending.isEmpty()) {
+                return;
+            }
+            Map<String, T> results = new HashMap<>();
+            try {
+                for (T result : resultsCall.getResults(relyingPartyId)) {
+                    results.put(result.getReference(), result);
+                }
+            } catch (FrejaEidClientInternalException | FrejaEidException | RuntimeException ex) {
+                onError(pending.values(), ex);
+                scheduleNextPoll();
+                return;
+            }
+            LOG.debug("Received {} results for {} polled transactions.", results.size(), pending.size());
+            List<CompletableFuture<T>> missingResults = new ArrayList<>();
+            for (Map.Entry<String, List<Poller<T>>> referencePollers : pending.entrySet()) {
+                T result = results.get(referencePollers.getKey());
+                if (result != null) {
+                    onResult(referencePollers.getValue(), result);
+                } else {
+                    missingResults.add(getResult(referencePollers.getKey(), referencePollers.getValue()));
+                }
+            }
+            CompletableFuture.allOf(missingResults.toArray(new CompletableFuture<?>[0]))
+                    .whenComplete((ignored, throwable) -> scheduleNextPoll());
+        }
+
+        private void scheduleNextPoll() {
+            if (!prune(true).isEmpty()) {
+                PollingScheduler.SHARED.schedule(this::poll, getNextPollDelay(), pollingExecutor);
+            }
+        }
+
+        private CompletableFuture<T> getResult(final String reference, final List<Poller<T>> referencePollers) {
+            return PollingScheduler.SHARED
+                    .execute(() -> resultCall.getResult(reference, relyingPartyId), pollingExecutor)
+                    .whenComplete((result, throwable) -> {
+                        if (throwable != null) {
+                            onError(Collections.singletonList(referencePollers), BasicService.unwrap(throwable));
+                        } else if (result != null) {
+                            onResult(referencePollers, result);
+                        }
+                    });
+        }
+
+        private void onResult(List<Poller<T>> referencePollers, T result) {
+            for (Poller<T> poller : referencePollers) {
+                if (result.getStatus() != poller.lastStatus) {
+                    poller.lastStatus = result.getStatus();
+                    BasicService.notifyStatusChange(poller.listener, result);
+                }
+                if (finalStatus.test(result.getStatus())) {
+                    poller.futureResult.complete(result);
+                }
+            }
+        }
+
+        private void onError(Collection<List<Poller<T>>> failedPollers, Throwable throwable) {
+            if (!BasicService.isDefinitiveError(throwable)) {
+                LOG.warn("Polling for results of relying party {} failed, pending transactions are polled again.",
+                         relyingPartyId, throwable);
+                return;
+            }
+            for (List<Poller<T>> referencePollers : failedPollers) {
+                for (Poller<T> poller : referencePollers) {
+                    poller.futureResult.completeExceptionally(throwable);
+                }
+            }
+        }
+
+        private boolean timeOut(Poller<T> poller) {
+            return poller.futureResult.completeExceptionally(new FrejaEidClientPollingException(String.format(
+                    "A timeout of %ss was reached while sending request.", poller.maxWaitingTimeInSec)));
+        }
+
+    }
+
+}
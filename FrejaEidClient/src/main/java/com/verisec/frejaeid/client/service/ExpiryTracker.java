@@ -0,0 +1,96 @@
+package com.verisec.frejaeid.client.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks expiry of initiated transactions on the timer wheel of the shared
+ * polling engine. Tracking and untracking a transaction take constant time,
+ * a transaction is evicted by the wheel once it expired and the grace period
+ * passed, so transactions nobody polls for do not accumulate.
+ * <p>
+ * Expiry is set by the relying party in wall clock time, it is converted to
+ * {@linkplain System#nanoTime()} when tracking starts. The grace period
+ * covers clock differences between the client and the server, it can be
+ * lengthened where clocks are known to drift further apart.
+ */
+final class ExpiryTracker {
+
+    public static final Logger LOG = LogManager.getLogger(ExpiryTracker.class);
+
+    static final long DEFAULT_GRACE_PERIOD_IN_MILLISECONDS = TimeUnit.SECONDS.toMillis(5);
+
+    private final ConcurrentMap<String, Expiry> expiries = new ConcurrentHashMap<>();
+    private volatile long gracePeriodInMilliseconds = DEFAULT_GRACE_PERIOD_IN_MILLISECONDS;
+
+    /**
+     * Applies to transactions tracked from now on.
+     */
+    void setGracePeriod(long gracePeriodInMilliseconds) {
+        this.gracePeriodInMilliseconds = gracePeriodInMilliseconds;
+    }
+
+    long getGracePeriodInMilliseconds() {
+        return gracePeriodInMilliseconds;
+    }
+
+    /**
+     * Starts tracking the transaction, replacing its previous expiry if any.
+     *
+     * @param reference          of the transaction.
+     * @param expiryTimeInMillis expiry in milliseconds since January 1,
+     *                           1970, 00:00 UTC.
+     */
+    void track(final String reference, long expiryTimeInMillis) {
+        long timeToExpiry = expiryTimeInMillis - System.currentTimeMillis();
+        final Expiry expiry = new Expiry(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeToExpiry));
+        expiry.eviction = PollingScheduler.SHARED.schedule(() -> {
+            if (expiries.remove(reference, expiry)) {
+                LOG.debug("Evicted expired transaction {}.", reference);
+            }
+        }, timeToExpiry + gracePeriodInMilliseconds);
+        Expiry previous = expiries.put(reference, expiry);
+        if (previous != null) {
+            previous.eviction.cancel();
+        }
+    }
+
+    /**
+     * Stops tracking the transaction, e.g. once its final status is known.
+     */
+    void untrack(String reference) {
+        Expiry expiry = expiries.remove(reference);
+        if (expiry != null) {
+            expiry.eviction.cancel();
+        }
+    }
+
+    /**
+     * @return expiry of the transaction as {@linkplain System#nanoTime()},
+     * {@code null} if it is not tracked.
+     */
+    Long getExpiryDeadline(String reference) {
+        Expiry expiry = expiries.get(reference);
+        return expiry == null ? null : expiry.deadline;
+    }
+
+    int getTrackedCount() {
+        return expiries.size();
+    }
+
+    private static final class Expiry {
+
+        private final long deadline;
+        private PollingScheduler.Timeout eviction;
+
+        private Expiry(long deadline) {
+            this.deadline = deadline;
+        }
+
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * {@linkplain LeaseStore} kept in a local file, shared by processes running
+ * on one machine. Every operation reads and rewrites the file under an
+ * exclusive lock of a separate lock file, so it suits tests and small
+ * clusters rather than large numbers of transactions. The file is replaced
+ * atomically on every write, a crash never leaves it partially written.
+ * File locks are not reliable on network file systems, nodes on different
+ * machines need a store of their own.
+ */
+public final class FileLeaseStore implements LeaseStore {
+
+    /**
+     * File locks are held by the JVM, threads of one JVM are excluded from
+     * each other with these.
+     */
+    private static final ConcurrentMap<Path, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private final Path lockPath;
+    private final Path temporaryPath;
+
+    /**
+     * @param path of the lease file, created on first use if it does not
+     *             exist. Lock and temporary files are kept next to it.
+     */
+    public FileLeaseStore(Path path) {
+        this.path = path.toAbsolutePath().normalize();
+        this.lockPath = this.path.resolveSibling(this.path.getFileName() + ".lock");
+        this.temporaryPath = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+    }
+
+    @Override
+    public void addTransaction(PendingTransaction transaction) throws FrejaEidClientInternalException {
+        update(true, table -> {
+            table.addTransaction(transaction);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeTransaction(String reference) throws FrejaEidClientInternalException {
+        update(true, table -> {
+            table.removeTransaction(reference);
+            return null;
+        });
+    }
+
+    @Override
+    public List<PendingTransaction> getTransactions() throws FrejaEidClientInternalException {
+        return update(false, LeaseTable::getTransactions);
+    }
+
+    @Override
+    public void renewMembership(String nodeId, long ttlInMilliseconds) throws FrejaEidClientInternalException {
+        update(true, table -> {
+            table.renewMembership(nodeId, System.currentTimeMillis() + ttlInMilliseconds);
+            return null;
+        });
+    }
+
+    @Override
+    public void leave(String nodeId) throws FrejaEidClientInternalException {
+        update(true, table -> {
+            table.leave(nodeId);
+            return null;
+        });
+    }
+
+    @Override
+    public Set<String> getLiveNodes() throws FrejaEidClientInternalException {
+        return update(false, table -> table.getLiveNodes(System.currentTimeMillis()));
+    }
+
+    @Override
+    public boolean tryAcquireLease(String reference, String nodeId, long ttlInMilliseconds)
+            throws FrejaEidClientInternalException {
+        return update(true, table -> {
+            long now = System.currentTimeMillis();
+            return table.tryAcquireLease(reference, nodeId, now, now + ttlInMilliseconds);
+        });
+    }
+
+    private <R> R update(boolean write, Function<LeaseTable, R> operation) throws FrejaEidClientInternalException {
+        ReentrantLock lock = LOCKS.computeIfAbsent(path, key -> new ReentrantLock());
+        lock.lock();
+        try (FileChannel lockChannel = FileChannel.open(lockPath, StandardOpenOption.CREATE,
+                                                        StandardOpenOption.WRITE)) {
+            FileLock fileLock = lockChannel.lock();
+            try {
+                LeaseTable table = read();
+                R result = operation.apply(table);
+                if (write) {
+                    write(table);
+                }
+                return result;
+            } finally {
+                fileLock.release();
+            }
+        } catch (IOException ex) {
+            throw new FrejaEidClientInternalException("Failed to update lease store " + path + ".", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private LeaseTable read() throws IOException, FrejaEidClientInternalException {
+        Properties properties = new Properties();
+        if (Files.exists(path)) {
+            try (InputStream content = Files.newInputStream(path)) {
+                properties.load(content);
+                return LeaseTable.fromProperties(properties);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+                throw new FrejaEidClientInternalException(
+                        "Lease store " + path + " is corrupt, restore it from a backup or delete it.", ex);
+            }
+        }
+        return LeaseTable.fromProperties(properties);
+    }
+
+    /**
+     * Writes the table to a temporary file, forces it to the device and moves
+     * it over the lease file, so a crash leaves either the previous or the new
+     * content, never a partially written file.
+     */
+    private void write(LeaseTable table) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        table.toProperties().store(content, null);
+        ByteBuffer buffer = ByteBuffer.wrap(content.toByteArray());
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+}
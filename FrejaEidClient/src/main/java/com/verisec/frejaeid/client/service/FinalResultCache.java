@@ -0,0 +1,88 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.beans.common.Result;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache of results in a final status. Such results never change, so
+ * repeated requests for them can be answered locally. Least recently used
+ * results are evicted once the cache is full, results older than the time to
+ * live are dropped when looked up. Time is measured with
+ * {@linkplain System#nanoTime()}. Lookups are guarded by a lock rather than
+ * the monitor, so threads waiting for it do not pin virtual threads to their
+ * carriers.
+ *
+ * @param <K> type of the key identifying a result.
+ */
+final class FinalResultCache<K> {
+
+    private final long timeToLiveInNanoseconds;
+    private final Map<K, CachedResult> entries;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    FinalResultCache(final int maxSize, long timeToLiveInMilliseconds) {
+        this.timeToLiveInNanoseconds = TimeUnit.MILLISECONDS.toNanos(timeToLiveInMilliseconds);
+        this.entries = new LinkedHashMap<K, CachedResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedResult> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return cached result, {@code null} if there is none or it outlived
+     * the time to live.
+     */
+    Result get(K key) {
+        lock.lock();
+        try {
+            CachedResult entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.cachedAt >= timeToLiveInNanoseconds) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(K key, Result result) {
+        lock.lock();
+        try {
+            entries.put(key, new CachedResult(result, System.nanoTime()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class CachedResult {
+
+        private final Result result;
+        private final long cachedAt;
+
+        private CachedResult(Result result, long cachedAt) {
+            this.result = result;
+            this.cachedAt = cachedAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.verisec.frejaeid.client.service;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@linkplain LeaseStore} kept in memory. Shared by coordinators running in
+ * one JVM, e.g. in tests or when several clients poll for results of the same
+ * transactions.
+ */
+public final class InMemoryLeaseStore implements LeaseStore {
+
+    private final LeaseTable table = new LeaseTable();
+
+    @Override
+    public synchronized void addTransaction(PendingTransaction transaction) {
+        table.addTransaction(transaction);
+    }
+
+    @Override
+    public synchronized void removeTransaction(String reference) {
+        table.removeTransaction(reference);
+    }
+
+    @Override
+    public synchronized List<PendingTransaction> getTransactions() {
+        return table.getTransactions();
+    }
+
+    @Override
+    public synchronized void renewMembership(String nodeId, long ttlInMilliseconds) {
+        table.renewMembership(nodeId, System.currentTimeMillis() + ttlInMilliseconds);
+    }
+
+    @Override
+    public synchronized void leave(String nodeId) {
+        table.leave(nodeId);
+    }
+
+    @Override
+    public synchronized Set<String> getLiveNodes() {
+        return table.getLiveNodes(System.currentTimeMillis());
+    }
+
+    @Override
+    public synchronized boolean tryAcquireLease(String reference, String nodeId, long ttlInMilliseconds) {
+        long now = System.currentTimeMillis();
+        return table.tryAcquireLease(reference, nodeId, now, now + ttlInMilliseconds);
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Storage shared by the nodes of a cluster polling for results with
+ * {@linkplain PollingCoordinator}. Keeps the transactions still to be polled,
+ * the nodes alive and leases giving a node the exclusive right to poll for a
+ * transaction for a limited time. Every operation must be atomic with respect
+ * to all nodes sharing the store, e.g. by running in a database transaction.
+ * <p>
+ * {@linkplain InMemoryLeaseStore} and {@linkplain FileLeaseStore} are
+ * provided for a single machine and for tests. A cluster spanning several
+ * machines needs an implementation backed by storage all of them can reach.
+ */
+public interface LeaseStore {
+
+    /**
+     * Adds transaction to be polled for, unless it is already added.
+     *
+     * @param transaction to poll for.
+     * @throws FrejaEidClientInternalException if the store cannot be updated.
+     */
+    void addTransaction(PendingTransaction transaction) throws FrejaEidClientInternalException;
+
+    /**
+     * Removes transaction and its lease, once its final result is received.
+     *
+     * @param reference of the transaction.
+     * @throws FrejaEidClientInternalException if the store cannot be updated.
+     */
+    void removeTransaction(String reference) throws FrejaEidClientInternalException;
+
+    /**
+     * @return transactions still to be polled for.
+     * @throws FrejaEidClientInternalException if the store cannot be read.
+     */
+    List<PendingTransaction> getTransactions() throws FrejaEidClientInternalException;
+
+    /**
+     * Announces that the node is alive, or keeps it alive, for given time.
+     *
+     * @param nodeId                   identifies the node.
+     * @param ttlInMilliseconds        time after which the node is considered
+     *                                 dead unless renewed again.
+     * @throws FrejaEidClientInternalException if the store cannot be updated.
+     */
+    void renewMembership(String nodeId, long ttlInMilliseconds) throws FrejaEidClientInternalException;
+
+    /**
+     * Removes the node from live nodes and releases its leases.
+     *
+     * @param nodeId identifies the node.
+     * @throws FrejaEidClientInternalException if the store cannot be updated.
+     */
+    void leave(String nodeId) throws FrejaEidClientInternalException;
+
+    /**
+     * @return identifiers of the nodes whose membership has not expired.
+     * @throws FrejaEidClientInternalException if the store cannot be read.
+     */
+    Set<String> getLiveNodes() throws FrejaEidClientInternalException;
+
+    /**
+     * Acquires or renews lease on a transaction. Succeeds if the transaction
+     * is still to be polled for and no other node holds a lease on it that
+     * has not expired.
+     *
+     * @param reference         of the transaction.
+     * @param nodeId            identifies the node acquiring the lease.
+     * @param ttlInMilliseconds time after which the lease expires unless
+     *                          renewed.
+     * @return whether the node holds the lease.
+     * @throws FrejaEidClientInternalException if the store cannot be updated.
+     */
+    boolean tryAcquireLease(String reference, String nodeId, long ttlInMilliseconds)
+            throws FrejaEidClientInternalException;
+
+    /**
+     * Transaction still to be polled for.
+     */
+    public static final class PendingTransaction {
+
+        private final String reference;
+        private final String relyingPartyId;
+
+        /**
+         * @param reference      of the transaction.
+         * @param relyingPartyId on whose behalf the transaction is made, may be
+         *                       {@code null}.
+         */
+        public PendingTransaction(String reference, String relyingPartyId) {
+            this.reference = reference;
+            this.relyingPartyId = relyingPartyId;
+        }
+
+        public String getReference() {
+            return reference;
+        }
+
+        public String getRelyingPartyId() {
+            return relyingPartyId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(reference, relyingPartyId);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            PendingTransaction other = (PendingTransaction) obj;
+            return Objects.equals(reference, other.reference) && Objects.equals(relyingPartyId, other.relyingPartyId);
+        }
+
+        @Override
+        public String toString() {
+            return "PendingTransaction{" + "reference=" + reference + ", relyingPartyId=" + relyingPartyId + '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.verisec.frejaeid.client.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * State of a {@linkplain LeaseStore}, shared by its implementations. Not
+ * thread safe, stores guard it themselves. Times are wall clock
+ * milliseconds, as they are compared across processes.
+ */
+final class LeaseTable {
+
+    private static final String TRANSACTION_PREFIX = "transaction.";
+    private static final String NODE_PREFIX = "node.";
+    private static final String LEASE_PREFIX = "lease.";
+
+    private final Map<String, LeaseStore.PendingTransaction> transactions = new LinkedHashMap<>();
+    private final Map<String, Long> nodeExpiries = new HashMap<>();
+    private final Map<String, Lease> leases = new HashMap<>();
+
+    void addTransaction(LeaseStore.PendingTransaction transaction) {
+        transactions.putIfAbsent(transaction.getReference(), transaction);
+    }
+
+    void removeTransaction(String reference) {
+        transactions.remove(reference);
+        leases.remove(reference);
+    }
+
+    List<LeaseStore.PendingTransaction> getTransactions() {
+        return new ArrayList<>(transactions.values());
+    }
+
+    void renewMembership(String nodeId, long expiry) {
+        nodeExpiries.put(nodeId, expiry);
+    }
+
+    void leave(String nodeId) {
+        nodeExpiries.remove(nodeId);
+        leases.values().removeIf(lease -> lease.owner.equals(nodeId));
+    }
+
+    Set<String> getLiveNodes(long now) {
+        nodeExpiries.values().removeIf(expiry -> expiry <= now);
+        return new TreeSet<>(nodeExpiries.keySet());
+    }
+
+    boolean tryAcquireLease(String reference, String nodeId, long now, long expiry) {
+        if (!transactions.containsKey(reference)) {
+            return false;
+        }
+        Lease lease = leases.get(reference);
+        if (lease != null && lease.expiry > now && !lease.owner.equals(nodeId)) {
+            return false;
+        }
+        leases.put(reference, new Lease(nodeId, expiry));
+        return true;
+    }
+
+    Properties toProperties() {
+        Properties properties = new Properties();
+        for (LeaseStore.PendingTransaction transaction : transactions.values()) {
+            properties.setProperty(TRANSACTION_PREFIX + transaction.getReference(),
+                                   transaction.getRelyingPartyId() == null ? "" : transaction.getRelyingPartyId());
+        }
+        for (Map.Entry<String, Long> nodeExpiry : nodeExpiries.entrySet()) {
+            properties.setProperty(NODE_PREFIX + nodeExpiry.getKey(), Long.toString(nodeExpiry.getValue()));
+        }
+        for (Map.Entry<String, Lease> lease : leases.entrySet()) {
+            properties.setProperty(LEASE_PREFIX + lease.getKey(),
+                                   lease.getValue().expiry + " " + lease.getValue().owner);
+        }
+        return properties;
+    }
+
+    static LeaseTable fromProperties(Properties properties) {
+        LeaseTable table = new LeaseTable();
+        for (String name : new TreeSet<>(properties.stringPropertyNames())) {
+            String value = properties.getProperty(name);
+            if (name.startsWith(TRANSACTION_PREFIX)) {
+                String reference = name.substring(TRANSACTION_PREFIX.length());
+                table.transactions.put(reference, new LeaseStore.PendingTransaction(
+                        reference, value.isEmpty() ? null : value));
+            } else if (name.startsWith(NODE_PREFIX)) {
+                table.nodeExpiries.put(name.substring(NODE_PREFIX.length()), Long.parseLong(value));
+            } else if (name.startsWith(LEASE_PREFIX)) {
+                int separator = value.indexOf(' ');
+                table.leases.put(name.substring(LEASE_PREFIX.length()),
+                                 new Lease(value.substring(separator + 1),
+                                           Long.parseLong(value.substring(0, separator))));
+            }
+        }
+        return table;
+    }
+
+    private static final class Lease {
+
+        private final String owner;
+        private final long expiry;
+
+        private Lease(String owner, long expiry) {
+            this.owner = owner;
+            this.expiry = expiry;
+        }
+
+    }
+
+}
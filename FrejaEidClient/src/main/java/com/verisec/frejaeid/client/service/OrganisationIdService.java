@@ -11,22 +11,41 @@ import com.verisec.frejaeid.client.beans.organisationid.init.InitiateAddOrganisa
 import com.verisec.frejaeid.client.beans.organisationid.init.InitiateAddOrganisationIdResponse;
 import com.verisec.frejaeid.client.beans.organisationid.update.UpdateOrganisationIdRequest;
 import com.verisec.frejaeid.client.beans.organisationid.update.UpdateOrganisationIdResponse;
+import com.verisec.frejaeid.client.client.impl.OrganisationIdClient;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import com.verisec.frejaeid.client.http.AsyncHttpServiceApi;
 import com.verisec.frejaeid.client.http.HttpServiceApi;
 import com.verisec.frejaeid.client.util.MethodUrl;
 import com.verisec.frejaeid.client.util.RequestTemplate;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
-import java.util.concurrent.TimeUnit;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 public class OrganisationIdService extends BasicService {
 
+    public static final Logger LOG = LogManager.getLogger(OrganisationIdService.class);
+
     private final int pollingTimeoutInMilliseconds;
+    private PollJournal pollJournal;
 
     public OrganisationIdService(String serverAddress, int pollingTimeoutInMilliseconds, HttpServiceApi httpService,
                                  String resourceServiceUrl) {
-        super(serverAddress, httpService, resourceServiceUrl);
+        this(serverAddress, pollingTimeoutInMilliseconds, httpService, null, resourceServiceUrl);
+    }
+
+    public OrganisationIdService(String serverAddress, int pollingTimeoutInMilliseconds, HttpServiceApi httpService,
+                                 AsyncHttpServiceApi asyncHttpService, String resourceServiceUrl) {
+        super(serverAddress, httpService, asyncHttpService, resourceServiceUrl);
         this.pollingTimeoutInMilliseconds = pollingTimeoutInMilliseconds;
     }
 
@@ -38,38 +57,142 @@ public class OrganisationIdService extends BasicService {
     public InitiateAddOrganisationIdResponse initiateAdd(
             InitiateAddOrganisationIdRequest initiateAddOrganisaitonIdRequest)
             throws FrejaEidClientInternalException, FrejaEidException {
-        return httpService.send(getUrl(serverAddress, MethodUrl.ORGANISATION_ID_INIT_ADD),
-                                RequestTemplate.INIT_ADD_ORGANISATION_ID_TEMPLATE, initiateAddOrganisaitonIdRequest,
-                                InitiateAddOrganisationIdResponse.class,
-                                initiateAddOrganisaitonIdRequest.getRelyingPartyId());
+        InitiateAddOrganisationIdResponse response =
+                httpService.send(getUrl(serverAddress, MethodUrl.ORGANISATION_ID_INIT_ADD),
+                                 RequestTemplate.INIT_ADD_ORGANISATION_ID_TEMPLATE, initiateAddOrganisaitonIdRequest,
+                                 InitiateAddOrganisationIdResponse.class,
+                                 initiateAddOrganisaitonIdRequest.getRelyingPartyId());
+        journalInitiated(response.getOrgIdRef(), initiateAddOrganisaitonIdRequest.getRelyingPartyId(),
+                         initiateAddOrganisaitonIdRequest.getExpiry());
+        trackExpiry(response.getOrgIdRef(), initiateAddOrganisaitonIdRequest.getExpiry(),
+                    OrganisationIdClient.DEFAULT_EXPIRY_TIME_IN_MILLIS);
+        return response;
     }
 
     public OrganisationIdResult getResult(OrganisationIdResultRequest organisationIdResultRequest)
             throws FrejaEidClientInternalException, FrejaEidException {
-        return httpService.send(getUrl(serverAddress, MethodUrl.ORGANISATION_ID_GET_RESULT),
-                                RequestTemplate.ORGANISATION_ID_RESULT_TEMPLATE, organisationIdResultRequest,
-                                OrganisationIdResult.class, organisationIdResultRequest.getRelyingPartyId());
+        return getResultSingleFlight(
+                MethodUrl.ORGANISATION_ID_GET_RESULT, organisationIdResultRequest.getOrgIdRef(),
+                organisationIdResultRequest.getRelyingPartyId(),
+                () -> httpService.send(getUrl(serverAddress, MethodUrl.ORGANISATION_ID_GET_RESULT),
+                                       RequestTemplate.ORGANISATION_ID_RESULT_TEMPLATE, organisationIdResultRequest,
+                                       OrganisationIdResult.class, organisationIdResultRequest.getRelyingPartyId()));
     }
 
     public OrganisationIdResult pollForResult(OrganisationIdResultRequest organisationIdResultRequest,
                                               int maxWaitingTimeInSec)
             throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException {
-        long pollingEndTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(maxWaitingTimeInSec);
-        while (maxWaitingTimeInSec == 0 || isPollingTimeExpired(pollingEndTime)) {
-            OrganisationIdResult getOrganisationIdResult = getResult(organisationIdResultRequest);
-            if (maxWaitingTimeInSec == 0 || isFinalStatus(getOrganisationIdResult.getStatus())) {
-                return getOrganisationIdResult;
-            }
-            try {
-                Thread.sleep(pollingTimeoutInMilliseconds);
-            } catch (InterruptedException ex) {
-                throw new FrejaEidClientInternalException(
-                        String.format("An error occured while waiting to make another request with %ss polling " +
-                                              "timeout.", maxWaitingTimeInSec), ex);
-            }
+        return pollForResult(organisationIdResultRequest, maxWaitingTimeInSec, null);
+    }
+
+    public OrganisationIdResult pollForResult(OrganisationIdResultRequest organisationIdResultRequest,
+                                              int maxWaitingTimeInSec,
+                                              TransactionListener<OrganisationIdResult> listener)
+            throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException {
+        CompletableFuture<OrganisationIdResult> futureResult =
+                pollForResultOnEngine(organisationIdResultRequest.getOrgIdRef(), OrganisationIdService::expiredResult,
+                                      () -> getResult(organisationIdResultRequest), pollingTimeoutInMilliseconds,
+                                      maxWaitingTimeInSec, journaling(organisationIdResultRequest, listener));
+        return awaitResult(cancelOnAbandon(journalRejection(futureResult, organisationIdResultRequest),
+                                           organisationIdResultRequest),
+                           maxWaitingTimeInSec);
+    }
+
+    public CompletableFuture<InitiateAddOrganisationIdResponse> initiateAddAsync(
+            InitiateAddOrganisationIdRequest initiateAddOrganisationIdRequest) {
+        return asyncHttpService.sendAsync(getUrl(serverAddress, MethodUrl.ORGANISATION_ID_INIT_ADD),
+                                          RequestTemplate.INIT_ADD_ORGANISATION_ID_TEMPLATE,
+                                          initiateAddOrganisationIdRequest, InitiateAddOrganisationIdResponse.class,
+                                          initiateAddOrganisationIdRequest.getRelyingPartyId())
+                .thenApply(response -> {
+                    journalInitiated(response.getOrgIdRef(), initiateAddOrganisationIdRequest.getRelyingPartyId(),
+                                     initiateAddOrganisationIdRequest.getExpiry());
+                    trackExpiry(response.getOrgIdRef(), initiateAddOrganisationIdRequest.getExpiry(),
+                                OrganisationIdClient.DEFAULT_EXPIRY_TIME_IN_MILLIS);
+                    return response;
+                });
+    }
+
+    public CompletableFuture<OrganisationIdResult> getResultAsync(
+            OrganisationIdResultRequest organisationIdResultRequest) {
+        return getResultSingleFlightAsync(
+                MethodUrl.ORGANISATION_ID_GET_RESULT, organisationIdResultRequest.getOrgIdRef(),
+                organisationIdResultRequest.getRelyingPartyId(),
+                () -> asyncHttpService.sendAsync(getUrl(serverAddress, MethodUrl.ORGANISATION_ID_GET_RESULT),
+                                                 RequestTemplate.ORGANISATION_ID_RESULT_TEMPLATE,
+                                                 organisationIdResultRequest, OrganisationIdResult.class,
+                                                 organisationIdResultRequest.getRelyingPartyId()));
+    }
+
+    public CompletableFuture<OrganisationIdResult> pollForResultAsync(
+            final OrganisationIdResultRequest organisationIdResultRequest, int maxWaitingTimeInSec) {
+        return pollForResultAsync(organisationIdResultRequest, maxWaitingTimeInSec, null);
+    }
+
+    public CompletableFuture<OrganisationIdResult> pollForResultAsync(
+            final OrganisationIdResultRequest organisationIdResultRequest, int maxWaitingTimeInSec,
+            TransactionListener<OrganisationIdResult> listener) {
+        return startPolling(organisationIdResultRequest, () -> getResultAsync(organisationIdResultRequest),
+                            maxWaitingTimeInSec, listener);
+    }
+
+    public PolledResults<OrganisationIdResult> pollForResults(
+            Collection<OrganisationIdResultRequest> organisationIdResultRequests, int maxWaitingTimeInSec,
+            int maxConcurrentRequests, TransactionListener<OrganisationIdResult> listener) {
+        return pollForResults(organisationIdResultRequests, OrganisationIdResultRequest::getOrgIdRef,
+                              maxConcurrentRequests,
+                              (organisationIdResultRequest, requestLimiter) -> startPolling(
+                                      organisationIdResultRequest,
+                                      () -> requestLimiter.submit(() -> getResultAsync(organisationIdResultRequest)),
+                                      maxWaitingTimeInSec, listener));
+    }
+
+    /**
+     * Resumes polling for results of transactions left outstanding in the
+     * poll journal, e.g. by a previous run of the application. At most
+     * {@code maxConcurrentPolls} transactions are polled at a time, polling
+     * for the next one starts as soon as polling for one of them ends.
+     * Expiry of the transactions is tracked as journaled, transactions that
+     * expired in the meantime are polled once to confirm their status.
+     *
+     * @return future results keyed by transaction reference, empty if no poll
+     * journal is set.
+     * @throws FrejaEidClientInternalException if maximum number of concurrent
+     *                                         polls is not positive, none of
+     *                                         the futures would ever complete.
+     */
+    public Map<String, CompletableFuture<OrganisationIdResult>> resumePolling(
+            int maxWaitingTimeInSec, int maxConcurrentPolls, TransactionListener<OrganisationIdResult> listener)
+            throws FrejaEidClientInternalException {
+        if (maxConcurrentPolls <= 0) {
+            throw new FrejaEidClientInternalException("Maximum number of concurrent polls must be positive.");
         }
-        throw new FrejaEidClientPollingException(
-                String.format("A timeout of %ss was reached while sending request.", maxWaitingTimeInSec));
+        Map<String, CompletableFuture<OrganisationIdResult>> futureResults = new LinkedHashMap<>();
+        if (pollJournal == null) {
+            return futureResults;
+        }
+        List<PollJournal.Entry> outstanding = pollJournal.getOutstanding();
+        for (PollJournal.Entry entry : outstanding) {
+            futureResults.put(entry.getReference(), new CompletableFuture<>());
+        }
+        Iterator<PollJournal.Entry> entries = outstanding.iterator();
+        for (int i = 0; i < maxConcurrentPolls; i++) {
+            resumeNext(entries, futureResults, maxWaitingTimeInSec, listener);
+        }
+        return futureResults;
+    }
+
+    public CompletableFuture<EmptyFrejaResponse> cancelAddAsync(
+            CancelAddOrganisationIdRequest cancelAddOrganisationIdRequest) {
+        return asyncHttpService.sendAsync(getUrl(serverAddress, MethodUrl.ORGANISATION_ID_CANCEL_ADD),
+                                          RequestTemplate.CANCEL_ADD_ORGANISATION_ID_TEMPLATE,
+                                          cancelAddOrganisationIdRequest, EmptyFrejaResponse.class,
+                                          cancelAddOrganisationIdRequest.getRelyingPartyId())
+                .thenApply(response -> {
+                    journal(cancelAddOrganisationIdRequest.getOrgIdRef(),
+                            cancelAddOrganisationIdRequest.getRelyingPartyId(), TransactionStatus.RP_CANCELED);
+                    return response;
+                });
     }
 
     public EmptyFrejaResponse delete(DeleteOrganisationIdRequest deleteOrganisationIdRequest)
@@ -81,9 +204,13 @@ public class OrganisationIdService extends BasicService {
 
     public EmptyFrejaResponse cancelAdd(CancelAddOrganisationIdRequest cancelAddOrganisationIdRequest)
             throws FrejaEidClientInternalException, FrejaEidException {
-        return httpService.send(getUrl(serverAddress, MethodUrl.ORGANISATION_ID_CANCEL_ADD),
-                                RequestTemplate.CANCEL_ADD_ORGANISATION_ID_TEMPLATE, cancelAddOrganisationIdRequest,
-                                EmptyFrejaResponse.class, cancelAddOrganisationIdRequest.getRelyingPartyId());
+        EmptyFrejaResponse response =
+                httpService.send(getUrl(serverAddress, MethodUrl.ORGANISATION_ID_CANCEL_ADD),
+                                 RequestTemplate.CANCEL_ADD_ORGANISATION_ID_TEMPLATE, cancelAddOrganisationIdRequest,
+                                 EmptyFrejaResponse.class, cancelAddOrganisationIdRequest.getRelyingPartyId());
+        journal(cancelAddOrganisationIdRequest.getOrgIdRef(), cancelAddOrganisationIdRequest.getRelyingPartyId(),
+                TransactionStatus.RP_CANCELED);
+        return response;
     }
 
     public GetAllOrganisationIdUsersResponse getAllUsers(
@@ -101,7 +228,156 @@ public class OrganisationIdService extends BasicService {
                                 UpdateOrganisationIdResponse.class, updateOrganisationIdRequest.getRelyingPartyId());
     }
 
-    private boolean isPollingTimeExpired(long pollingEndTime) {
-        return (System.currentTimeMillis() + pollingTimeoutInMilliseconds) < pollingEndTime;
+    /**
+     * Creates and starts coordinator polling with {@linkplain #getResult}
+     * for the transactions shared by the nodes of a cluster through the lease
+     * store.
+     */
+    public PollingCoordinator<OrganisationIdResult> createPollingCoordinator(
+            String nodeId, LeaseStore leaseStore, TransactionListener<OrganisationIdResult> listener) {
+        PollingCoordinator<OrganisationIdResult> pollingCoordinator = new PollingCoordinator<>(
+                nodeId, leaseStore,
+                (reference, relyingPartyId) -> getResult(OrganisationIdResultRequest.create(reference, relyingPartyId)),
+                this::isFinalStatus, pollingTimeoutInMilliseconds, getPollingExecutor(), listener);
+        pollingCoordinator.start();
+        return pollingCoordinator;
+    }
+
+    /**
+     * Journals initiated transactions and status changes of polled ones, so
+     * that polling for them can be resumed after a restart.
+     *
+     * @param pollJournal journal of pending transactions, {@code null} for
+     *                    none.
+     */
+    public void setPollJournal(PollJournal pollJournal) {
+        this.pollJournal = pollJournal;
     }
+
+    public PollJournal getPollJournal() {
+        return pollJournal;
+    }
+
+    private void resumeNext(Iterator<PollJournal.Entry> entries,
+                            Map<String, CompletableFuture<OrganisationIdResult>> futureResults,
+                            int maxWaitingTimeInSec, TransactionListener<OrganisationIdResult> listener) {
+        PollJournal.Entry entry;
+        synchronized (entries) {
+            if (!entries.hasNext()) {
+                return;
+            }
+            entry = entries.next();
+        }
+        LOG.debug("Resuming polling for result of add organisation ID transaction reference {} in status {}.",
+                  entry.getReference(), entry.getStatus());
+        trackExpiry(entry.getReference(), entry.getExpiry(), OrganisationIdClient.DEFAULT_EXPIRY_TIME_IN_MILLIS);
+        CompletableFuture<OrganisationIdResult> futureResult = futureResults.get(entry.getReference());
+        pollForResultAsync(OrganisationIdResultRequest.create(entry.getReference(), entry.getRelyingPartyId()),
+                           maxWaitingTimeInSec, listener).whenComplete((result, throwable) -> {
+            PollingScheduler.SHARED.schedule(
+                    () -> resumeNext(entries, futureResults, maxWaitingTimeInSec, listener), 0, getPollingExecutor());
+            if (throwable != null) {
+                futureResult.completeExceptionally(unwrap(throwable));
+            } else {
+                futureResult.complete(result);
+            }
+        });
+    }
+
+    private static OrganisationIdResult expiredResult(String orgIdRef) {
+        return new OrganisationIdResult(orgIdRef, TransactionStatus.EXPIRED, null);
+    }
+
+    private TransactionListener<OrganisationIdResult> journaling(
+            final OrganisationIdResultRequest organisationIdResultRequest,
+            final TransactionListener<OrganisationIdResult> listener) {
+        if (pollJournal == null) {
+            return listener;
+        }
+        return result -> {
+            journal(organisationIdResultRequest.getOrgIdRef(), organisationIdResultRequest.getRelyingPartyId(),
+                    result.getStatus());
+            notifyStatusChange(listener, result);
+        };
+    }
+
+    /**
+     * Finishes the transaction in the poll journal, if any, once the server
+     * rejects its reference, so that polling for it is not resumed again.
+     */
+    private CompletableFuture<OrganisationIdResult> journalRejection(
+            CompletableFuture<OrganisationIdResult> futureResult,
+            final OrganisationIdResultRequest organisationIdResultRequest) {
+        if (pollJournal != null) {
+            futureResult.whenComplete((result, throwable) -> {
+                if (isDefinitiveError(unwrap(throwable))) {
+                    journal(organisationIdResultRequest.getOrgIdRef(),
+                            organisationIdResultRequest.getRelyingPartyId(), null, true);
+                }
+            });
+        }
+        return futureResult;
+    }
+
+    /**
+     * Appends an initiated transaction with its expiry to the poll journal,
+     * if any. Failure to journal is only logged, it does not fail the
+     * request.
+     */
+    private void journalInitiated(String reference, String relyingPartyId, Long expiry) {
+        PollJournal journal = pollJournal;
+        if (journal == null || reference == null) {
+            return;
+        }
+        try {
+            journal.start(reference, relyingPartyId, expiry != null
+                                                     ? expiry
+                                                     : System.currentTimeMillis()
+                                                             + OrganisationIdClient.DEFAULT_EXPIRY_TIME_IN_MILLIS);
+        } catch (FrejaEidClientInternalException ex) {
+            LOG.warn("Failed to journal initiated add organisation ID transaction {}.", reference, ex);
+        }
+    }
+
+    private void journal(String reference, String relyingPartyId, TransactionStatus status) {
+        journal(reference, relyingPartyId, status, status != null && isFinalStatus(status));
+    }
+
+    /**
+     * Appends the status of a transaction to the poll journal, if any.
+     * Failure to journal is only logged, it does not fail the request.
+     */
+    private void journal(String reference, String relyingPartyId, TransactionStatus status, boolean finished) {
+        PollJournal journal = pollJournal;
+        if (journal == null || reference == null) {
+            return;
+        }
+        try {
+            journal.record(reference, relyingPartyId, status, finished);
+        } catch (FrejaEidClientInternalException ex) {
+            LOG.warn("Failed to journal status {} of add organisation ID transaction {}.", status, reference, ex);
+        }
+    }
+
+    private CompletableFuture<OrganisationIdResult> startPolling(
+            OrganisationIdResultRequest organisationIdResultRequest,
+            Supplier<CompletableFuture<OrganisationIdResult>> resultSupplier, int maxWaitingTimeInSec,
+            TransactionListener<OrganisationIdResult> listener) {
+        CompletableFuture<OrganisationIdResult> futureResult =
+                pollForResultAsync(organisationIdResultRequest.getOrgIdRef(), OrganisationIdService::expiredResult,
+                                   resultSupplier, pollingTimeoutInMilliseconds, maxWaitingTimeInSec,
+                                   journaling(organisationIdResultRequest, listener));
+        return cancelOnAbandon(journalRejection(futureResult, organisationIdResultRequest),
+                               organisationIdResultRequest);
+    }
+
+    private CompletableFuture<OrganisationIdResult> cancelOnAbandon(
+            CompletableFuture<OrganisationIdResult> futureResult,
+            final OrganisationIdResultRequest organisationIdResultRequest) {
+        return cancelOnAbandon(futureResult, organisationIdResultRequest.getOrgIdRef(),
+                               () -> cancelAdd(CancelAddOrganisationIdRequest.create(
+                                       organisationIdResultRequest.getOrgIdRef(),
+                                       organisationIdResultRequest.getRelyingPartyId())));
+    }
+
 }
@@ -0,0 +1,423 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of pending transactions, their expiry and their last
+ * known status, kept in a memory-mapped local file. Transactions are appended
+ * when initiated and on every status change, a transaction in final status
+ * or rejected by the server is no longer outstanding. After a restart the
+ * outstanding transactions are read back from the journal, so polling for
+ * them can be resumed without initiating them again.
+ * <p>
+ * Every record carries a checksum, replay stops at the first incomplete
+ * record left by a crash. Records of finished transactions are dropped when
+ * the journal is opened, so the file only grows with the transactions
+ * pending during one run of the application.
+ * <p>
+ * Records starting or finishing a transaction are forced to the storage
+ * device before returning, so they survive a crash of the operating system
+ * or a power loss. Status changes in between are only written to the page
+ * cache, which survives a crash of the application: after an operating
+ * system crash polling is resumed from an earlier status, which is harmless.
+ * <p>
+ * A journal file must not be opened by more than one journal at a time.
+ * Records are written and forced under a lock rather than the monitor, so a
+ * virtual thread waiting for another one to force its record is not pinned
+ * to its carrier.
+ */
+public final class PollJournal implements Closeable {
+
+    public static final Logger LOG = LogManager.getLogger(PollJournal.class);
+
+    private static final int INITIAL_CAPACITY_IN_BYTES = 64 * 1024;
+    private static final int RECORD_HEADER_LENGTH = 2 * Integer.BYTES;
+    private static final byte FINISHED = 1;
+    private static final long NO_EXPIRY = 0;
+
+    private final Path path;
+    private final Map<String, Entry> outstanding = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private int replayedLength;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    private PollJournal(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Opens the journal kept in given file, creating the file if it does not
+     * exist.
+     *
+     * @param path of the journal file.
+     * @return opened journal.
+     * @throws FrejaEidClientInternalException if the file cannot be read or
+     *                                         written.
+     */
+    public static PollJournal open(Path path) throws FrejaEidClientInternalException {
+        if (path == null) {
+            throw new FrejaEidClientInternalException("Path of poll journal cannot be null.");
+        }
+        PollJournal journal = new PollJournal(path);
+        try {
+            journal.replay();
+            journal.compact();
+        } catch (IOException ex) {
+            journal.close();
+            throw new FrejaEidClientInternalException("Failed to open poll journal " + path + ".", ex);
+        }
+        LOG.debug("Opened poll journal {} with {} outstanding transactions.", path, journal.outstanding.size());
+        return journal;
+    }
+
+    /**
+     * Returns transactions not yet in final status, in order of initiation.
+     *
+     * @return outstanding transactions.
+     */
+    public List<Entry> getOutstanding() {
+        lock.lock();
+        try {
+            return new ArrayList<>(outstanding.values());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends an initiated transaction to the journal and forces it to the
+     * storage device.
+     *
+     * @param reference      of the transaction.
+     * @param relyingPartyId on whose behalf the transaction is made, may be
+     *                       {@code null}.
+     * @param expiry         of the transaction in milliseconds since January
+     *                       1, 1970, 00:00 UTC.
+     * @throws FrejaEidClientInternalException if the journal is closed or the
+     *                                         record cannot be written.
+     */
+    void start(String reference, String relyingPartyId, long expiry) throws FrejaEidClientInternalException {
+        lock.lock();
+        try {
+            checkOpen();
+            Entry entry = new Entry(reference, relyingPartyId, null, expiry);
+            outstanding.put(reference, entry);
+            append(entry, false);
+            buffer.force();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends the status of a transaction to the journal. Records of
+     * transactions not journaled yet and of finished transactions are forced
+     * to the storage device.
+     *
+     * @param reference      of the transaction.
+     * @param relyingPartyId on whose behalf the transaction is made, may be
+     *                       {@code null}.
+     * @param status         last known status, {@code null} if not known
+     *                       yet.
+     * @param finished       whether the status is final or the transaction
+     *                       is rejected by the server.
+     * @throws FrejaEidClientInternalException if the journal is closed or the
+     *                                         record cannot be written.
+     */
+    void record(String reference, String relyingPartyId, TransactionStatus status, boolean finished)
+            throws FrejaEidClientInternalException {
+        lock.lock();
+        try {
+            checkOpen();
+            Entry previous = outstanding.get(reference);
+            if (finished) {
+                if (outstanding.remove(reference) == null) {
+                    return;
+                }
+                append(new Entry(reference, relyingPartyId, status, previous.expiry), true);
+            } else {
+                if (previous != null && previous.status == status) {
+                    return;
+                }
+                Entry entry = new Entry(reference, relyingPartyId, status, previous == null ? null : previous.expiry);
+                outstanding.put(reference, entry);
+                append(entry, false);
+                if (previous != null) {
+                    return;
+                }
+            }
+            buffer.force();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkOpen() throws FrejaEidClientInternalException {
+        if (buffer == null) {
+            throw new FrejaEidClientInternalException("Poll journal " + path + " is closed.");
+        }
+    }
+
+    private void append(Entry entry, boolean finished) throws FrejaEidClientInternalException {
+        byte[] body = encode(entry, finished);
+        try {
+            ensureCapacity(RECORD_HEADER_LENGTH + body.length);
+        } catch (IOException ex) {
+            throw new FrejaEidClientInternalException("Failed to extend poll journal " + path + ".", ex);
+        }
+        int position = buffer.position();
+        buffer.position(position + RECORD_HEADER_LENGTH);
+        buffer.put(body);
+        buffer.putInt(position + Integer.BYTES, checksum(body));
+        buffer.putInt(position, body.length);
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (buffer != null) {
+                buffer.force();
+                buffer = null;
+            }
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ex) {
+                    LOG.warn("Failed to close poll journal {}.", path, ex);
+                }
+                channel = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void replay() throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(path));
+        while (records.remaining() >= RECORD_HEADER_LENGTH) {
+            int length = records.getInt();
+            int checksum = records.getInt();
+            if (length <= 0 || length > records.remaining()) {
+                break;
+            }
+            byte[] body = new byte[length];
+            records.get(body);
+            if (checksum(body) != checksum || !apply(ByteBuffer.wrap(body))) {
+                LOG.warn("Poll journal {} ends with an incomplete record, it is ignored.", path);
+                break;
+            }
+            replayedLength = records.position();
+        }
+    }
+
+    private boolean apply(ByteBuffer body) {
+        try {
+            boolean finished = body.get() == FINISHED;
+            long expiry = body.getLong();
+            String reference = readString(body);
+            String relyingPartyId = readString(body);
+            String status = readString(body);
+            if (finished) {
+                outstanding.remove(reference);
+            } else {
+                outstanding.put(reference, new Entry(reference, relyingPartyId,
+                                                     status == null ? null : TransactionStatus.valueOf(status),
+                                                     expiry == NO_EXPIRY ? null : expiry));
+            }
+            return true;
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Rewrites the journal with outstanding transactions only and maps it for
+     * appending. The records are written to a new file with plain channel
+     * writes and forced to the storage device before it replaces the old one
+     * atomically, a crash leaves one of them intact. Only the final file is
+     * ever mapped.
+     * <p>
+     * Some platforms refuse to replace a file while it is still mapped, which
+     * it is until the mappings of an earlier journal on the same file are
+     * garbage collected. The journal is then appended to without compaction.
+     */
+    private void compact() throws IOException {
+        Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        for (Entry entry : outstanding.values()) {
+            byte[] body = encode(entry, false);
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+            header.putInt(body.length);
+            header.putInt(checksum(body));
+            records.write(header.array(), 0, RECORD_HEADER_LENGTH);
+            records.write(body, 0, body.length);
+        }
+        ByteBuffer content = ByteBuffer.wrap(records.toByteArray());
+        try (FileChannel compactedChannel = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                                                             StandardOpenOption.WRITE,
+                                                             StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (content.hasRemaining()) {
+                compactedChannel.write(content);
+            }
+            compactedChannel.force(true);
+        }
+        try {
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            LOG.warn("Failed to compact poll journal {}, appending to it as is.", path, ex);
+            Files.deleteIfExists(compacted);
+            map(replayedLength);
+            while (buffer.hasRemaining()) {
+                buffer.put((byte) 0);
+            }
+            buffer.position(replayedLength);
+            return;
+        }
+        map(content.limit());
+    }
+
+    private void map(int position) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                   StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), INITIAL_CAPACITY_IN_BYTES));
+        buffer.position(position);
+    }
+
+    /**
+     * Maps a larger region of the journal file when the record does not fit.
+     * The previous mapping is released when it is garbage collected, it only
+     * ever covers the journal file itself, which is not replaced while open.
+     */
+    private void ensureCapacity(int recordLength) throws IOException {
+        if (buffer.remaining() >= recordLength + RECORD_HEADER_LENGTH) {
+            return;
+        }
+        int position = buffer.position();
+        long capacity = Math.max(2L * buffer.capacity(), (long) position + recordLength + RECORD_HEADER_LENGTH);
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Poll journal cannot grow beyond " + Integer.MAX_VALUE + " bytes.");
+        }
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        buffer.position(position);
+    }
+
+    private static byte[] encode(Entry entry, boolean finished) {
+        byte[] referenceBytes = toBytes(entry.reference);
+        byte[] relyingPartyIdBytes = toBytes(entry.relyingPartyId);
+        byte[] statusBytes = toBytes(entry.status == null ? null : entry.status.name());
+        ByteBuffer body = ByteBuffer.allocate(1 + Long.BYTES + 3 * Integer.BYTES + referenceBytes.length
+                                                      + relyingPartyIdBytes.length + statusBytes.length);
+        body.put(finished ? FINISHED : 0);
+        body.putLong(entry.expiry == null ? NO_EXPIRY : entry.expiry);
+        writeString(body, referenceBytes);
+        writeString(body, relyingPartyIdBytes);
+        writeString(body, statusBytes);
+        return body.array();
+    }
+
+    private static byte[] toBytes(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(ByteBuffer body, byte[] value) {
+        body.putInt(value.length);
+        body.put(value);
+    }
+
+    private static String readString(ByteBuffer body) {
+        int length = body.getInt();
+        if (length < 0 || length > body.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        if (length == 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        body.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static int checksum(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Outstanding transaction with its expiry and last known status.
+     */
+    public static final class Entry {
+
+        private final String reference;
+        private final String relyingPartyId;
+        private final TransactionStatus status;
+        private final Long expiry;
+
+        private Entry(String reference, String relyingPartyId, TransactionStatus status, Long expiry) {
+            this.reference = reference;
+            this.relyingPartyId = relyingPartyId;
+            this.status = status;
+            this.expiry = expiry;
+        }
+
+        public String getReference() {
+            return reference;
+        }
+
+        public String getRelyingPartyId() {
+            return relyingPartyId;
+        }
+
+        /**
+         * @return last known status, {@code null} if the transaction was
+         * journaled before its status was known.
+         */
+        public TransactionStatus getStatus() {
+            return status;
+        }
+
+        /**
+         * @return expiry in milliseconds since January 1, 1970, 00:00 UTC,
+         * {@code null} if the transaction was journaled without it.
+         */
+        public Long getExpiry() {
+            return expiry;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" + "reference=" + reference + ", relyingPartyId=" + relyingPartyId + ", status=" + status
+                    + ", expiry=" + expiry + '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.beans.common.Result;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Results of polling for many transactions at once, handed out in the order
+ * polling for them completes, like {@linkplain
+ * java.util.concurrent.CompletionService} does for tasks. Every stage taken
+ * is already completed, with the result of the transaction or with the
+ * exception polling for it failed with. Stages can also be looked up by
+ * transaction reference with {@linkplain #getResults()}. Threads waiting for
+ * a result hold no lock, so others can check {@linkplain #hasNext()} or take
+ * results meanwhile.
+ *
+ * @param <T> type of the transaction result.
+ */
+public final class PolledResults<T extends Result> {
+
+    private final Map<String, CompletionStage<T>> results = new LinkedHashMap<>();
+    private final BlockingQueue<CompletionStage<T>> completed = new LinkedBlockingQueue<>();
+    private final AtomicInteger taken = new AtomicInteger();
+
+    PolledResults() {
+    }
+
+    boolean contains(String reference) {
+        return results.containsKey(reference);
+    }
+
+    void add(String reference, final CompletableFuture<T> futureResult) {
+        results.put(reference, futureResult);
+        futureResult.whenComplete((result, throwable) -> completed.add(futureResult));
+    }
+
+    /**
+     * @return {@code true} if not all results are taken yet.
+     */
+    public boolean hasNext() {
+        return taken.get() < results.size();
+    }
+
+    /**
+     * Waits for polling for the next transaction to complete.
+     *
+     * @return completed stage of the result.
+     * @throws InterruptedException   if interrupted while waiting.
+     * @throws NoSuchElementException if all results are already taken.
+     */
+    public CompletionStage<T> take() throws InterruptedException {
+        if (!reserve()) {
+            throw new NoSuchElementException("All results are already taken.");
+        }
+        try {
+            return completed.take();
+        } catch (InterruptedException ex) {
+            taken.decrementAndGet();
+            throw ex;
+        }
+    }
+
+    /**
+     * Waits up to the given time for polling for the next transaction to
+     * complete.
+     *
+     * @return completed stage of the result, {@code null} if no polling
+     * completed in time or all results are already taken.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public CompletionStage<T> poll(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!reserve()) {
+            return null;
+        }
+        CompletionStage<T> result = null;
+        try {
+            result = completed.poll(timeout, unit);
+            return result;
+        } finally {
+            if (result == null) {
+                taken.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return stages of all results keyed by transaction reference, in the
+     * order transactions were submitted.
+     */
+    public Map<String, CompletionStage<T>> getResults() {
+        return Collections.unmodifiableMap(results);
+    }
+
+    /**
+     * Counts a result as taken before waiting for it, so no more threads wait
+     * than there are results left. Undone if no result is taken after all.
+     */
+    private boolean reserve() {
+        int current;
+        do {
+            current = taken.get();
+            if (current >= results.size()) {
+                return false;
+            }
+        } while (!taken.compareAndSet(current, current + 1));
+        return true;
+    }
+
+}
@@ -0,0 +1,244 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.beans.common.Result;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+
+/**
+ * Polls for results of transactions shared by the nodes of a cluster, so that
+ * every transaction is polled by exactly one node at a time. Transactions
+ * submitted on any node are kept in a {@linkplain LeaseStore}. Every polling
+ * interval each node polls the transactions that consistent hashing of their
+ * references over the live nodes assigns to it, holding a lease on each
+ * while doing so. A node that stops renewing its membership drops out of the
+ * hash ring once the membership expires, its transactions are then taken
+ * over by the other nodes as soon as their leases expire.
+ * <p>
+ * Status changes are handed to the listener of the node that polled for
+ * them. A transaction is removed from the store once its final status is
+ * handed out, or when the server definitively rejects its reference.
+ * Transient errors of the server, e.g. HTTP status 503, are retried in the
+ * next round.
+ *
+ * @param <T> type of the transaction result.
+ */
+public final class PollingCoordinator<T extends Result> implements Closeable {
+
+    public static final Logger LOG = LogManager.getLogger(PollingCoordinator.class);
+
+    private static final int LEASE_DURATION_IN_POLLING_INTERVALS = 3;
+    private static final int VIRTUAL_NODES_PER_NODE = 100;
+
+    private final String nodeId;
+    private final LeaseStore leaseStore;
+    private final BatchPoller.ResultCall<T> resultCall;
+    private final Predicate<TransactionStatus> finalStatus;
+    private final int pollingTimeoutInMilliseconds;
+    private final long leaseDurationInMilliseconds;
+    private final Executor pollingExecutor;
+    private final TransactionListener<T> listener;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Map<String, TransactionStatus> lastStatuses = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+    private PollingScheduler.Timeout scheduledRound;
+    private Set<String> ringNodes;
+    private SortedMap<Long, String> ring;
+
+    PollingCoordinator(String nodeId, LeaseStore leaseStore, BatchPoller.ResultCall<T> resultCall,
+                       Predicate<TransactionStatus> finalStatus, int pollingTimeoutInMilliseconds,
+                       Executor pollingExecutor, TransactionListener<T> listener) {
+        this.nodeId = nodeId;
+        this.leaseStore = leaseStore;
+        this.resultCall = resultCall;
+        this.finalStatus = finalStatus;
+        this.pollingTimeoutInMilliseconds = pollingTimeoutInMilliseconds;
+        this.leaseDurationInMilliseconds = (long) LEASE_DURATION_IN_POLLING_INTERVALS * pollingTimeoutInMilliseconds;
+        this.pollingExecutor = pollingExecutor;
+        this.listener = listener;
+    }
+
+    /**
+     * Hands the transaction over to the cluster for polling. It is polled by
+     * the node owning its reference, which is not necessarily this one.
+     *
+     * @param reference      of the transaction.
+     * @param relyingPartyId on whose behalf the transaction is made, may be
+     *                       {@code null}.
+     * @throws FrejaEidClientInternalException if the lease store cannot be
+     *                                         updated.
+     */
+    public void submit(String reference, String relyingPartyId) throws FrejaEidClientInternalException {
+        leaseStore.addTransaction(new LeaseStore.PendingTransaction(reference, relyingPartyId));
+        LOG.debug("Transaction {} submitted for polling by the cluster.", reference);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Stops polling and leaves the cluster, handing transactions of this node
+     * over to the other nodes right away.
+     */
+    @Override
+    public void close() {
+        PollingScheduler.Timeout timeout;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            timeout = scheduledRound;
+        }
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        try {
+            leaseStore.leave(nodeId);
+        } catch (FrejaEidClientInternalException ex) {
+            LOG.warn("Node {} failed to leave the polling cluster.", nodeId, ex);
+        }
+    }
+
+    void start() {
+        scheduleRound(0);
+    }
+
+    private synchronized void scheduleRound(long delayInMilliseconds) {
+        if (!closed) {
+            scheduledRound = PollingScheduler.SHARED.schedule(this::pollRound, delayInMilliseconds, pollingExecutor);
+        }
+    }
+
+    /**
+     * Renews membership of this node and polls once for every transaction of
+     * its shard whose previous poll is completed.
+     */
+    private void pollRound() {
+        if (closed) {
+            return;
+        }
+        try {
+            leaseStore.renewMembership(nodeId, leaseDurationInMilliseconds);
+            SortedMap<Long, String> currentRing = getRing(leaseStore.getLiveNodes());
+            Set<String> owned = new HashSet<>();
+            for (LeaseStore.PendingTransaction transaction : leaseStore.getTransactions()) {
+                String reference = transaction.getReference();
+                if (closed || !nodeId.equals(ownerOf(currentRing, reference))) {
+                    continue;
+                }
+                owned.add(reference);
+                if (!inFlight.contains(reference)
+                        && leaseStore.tryAcquireLease(reference, nodeId, leaseDurationInMilliseconds)) {
+                    poll(transaction);
+                }
+            }
+            lastStatuses.keySet().retainAll(owned);
+        } catch (FrejaEidClientInternalException | RuntimeException ex) {
+            LOG.warn("Node {} failed to coordinate polling with the cluster.", nodeId, ex);
+        }
+        scheduleRound(pollingTimeoutInMilliseconds);
+    }
+
+    private void poll(final LeaseStore.PendingTransaction transaction) {
+        final String reference = transaction.getReference();
+        inFlight.add(reference);
+        PollingScheduler.SHARED
+                .execute(() -> resultCall.getResult(reference, transaction.getRelyingPartyId()), pollingExecutor)
+                .whenComplete((result, throwable) -> {
+                    try {
+                        onPoll(reference, result, BasicService.unwrap(throwable));
+                    } finally {
+                        inFlight.remove(reference);
+                    }
+                });
+    }
+
+    private void onPoll(String reference, T result, Throwable throwable) {
+        if (BasicService.isDefinitiveError(throwable)) {
+            LOG.warn("Server rejected transaction {}, polling for it stops.", reference, throwable);
+            remove(reference);
+            BasicService.notifyPollingAbandoned(listener, reference, (FrejaEidException) throwable);
+            return;
+        }
+        if (throwable != null) {
+            LOG.warn("Polling for result of transaction {} failed, it is polled again.", reference, throwable);
+            return;
+        }
+        if (result == null) {
+            return;
+        }
+        if (lastStatuses.put(reference, result.getStatus()) != result.getStatus()) {
+            BasicService.notifyStatusChange(listener, result);
+        }
+        if (finalStatus.test(result.getStatus())) {
+            remove(reference);
+        }
+    }
+
+    private void remove(String reference) {
+        lastStatuses.remove(reference);
+        try {
+            leaseStore.removeTransaction(reference);
+        } catch (FrejaEidClientInternalException ex) {
+            LOG.warn("Failed to remove transaction {} from lease store, it is polled again.", reference, ex);
+        }
+    }
+
+    private synchronized SortedMap<Long, String> getRing(Set<String> liveNodes) {
+        if (!liveNodes.equals(ringNodes)) {
+            SortedMap<Long, String> newRing = new TreeMap<>();
+            for (String node : liveNodes) {
+                for (int i = 0; i < VIRTUAL_NODES_PER_NODE; i++) {
+                    newRing.put(hash(node + "#" + i), node);
+                }
+            }
+            ring = newRing;
+            ringNodes = liveNodes;
+            LOG.debug("Node {} sees live nodes {}.", nodeId, liveNodes);
+        }
+        return ring;
+    }
+
+    private static String ownerOf(SortedMap<Long, String> ring, String reference) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        SortedMap<Long, String> tail = ring.tailMap(hash(reference));
+        return tail.isEmpty() ? ring.get(ring.firstKey()) : tail.get(tail.firstKey());
+    }
+
+    /**
+     * Hash every node computes alike, unlike {@linkplain String#hashCode()}
+     * it spreads similar references evenly over the ring.
+     */
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                hash = hash << 8 | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("MD5 is not supported.", ex);
+        }
+    }
+
+}
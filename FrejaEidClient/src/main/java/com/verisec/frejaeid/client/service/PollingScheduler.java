@@ -0,0 +1,333 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.http.ConnectionPoolSettings;
+import com.verisec.frejaeid.client.util.SingleFlight;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Polling engine shared by all services. Outstanding polls are kept in a
+ * hierarchical timer wheel driven by a single thread, due polls are handed to
+ * worker threads. A transaction waiting for its next poll therefore costs one
+ * entry in the wheel rather than a sleeping thread. The number of workers is
+ * bounded by the default size of the connection pool, as blocking polls
+ * beyond it would only wait for a pooled connection anyway. Further due polls
+ * queue for a worker, and idle workers are retired. Services given a polling
+ * executor run their polls on it instead.
+ * <p>
+ * Every level of the wheel has the same number of buckets, a bucket of a
+ * level spans a whole turn of the level below. Tasks due within one turn of
+ * the lowest level are kept there, later ones in the level whose turn covers
+ * their delay. Whenever a level completes a turn, the next bucket of the
+ * level above is cascaded into it. Scheduling and cancelling take constant
+ * time, and a tick only visits tasks due in it or cascaded in it, so
+ * long-lived timers, e.g. expiry of transactions days ahead, cost nothing
+ * until they are close to due. Cancelled tasks are dropped when their bucket
+ * is visited.
+ */
+final class PollingScheduler {
+
+    public static final Logger LOG = LogManager.getLogger(PollingScheduler.class);
+
+    private static final long TICK_DURATION_IN_MILLISECONDS = 100;
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_LEVELS = 3;
+    private static final int MAX_WORKERS = ConnectionPoolSettings.DEFAULT_MAX_CONNECTIONS_TOTAL;
+    private static final long WORKER_KEEP_ALIVE_IN_SECONDS = 60;
+
+    static final PollingScheduler SHARED = new PollingScheduler(TICK_DURATION_IN_MILLISECONDS, WHEEL_SIZE);
+
+    private final long tickDurationInNanoseconds;
+    private final List<List<ArrayDeque<Timeout>>> wheel;
+    private final int bucketBits;
+    private final int mask;
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger scheduledCount = new AtomicInteger();
+    private final ExecutorService workers;
+    private final long startTime;
+    private final Thread ticker;
+    private volatile boolean stopped;
+
+    PollingScheduler(long tickDurationInMilliseconds, int wheelSize) {
+        this(tickDurationInMilliseconds, wheelSize, MAX_WORKERS);
+    }
+
+    PollingScheduler(long tickDurationInMilliseconds, int wheelSize, int maxWorkers) {
+        this.tickDurationInNanoseconds = TimeUnit.MILLISECONDS.toNanos(tickDurationInMilliseconds);
+        int size = Math.max(2, Integer.highestOneBit(Math.max(wheelSize, 1) * 2 - 1));
+        this.wheel = new ArrayList<>(WHEEL_LEVELS);
+        for (int level = 0; level < WHEEL_LEVELS; level++) {
+            List<ArrayDeque<Timeout>> buckets = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                buckets.add(new ArrayDeque<>());
+            }
+            wheel.add(buckets);
+        }
+        this.bucketBits = Integer.numberOfTrailingZeros(size);
+        this.mask = size - 1;
+        final AtomicInteger workerCount = new AtomicInteger();
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+                maxWorkers, maxWorkers, WORKER_KEEP_ALIVE_IN_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "frejaeid-polling-worker-" + workerCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        this.workers = threadPoolExecutor;
+        this.startTime = System.nanoTime();
+        this.ticker = new Thread(this::run, "frejaeid-polling-timer");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    /**
+     * Stops the timer thread and the workers of a scheduler other than the
+     * shared one. Tasks not yet dispatched never run, calls already running
+     * are completed.
+     *
+     * @throws IllegalStateException if called on the shared scheduler.
+     */
+    void shutdown() {
+        if (this == SHARED) {
+            throw new IllegalStateException("Shared polling scheduler cannot be shut down.");
+        }
+        stopped = true;
+        LockSupport.unpark(ticker);
+        workers.shutdown();
+    }
+
+    /**
+     * @return {@code true} once the timer thread has stopped after
+     * {@linkplain #shutdown()}.
+     */
+    boolean isTerminated() {
+        return !ticker.isAlive() && workers.isTerminated();
+    }
+
+    /**
+     * Runs task on a worker thread once the delay has passed. Delay is rounded
+     * up to the tick duration.
+     *
+     * @return handle that can be used to cancel the task before it runs.
+     */
+    Timeout schedule(Runnable task, long delayInMilliseconds) {
+        return schedule(task, delayInMilliseconds, null);
+    }
+
+    /**
+     * Runs task with given executor once the delay has passed, or on a worker
+     * thread if executor is {@code null}.
+     *
+     * @return handle that can be used to cancel the task before it runs.
+     */
+    Timeout schedule(Runnable task, long delayInMilliseconds, Executor executor) {
+        long deadline = System.nanoTime() - startTime
+                + TimeUnit.MILLISECONDS.toNanos(Math.max(delayInMilliseconds, 0));
+        Timeout timeout = new Timeout(task, deadline, executor);
+        scheduledCount.incrementAndGet();
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Runs blocking call on a worker thread.
+     *
+     * @return future completed with the response or exception of the call.
+     */
+    <T> CompletableFuture<T> execute(SingleFlight.Call<T> call) {
+        return execute(call, null);
+    }
+
+    /**
+     * Runs blocking call with given executor, or on a worker thread if
+     * executor is {@code null}.
+     *
+     * @return future completed with the response or exception of the call.
+     */
+    <T> CompletableFuture<T> execute(SingleFlight.Call<T> call, Executor executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            (executor != null ? executor : workers).execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Exception ex) {
+                    future.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    /**
+     * @param deadline time as returned by {@linkplain System#nanoTime()}.
+     * @return milliseconds left until the deadline rounded up, zero once it
+     * has passed.
+     */
+    static long millisecondsUntil(long deadline) {
+        long remaining = deadline - System.nanoTime();
+        return remaining <= 0 ? 0 : (remaining + 999_999) / 1_000_000;
+    }
+
+    /**
+     * @return number of tasks scheduled and not yet run or cancelled.
+     */
+    int getScheduledCount() {
+        return scheduledCount.get();
+    }
+
+    private void run() {
+        long tick = 0;
+        while (!stopped) {
+            waitForNextTick(tick);
+            if (stopped) {
+                return;
+            }
+            cascade(tick);
+            transferNewTimeouts(tick);
+            expireTimeouts(bucket(0, tick));
+            tick++;
+        }
+    }
+
+    private void waitForNextTick(long tick) {
+        long deadline = (tick + 1) * tickDurationInNanoseconds;
+        long remaining;
+        while (!stopped && (remaining = deadline - (System.nanoTime() - startTime)) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    private void transferNewTimeouts(long tick) {
+        Timeout timeout;
+        while ((timeout = newTimeouts.poll()) != null) {
+            if (!timeout.cancelled) {
+                timeout.dueTick = Math.max(
+                        (timeout.deadline + tickDurationInNanoseconds - 1) / tickDurationInNanoseconds, tick);
+                place(timeout, tick);
+            }
+        }
+    }
+
+    /**
+     * Puts timeout into the lowest level whose turn covers its delay. Buckets
+     * starting at this tick are already cascaded, so a timeout placed above
+     * the lowest level always lands in a bucket visited later. Timeouts beyond
+     * the turn of the highest level wait there for the remaining turns.
+     */
+    private void place(Timeout timeout, long tick) {
+        for (int level = 0; level < WHEEL_LEVELS; level++) {
+            int shift = level * bucketBits;
+            long buckets = (timeout.dueTick >> shift) - (tick >> shift);
+            if (buckets <= mask || level == WHEEL_LEVELS - 1) {
+                timeout.remainingRounds = buckets <= mask ? 0 : (buckets - 1) >> bucketBits;
+                bucket(level, timeout.dueTick).add(timeout);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Moves timeouts of the buckets starting at this tick down to lower
+     * levels, highest level first.
+     */
+    private void cascade(long tick) {
+        int level = 1;
+        while (level < WHEEL_LEVELS && ((tick >> ((level - 1) * bucketBits)) & mask) == 0) {
+            level++;
+        }
+        for (level--; level > 0; level--) {
+            Iterator<Timeout> timeouts = bucket(level, tick).iterator();
+            while (timeouts.hasNext()) {
+                Timeout timeout = timeouts.next();
+                if (timeout.cancelled) {
+                    timeouts.remove();
+                } else if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                } else {
+                    timeouts.remove();
+                    place(timeout, tick);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return bucket of given level covering given tick.
+     */
+    private ArrayDeque<Timeout> bucket(int level, long tick) {
+        return wheel.get(level).get((int) ((tick >> (level * bucketBits)) & mask));
+    }
+
+    private void expireTimeouts(ArrayDeque<Timeout> bucket) {
+        Timeout timeout;
+        while ((timeout = bucket.poll()) != null) {
+            if (!timeout.cancelled && timeout.done.compareAndSet(false, true)) {
+                scheduledCount.decrementAndGet();
+                dispatch(timeout.task, timeout.executor);
+            }
+        }
+    }
+
+    private void dispatch(Runnable task, Executor executor) {
+        try {
+            (executor != null ? executor : workers).execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException ex) {
+                    LOG.warn("Scheduled polling task failed.", ex);
+                }
+            });
+        } catch (RuntimeException ex) {
+            LOG.warn("Failed to dispatch scheduled polling task.", ex);
+        }
+    }
+
+    final class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+        private final Executor executor;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private long dueTick;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long deadline, Executor executor) {
+            this.task = task;
+            this.deadline = deadline;
+            this.executor = executor;
+        }
+
+        /**
+         * Prevents the task from running if it has not been dispatched yet.
+         */
+        void cancel() {
+            if (done.compareAndSet(false, true)) {
+                cancelled = true;
+                scheduledCount.decrementAndGet();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+
+/**
+ * Decides how long {@code pollForResult} waits between two polls. The fixed
+ * strategy polls every polling timeout of the client. The adaptive strategy
+ * polls fast right after the transaction is initiated, when a quick approval
+ * is most likely, and backs off exponentially while the transaction stays in
+ * the same status. A change of status, e.g. to
+ * {@linkplain com.verisec.frejaeid.client.enums.TransactionStatus#DELIVERED_TO_MOBILE},
+ * shows the user is acting on it, so backoff starts again. Adaptive
+ * intervals never fall below {@value #MINIMUM_INTERVAL_IN_MILLISECONDS}
+ * milliseconds, the same floor as the polling timeout of the client, and
+ * never exceed the polling timeout, so the adaptive strategy never sends
+ * more requests than the fixed one once backoff is complete. With either
+ * strategy the interval before the last poll is trimmed to the remaining
+ * time, so the last poll is made when maximum waiting time expires.
+ */
+public final class PollingStrategy {
+
+    public static final long MINIMUM_INTERVAL_IN_MILLISECONDS = 1000;
+    public static final long DEFAULT_INITIAL_INTERVAL_IN_MILLISECONDS = MINIMUM_INTERVAL_IN_MILLISECONDS;
+    public static final long DEFAULT_MAX_INTERVAL_IN_MILLISECONDS = 10000;
+    public static final double DEFAULT_MULTIPLIER = 1.5;
+
+    private static final PollingStrategy FIXED = new PollingStrategy(0, 0, 1);
+
+    private final long initialIntervalInMilliseconds;
+    private final long maxIntervalInMilliseconds;
+    private final double multiplier;
+
+    /**
+     * Returns strategy that polls every polling timeout of the client.
+     *
+     * @return pollingStrategy
+     */
+    public static PollingStrategy fixed() {
+        return FIXED;
+    }
+
+    /**
+     * Returns adaptive strategy starting at
+     * {@value #DEFAULT_INITIAL_INTERVAL_IN_MILLISECONDS} milliseconds and
+     * growing by {@value #DEFAULT_MULTIPLIER} up to
+     * {@value #DEFAULT_MAX_INTERVAL_IN_MILLISECONDS} milliseconds, or up to the
+     * polling timeout of the client if that is shorter.
+     *
+     * @return pollingStrategy
+     */
+    public static PollingStrategy createAdaptive() {
+        return new PollingStrategy(DEFAULT_INITIAL_INTERVAL_IN_MILLISECONDS, DEFAULT_MAX_INTERVAL_IN_MILLISECONDS,
+                                   DEFAULT_MULTIPLIER);
+    }
+
+    /**
+     * Returns adaptive strategy with given intervals.
+     *
+     * @param initialIntervalInMilliseconds interval before the second poll of
+     *                                      a transaction, and after every
+     *                                      change of its status.
+     * @param maxIntervalInMilliseconds     upper bound of any interval. The
+     *                                      polling timeout of the client
+     *                                      bounds intervals as well.
+     * @param multiplier                    growth of the interval after every
+     *                                      poll that returns unchanged status.
+     * @return pollingStrategy
+     * @throws FrejaEidClientInternalException if intervals are less than
+     *                                         {@value #MINIMUM_INTERVAL_IN_MILLISECONDS}
+     *                                         milliseconds, initial interval
+     *                                         exceeds maximum
+     *                                         interval or multiplier is less
+     *                                         than 1.
+     */
+    public static PollingStrategy createAdaptive(long initialIntervalInMilliseconds, long maxIntervalInMilliseconds,
+                                                 double multiplier) throws FrejaEidClientInternalException {
+        if (initialIntervalInMilliseconds < MINIMUM_INTERVAL_IN_MILLISECONDS
+                || maxIntervalInMilliseconds < MINIMUM_INTERVAL_IN_MILLISECONDS) {
+            throw new FrejaEidClientInternalException(
+                    String.format("Polling intervals cannot be less than %dms.", MINIMUM_INTERVAL_IN_MILLISECONDS));
+        }
+        if (initialIntervalInMilliseconds > maxIntervalInMilliseconds) {
+            throw new FrejaEidClientInternalException("Initial polling interval cannot exceed maximum interval.");
+        }
+        if (!(multiplier >= 1)) {
+            throw new FrejaEidClientInternalException("Polling interval multiplier cannot be less than 1.");
+        }
+        return new PollingStrategy(initialIntervalInMilliseconds, maxIntervalInMilliseconds, multiplier);
+    }
+
+    private PollingStrategy(long initialIntervalInMilliseconds, long maxIntervalInMilliseconds, double multiplier) {
+        this.initialIntervalInMilliseconds = initialIntervalInMilliseconds;
+        this.maxIntervalInMilliseconds = maxIntervalInMilliseconds;
+        this.multiplier = multiplier;
+    }
+
+    public boolean isAdaptive() {
+        return initialIntervalInMilliseconds > 0;
+    }
+
+    public long getInitialIntervalInMilliseconds() {
+        return initialIntervalInMilliseconds;
+    }
+
+    public long getMaxIntervalInMilliseconds() {
+        return maxIntervalInMilliseconds;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * @param unchangedPolls               number of consecutive polls that
+     *                                     returned the same status.
+     * @param pollingTimeoutInMilliseconds polling timeout of the client,
+     *                                     upper bound of adaptive intervals.
+     * @return interval before the next poll in milliseconds.
+     */
+    public long getInterval(int unchangedPolls, long pollingTimeoutInMilliseconds) {
+        if (!isAdaptive()) {
+            return pollingTimeoutInMilliseconds;
+        }
+        double interval = initialIntervalInMilliseconds * Math.pow(multiplier, Math.max(unchangedPolls - 1, 0));
+        return (long) Math.min(interval, Math.min(maxIntervalInMilliseconds, pollingTimeoutInMilliseconds));
+    }
+
+}
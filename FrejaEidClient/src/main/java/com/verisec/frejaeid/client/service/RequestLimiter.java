@@ -0,0 +1,108 @@
+package com.verisec.frejaeid.client.service;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the number of requests in flight at a time. Requests over the limit
+ * wait in submission order and are sent as soon as earlier ones complete.
+ * Waiting occupies no thread. Requests are started by the thread that
+ * submits them or completes an earlier one, in a loop rather than
+ * recursively, so requests completing immediately do not deepen the stack.
+ * Its state is guarded by a lock, requests may be submitted from virtual
+ * threads.
+ */
+final class RequestLimiter {
+
+    private final int maxConcurrentRequests;
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+    private int inFlight;
+    private boolean draining;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    RequestLimiter(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * @return future completed as the one returned by the request once it is
+     * sent and completed.
+     */
+    <T> CompletableFuture<T> submit(final Supplier<CompletableFuture<T>> request) {
+        final CompletableFuture<T> futureResponse = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<T> response;
+            try {
+                response = request.get();
+            } catch (RuntimeException ex) {
+                response = new CompletableFuture<>();
+                response.completeExceptionally(ex);
+            }
+            response.whenComplete((result, throwable) -> {
+                release();
+                if (throwable != null) {
+                    futureResponse.completeExceptionally(BasicService.unwrap(throwable));
+                } else {
+                    futureResponse.complete(result);
+                }
+            });
+        };
+        lock.lock();
+        try {
+            waiting.add(start);
+        } finally {
+            lock.unlock();
+        }
+        drain();
+        return futureResponse;
+    }
+
+    int getInFlightCount() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            inFlight--;
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    private void drain() {
+        lock.lock();
+        try {
+            if (draining) {
+                return;
+            }
+            draining = true;
+        } finally {
+            lock.unlock();
+        }
+        while (true) {
+            Runnable next;
+            lock.lock();
+            try {
+                if (inFlight >= maxConcurrentRequests || (next = waiting.poll()) == null) {
+                    draining = false;
+                    return;
+                }
+                inFlight++;
+            } finally {
+                lock.unlock();
+            }
+            next.run();
+        }
+    }
+
+}
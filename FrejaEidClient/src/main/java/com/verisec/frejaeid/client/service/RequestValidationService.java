@@ -18,6 +18,7 @@ import com.verisec.frejaeid.client.enums.*;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.Collection;
 import java.util.Set;
 
 public class RequestValidationService {
@@ -138,6 +139,30 @@ public class RequestValidationService {
         validateRelyingPartyIdIsEmpty(updateOrganisationIdRequest.getRelyingPartyId());
     }
 
+    public <T extends ResultRequest> void validateResultRequests(Collection<T> resultRequests,
+                                                                 int maxConcurrentRequests)
+            throws FrejaEidClientInternalException {
+        if (resultRequests == null) {
+            throw new FrejaEidClientInternalException("Result requests cannot be null.");
+        }
+        if (maxConcurrentRequests <= 0) {
+            throw new FrejaEidClientInternalException("Maximum number of concurrent requests must be positive.");
+        }
+        for (T resultRequest : resultRequests) {
+            validateResultRequest(resultRequest);
+        }
+    }
+
+    public void validatePollingCoordinatorSettings(String nodeId, LeaseStore leaseStore)
+            throws FrejaEidClientInternalException {
+        if (StringUtils.isBlank(nodeId)) {
+            throw new FrejaEidClientInternalException("NodeId cannot be null or empty.");
+        }
+        if (leaseStore == null) {
+            throw new FrejaEidClientInternalException("LeaseStore cannot be null.");
+        }
+    }
+
     private void validateRequest(RelyingPartyRequest relyingPartyRequest) throws FrejaEidClientInternalException {
         if (relyingPartyRequest == null) {
             throw new FrejaEidClientInternalException("Request cannot be null value.");
@@ -0,0 +1,262 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.beans.common.Result;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Publishes every distinct status of a transaction and completes once final
+ * status is published. Every subscriber gets its own polling, started on
+ * subscription. Polls are made only while the subscriber has outstanding
+ * demand, so a slow subscriber slows polling down instead of buffering
+ * results. Waiting between polls is handed to the shared polling engine, a
+ * subscription occupies no thread.
+ *
+ * @param <T> type of the transaction result.
+ */
+public final class ResultPublisher<T extends Result> implements Flow.Publisher<T> {
+
+    private final Supplier<CompletableFuture<T>> resultSupplier;
+    private final Predicate<TransactionStatus> finalStatus;
+    private final PollingStrategy pollingStrategy;
+    private final int pollingTimeoutInMilliseconds;
+    private final int maxWaitingTimeInSec;
+
+    ResultPublisher(Supplier<CompletableFuture<T>> resultSupplier, Predicate<TransactionStatus> finalStatus,
+                    PollingStrategy pollingStrategy, int pollingTimeoutInMilliseconds, int maxWaitingTimeInSec) {
+        this.resultSupplier = resultSupplier;
+        this.finalStatus = finalStatus;
+        this.pollingStrategy = pollingStrategy;
+        this.pollingTimeoutInMilliseconds = pollingTimeoutInMilliseconds;
+        this.maxWaitingTimeInSec = maxWaitingTimeInSec;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber cannot be null.");
+        }
+        ResultSubscription subscription = new ResultSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * State of one subscriber. Signals to the subscriber are serialized by
+     * {@code emitting}, state shared with polling is guarded by the
+     * subscription's monitor.
+     */
+    private final class ResultSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final long deadline;
+        private final AtomicInteger emitting = new AtomicInteger();
+        private final Queue<T> pending = new ArrayDeque<>();
+        private long requested;
+        private long nextPollDeadline;
+        private TransactionStatus lastStatus;
+        private int unchangedPolls;
+        private boolean polling;
+        private boolean finished;
+        private boolean terminated;
+        private Throwable error;
+        private PollingScheduler.Timeout scheduledPoll;
+        private CompletableFuture<T> inFlightPoll;
+
+        private ResultSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+            this.deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxWaitingTimeInSec);
+            this.nextPollDeadline = System.nanoTime();
+        }
+
+        /**
+         * Adds to the demand of the subscriber. Non-positive demand is a
+         * protocol violation, results not yet delivered are dropped, polling
+         * stops and the subscriber is signalled the error right away.
+         */
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (terminated) {
+                    return;
+                }
+                if (n <= 0) {
+                    pending.clear();
+                    fail(new IllegalArgumentException("Requested number of results must be positive."));
+                } else {
+                    requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+                }
+            }
+            if (n <= 0) {
+                stopPolling();
+            }
+            emit();
+            schedulePoll();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                terminated = true;
+                pending.clear();
+            }
+            stopPolling();
+        }
+
+        /**
+         * Cancels the scheduled poll and the result request in flight, if
+         * any.
+         */
+        private void stopPolling() {
+            PollingScheduler.Timeout timeout;
+            CompletableFuture<T> poll;
+            synchronized (this) {
+                timeout = scheduledPoll;
+                poll = inFlightPoll;
+            }
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            if (poll != null) {
+                poll.cancel(false);
+            }
+        }
+
+        private void schedulePoll() {
+            long delay;
+            synchronized (this) {
+                if (terminated || finished || polling || requested <= pending.size()) {
+                    return;
+                }
+                polling = true;
+                delay = PollingScheduler.millisecondsUntil(nextPollDeadline);
+                scheduledPoll = PollingScheduler.SHARED.schedule(this::poll, delay);
+            }
+        }
+
+        private void poll() {
+            boolean timedOut;
+            synchronized (this) {
+                if (terminated || finished) {
+                    return;
+                }
+                timedOut = maxWaitingTimeInSec != 0 && lastStatus != null
+                        && PollingScheduler.millisecondsUntil(deadline) <= 0;
+                if (timedOut) {
+                    polling = false;
+                    fail(timeoutException());
+                }
+            }
+            if (timedOut) {
+                emit();
+                return;
+            }
+            CompletableFuture<T> poll = resultSupplier.get();
+            synchronized (this) {
+                inFlightPoll = poll;
+                if (finished || terminated) {
+                    poll.cancel(false);
+                }
+            }
+            poll.whenComplete((result, throwable) -> {
+                onPoll(result, BasicService.unwrap(throwable));
+                emit();
+                schedulePoll();
+            });
+        }
+
+        private synchronized void onPoll(T result, Throwable throwable) {
+            polling = false;
+            inFlightPoll = null;
+            if (terminated || finished) {
+                return;
+            }
+            if (throwable != null) {
+                fail(throwable);
+                return;
+            }
+            if (result == null || result.getStatus() == lastStatus) {
+                unchangedPolls++;
+            } else {
+                unchangedPolls = 1;
+                lastStatus = result.getStatus();
+                pending.add(result);
+            }
+            if (maxWaitingTimeInSec == 0 || (result != null && finalStatus.test(result.getStatus()))) {
+                finished = true;
+                return;
+            }
+            long remaining = PollingScheduler.millisecondsUntil(deadline);
+            if (remaining <= 0) {
+                fail(timeoutException());
+                return;
+            }
+            long interval = Math.min(pollingStrategy.getInterval(unchangedPolls, pollingTimeoutInMilliseconds),
+                                     remaining);
+            nextPollDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(interval);
+        }
+
+        private void fail(Throwable throwable) {
+            finished = true;
+            error = throwable;
+        }
+
+        /**
+         * Hands pending results to the subscriber as far as its demand allows,
+         * followed by the terminal signal once all of them are delivered.
+         */
+        private void emit() {
+            if (emitting.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (true) {
+                    T result = null;
+                    Throwable terminalError = null;
+                    boolean complete = false;
+                    synchronized (this) {
+                        if (terminated) {
+                            break;
+                        }
+                        if (!pending.isEmpty() && requested > 0) {
+                            result = pending.poll();
+                            if (requested != Long.MAX_VALUE) {
+                                requested--;
+                            }
+                        } else if (pending.isEmpty() && finished) {
+                            terminated = true;
+                            terminalError = error;
+                            complete = error == null;
+                        } else {
+                            break;
+                        }
+                    }
+                    if (result != null) {
+                        subscriber.onNext(result);
+                    } else if (complete) {
+                        subscriber.onComplete();
+                    } else {
+                        subscriber.onError(terminalError);
+                    }
+                }
+                missed = emitting.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private FrejaEidClientPollingException timeoutException() {
+            return new FrejaEidClientPollingException(
+                    String.format("A timeout of %ss was reached while sending request.", maxWaitingTimeInSec));
+        }
+
+    }
+
+}
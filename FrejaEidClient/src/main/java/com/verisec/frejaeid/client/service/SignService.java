@@ -8,24 +8,35 @@ import com.verisec.frejaeid.client.beans.sign.get.SignResults;
 import com.verisec.frejaeid.client.beans.sign.get.SignResultsRequest;
 import com.verisec.frejaeid.client.beans.sign.init.InitiateSignRequest;
 import com.verisec.frejaeid.client.beans.sign.init.InitiateSignResponse;
+import com.verisec.frejaeid.client.client.impl.SignClient;
 import com.verisec.frejaeid.client.enums.TransactionContext;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import com.verisec.frejaeid.client.http.AsyncHttpServiceApi;
 import com.verisec.frejaeid.client.http.HttpServiceApi;
 import com.verisec.frejaeid.client.util.MethodUrl;
 import com.verisec.frejaeid.client.util.RequestTemplate;
 
-import java.util.concurrent.TimeUnit;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 public class SignService extends BasicService {
 
     private final int pollingTimeoutInMilliseconds;
     private final TransactionContext transactionContext;
+    private BatchPoller<SignResult> batchPoller;
 
     public SignService(String serverAddress, int pollingTimeoutInMilliseconds, TransactionContext transactionContext,
                        HttpServiceApi httpService, String resourceServiceUrl) {
-        super(serverAddress, httpService, resourceServiceUrl);
+        this(serverAddress, pollingTimeoutInMilliseconds, transactionContext, httpService, null, resourceServiceUrl);
+    }
+
+    public SignService(String serverAddress, int pollingTimeoutInMilliseconds, TransactionContext transactionContext,
+                       HttpServiceApi httpService, AsyncHttpServiceApi asyncHttpService, String resourceServiceUrl) {
+        super(serverAddress, httpService, asyncHttpService, resourceServiceUrl);
         this.pollingTimeoutInMilliseconds = pollingTimeoutInMilliseconds;
         this.transactionContext = transactionContext;
     }
@@ -39,61 +50,197 @@ public class SignService extends BasicService {
 
     public InitiateSignResponse initiate(InitiateSignRequest signRequest)
             throws FrejaEidClientInternalException, FrejaEidException {
-        MethodUrl methodUrl = transactionContext == TransactionContext.ORGANISATIONAL ?
-                MethodUrl.ORGANISATION_SIGN_INIT : MethodUrl.SIGN_INIT;
-        return httpService.send(getUrl(serverAddress, methodUrl), RequestTemplate.INIT_SIGN_TEMPLATE, signRequest,
-                                InitiateSignResponse.class, signRequest.getRelyingPartyId());
+        InitiateSignResponse response = httpService.send(getUrl(serverAddress, getInitMethodUrl()),
+                                                         RequestTemplate.INIT_SIGN_TEMPLATE, signRequest,
+                                                         InitiateSignResponse.class, signRequest.getRelyingPartyId());
+        return trackExpiry(signRequest, response);
     }
 
     public SignResult getResult(SignResultRequest signResultRequest)
             throws FrejaEidClientInternalException, FrejaEidException {
-        MethodUrl methodUrl = transactionContext == TransactionContext.ORGANISATIONAL ?
-                MethodUrl.ORGANISATION_SIGN_GET_ONE_RESULT : MethodUrl.SIGN_GET_RESULT;
-        return httpService.send(getUrl(serverAddress, methodUrl), RequestTemplate.SIGN_RESULT_TEMPLATE,
-                                signResultRequest, SignResult.class, signResultRequest.getRelyingPartyId());
+        MethodUrl methodUrl = getResultMethodUrl();
+        return getResultSingleFlight(
+                methodUrl, signResultRequest.getSignRef(), signResultRequest.getRelyingPartyId(),
+                () -> httpService.send(getUrl(serverAddress, methodUrl), RequestTemplate.SIGN_RESULT_TEMPLATE,
+                                       signResultRequest, SignResult.class, signResultRequest.getRelyingPartyId()));
     }
 
     public SignResult pollForResult(SignResultRequest signResultRequest, int maxWaitingTimeInSec)
             throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException {
-        long pollingEndTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(maxWaitingTimeInSec);
-        while (maxWaitingTimeInSec == 0 || isPollingTimeExpired(pollingEndTime)) {
-            SignResult getSignResult = getResult(signResultRequest);
-            if (maxWaitingTimeInSec == 0 || isFinalStatus(getSignResult.getStatus())) {
-                return getSignResult;
-            }
-            try {
-                Thread.sleep(pollingTimeoutInMilliseconds);
-            } catch (InterruptedException ex) {
-                throw new FrejaEidClientInternalException(String.format(
-                        "An error occurred while waiting to make another request with %ss polling timeout.",
-                        maxWaitingTimeInSec), ex);
-            }
-        }
-        throw new FrejaEidClientPollingException(
-                String.format("A timeout of %ss was reached while sending request.", maxWaitingTimeInSec));
+        return pollForResult(signResultRequest, maxWaitingTimeInSec, null);
+    }
+
+    public SignResult pollForResult(SignResultRequest signResultRequest, int maxWaitingTimeInSec,
+                                    TransactionListener<SignResult> listener)
+            throws FrejaEidClientInternalException, FrejaEidException, FrejaEidClientPollingException {
+        CompletableFuture<SignResult> futureResult = batchPoller != null
+                ? batchPoller.register(signResultRequest.getSignRef(), signResultRequest.getRelyingPartyId(),
+                                       maxWaitingTimeInSec, listener)
+                : pollForResultOnEngine(signResultRequest.getSignRef(), SignService::expiredResult,
+                                        () -> getResult(signResultRequest), pollingTimeoutInMilliseconds,
+                                        maxWaitingTimeInSec, listener);
+        return awaitResult(cancelOnAbandon(futureResult, signResultRequest), maxWaitingTimeInSec);
     }
 
     public SignResults getResults(SignResultsRequest signResultsRequest)
             throws FrejaEidClientInternalException, FrejaEidException {
-        MethodUrl methodUrl = transactionContext == TransactionContext.ORGANISATIONAL ?
-                MethodUrl.ORGANISATION_SIGN_GET_RESULTS : MethodUrl.SIGN_GET_RESULTS;
-        return httpService.send(getUrl(serverAddress, methodUrl), RequestTemplate.SIGN_RESULTS_TEMPLATE,
+        return httpService.send(getUrl(serverAddress, getResultsMethodUrl()), RequestTemplate.SIGN_RESULTS_TEMPLATE,
                                 signResultsRequest, SignResults.class, signResultsRequest.getRelyingPartyId());
     }
 
     public EmptyFrejaResponse cancel(CancelSignRequest cancelSignRequest)
             throws FrejaEidClientInternalException, FrejaEidException {
-        MethodUrl methodUrl = transactionContext == TransactionContext.ORGANISATIONAL ?
-                MethodUrl.ORGANISATION_SIGN_CANCEL : MethodUrl.SIGN_CANCEL;
-        return httpService.send(getUrl(serverAddress, methodUrl), RequestTemplate.CANCEL_SIGN_TEMPLATE,
+        return httpService.send(getUrl(serverAddress, getCancelMethodUrl()), RequestTemplate.CANCEL_SIGN_TEMPLATE,
                                 cancelSignRequest, EmptyFrejaResponse.class, cancelSignRequest.getRelyingPartyId());
     }
 
+    public CompletableFuture<InitiateSignResponse> initiateAsync(InitiateSignRequest signRequest) {
+        return asyncHttpService.sendAsync(getUrl(serverAddress, getInitMethodUrl()), RequestTemplate.INIT_SIGN_TEMPLATE,
+                                          signRequest, InitiateSignResponse.class, signRequest.getRelyingPartyId())
+                .thenApply(response -> trackExpiry(signRequest, response));
+    }
+
+    public CompletableFuture<SignResult> getResultAsync(SignResultRequest signResultRequest) {
+        MethodUrl methodUrl = getResultMethodUrl();
+        return getResultSingleFlightAsync(
+                methodUrl, signResultRequest.getSignRef(), signResultRequest.getRelyingPartyId(),
+                () -> asyncHttpService.sendAsync(getUrl(serverAddress, methodUrl), RequestTemplate.SIGN_RESULT_TEMPLATE,
+                                                 signResultRequest, SignResult.class,
+                                                 signResultRequest.getRelyingPartyId()));
+    }
+
+    public CompletableFuture<SignResult> pollForResultAsync(final SignResultRequest signResultRequest,
+                                                            int maxWaitingTimeInSec) {
+        return pollForResultAsync(signResultRequest, maxWaitingTimeInSec, null);
+    }
+
+    public CompletableFuture<SignResult> pollForResultAsync(final SignResultRequest signResultRequest,
+                                                            int maxWaitingTimeInSec,
+                                                            TransactionListener<SignResult> listener) {
+        return startPolling(signResultRequest, () -> getResultAsync(signResultRequest), maxWaitingTimeInSec,
+                            listener);
+    }
+
+    public PolledResults<SignResult> pollForResults(Collection<SignResultRequest> signResultRequests,
+                                                    int maxWaitingTimeInSec, int maxConcurrentRequests,
+                                                    TransactionListener<SignResult> listener) {
+        return pollForResults(signResultRequests, SignResultRequest::getSignRef, maxConcurrentRequests,
+                              (signResultRequest, requestLimiter) -> startPolling(
+                                      signResultRequest,
+                                      () -> requestLimiter.submit(() -> getResultAsync(signResultRequest)),
+                                      maxWaitingTimeInSec, listener));
+    }
+
+    /**
+     * Returns publisher polling with {@linkplain #getResultAsync} on demand of
+     * its subscribers.
+     */
+    public ResultPublisher<SignResult> getResultPublisher(final SignResultRequest signResultRequest,
+                                                          int maxWaitingTimeInSec) {
+        return new ResultPublisher<>(() -> getResultAsync(signResultRequest), this::isFinalStatus,
+                                     getPollingStrategy(), pollingTimeoutInMilliseconds, maxWaitingTimeInSec);
+    }
+
+    public CompletableFuture<SignResults> getResultsAsync(SignResultsRequest signResultsRequest) {
+        return asyncHttpService.sendAsync(getUrl(serverAddress, getResultsMethodUrl()),
+                                          RequestTemplate.SIGN_RESULTS_TEMPLATE, signResultsRequest, SignResults.class,
+                                          signResultsRequest.getRelyingPartyId());
+    }
+
+    public CompletableFuture<EmptyFrejaResponse> cancelAsync(CancelSignRequest cancelSignRequest) {
+        return asyncHttpService.sendAsync(getUrl(serverAddress, getCancelMethodUrl()),
+                                          RequestTemplate.CANCEL_SIGN_TEMPLATE, cancelSignRequest,
+                                          EmptyFrejaResponse.class, cancelSignRequest.getRelyingPartyId());
+    }
+
+    /**
+     * Enables polling for results through one results request per relying
+     * party and polling interval, shared by all pending pollers.
+     *
+     * @param batchPolling whether to poll in batches.
+     */
+    public void setBatchPolling(boolean batchPolling) {
+        if (!batchPolling) {
+            batchPoller = null;
+            return;
+        }
+        batchPoller = new BatchPoller<>(
+                relyingPartyId -> getResults(SignResultsRequest.create(relyingPartyId)).getSignatureResults(),
+                (reference, relyingPartyId) -> getResult(SignResultRequest.create(reference, relyingPartyId)),
+                this::isFinalStatus, pollingTimeoutInMilliseconds, getPollingExecutor());
+    }
+
+    /**
+     * Creates and starts coordinator polling with {@linkplain #getResult}
+     * for the transactions shared by the nodes of a cluster through the lease
+     * store.
+     */
+    public PollingCoordinator<SignResult> createPollingCoordinator(
+            String nodeId, LeaseStore leaseStore, TransactionListener<SignResult> listener) {
+        PollingCoordinator<SignResult> pollingCoordinator = new PollingCoordinator<>(
+                nodeId, leaseStore,
+                (reference, relyingPartyId) -> getResult(SignResultRequest.create(reference, relyingPartyId)),
+                this::isFinalStatus, pollingTimeoutInMilliseconds, getPollingExecutor(), listener);
+        pollingCoordinator.start();
+        return pollingCoordinator;
+    }
+
     public TransactionContext getTransactionContext() {
         return transactionContext;
     }
 
-    private boolean isPollingTimeExpired(long pollingEndTime) {
-        return (System.currentTimeMillis() + pollingTimeoutInMilliseconds) < pollingEndTime;
+    private CompletableFuture<SignResult> startPolling(SignResultRequest signResultRequest,
+                                                       Supplier<CompletableFuture<SignResult>> resultSupplier,
+                                                       int maxWaitingTimeInSec,
+                                                       TransactionListener<SignResult> listener) {
+        CompletableFuture<SignResult> futureResult = batchPoller != null
+                ? batchPoller.register(signResultRequest.getSignRef(), signResultRequest.getRelyingPartyId(),
+                                       maxWaitingTimeInSec, listener)
+                : pollForResultAsync(signResultRequest.getSignRef(), SignService::expiredResult, resultSupplier,
+                                     pollingTimeoutInMilliseconds, maxWaitingTimeInSec, listener);
+        return cancelOnAbandon(futureResult, signResultRequest);
+    }
+
+    /**
+     * Sign transactions without explicit expiry expire two minutes after
+     * they are initiated.
+     */
+    private InitiateSignResponse trackExpiry(InitiateSignRequest signRequest, InitiateSignResponse response) {
+        if (response != null) {
+            trackExpiry(response.getSignRef(), signRequest.getExpiry(), SignClient.DEFAULT_EXPIRY_TIME_IN_MILLIS);
+        }
+        return response;
+    }
+
+    private static SignResult expiredResult(String signRef) {
+        return new SignResult(signRef, TransactionStatus.EXPIRED, null, null);
+    }
+
+    private MethodUrl getInitMethodUrl() {
+        return transactionContext == TransactionContext.ORGANISATIONAL ?
+                MethodUrl.ORGANISATION_SIGN_INIT : MethodUrl.SIGN_INIT;
+    }
+
+    private MethodUrl getResultMethodUrl() {
+        return transactionContext == TransactionContext.ORGANISATIONAL ?
+                MethodUrl.ORGANISATION_SIGN_GET_ONE_RESULT : MethodUrl.SIGN_GET_RESULT;
+    }
+
+    private MethodUrl getResultsMethodUrl() {
+        return transactionContext == TransactionContext.ORGANISATIONAL ?
+                MethodUrl.ORGANISATION_SIGN_GET_RESULTS : MethodUrl.SIGN_GET_RESULTS;
     }
+
+    private MethodUrl getCancelMethodUrl() {
+        return transactionContext == TransactionContext.ORGANISATIONAL ?
+                MethodUrl.ORGANISATION_SIGN_CANCEL : MethodUrl.SIGN_CANCEL;
+    }
+
+    private CompletableFuture<SignResult> cancelOnAbandon(CompletableFuture<SignResult> futureResult,
+                                                          final SignResultRequest signResultRequest) {
+        return cancelOnAbandon(futureResult, signResultRequest.getSignRef(),
+                               () -> cancel(CancelSignRequest.create(signResultRequest.getSignRef(),
+                                                                     signResultRequest.getRelyingPartyId())));
+    }
+
 }
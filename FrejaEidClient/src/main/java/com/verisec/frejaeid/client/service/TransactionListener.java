@@ -0,0 +1,37 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.beans.common.Result;
+import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+
+/**
+ * Receives status changes of a transaction observed while polling for its
+ * result. Called from polling threads, so implementations should return
+ * quickly and hand longer work off to their own executor. Exceptions thrown by
+ * the listener are logged and do not stop polling.
+ *
+ * @param <T> type of the transaction result.
+ */
+@FunctionalInterface
+public interface TransactionListener<T extends Result> {
+
+    /**
+     * Called once for the first received status and once for every change of
+     * status after it, including the change to the final status.
+     *
+     * @param result result carrying the new status.
+     */
+    void onStatusChange(T result);
+
+    /**
+     * Called when polling for the transaction is given up because the server
+     * definitively rejected its reference, e.g. as invalid or unknown. No
+     * further status change of the transaction follows. Does nothing by
+     * default.
+     *
+     * @param reference of the transaction.
+     * @param cause     error returned by the server.
+     */
+    default void onPollingAbandoned(String reference, FrejaEidException cause) {
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.verisec.frejaeid.client.util;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -8,6 +9,8 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 
@@ -25,10 +28,38 @@ public class JsonService implements Serializable {
         return serialize(jsonSerializable);
     }
 
+    /**
+     * Writes JSON straight to given stream without building an intermediate
+     * String. Stream is left open.
+     */
+    public <T> void serializeToJson(T jsonSerializable, OutputStream outputStream)
+            throws FrejaEidClientInternalException {
+        try {
+            mapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(outputStream, jsonSerializable);
+        } catch (IOException ex) {
+            throw new FrejaEidClientInternalException(
+                    String.format("Error while serializing %s. ", jsonSerializable), ex);
+        }
+    }
+
     public <V> V deserializeFromJson(byte[] bodyBytes, Class<V> responseType) throws FrejaEidClientInternalException {
         return deserialize(bodyBytes, responseType, mapper);
     }
 
+    /**
+     * Parses JSON directly from given stream without buffering it first.
+     */
+    public <V> V deserializeFromJson(InputStream inputStream, Class<V> responseType)
+            throws FrejaEidClientInternalException {
+        try {
+            return mapper.readValue(inputStream, responseType);
+        } catch (IOException ex) {
+            throw new FrejaEidClientInternalException(
+                    String.format("Failed to deserialize response into object of class %s", responseType.getName()),
+                    ex);
+        }
+    }
+
     private <T> String serialize(T jsonSerializable) throws FrejaEidClientInternalException {
         try {
             return mapper.writeValueAsString(jsonSerializable);
@@ -1,34 +1,75 @@
 package com.verisec.frejaeid.client.util;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
 public enum RequestTemplate {
 
-    INIT_AUTHENTICATION("initAuthRequest={0}"),
-    AUTHENTICATION_RESULT_TEMPLATE("getOneAuthResultRequest={0}"),
-    AUTHENTICATION_RESULTS_TEMPLATE("getAuthResultsRequest={0}"),
-    CANCEL_AUTHENTICATION_TEMPLATE("cancelAuthRequest={0}"),
-    INIT_SIGN_TEMPLATE("initSignRequest={0}"),
-    SIGN_RESULT_TEMPLATE("getOneSignResultRequest={0}"),
-    SIGN_RESULTS_TEMPLATE("getSignResultsRequest={0}"),
-    CANCEL_SIGN_TEMPLATE("cancelSignRequest={0}"),
-    INIT_ADD_ORGANISATION_ID_TEMPLATE("initAddOrganisationIdRequest={0}"),
-    ORGANISATION_ID_RESULT_TEMPLATE("getOneOrganisationIdResultRequest={0}"),
-    DELETE_ORGANISATION_ID_TEMPLATE("deleteOrganisationIdRequest={0}"),
-    CANCEL_ADD_ORGANISATION_ID_TEMPLATE("cancelAddOrganisationIdRequest={0}"),
-    GET_ALL_ORGANISATION_ID_USERS_TEMPLATE("getAllOrganisationIdUsersRequest={0}"),
-    UPDATE_ORGANISATION_ID_TEMPLATE("updateOrganisationIdRequest={0}"),
-    RELYING_PARTY_ID("relyingPartyId={0}"),
-    SET_CUSTOM_IDENTIFIER_TEMPLATE("setCustomIdentifierRequest={0}"),
-    DELETE_CUSTOM_IDENTIFIER_TEMPLATE("deleteCustomIdentifierRequest={0}"),
-    GET_CUSTODIANSHIP_STATUS_TEMPLATE("getCustodianshipStatusRequest={0}");
+    INIT_AUTHENTICATION("initAuthRequest={0}", false),
+    AUTHENTICATION_RESULT_TEMPLATE("getOneAuthResultRequest={0}", true),
+    AUTHENTICATION_RESULTS_TEMPLATE("getAuthResultsRequest={0}", true),
+    CANCEL_AUTHENTICATION_TEMPLATE("cancelAuthRequest={0}", false),
+    INIT_SIGN_TEMPLATE("initSignRequest={0}", false),
+    SIGN_RESULT_TEMPLATE("getOneSignResultRequest={0}", true),
+    SIGN_RESULTS_TEMPLATE("getSignResultsRequest={0}", true),
+    CANCEL_SIGN_TEMPLATE("cancelSignRequest={0}", false),
+    INIT_ADD_ORGANISATION_ID_TEMPLATE("initAddOrganisationIdRequest={0}", false),
+    ORGANISATION_ID_RESULT_TEMPLATE("getOneOrganisationIdResultRequest={0}", true),
+    DELETE_ORGANISATION_ID_TEMPLATE("deleteOrganisationIdRequest={0}", false),
+    CANCEL_ADD_ORGANISATION_ID_TEMPLATE("cancelAddOrganisationIdRequest={0}", false),
+    GET_ALL_ORGANISATION_ID_USERS_TEMPLATE("getAllOrganisationIdUsersRequest={0}", true),
+    UPDATE_ORGANISATION_ID_TEMPLATE("updateOrganisationIdRequest={0}", false),
+    RELYING_PARTY_ID("relyingPartyId={0}", false),
+    SET_CUSTOM_IDENTIFIER_TEMPLATE("setCustomIdentifierRequest={0}", false),
+    DELETE_CUSTOM_IDENTIFIER_TEMPLATE("deleteCustomIdentifierRequest={0}", false),
+    GET_CUSTODIANSHIP_STATUS_TEMPLATE("getCustodianshipStatusRequest={0}", true);
 
+    private static final String PARAMETER_PLACEHOLDER = "{0}";
     private final String template;
+    private final byte[] prefix;
+    private final byte[] suffix;
+    private final boolean idempotent;
 
-    private RequestTemplate(String template) {
+    private RequestTemplate(String template, boolean idempotent) {
         this.template = template;
+        this.idempotent = idempotent;
+        int placeholderIndex = template.indexOf(PARAMETER_PLACEHOLDER);
+        this.prefix = template.substring(0, placeholderIndex).getBytes(StandardCharsets.UTF_8);
+        this.suffix = template.substring(placeholderIndex + PARAMETER_PLACEHOLDER.length())
+                .getBytes(StandardCharsets.UTF_8);
     }
 
     public String getTemplate() {
         return template;
     }
 
+    /**
+     * @return {@code true} if request only reads state on the server and can
+     * be safely sent again.
+     */
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    /**
+     * Writes UTF-8 bytes of the template preceding the parameter.
+     *
+     * @param outputStream to write to.
+     * @throws IOException if writing fails.
+     */
+    public void writePrefix(OutputStream outputStream) throws IOException {
+        outputStream.write(prefix);
+    }
+
+    /**
+     * Writes UTF-8 bytes of the template following the parameter.
+     *
+     * @param outputStream to write to.
+     * @throws IOException if writing fails.
+     */
+    public void writeSuffix(OutputStream outputStream) throws IOException {
+        outputStream.write(suffix);
+    }
+
 }
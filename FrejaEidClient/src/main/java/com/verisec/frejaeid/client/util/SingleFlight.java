@@ -0,0 +1,142 @@
+package com.verisec.frejaeid.client.util;
+
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls with the same key into one. The first caller
+ * performs the call, callers arriving while it is in flight wait for it and
+ * receive the same response or exception, including errors, so they are
+ * never left waiting for a call that failed. Nothing is cached, a call made
+ * after the previous one completed is performed again.
+ *
+ * @param <K> type of the key identifying identical calls.
+ * @param <V> type of the response.
+ */
+public class SingleFlight<K, V> {
+
+    public static final Logger LOG = LogManager.getLogger(SingleFlight.class);
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Blocking call that can fail with any of the exceptions of the client.
+     */
+    public interface Call<V> {
+
+        V call() throws FrejaEidClientInternalException, FrejaEidException;
+
+    }
+
+    /**
+     * Performs the call, or waits for the identical call already in flight.
+     *
+     * @param key  identifies identical calls.
+     * @param call performed if no identical call is in flight.
+     * @return response of the call.
+     * @throws FrejaEidClientInternalException if the call failed with it or
+     *                                         waiting was interrupted.
+     * @throws FrejaEidException               if the call failed with it.
+     */
+    public V execute(K key, Call<V> call) throws FrejaEidClientInternalException, FrejaEidException {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            LOG.debug("Joining request already in flight for {}.", key);
+            return await(existing);
+        }
+        try {
+            V response = call.call();
+            future.complete(response);
+            return response;
+        } catch (Throwable ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Non-blocking counterpart of {@linkplain #execute(Object, Call)}. Every
+     * caller receives its own future, so cancelling it does not affect other
+     * callers.
+     *
+     * @param key  identifies identical calls.
+     * @param call started if no identical call is in flight.
+     * @return future response of the call.
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<? extends CompletableFuture<V>> call) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            LOG.debug("Joining request already in flight for {}.", key);
+            return existing.thenApply(Function.identity());
+        }
+        CompletableFuture<V> response;
+        try {
+            response = call.get();
+        } catch (Throwable ex) {
+            response = new CompletableFuture<>();
+            response.completeExceptionally(ex);
+        }
+        response.whenComplete((result, throwable) -> {
+            inFlight.remove(key, future);
+            if (throwable != null) {
+                future.completeExceptionally(unwrap(throwable));
+            } else {
+                future.complete(result);
+            }
+        });
+        return future.thenApply(Function.identity());
+    }
+
+    /**
+     * @return number of distinct calls currently in flight.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private V await(CompletableFuture<V> future) throws FrejaEidClientInternalException, FrejaEidException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new FrejaEidClientInternalException("Interrupted while waiting for request in flight.", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof FrejaEidClientInternalException) {
+                throw (FrejaEidClientInternalException) cause;
+            }
+            if (cause instanceof FrejaEidException) {
+                throw (FrejaEidException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new FrejaEidClientInternalException("Request in flight failed.", cause);
+        }
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            return throwable.getCause();
+        }
+        return throwable;
+    }
+
+}
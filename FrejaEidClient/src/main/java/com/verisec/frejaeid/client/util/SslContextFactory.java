@@ -0,0 +1,122 @@
+package com.verisec.frejaeid.client.util;
+
+import com.verisec.frejaeid.client.beans.general.SslSettings;
+import com.verisec.frejaeid.client.enums.KeyStoreType;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.KeyManagementException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * Creates SSL context used for establishing mutual TLS with Freja eID
+ * services from a keyStore file and an optional trusted server certificate.
+ */
+public class SslContextFactory {
+
+    public static final Logger LOG = LogManager.getLogger(SslContextFactory.class);
+
+    /**
+     * Returns SSL context from given settings, either the one passed in
+     * settings or one created from keyStore file.
+     *
+     * @param sslSettings instance of {@linkplain SslSettings}.
+     * @return sslContext
+     * @throws FrejaEidClientInternalException if SSL context cannot be created
+     *                                         with any of supported keyStore
+     *                                         types.
+     */
+    public static SSLContext create(SslSettings sslSettings) throws FrejaEidClientInternalException {
+        if (sslSettings == null) {
+            throw new FrejaEidClientInternalException("SslSettings cannot be null.");
+        }
+        if (sslSettings.getSslContext() != null) {
+            return sslSettings.getSslContext();
+        }
+        return create(sslSettings.getKeystorePath(), sslSettings.getKeystorePass(),
+                      sslSettings.getServerCertificatePath());
+    }
+
+    /**
+     * Returns SSL context created with given keyStore file, trying all
+     * supported keyStore types in turn.
+     *
+     * @param keystorePath    absolute path of keyStore file.
+     * @param keystorePass    password of keyStore.
+     * @param certificatePath absolute path of trusted server certificate, or
+     *                        {@code null} if server certificate is stored in
+     *                        keyStore.
+     * @return sslContext
+     * @throws FrejaEidClientInternalException if SSL context cannot be created
+     *                                         with any of supported keyStore
+     *                                         types.
+     */
+    public static SSLContext create(String keystorePath, String keystorePass, String certificatePath)
+            throws FrejaEidClientInternalException {
+        for (KeyStoreType keyStoreType : KeyStoreType.values()) {
+            try (InputStream keyStoreStream = new FileInputStream(keystorePath)) {
+                KeyStore keyStore = KeyStore.getInstance(keyStoreType.getType());
+                keyStore.load(keyStoreStream, keystorePass.toCharArray());
+                LOG.debug("Creating SSL context with keystore file on path {}.", keystorePath);
+                return createSSLContext(keyStore, keystorePass, certificatePath);
+            } catch (FrejaEidClientInternalException | IOException | KeyStoreException
+                    | NoSuchAlgorithmException | CertificateException e) {
+                LOG.error("Failed to initialize SSL context with keystore type {} and path {}.", keyStoreType,
+                          keystorePath, e);
+            }
+        }
+        throw new FrejaEidClientInternalException(
+                String.format("Failed to initiate SSL context with supported keystore types %s.",
+                              KeyStoreType.getAllKeyStoreTypes()));
+    }
+
+    private static KeyStore createTrustStoreWithCertificate(String certificatePath)
+            throws FrejaEidClientInternalException {
+        LOG.debug("Creating trust store with certificate on path {}.", certificatePath);
+        try (InputStream stream = new FileInputStream(certificatePath)) {
+            CertificateFactory cf = CertificateFactory.getInstance("X.509");
+            X509Certificate caCert = (X509Certificate) cf.generateCertificate(stream);
+            KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+            trustStore.load(null);
+            trustStore.setCertificateEntry("rootCA", caCert);
+            return trustStore;
+        } catch (KeyStoreException | NoSuchAlgorithmException | IOException | CertificateException ex) {
+            throw new FrejaEidClientInternalException("Failed to create trust store with certificate. ", ex);
+        }
+    }
+
+    private static SSLContext createSSLContext(KeyStore keyStore, String keystorePass, String certificatePath)
+            throws FrejaEidClientInternalException {
+        try {
+            KeyManagerFactory keyManagerFactory =
+                    KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagerFactory.init(keyStore, keystorePass.toCharArray());
+            TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            if (certificatePath != null) {
+                keyStore = createTrustStoreWithCertificate(certificatePath);
+            }
+            tmf.init(keyStore);
+            SSLContext sslContext = SSLContext.getInstance("SSL");
+            sslContext.init(keyManagerFactory.getKeyManagers(), tmf.getTrustManagers(), null);
+            LOG.debug("Successfully created SSL context.");
+            return sslContext;
+        } catch (KeyManagementException | KeyStoreException
+                | NoSuchAlgorithmException | UnrecoverableKeyException ex) {
+            throw new FrejaEidClientInternalException("Failed to create SSL context. ", ex);
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.verisec.frejaeid.client.client.api;
+
+import com.verisec.frejaeid.client.beans.sign.cancel.CancelSignRequest;
+import com.verisec.frejaeid.client.beans.sign.get.SignResult;
+import com.verisec.frejaeid.client.beans.sign.get.SignResultRequest;
+import com.verisec.frejaeid.client.beans.sign.get.SignResultsRequest;
+import com.verisec.frejaeid.client.beans.sign.init.InitiateSignRequest;
+import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class SignClientApiTest {
+
+    private static final String SIGN_REFERENCE = "123456789123456789";
+    private static final String EMAIL = "eid.demo.verisec@gmail.com";
+
+    /**
+     * Implements only the methods the interface had before the non-blocking
+     * and polling extensions were added.
+     */
+    private static final class BlockingSignClient implements SignClientApi {
+
+        @Override
+        public String initiate(InitiateSignRequest initiateSignRequest) {
+            return SIGN_REFERENCE;
+        }
+
+        @Override
+        public SignResult getResult(SignResultRequest signResultRequest) throws FrejaEidException {
+            throw new FrejaEidException("Unknown reference.", 1100);
+        }
+
+        @Override
+        public List<SignResult> getResults(SignResultsRequest signResultsRequest) {
+            return null;
+        }
+
+        @Override
+        public SignResult pollForResult(SignResultRequest signResultRequest, int maxWaitingTimeInSec) {
+            return null;
+        }
+
+        @Override
+        public void cancel(CancelSignRequest cancelSignRequest) {
+        }
+
+    }
+
+    @Test
+    public void initiateAsync_defaultImplementation_completedWithBlockingResult() throws Exception {
+        SignClientApi signClient = new BlockingSignClient();
+
+        String reference = signClient.initiateAsync(InitiateSignRequest.createDefaultWithEmail(EMAIL, "title", "text"))
+                .toCompletableFuture().get();
+
+        Assert.assertEquals(SIGN_REFERENCE, reference);
+    }
+
+    @Test
+    public void getResultAsync_defaultImplementationFails_completedExceptionally() throws Exception {
+        SignClientApi signClient = new BlockingSignClient();
+
+        CompletableFuture<SignResult> result = signClient.getResultAsync(SignResultRequest.create(SIGN_REFERENCE))
+                .toCompletableFuture();
+
+        try {
+            result.get();
+            Assert.fail("Test should throw exception!");
+        } catch (ExecutionException ex) {
+            Assert.assertEquals(1100, ((FrejaEidException) ex.getCause()).getErrorCode());
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getResultPublisher_defaultImplementation_throwsUnsupportedOperationException() throws Exception {
+        new BlockingSignClient().getResultPublisher(SignResultRequest.create(SIGN_REFERENCE), 60);
+    }
+
+}
@@ -74,6 +74,37 @@ public class AuthenticationClientInitialisationTest {
         }
     }
 
+    @Test
+    public void authClientInit_maxConnectionsPerRouteAboveTotal_expectError() {
+        try {
+            AuthenticationClient.create(SslSettings.create(TestUtil.KEYSTORE_PATH, TestUtil.KEYSTORE_PASSWORD,
+                                                           TestUtil.CERTIFICATE_PATH), FrejaEnvironment.TEST)
+                    .setMaxConnectionsTotal(10)
+                    .setMaxConnectionsPerRoute(20)
+                    .build();
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientInternalException ex) {
+            Assert.assertEquals(
+                    "Maximum number of connections per route cannot exceed maximum number of connections in total.",
+                    ex.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void authClientInit_adaptiveLimitBelowTotal_expectError() {
+        try {
+            AuthenticationClient.create(SslSettings.create(TestUtil.KEYSTORE_PATH, TestUtil.KEYSTORE_PASSWORD,
+                                                           TestUtil.CERTIFICATE_PATH), FrejaEnvironment.TEST)
+                    .setAdaptiveConnectionPool(10)
+                    .build();
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientInternalException ex) {
+            Assert.assertEquals(
+                    "Adaptive connection limit cannot be lower than maximum number of connections in total.",
+                    ex.getLocalizedMessage());
+        }
+    }
+
     @Test
     public void authClientInit_invalidNullParameter_expectInternalError() {
         try {
@@ -126,5 +157,29 @@ public class AuthenticationClientInitialisationTest {
                 AuthenticationClient.create(SslSettings.create(TestUtil.KEYSTORE_PATH_JCEKS,
                                                                TestUtil.KEYSTORE_PASSWORD), FrejaEnvironment.TEST)
                         .setTransactionContext(TransactionContext.PERSONAL).build();
+
+        AuthenticationClientApi authenticationClientCustomPool =
+                AuthenticationClient.create(SslSettings.create(TestUtil.KEYSTORE_PATH, TestUtil.KEYSTORE_PASSWORD),
+                                            FrejaEnvironment.TEST)
+                        .setMaxConnectionsTotal(50)
+                        .setMaxConnectionsPerRoute(50)
+                        .setValidateAfterInactivity(1000)
+                        .setConnectionTimeToLive(60000)
+                        .setAdaptiveConnectionPool(500)
+                        .build();
+    }
+
+    @Test
+    public void authClientInit_warmUpServerUnreachable_success() throws FrejaEidClientInternalException {
+        try (AuthenticationClientApi authenticationClient =
+                     AuthenticationClient.create(SslSettings.create(TestUtil.KEYSTORE_PATH,
+                                                                    TestUtil.KEYSTORE_PASSWORD), FrejaEnvironment.TEST)
+                             .setTestModeServerCustomUrl("http://localhost:1")
+                             .setTestModeResourceServiceCustomUrl("http://localhost:1")
+                             .setConnectionTimeout(500)
+                             .warmUp(2)
+                             .build()) {
+            Assert.assertNotNull(authenticationClient);
+        }
     }
 }
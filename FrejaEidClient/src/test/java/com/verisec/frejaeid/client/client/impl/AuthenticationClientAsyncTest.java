@@ -0,0 +1,297 @@
+package com.verisec.frejaeid.client.client.impl;
+
+import com.verisec.frejaeid.client.beans.authentication.cancel.CancelAuthenticationRequest;
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResult;
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResultRequest;
+import com.verisec.frejaeid.client.beans.authentication.init.InitiateAuthenticationRequest;
+import com.verisec.frejaeid.client.beans.authentication.init.InitiateAuthenticationResponse;
+import com.verisec.frejaeid.client.beans.common.EmptyFrejaResponse;
+import com.verisec.frejaeid.client.beans.common.RelyingPartyRequest;
+import com.verisec.frejaeid.client.client.api.AuthenticationClientApi;
+import com.verisec.frejaeid.client.client.util.TestUtil;
+import com.verisec.frejaeid.client.enums.FrejaEidErrorCode;
+import com.verisec.frejaeid.client.enums.FrejaEnvironment;
+import com.verisec.frejaeid.client.enums.TransactionContext;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import com.verisec.frejaeid.client.http.AsyncHttpServiceApi;
+import com.verisec.frejaeid.client.http.HttpServiceApi;
+import com.verisec.frejaeid.client.service.InMemoryLeaseStore;
+import com.verisec.frejaeid.client.service.PollingCoordinator;
+import com.verisec.frejaeid.client.util.MethodUrl;
+import com.verisec.frejaeid.client.util.RequestTemplate;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class AuthenticationClientAsyncTest {
+
+    private static final String REFERENCE = "123456789012345678";
+    private static final String EMAIL = "eid.demo.verisec@gmail.com";
+    private final HttpServiceApi httpServiceMock = Mockito.mock(HttpServiceApi.class);
+    private final AsyncHttpServiceApi asyncHttpServiceMock = Mockito.mock(AsyncHttpServiceApi.class);
+    private AuthenticationClientApi authenticationClient;
+
+    @Before
+    public void initialiseClient() throws FrejaEidClientInternalException {
+        authenticationClient = AuthenticationClient.create(TestUtil.getDefaultSslSettings(), FrejaEnvironment.TEST)
+                .setHttpService(httpServiceMock)
+                .setAsyncHttpService(asyncHttpServiceMock)
+                .setPollingTimeout(1000)
+                .setTransactionContext(TransactionContext.PERSONAL).build();
+    }
+
+    @Test
+    public void initiateAsync_success() throws Exception {
+        InitiateAuthenticationRequest request = InitiateAuthenticationRequest.createDefaultWithEmail(EMAIL);
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(InitiateAuthenticationResponse.class),
+                                            (String) Mockito.isNull()))
+                .thenReturn(CompletableFuture.completedFuture(new InitiateAuthenticationResponse(REFERENCE)));
+
+        String reference = authenticationClient.initiateAsync(request).toCompletableFuture().get();
+
+        verify(asyncHttpServiceMock).sendAsync(FrejaEnvironment.TEST.getServiceUrl() + MethodUrl.AUTHENTICATION_INIT,
+                                               RequestTemplate.INIT_AUTHENTICATION, request,
+                                               InitiateAuthenticationResponse.class, null);
+        verifyZeroInteractions(httpServiceMock);
+        assertEquals(REFERENCE, reference);
+    }
+
+    @Test
+    public void getResultAsync_invalidRequest_completesExceptionallyWithoutSending() throws InterruptedException {
+        try {
+            authenticationClient.getResultAsync(AuthenticationResultRequest.create("")).toCompletableFuture().get();
+            Assert.fail("Test should throw exception!");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof FrejaEidClientInternalException);
+            verifyZeroInteractions(asyncHttpServiceMock);
+        }
+    }
+
+    @Test
+    public void getResultAsync_identicalRequestInFlight_sharesOneRequest() throws Exception {
+        AuthenticationResultRequest request = AuthenticationResultRequest.create(REFERENCE);
+        CompletableFuture<AuthenticationResult> response = new CompletableFuture<>();
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(AuthenticationResult.class), (String) Mockito.isNull()))
+                .thenReturn(response);
+
+        CompletableFuture<AuthenticationResult> first = authenticationClient.getResultAsync(request)
+                .toCompletableFuture();
+        CompletableFuture<AuthenticationResult> second = authenticationClient.getResultAsync(
+                AuthenticationResultRequest.create(REFERENCE)).toCompletableFuture();
+        response.complete(new AuthenticationResult(REFERENCE, TransactionStatus.APPROVED, null, null));
+
+        verify(asyncHttpServiceMock, times(1))
+                .sendAsync(FrejaEnvironment.TEST.getServiceUrl() + MethodUrl.AUTHENTICATION_GET_RESULT,
+                           RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, request, AuthenticationResult.class, null);
+        assertEquals(TransactionStatus.APPROVED, first.get().getStatus());
+        assertEquals(first.get(), second.get());
+    }
+
+    @Test
+    public void pollForResultAsync_finalStatusAfterSecondPoll_success() throws Exception {
+        AuthenticationResultRequest request = AuthenticationResultRequest.create(REFERENCE);
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(AuthenticationResult.class), (String) Mockito.isNull()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new AuthenticationResult(REFERENCE, TransactionStatus.DELIVERED_TO_MOBILE, null, null)))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new AuthenticationResult(REFERENCE, TransactionStatus.APPROVED, null, null)));
+
+        AuthenticationResult result = authenticationClient.pollForResultAsync(request, 10).toCompletableFuture().get();
+
+        verify(asyncHttpServiceMock, times(2))
+                .sendAsync(FrejaEnvironment.TEST.getServiceUrl() + MethodUrl.AUTHENTICATION_GET_RESULT,
+                           RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, request, AuthenticationResult.class, null);
+        assertEquals(TransactionStatus.APPROVED, result.getStatus());
+    }
+
+    @Test
+    public void pollForResultAsync_requestTimeout_expectTimeoutError() throws InterruptedException {
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(AuthenticationResult.class), (String) Mockito.isNull()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new AuthenticationResult(REFERENCE, TransactionStatus.STARTED, null, null)));
+        try {
+            authenticationClient.pollForResultAsync(AuthenticationResultRequest.create(REFERENCE), 2)
+                    .toCompletableFuture().get();
+            Assert.fail("Test should throw exception!");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof FrejaEidClientPollingException);
+            assertEquals("A timeout of 2s was reached while sending request.", ex.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void pollForResultAsync_cancelOnPollingTimeout_transactionCancelled() throws Exception {
+        AuthenticationClientApi cancellingClient = createCancellingClient();
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(AuthenticationResult.class), (String) Mockito.isNull()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new AuthenticationResult(REFERENCE, TransactionStatus.STARTED, null, null)));
+        try {
+            cancellingClient.pollForResultAsync(AuthenticationResultRequest.create(REFERENCE), 1)
+                    .toCompletableFuture().get();
+            Assert.fail("Test should throw exception!");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof FrejaEidClientPollingException);
+        }
+
+        verify(httpServiceMock, timeout(5000)).send(
+                FrejaEnvironment.TEST.getServiceUrl() + MethodUrl.AUTHENTICATION_CANCEL,
+                RequestTemplate.CANCEL_AUTHENTICATION_TEMPLATE, CancelAuthenticationRequest.create(REFERENCE),
+                EmptyFrejaResponse.class, null);
+    }
+
+    @Test
+    public void pollForResultAsync_cancelOnPollingTimeout_futureCancelled_transactionCancelled() throws Exception {
+        AuthenticationClientApi cancellingClient = createCancellingClient();
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(AuthenticationResult.class), (String) Mockito.isNull()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new AuthenticationResult(REFERENCE, TransactionStatus.STARTED, null, null)));
+
+        cancellingClient.pollForResultAsync(AuthenticationResultRequest.create(REFERENCE), 60)
+                .toCompletableFuture().cancel(true);
+
+        verify(httpServiceMock, timeout(5000)).send(
+                FrejaEnvironment.TEST.getServiceUrl() + MethodUrl.AUTHENTICATION_CANCEL,
+                RequestTemplate.CANCEL_AUTHENTICATION_TEMPLATE, CancelAuthenticationRequest.create(REFERENCE),
+                EmptyFrejaResponse.class, null);
+    }
+
+    @Test
+    public void getResultPublisher_finalStatusAfterSecondPoll_publishesEveryStatus() throws Exception {
+        AuthenticationResultRequest request = AuthenticationResultRequest.create(REFERENCE);
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(AuthenticationResult.class), (String) Mockito.isNull()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new AuthenticationResult(REFERENCE, TransactionStatus.DELIVERED_TO_MOBILE, null, null)))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new AuthenticationResult(REFERENCE, TransactionStatus.APPROVED, null, null)));
+        List<TransactionStatus> statuses = new ArrayList<>();
+        CompletableFuture<List<TransactionStatus>> published = new CompletableFuture<>();
+
+        authenticationClient.getResultPublisher(request, 10).subscribe(new Flow.Subscriber<AuthenticationResult>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(AuthenticationResult item) {
+                statuses.add(item.getStatus());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                published.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                published.complete(statuses);
+            }
+        });
+
+        assertEquals(Arrays.asList(TransactionStatus.DELIVERED_TO_MOBILE, TransactionStatus.APPROVED),
+                     published.get(5, TimeUnit.SECONDS));
+        verify(asyncHttpServiceMock, times(2))
+                .sendAsync(FrejaEnvironment.TEST.getServiceUrl() + MethodUrl.AUTHENTICATION_GET_RESULT,
+                           RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, request, AuthenticationResult.class, null);
+    }
+
+    @Test
+    public void getResultPublisher_invalidRequest_expectError() {
+        try {
+            authenticationClient.getResultPublisher(AuthenticationResultRequest.create(""), 10);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientInternalException ex) {
+            verifyZeroInteractions(asyncHttpServiceMock);
+        }
+    }
+
+    private AuthenticationClientApi createCancellingClient() throws FrejaEidClientInternalException {
+        return AuthenticationClient.create(TestUtil.getDefaultSslSettings(), FrejaEnvironment.TEST)
+                .setHttpService(httpServiceMock)
+                .setAsyncHttpService(asyncHttpServiceMock)
+                .setPollingTimeout(1000)
+                .setCancelOnPollingTimeout(true)
+                .setTransactionContext(TransactionContext.PERSONAL).build();
+    }
+
+    @Test
+    public void createPollingCoordinator_transactionSubmitted_finalResultHandedToListener() throws Exception {
+        when(httpServiceMock.send(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                  Mockito.eq(AuthenticationResult.class), (String) Mockito.isNull()))
+                .thenReturn(new AuthenticationResult(REFERENCE, TransactionStatus.APPROVED, null, null));
+        CountDownLatch approved = new CountDownLatch(1);
+
+        try (PollingCoordinator<AuthenticationResult> pollingCoordinator = authenticationClient
+                .createPollingCoordinator("node-1", new InMemoryLeaseStore(), result -> {
+                    if (result.getStatus() == TransactionStatus.APPROVED) {
+                        approved.countDown();
+                    }
+                })) {
+            pollingCoordinator.submit(REFERENCE, null);
+
+            Assert.assertTrue(approved.await(5, TimeUnit.SECONDS));
+        }
+        verify(httpServiceMock).send(FrejaEnvironment.TEST.getServiceUrl() + MethodUrl.AUTHENTICATION_GET_RESULT,
+                                     RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE,
+                                     AuthenticationResultRequest.create(REFERENCE), AuthenticationResult.class, null);
+    }
+
+    @Test
+    public void createPollingCoordinator_emptyNodeId_expectError() {
+        try {
+            authenticationClient.createPollingCoordinator(" ", new InMemoryLeaseStore(), null);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientInternalException ex) {
+            assertEquals("NodeId cannot be null or empty.", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void cancelAsync_serverError_completesWithFrejaEidException() throws InterruptedException {
+        CancelAuthenticationRequest request = CancelAuthenticationRequest.create(REFERENCE);
+        CompletableFuture<EmptyFrejaResponse> failedResponse = new CompletableFuture<>();
+        failedResponse.completeExceptionally(new FrejaEidException(FrejaEidErrorCode.INVALID_REFERENCE.getMessage(),
+                                                                   FrejaEidErrorCode.INVALID_REFERENCE.getCode()));
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(EmptyFrejaResponse.class), (String) Mockito.isNull()))
+                .thenReturn(failedResponse);
+        try {
+            authenticationClient.cancelAsync(request).toCompletableFuture().get();
+            Assert.fail("Test should throw exception!");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof FrejaEidException);
+            assertEquals(FrejaEidErrorCode.INVALID_REFERENCE.getCode(),
+                         ((FrejaEidException) ex.getCause()).getErrorCode());
+        }
+    }
+
+}
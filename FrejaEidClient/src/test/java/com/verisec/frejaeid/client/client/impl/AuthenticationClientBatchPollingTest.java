@@ -0,0 +1,120 @@
+package com.verisec.frejaeid.client.client.impl;
+
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResult;
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResultRequest;
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResults;
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResultsRequest;
+import com.verisec.frejaeid.client.beans.common.RelyingPartyRequest;
+import com.verisec.frejaeid.client.client.api.AuthenticationClientApi;
+import com.verisec.frejaeid.client.client.util.TestUtil;
+import com.verisec.frejaeid.client.enums.FrejaEnvironment;
+import com.verisec.frejaeid.client.enums.TransactionContext;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException;
+import com.verisec.frejaeid.client.http.AsyncHttpServiceApi;
+import com.verisec.frejaeid.client.http.HttpServiceApi;
+import com.verisec.frejaeid.client.util.MethodUrl;
+import com.verisec.frejaeid.client.util.RequestTemplate;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class AuthenticationClientBatchPollingTest {
+
+    private static final String FIRST_REFERENCE = "123456789012345678";
+    private static final String SECOND_REFERENCE = "876543210987654321";
+    private final HttpServiceApi httpServiceMock = Mockito.mock(HttpServiceApi.class);
+    private final AsyncHttpServiceApi asyncHttpServiceMock = Mockito.mock(AsyncHttpServiceApi.class);
+    private AuthenticationClientApi authenticationClient;
+
+    @Before
+    public void initialiseClient() throws FrejaEidClientInternalException {
+        authenticationClient = AuthenticationClient.create(TestUtil.getDefaultSslSettings(), FrejaEnvironment.TEST)
+                .setHttpService(httpServiceMock)
+                .setAsyncHttpService(asyncHttpServiceMock)
+                .setPollingTimeout(1000)
+                .setBatchPolling(true)
+                .setTransactionContext(TransactionContext.PERSONAL).build();
+    }
+
+    @Test
+    public void pollForResultAsync_twoTransactions_resultsFannedOutFromResultsRequests() throws Exception {
+        when(httpServiceMock.send(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                  Mockito.eq(AuthenticationResults.class), (String) Mockito.isNull()))
+                .thenReturn(results(result(FIRST_REFERENCE, TransactionStatus.STARTED),
+                                    result(SECOND_REFERENCE, TransactionStatus.APPROVED)))
+                .thenReturn(results(result(FIRST_REFERENCE, TransactionStatus.APPROVED),
+                                    result(SECOND_REFERENCE, TransactionStatus.APPROVED)));
+
+        CompletableFuture<AuthenticationResult> first = authenticationClient
+                .pollForResultAsync(AuthenticationResultRequest.create(FIRST_REFERENCE), 10).toCompletableFuture();
+        CompletableFuture<AuthenticationResult> second = authenticationClient
+                .pollForResultAsync(AuthenticationResultRequest.create(SECOND_REFERENCE), 10).toCompletableFuture();
+
+        assertEquals(TransactionStatus.APPROVED, first.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(SECOND_REFERENCE, second.get(5, TimeUnit.SECONDS).getAuthRef());
+        verify(httpServiceMock, times(2)).send(
+                FrejaEnvironment.TEST.getServiceUrl() + MethodUrl.AUTHENTICATION_GET_RESULTS,
+                RequestTemplate.AUTHENTICATION_RESULTS_TEMPLATE, AuthenticationResultsRequest.create(),
+                AuthenticationResults.class, null);
+        verify(httpServiceMock, never()).send(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                              Mockito.eq(AuthenticationResult.class), (String) Mockito.isNull());
+        verifyZeroInteractions(asyncHttpServiceMock);
+    }
+
+    @Test
+    public void pollForResult_transactionMissingFromResults_polledIndividually() throws Exception {
+        AuthenticationResultRequest request = AuthenticationResultRequest.create(FIRST_REFERENCE);
+        when(httpServiceMock.send(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                  Mockito.eq(AuthenticationResults.class), (String) Mockito.isNull()))
+                .thenReturn(new AuthenticationResults(Collections.emptyList()));
+        when(httpServiceMock.send(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                  Mockito.eq(AuthenticationResult.class), (String) Mockito.isNull()))
+                .thenReturn(result(FIRST_REFERENCE, TransactionStatus.REJECTED));
+
+        AuthenticationResult result = authenticationClient.pollForResult(request, 10);
+
+        assertEquals(TransactionStatus.REJECTED, result.getStatus());
+        verify(httpServiceMock).send(FrejaEnvironment.TEST.getServiceUrl() + MethodUrl.AUTHENTICATION_GET_RESULT,
+                                     RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, request,
+                                     AuthenticationResult.class, null);
+    }
+
+    @Test
+    public void pollForResult_noFinalStatus_expectTimeoutError() throws Exception {
+        when(httpServiceMock.send(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                  Mockito.eq(AuthenticationResults.class), (String) Mockito.isNull()))
+                .thenReturn(results(result(FIRST_REFERENCE, TransactionStatus.STARTED)));
+        try {
+            authenticationClient.pollForResult(AuthenticationResultRequest.create(FIRST_REFERENCE), 2);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientPollingException ex) {
+            assertEquals("A timeout of 2s was reached while sending request.", ex.getMessage());
+        }
+    }
+
+    private static AuthenticationResult result(String reference, TransactionStatus status) {
+        return new AuthenticationResult(reference, status, null, null);
+    }
+
+    private static AuthenticationResults results(AuthenticationResult... results) {
+        return new AuthenticationResults(Arrays.asList(results));
+    }
+
+}
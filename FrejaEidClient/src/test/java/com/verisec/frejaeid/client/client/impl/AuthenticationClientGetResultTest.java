@@ -15,6 +15,7 @@ import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidException;
 import com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException;
 import com.verisec.frejaeid.client.http.HttpServiceApi;
+import com.verisec.frejaeid.client.service.PollingStrategy;
 import com.verisec.frejaeid.client.util.MethodUrl;
 import com.verisec.frejaeid.client.util.RequestTemplate;
 
@@ -23,6 +24,13 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -119,6 +127,44 @@ public class AuthenticationClientGetResultTest {
         assertEquals(REQUESTED_ATTRIBUTES, response.getRequestedAttributes());
     }
 
+    @Test
+    public void getAuthenticationResult_identicalRequestInFlight_sharesOneRequest() throws Exception {
+        final CountDownLatch requestSent = new CountDownLatch(1);
+        final CountDownLatch responseReceived = new CountDownLatch(1);
+        when(httpServiceMock.send(anyString(), any(RequestTemplate.class),
+                                  any(RelyingPartyRequest.class),
+                                  Mockito.eq(AuthenticationResult.class), anyString()))
+                .thenAnswer(invocation -> {
+                    requestSent.countDown();
+                    responseReceived.await(5, TimeUnit.SECONDS);
+                    return new AuthenticationResult(REFERENCE, TransactionStatus.APPROVED, DETAILS, null);
+                });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<AuthenticationResult> first = executor.submit(() -> authenticationClient.getResult(
+                    AuthenticationResultRequest.create(REFERENCE, RELYING_PARTY_ID)));
+            Assert.assertTrue(requestSent.await(5, TimeUnit.SECONDS));
+            final AtomicReference<Thread> follower = new AtomicReference<>();
+            Future<AuthenticationResult> second = executor.submit(() -> {
+                follower.set(Thread.currentThread());
+                return authenticationClient.getResult(AuthenticationResultRequest.create(REFERENCE,
+                                                                                         RELYING_PARTY_ID));
+            });
+            while (follower.get() == null || follower.get().getState() != Thread.State.WAITING) {
+                Thread.sleep(10);
+            }
+            responseReceived.countDown();
+
+            assertEquals(TransactionStatus.APPROVED, first.get(5, TimeUnit.SECONDS).getStatus());
+            assertEquals(TransactionStatus.APPROVED, second.get(5, TimeUnit.SECONDS).getStatus());
+            verify(httpServiceMock, Mockito.times(1)).send(anyString(), any(RequestTemplate.class),
+                                                            any(RelyingPartyRequest.class),
+                                                            Mockito.eq(AuthenticationResult.class), anyString());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     public void getAuthenticationResultPersonal_success() throws FrejaEidClientInternalException, FrejaEidException {
         AuthenticationResultRequest authenticationResultRequest =
@@ -267,6 +313,180 @@ public class AuthenticationClientGetResultTest {
         }
     }
 
+    @Test
+    public void pollForResult_adaptivePollingStrategy_statusChangesPolledFast() throws Exception {
+        AuthenticationClientApi adaptiveClient = AuthenticationClient.create(TestUtil.getDefaultSslSettings(),
+                                                                             FrejaEnvironment.TEST)
+                .setHttpService(httpServiceMock)
+                .setPollingStrategy(PollingStrategy.createAdaptive(1000, 2000, 2))
+                .setTransactionContext(TransactionContext.PERSONAL).build();
+        when(httpServiceMock.send(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                  Mockito.eq(AuthenticationResult.class), (String) Mockito.isNull()))
+                .thenReturn(new AuthenticationResult(REFERENCE, TransactionStatus.STARTED, null, null))
+                .thenReturn(new AuthenticationResult(REFERENCE, TransactionStatus.STARTED, null, null))
+                .thenReturn(new AuthenticationResult(REFERENCE, TransactionStatus.DELIVERED_TO_MOBILE, null, null))
+                .thenReturn(new AuthenticationResult(REFERENCE, TransactionStatus.APPROVED, null, null));
+        long start = System.nanoTime();
+
+        AuthenticationResult response = adaptiveClient.pollForResult(AuthenticationResultRequest.create(REFERENCE),
+                                                                     10);
+
+        assertEquals(TransactionStatus.APPROVED, response.getStatus());
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 6000);
+        verify(httpServiceMock, Mockito.times(4)).send(anyString(), any(RequestTemplate.class),
+                                                        any(RelyingPartyRequest.class),
+                                                        Mockito.eq(AuthenticationResult.class),
+                                                        (String) Mockito.isNull());
+    }
+
+    @Test
+    public void pollForResult_adaptivePollingStrategy_lastPollAtExpiry() throws Exception {
+        AuthenticationClientApi adaptiveClient = AuthenticationClient.create(TestUtil.getDefaultSslSettings(),
+                                                                             FrejaEnvironment.TEST)
+                .setHttpService(httpServiceMock)
+                .setPollingStrategy(PollingStrategy.createAdaptive(1000, 60000, 10))
+                .setTransactionContext(TransactionContext.PERSONAL).build();
+        when(httpServiceMock.send(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                  Mockito.eq(AuthenticationResult.class), (String) Mockito.isNull()))
+                .thenReturn(new AuthenticationResult(REFERENCE, TransactionStatus.STARTED, null, null));
+        long start = System.nanoTime();
+        try {
+            adaptiveClient.pollForResult(AuthenticationResultRequest.create(REFERENCE), 2);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientPollingException ex) {
+            assertEquals("A timeout of 2s was reached while sending request.", ex.getLocalizedMessage());
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assert.assertTrue(elapsed >= 2000 && elapsed < 4000);
+        verify(httpServiceMock, Mockito.times(3)).send(anyString(), any(RequestTemplate.class),
+                                                        any(RelyingPartyRequest.class),
+                                                        Mockito.eq(AuthenticationResult.class),
+                                                        (String) Mockito.isNull());
+    }
+
+    @Test
+    public void pollForResult_withListener_notifiedOfEveryStatusChange() throws Exception {
+        AuthenticationClientApi adaptiveClient = AuthenticationClient.create(TestUtil.getDefaultSslSettings(),
+                                                                             FrejaEnvironment.TEST)
+                .setHttpService(httpServiceMock)
+                .setPollingStrategy(PollingStrategy.createAdaptive(1000, 1000, 1))
+                .setTransactionContext(TransactionContext.PERSONAL).build();
+        when(httpServiceMock.send(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                  Mockito.eq(AuthenticationResult.class), (String) Mockito.isNull()))
+                .thenReturn(new AuthenticationResult(REFERENCE, TransactionStatus.STARTED, null, null))
+                .thenReturn(new AuthenticationResult(REFERENCE, TransactionStatus.STARTED, null, null))
+                .thenReturn(new AuthenticationResult(REFERENCE, TransactionStatus.DELIVERED_TO_MOBILE, null, null))
+                .thenReturn(new AuthenticationResult(REFERENCE, TransactionStatus.APPROVED, null, null));
+        List<TransactionStatus> statuses = new ArrayList<>();
+
+        AuthenticationResult response = adaptiveClient.pollForResult(
+                AuthenticationResultRequest.create(REFERENCE), 10, result -> statuses.add(result.getStatus()));
+
+        assertEquals(TransactionStatus.APPROVED, response.getStatus());
+        assertEquals(Arrays.asList(TransactionStatus.STARTED, TransactionStatus.DELIVERED_TO_MOBILE,
+                                   TransactionStatus.APPROVED), statuses);
+        verify(httpServiceMock, Mockito.times(4)).send(anyString(), any(RequestTemplate.class),
+                                                        any(RelyingPartyRequest.class),
+                                                        Mockito.eq(AuthenticationResult.class),
+                                                        (String) Mockito.isNull());
+    }
+
+    @Test
+    public void pollForResult_listenerThrows_pollingContinues() throws Exception {
+        when(httpServiceMock.send(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                  Mockito.eq(AuthenticationResult.class), (String) Mockito.isNull()))
+                .thenReturn(new AuthenticationResult(REFERENCE, TransactionStatus.STARTED, null, null))
+                .thenReturn(new AuthenticationResult(REFERENCE, TransactionStatus.APPROVED, null, null));
+
+        AuthenticationResult response = authenticationClient.pollForResult(
+                AuthenticationResultRequest.create(REFERENCE), 10, result -> {
+                    throw new IllegalStateException("listener failure");
+                });
+
+        assertEquals(TransactionStatus.APPROVED, response.getStatus());
+    }
+
+    @Test
+    public void pollForResult_interrupted_stopsPollingAndKeepsInterruptStatus() throws Exception {
+        when(httpServiceMock.send(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                  Mockito.eq(AuthenticationResult.class), (String) Mockito.isNull()))
+                .thenReturn(new AuthenticationResult(REFERENCE, TransactionStatus.STARTED, null, null));
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        AtomicReference<Boolean> interrupted = new AtomicReference<>();
+        Thread pollingThread = new Thread(() -> {
+            try {
+                authenticationClient.pollForResult(AuthenticationResultRequest.create(REFERENCE), 60);
+            } catch (Exception ex) {
+                thrown.set(ex);
+            }
+            interrupted.set(Thread.currentThread().isInterrupted());
+        });
+        pollingThread.start();
+        while (pollingThread.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+
+        pollingThread.interrupt();
+        pollingThread.join(5000);
+
+        Assert.assertTrue(thrown.get() instanceof FrejaEidClientInternalException);
+        Assert.assertTrue(interrupted.get());
+        Thread.sleep(3500);
+        verify(httpServiceMock, Mockito.times(1)).send(anyString(), any(RequestTemplate.class),
+                                                        any(RelyingPartyRequest.class),
+                                                        Mockito.eq(AuthenticationResult.class),
+                                                        (String) Mockito.isNull());
+    }
+
+    @Test
+    public void pollForResult_pollingExecutorSet_pollsRunOnExecutor() throws Exception {
+        AtomicInteger executedPolls = new AtomicInteger();
+        AuthenticationClientApi executorClient = AuthenticationClient.create(TestUtil.getDefaultSslSettings(),
+                                                                             FrejaEnvironment.TEST)
+                .setHttpService(httpServiceMock)
+                .setPollingTimeout(1000)
+                .setPollingExecutor(task -> new Thread(() -> {
+                    executedPolls.incrementAndGet();
+                    task.run();
+                }).start())
+                .setTransactionContext(TransactionContext.PERSONAL).build();
+        when(httpServiceMock.send(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                  Mockito.eq(AuthenticationResult.class), (String) Mockito.isNull()))
+                .thenReturn(new AuthenticationResult(REFERENCE, TransactionStatus.STARTED, null, null))
+                .thenReturn(new AuthenticationResult(REFERENCE, TransactionStatus.APPROVED, null, null));
+
+        AuthenticationResult response = executorClient.pollForResult(AuthenticationResultRequest.create(REFERENCE),
+                                                                     10);
+
+        assertEquals(TransactionStatus.APPROVED, response.getStatus());
+        assertEquals(2, executedPolls.get());
+    }
+
+    @Test
+    public void pollForResult_deadlineCloserThanPollingTimeout_lastIntervalTrimmed() throws Exception {
+        AuthenticationClientApi fixedClient = AuthenticationClient.create(TestUtil.getDefaultSslSettings(),
+                                                                          FrejaEnvironment.TEST)
+                .setHttpService(httpServiceMock)
+                .setPollingTimeout(1500)
+                .setTransactionContext(TransactionContext.PERSONAL).build();
+        when(httpServiceMock.send(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                  Mockito.eq(AuthenticationResult.class), (String) Mockito.isNull()))
+                .thenReturn(new AuthenticationResult(REFERENCE, TransactionStatus.STARTED, null, null));
+        long start = System.nanoTime();
+        try {
+            fixedClient.pollForResult(AuthenticationResultRequest.create(REFERENCE), 2);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientPollingException ex) {
+            assertEquals("A timeout of 2s was reached while sending request.", ex.getLocalizedMessage());
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assert.assertTrue(elapsed >= 2000 && elapsed < 2500);
+        verify(httpServiceMock, Mockito.times(3)).send(anyString(), any(RequestTemplate.class),
+                                                        any(RelyingPartyRequest.class),
+                                                        Mockito.eq(AuthenticationResult.class),
+                                                        (String) Mockito.isNull());
+    }
+
     @Test
     public void getAuthenticationResults_relyingPartyIdNull_success()
             throws FrejaEidClientInternalException, FrejaEidException {
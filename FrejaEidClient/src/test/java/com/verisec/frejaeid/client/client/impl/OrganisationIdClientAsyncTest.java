@@ -0,0 +1,224 @@
+package com.verisec.frejaeid.client.client.impl;
+
+import com.verisec.frejaeid.client.beans.common.RelyingPartyRequest;
+import com.verisec.frejaeid.client.beans.general.OrganisationId;
+import com.verisec.frejaeid.client.beans.organisationid.cancel.CancelAddOrganisationIdRequest;
+import com.verisec.frejaeid.client.beans.organisationid.get.OrganisationIdResult;
+import com.verisec.frejaeid.client.beans.organisationid.get.OrganisationIdResultRequest;
+import com.verisec.frejaeid.client.beans.organisationid.init.InitiateAddOrganisationIdRequest;
+import com.verisec.frejaeid.client.beans.organisationid.init.InitiateAddOrganisationIdResponse;
+import com.verisec.frejaeid.client.client.api.OrganisationIdClientApi;
+import com.verisec.frejaeid.client.client.util.TestUtil;
+import com.verisec.frejaeid.client.enums.FrejaEnvironment;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import com.verisec.frejaeid.client.http.AsyncHttpServiceApi;
+import com.verisec.frejaeid.client.http.HttpServiceApi;
+import com.verisec.frejaeid.client.service.PollJournal;
+import com.verisec.frejaeid.client.util.MethodUrl;
+import com.verisec.frejaeid.client.util.RequestTemplate;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class OrganisationIdClientAsyncTest {
+
+    private static final String ORGANISATION_ID_REFERENCE = "123456789123456789";
+    private static final String EMAIL = "eid.demo.verisec@gmail.com";
+    private final HttpServiceApi httpServiceMock = Mockito.mock(HttpServiceApi.class);
+    private final AsyncHttpServiceApi asyncHttpServiceMock = Mockito.mock(AsyncHttpServiceApi.class);
+    private OrganisationIdClientApi organisationIdClient;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void initialiseClient() throws FrejaEidClientInternalException {
+        organisationIdClient = OrganisationIdClient.create(TestUtil.getDefaultSslSettings(), FrejaEnvironment.TEST)
+                .setHttpService(httpServiceMock)
+                .setAsyncHttpService(asyncHttpServiceMock)
+                .setPollingTimeout(1000)
+                .build();
+    }
+
+    @Test
+    public void initiateAddAsync_success() throws Exception {
+        InitiateAddOrganisationIdRequest request = InitiateAddOrganisationIdRequest
+                .createDefaultWithEmail(EMAIL, OrganisationId.create("title", "identifierName", "identifier"));
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(InitiateAddOrganisationIdResponse.class),
+                                            (String) Mockito.isNull()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new InitiateAddOrganisationIdResponse(ORGANISATION_ID_REFERENCE)));
+
+        String reference = organisationIdClient.initiateAddAsync(request).toCompletableFuture().get();
+
+        verify(asyncHttpServiceMock).sendAsync(
+                FrejaEnvironment.TEST.getServiceUrl() + MethodUrl.ORGANISATION_ID_INIT_ADD,
+                RequestTemplate.INIT_ADD_ORGANISATION_ID_TEMPLATE, request, InitiateAddOrganisationIdResponse.class,
+                null);
+        verifyZeroInteractions(httpServiceMock);
+        Assert.assertEquals(ORGANISATION_ID_REFERENCE, reference);
+    }
+
+    @Test
+    public void pollForResultAsync_finalStatus_success() throws Exception {
+        OrganisationIdResultRequest request = OrganisationIdResultRequest.create(ORGANISATION_ID_REFERENCE);
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(OrganisationIdResult.class), (String) Mockito.isNull()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new OrganisationIdResult(ORGANISATION_ID_REFERENCE, TransactionStatus.APPROVED, null)));
+
+        OrganisationIdResult result = organisationIdClient.pollForResultAsync(request, 10).toCompletableFuture().get();
+
+        Assert.assertEquals(TransactionStatus.APPROVED, result.getStatus());
+    }
+
+    @Test
+    public void resumePolling_transactionJournaledBeforeRestart_pollingResumed() throws Exception {
+        Path journalPath = folder.getRoot().toPath().resolve("orgid-journal");
+        InitiateAddOrganisationIdRequest request = InitiateAddOrganisationIdRequest
+                .createDefaultWithEmail(EMAIL, OrganisationId.create("title", "identifierName", "identifier"));
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(InitiateAddOrganisationIdResponse.class),
+                                            (String) Mockito.isNull()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new InitiateAddOrganisationIdResponse(ORGANISATION_ID_REFERENCE)));
+        try (OrganisationIdClientApi journalingClient = createJournalingClient(journalPath)) {
+            journalingClient.initiateAddAsync(request).toCompletableFuture().get();
+        }
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(OrganisationIdResult.class), (String) Mockito.isNull()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new OrganisationIdResult(ORGANISATION_ID_REFERENCE, TransactionStatus.APPROVED, null)));
+
+        try (OrganisationIdClientApi restartedClient = createJournalingClient(journalPath)) {
+            Map<String, CompletionStage<OrganisationIdResult>> results = restartedClient.resumePolling(10, 1, null);
+
+            Assert.assertEquals(1, results.size());
+            Assert.assertEquals(TransactionStatus.APPROVED,
+                                results.get(ORGANISATION_ID_REFERENCE).toCompletableFuture().get().getStatus());
+        }
+        try (PollJournal journal = PollJournal.open(journalPath)) {
+            Assert.assertTrue(journal.getOutstanding().isEmpty());
+        }
+    }
+
+    @Test
+    public void resumePolling_serverRejectsReference_transactionFinishedInJournal() throws Exception {
+        Path journalPath = folder.getRoot().toPath().resolve("orgid-journal");
+        initiateBeforeRestart(journalPath, InitiateAddOrganisationIdRequest
+                .createDefaultWithEmail(EMAIL, OrganisationId.create("title", "identifierName", "identifier")));
+        CompletableFuture<OrganisationIdResult> rejected = new CompletableFuture<>();
+        rejected.completeExceptionally(new FrejaEidException("Invalid reference.", 1100));
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(OrganisationIdResult.class), (String) Mockito.isNull()))
+                .thenReturn(rejected);
+
+        try (OrganisationIdClientApi restartedClient = createJournalingClient(journalPath)) {
+            try {
+                restartedClient.resumePolling(10, 1, null).get(ORGANISATION_ID_REFERENCE).toCompletableFuture().get();
+                Assert.fail("Test should throw exception!");
+            } catch (ExecutionException ex) {
+                Assert.assertTrue(ex.getCause() instanceof FrejaEidException);
+            }
+        }
+        try (PollJournal journal = PollJournal.open(journalPath)) {
+            Assert.assertTrue(journal.getOutstanding().isEmpty());
+        }
+    }
+
+    @Test
+    public void resumePolling_expiredBeforeRestart_expiryConfirmedAndTransactionFinished() throws Exception {
+        Path journalPath = folder.getRoot().toPath().resolve("orgid-journal");
+        initiateBeforeRestart(journalPath, InitiateAddOrganisationIdRequest.createCustom()
+                .setEmailAndOrganisationId(EMAIL, OrganisationId.create("title", "identifierName", "identifier"))
+                .setExpiry(System.currentTimeMillis() + 100)
+                .build());
+        try (PollJournal journal = PollJournal.open(journalPath)) {
+            Assert.assertNotNull(journal.getOutstanding().get(0).getExpiry());
+        }
+        Thread.sleep(200);
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(OrganisationIdResult.class), (String) Mockito.isNull()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new OrganisationIdResult(ORGANISATION_ID_REFERENCE, TransactionStatus.STARTED, null)));
+
+        try (OrganisationIdClientApi restartedClient = createJournalingClient(journalPath)) {
+            OrganisationIdResult result = restartedClient.resumePolling(60, 1, null).get(ORGANISATION_ID_REFERENCE)
+                    .toCompletableFuture().get();
+
+            Assert.assertEquals(TransactionStatus.EXPIRED, result.getStatus());
+        }
+        verify(asyncHttpServiceMock, Mockito.atLeastOnce()).sendAsync(
+                anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                Mockito.eq(OrganisationIdResult.class), (String) Mockito.isNull());
+        try (PollJournal journal = PollJournal.open(journalPath)) {
+            Assert.assertTrue(journal.getOutstanding().isEmpty());
+        }
+    }
+
+    @Test
+    public void resumePolling_maxConcurrentPollsNotPositive_throwsFrejaEidClientInternalException() throws Exception {
+        try {
+            organisationIdClient.resumePolling(10, 0, null);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientInternalException ex) {
+            Assert.assertEquals("Maximum number of concurrent polls must be positive.", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void resumePolling_noPollJournal_noTransactionsResumed() throws Exception {
+        Assert.assertTrue(organisationIdClient.resumePolling(10, 1, null).isEmpty());
+        verifyZeroInteractions(asyncHttpServiceMock);
+    }
+
+    @Test
+    public void cancelAddAsync_invalidRequest_completesExceptionallyWithoutSending() throws Exception {
+        try {
+            organisationIdClient.cancelAddAsync(CancelAddOrganisationIdRequest.create("")).toCompletableFuture().get();
+            Assert.fail("Test should throw exception!");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof FrejaEidClientInternalException);
+        }
+        verifyZeroInteractions(asyncHttpServiceMock);
+    }
+
+    private void initiateBeforeRestart(Path journalPath, InitiateAddOrganisationIdRequest request) throws Exception {
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(InitiateAddOrganisationIdResponse.class),
+                                            (String) Mockito.isNull()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new InitiateAddOrganisationIdResponse(ORGANISATION_ID_REFERENCE)));
+        try (OrganisationIdClientApi journalingClient = createJournalingClient(journalPath)) {
+            journalingClient.initiateAddAsync(request).toCompletableFuture().get();
+        }
+    }
+
+    private OrganisationIdClientApi createJournalingClient(Path journalPath) throws FrejaEidClientInternalException {
+        return OrganisationIdClient.create(TestUtil.getDefaultSslSettings(), FrejaEnvironment.TEST)
+                .setPollJournal(journalPath)
+                .setHttpService(httpServiceMock)
+                .setAsyncHttpService(asyncHttpServiceMock)
+                .setPollingTimeout(1000)
+                .build();
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.verisec.frejaeid.client.client.impl;
+
+import com.verisec.frejaeid.client.beans.common.RelyingPartyRequest;
+import com.verisec.frejaeid.client.beans.sign.get.SignResult;
+import com.verisec.frejaeid.client.beans.sign.get.SignResultRequest;
+import com.verisec.frejaeid.client.beans.sign.get.SignResults;
+import com.verisec.frejaeid.client.beans.sign.get.SignResultsRequest;
+import com.verisec.frejaeid.client.beans.sign.init.DataToSign;
+import com.verisec.frejaeid.client.beans.sign.init.InitiateSignRequest;
+import com.verisec.frejaeid.client.beans.sign.init.InitiateSignResponse;
+import com.verisec.frejaeid.client.client.api.SignClientApi;
+import com.verisec.frejaeid.client.client.util.TestUtil;
+import com.verisec.frejaeid.client.enums.FrejaEnvironment;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.http.AsyncHttpServiceApi;
+import com.verisec.frejaeid.client.http.HttpServiceApi;
+import com.verisec.frejaeid.client.service.PolledResults;
+import com.verisec.frejaeid.client.util.MethodUrl;
+import com.verisec.frejaeid.client.util.RequestTemplate;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SignClientAsyncTest {
+
+    private static final String SIGN_REFERENCE = "123456789123456789";
+    private static final String EMAIL = "eid.demo.verisec@gmail.com";
+    private final HttpServiceApi httpServiceMock = Mockito.mock(HttpServiceApi.class);
+    private final AsyncHttpServiceApi asyncHttpServiceMock = Mockito.mock(AsyncHttpServiceApi.class);
+    private SignClientApi signClient;
+
+    @Before
+    public void initialiseClient() throws FrejaEidClientInternalException {
+        signClient = SignClient.create(TestUtil.getDefaultSslSettings(), FrejaEnvironment.TEST)
+                .setHttpService(httpServiceMock)
+                .setAsyncHttpService(asyncHttpServiceMock)
+                .build();
+    }
+
+    @Test
+    public void initiateAsync_success() throws Exception {
+        InitiateSignRequest request = InitiateSignRequest.createDefaultWithEmail(EMAIL, "title", "text");
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(InitiateSignResponse.class), (String) Mockito.isNull()))
+                .thenReturn(CompletableFuture.completedFuture(new InitiateSignResponse(SIGN_REFERENCE)));
+
+        String reference = signClient.initiateAsync(request).toCompletableFuture().get();
+
+        verify(asyncHttpServiceMock).sendAsync(FrejaEnvironment.TEST.getServiceUrl() + MethodUrl.SIGN_INIT,
+                                               RequestTemplate.INIT_SIGN_TEMPLATE, request,
+                                               InitiateSignResponse.class, null);
+        assertEquals(SIGN_REFERENCE, reference);
+    }
+
+    @Test
+    public void getResultsAsync_success() throws Exception {
+        SignResult signResult = new SignResult(SIGN_REFERENCE, TransactionStatus.APPROVED, null, null);
+        SignResultsRequest request = SignResultsRequest.create();
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(SignResults.class), (String) Mockito.isNull()))
+                .thenReturn(CompletableFuture.completedFuture(new SignResults(Arrays.asList(signResult))));
+
+        List<SignResult> results = signClient.getResultsAsync(request).toCompletableFuture().get();
+
+        verify(asyncHttpServiceMock).sendAsync(FrejaEnvironment.TEST.getServiceUrl() + MethodUrl.SIGN_GET_RESULTS,
+                                               RequestTemplate.SIGN_RESULTS_TEMPLATE, request, SignResults.class,
+                                               null);
+        assertEquals(Arrays.asList(signResult), results);
+    }
+
+    @Test
+    public void pollForResultAsync_zeroWaitingTime_returnsFirstResult() throws Exception {
+        SignResultRequest request = SignResultRequest.create(SIGN_REFERENCE);
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(SignResult.class), (String) Mockito.isNull()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new SignResult(SIGN_REFERENCE, TransactionStatus.STARTED, null, null)));
+
+        SignResult result = signClient.pollForResultAsync(request, 0).toCompletableFuture().get();
+
+        assertEquals(TransactionStatus.STARTED, result.getStatus());
+    }
+
+    @Test
+    public void pollForResults_manyReferences_allResultsHandedOut() throws Exception {
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(SignResult.class), (String) Mockito.isNull()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        new SignResult(((SignResultRequest) invocation.getArgument(2)).getSignRef(),
+                                       TransactionStatus.APPROVED, null, null)));
+        List<SignResultRequest> requests = Arrays.asList(SignResultRequest.create("reference-1"),
+                                                         SignResultRequest.create("reference-2"),
+                                                         SignResultRequest.create("reference-3"));
+
+        PolledResults<SignResult> results = signClient.pollForResults(requests, 60, 1, null);
+
+        Set<String> references = new HashSet<>();
+        while (results.hasNext()) {
+            SignResult result = results.take().toCompletableFuture().get();
+            assertEquals(TransactionStatus.APPROVED, result.getStatus());
+            references.add(result.getSignRef());
+        }
+        assertEquals(new HashSet<>(Arrays.asList("reference-1", "reference-2", "reference-3")), references);
+        assertEquals(references, results.getResults().keySet());
+    }
+
+    @Test(expected = FrejaEidClientInternalException.class)
+    public void pollForResults_noConcurrentRequests_throws() throws Exception {
+        signClient.pollForResults(Arrays.asList(SignResultRequest.create(SIGN_REFERENCE)), 60, 0, null);
+    }
+
+    @Test
+    public void pollForResultAsync_expiredWithoutFinalStatus_returnsExpired() throws Exception {
+        InitiateSignRequest initiateRequest = InitiateSignRequest.createCustom()
+                .setEmail(EMAIL)
+                .setDataToSign(DataToSign.create("text"))
+                .setExpiry(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(5) + 300)
+                .build();
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(InitiateSignResponse.class), (String) Mockito.isNull()))
+                .thenReturn(CompletableFuture.completedFuture(new InitiateSignResponse(SIGN_REFERENCE)));
+        when(asyncHttpServiceMock.sendAsync(anyString(), any(RequestTemplate.class), any(RelyingPartyRequest.class),
+                                            Mockito.eq(SignResult.class), (String) Mockito.isNull()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new SignResult(SIGN_REFERENCE, TransactionStatus.STARTED, null, null)));
+        String reference = signClient.initiateAsync(initiateRequest).toCompletableFuture().get();
+        long start = System.nanoTime();
+
+        SignResult result = signClient.pollForResultAsync(SignResultRequest.create(reference), 60)
+                .toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+        assertEquals(TransactionStatus.EXPIRED, result.getStatus());
+        assertEquals(SIGN_REFERENCE, result.getSignRef());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+}
@@ -133,6 +133,53 @@ public class SignClientGetResultTest {
         assertEquals(REQUESTED_ATTRIBUTES, response.getRequestedAttributes());
     }
 
+    @Test
+    public void getSignResult_finalStatus_repeatedRequestServedFromCache()
+            throws FrejaEidClientInternalException, FrejaEidException {
+        SignClientApi cachedSignClient = SignClient.create(TestUtil.getDefaultSslSettings(), FrejaEnvironment.TEST)
+                .setHttpService(httpServiceMock)
+                .setFinalResultCache(100, 60000)
+                .build();
+        SignResultRequest signResultRequest = SignResultRequest.create(SIGN_REFERENCE);
+        SignResult expectedResponse =
+                new SignResult(SIGN_REFERENCE, TransactionStatus.APPROVED, SIGN_DETAILS, REQUESTED_ATTRIBUTES);
+        when(httpServiceMock.send(anyString(), any(RequestTemplate.class),
+                                  any(RelyingPartyRequest.class), Mockito.eq(SignResult.class),
+                                  (String) Mockito.isNull())).thenReturn(expectedResponse);
+
+        cachedSignClient.getResult(signResultRequest);
+        SignResult response = cachedSignClient.getResult(SignResultRequest.create(SIGN_REFERENCE));
+
+        verify(httpServiceMock, Mockito.times(1)).send(anyString(), any(RequestTemplate.class),
+                                                       any(RelyingPartyRequest.class), Mockito.eq(SignResult.class),
+                                                       (String) Mockito.isNull());
+        assertEquals(expectedResponse, response);
+    }
+
+    @Test
+    public void getSignResult_nonFinalStatusOrCacheDisabled_everyRequestSent()
+            throws FrejaEidClientInternalException, FrejaEidException {
+        SignClientApi cachedSignClient = SignClient.create(TestUtil.getDefaultSslSettings(), FrejaEnvironment.TEST)
+                .setHttpService(httpServiceMock)
+                .setFinalResultCache(100, 60000)
+                .build();
+        when(httpServiceMock.send(anyString(), any(RequestTemplate.class),
+                                  any(RelyingPartyRequest.class), Mockito.eq(SignResult.class),
+                                  (String) Mockito.isNull()))
+                .thenReturn(new SignResult(SIGN_REFERENCE, TransactionStatus.STARTED, null, null),
+                            new SignResult(SIGN_REFERENCE, TransactionStatus.APPROVED, null, null));
+
+        assertEquals(TransactionStatus.STARTED, cachedSignClient.getResult(SignResultRequest.create(SIGN_REFERENCE))
+                .getStatus());
+        assertEquals(TransactionStatus.APPROVED, cachedSignClient.getResult(SignResultRequest.create(SIGN_REFERENCE))
+                .getStatus());
+        signClient.getResult(SignResultRequest.create(SIGN_REFERENCE));
+
+        verify(httpServiceMock, Mockito.times(3)).send(anyString(), any(RequestTemplate.class),
+                                                       any(RelyingPartyRequest.class), Mockito.eq(SignResult.class),
+                                                       (String) Mockito.isNull());
+    }
+
     @Test
     public void getSignResultOrganisational_expectSuccess() throws FrejaEidClientInternalException, FrejaEidException {
         SignResultRequest signResultRequest = SignResultRequest.create(SIGN_REFERENCE, RELYING_PARTY_ID);
@@ -0,0 +1,153 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResult;
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResultRequest;
+import com.verisec.frejaeid.client.beans.common.FrejaHttpErrorResponse;
+import com.verisec.frejaeid.client.enums.FrejaEidErrorCode;
+import com.verisec.frejaeid.client.enums.HttpStatusCode;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import com.verisec.frejaeid.client.util.JsonService;
+import com.verisec.frejaeid.client.util.MethodUrl;
+import com.verisec.frejaeid.client.util.RequestTemplate;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncHttpServiceTest extends CommonHttpTest {
+
+    private static final String METHOD_URL = "http://localhost:" + MOCK_SERVICE_PORT
+            + MethodUrl.AUTHENTICATION_GET_RESULT;
+    private static AsyncHttpService asyncHttpService;
+
+    @BeforeClass
+    public static void init() {
+        jsonService = new JsonService();
+        asyncHttpService = new AsyncHttpService(null, 2000, 2000);
+    }
+
+    @AfterClass
+    public static void close() throws IOException {
+        asyncHttpService.close();
+    }
+
+    @Test
+    public void sendAsync_success() throws Exception {
+        AuthenticationResultRequest request = AuthenticationResultRequest.create(REFERENCE, RELYING_PARTY_ID);
+        AuthenticationResult expectedResult = new AuthenticationResult(REFERENCE, TransactionStatus.STARTED, null,
+                                                                       null);
+        startMockServer(AuthenticationResultRequest.create(REFERENCE), HttpStatusCode.OK.getCode(),
+                        jsonService.serializeToJson(expectedResult));
+
+        AuthenticationResult result = asyncHttpService
+                .sendAsync(METHOD_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, request,
+                           AuthenticationResult.class, RELYING_PARTY_ID)
+                .get();
+
+        Assert.assertEquals(TransactionStatus.STARTED, result.getStatus());
+    }
+
+    @Test
+    public void sendAsync_success_completedOnResponseExecutor() throws Exception {
+        AuthenticationResultRequest request = AuthenticationResultRequest.create(REFERENCE);
+        startMockServer(request, HttpStatusCode.OK.getCode(), jsonService.serializeToJson(
+                new AuthenticationResult(REFERENCE, TransactionStatus.STARTED, null, null)));
+        AtomicInteger completions = new AtomicInteger();
+
+        try (AsyncHttpService service = new AsyncHttpService(
+                null, 2000, 2000, ConnectionPoolSettings.createDefault(), RetryPolicy.createDefault(),
+                CircuitBreaker.createDefault(), completion -> {
+                    completions.incrementAndGet();
+                    new Thread(completion, "response-executor").start();
+                })) {
+            AuthenticationResult result = service.sendAsync(METHOD_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE,
+                                                            request, AuthenticationResult.class, null).get();
+
+            Assert.assertEquals(TransactionStatus.STARTED, result.getStatus());
+            Assert.assertEquals(1, completions.get());
+        }
+    }
+
+    @Test
+    public void sendAsync_cancelled_requestAborted() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0);
+             AsyncHttpService service = new AsyncHttpService(null, 2000, 30000)) {
+            serverSocket.setSoTimeout(5000);
+            CompletableFuture<AuthenticationResult> futureResult = service.sendAsync(
+                    "http://localhost:" + serverSocket.getLocalPort() + MethodUrl.AUTHENTICATION_GET_RESULT,
+                    RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, AuthenticationResultRequest.create(REFERENCE),
+                    AuthenticationResult.class, null);
+            try (Socket socket = serverSocket.accept()) {
+                socket.setSoTimeout(5000);
+                InputStream request = socket.getInputStream();
+                Assert.assertTrue(request.read() >= 0);
+
+                futureResult.cancel(true);
+
+                byte[] buffer = new byte[1024];
+                while (request.read(buffer) >= 0) {
+                    // drains the rest of the request until the client closes the connection
+                }
+            }
+            Assert.assertTrue(futureResult.isCancelled());
+        }
+    }
+
+    @Test
+    public void sendAsync_badRequest_completesWithFrejaEidException() throws Exception {
+        AuthenticationResultRequest request = AuthenticationResultRequest.create(REFERENCE);
+        FrejaHttpErrorResponse errorResponse =
+                new FrejaHttpErrorResponse(FrejaEidErrorCode.INVALID_REFERENCE.getCode(),
+                                           FrejaEidErrorCode.INVALID_REFERENCE.getMessage());
+        startMockServer(request, HttpStatusCode.BAD_REQUEST.getCode(), jsonService.serializeToJson(errorResponse));
+
+        try {
+            asyncHttpService.sendAsync(METHOD_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, request,
+                                       AuthenticationResult.class, null).get();
+            Assert.fail("Test should throw exception!");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof FrejaEidException);
+            Assert.assertEquals(FrejaEidErrorCode.INVALID_REFERENCE.getCode(),
+                                ((FrejaEidException) ex.getCause()).getErrorCode());
+        }
+    }
+
+    @Test
+    public void sendAsync_unsupportedStatusCode_completesWithFrejaEidException() throws Exception {
+        AuthenticationResultRequest request = AuthenticationResultRequest.create(REFERENCE);
+        startMockServer(request, 418, "teapot");
+
+        try {
+            asyncHttpService.sendAsync(METHOD_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, request,
+                                       AuthenticationResult.class, null).get();
+            Assert.fail("Test should throw exception!");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof FrejaEidException);
+            Assert.assertEquals("Received unsupported HTTP status code 418. Received HTTP message: teapot.",
+                                ex.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void sendAsync_serverUnavailable_completesWithInternalException() throws Exception {
+        try {
+            asyncHttpService.sendAsync(METHOD_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE,
+                                       AuthenticationResultRequest.create(REFERENCE), AuthenticationResult.class,
+                                       null).get();
+            Assert.fail("Test should throw exception!");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof FrejaEidClientInternalException);
+        }
+    }
+
+}
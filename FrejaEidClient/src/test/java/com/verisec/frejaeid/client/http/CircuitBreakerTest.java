@@ -0,0 +1,204 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResult;
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResultRequest;
+import com.verisec.frejaeid.client.enums.CircuitState;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientCircuitOpenException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.util.MethodUrl;
+import com.verisec.frejaeid.client.util.RequestTemplate;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class CircuitBreakerTest {
+
+    private static final String SERVER_URL = "http://localhost:1";
+    private static final String GET_RESULT_URL = SERVER_URL + MethodUrl.AUTHENTICATION_GET_RESULT;
+    private static final String INIT_URL = SERVER_URL + MethodUrl.AUTHENTICATION_INIT;
+    private static final AuthenticationResultRequest REQUEST = AuthenticationResultRequest.create("reference");
+
+    @Test
+    public void onFailure_thresholdReached_circuitOpensOnlyForThatMethod() throws Exception {
+        CircuitBreaker circuitBreaker = CircuitBreaker.create(2, 60000);
+
+        circuitBreaker.acquirePermission(GET_RESULT_URL);
+        circuitBreaker.onFailure(GET_RESULT_URL);
+        Assert.assertEquals(CircuitState.CLOSED, circuitBreaker.getState(MethodUrl.AUTHENTICATION_GET_RESULT));
+        circuitBreaker.acquirePermission(GET_RESULT_URL);
+        circuitBreaker.onResponse(GET_RESULT_URL, 503);
+
+        Assert.assertEquals(CircuitState.OPEN, circuitBreaker.getState(MethodUrl.AUTHENTICATION_GET_RESULT));
+        Assert.assertEquals(CircuitState.CLOSED, circuitBreaker.getState(MethodUrl.AUTHENTICATION_INIT));
+        circuitBreaker.acquirePermission(INIT_URL);
+        try {
+            circuitBreaker.acquirePermission(GET_RESULT_URL);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientCircuitOpenException ex) {
+            Assert.assertEquals(MethodUrl.AUTHENTICATION_GET_RESULT.toString(), ex.getMethodUrl());
+            Assert.assertEquals(CircuitState.OPEN, ex.getCircuitState());
+            Assert.assertTrue(ex.getRetryAfterInMilliseconds() > 0);
+        }
+    }
+
+    @Test
+    public void getState_serverUrlWithBasePath_stateOfMethodReturned() throws Exception {
+        CircuitBreaker circuitBreaker = CircuitBreaker.create(1, 60000);
+
+        circuitBreaker.onFailure(SERVER_URL + "/api/v1" + MethodUrl.AUTHENTICATION_GET_RESULT);
+
+        Assert.assertEquals(CircuitState.OPEN, circuitBreaker.getState(MethodUrl.AUTHENTICATION_GET_RESULT));
+        Assert.assertEquals(CircuitState.CLOSED,
+                            circuitBreaker.getState(MethodUrl.ORGANISATION_AUTHENTICATION_GET_ONE_RESULT));
+        Assert.assertEquals(CircuitState.OPEN,
+                            circuitBreaker.getStates().get(MethodUrl.AUTHENTICATION_GET_RESULT.toString()));
+    }
+
+    @Test
+    public void toMethodPath_methodPathEndingWithAnotherMethodPath_longestMatchUsed() {
+        Assert.assertEquals(MethodUrl.ORGANISATION_AUTHENTICATION_GET_ONE_RESULT.toString(),
+                            CircuitBreaker.toMethodPath(
+                                    SERVER_URL + "/api" + MethodUrl.ORGANISATION_AUTHENTICATION_GET_ONE_RESULT));
+        Assert.assertEquals("/unknown", CircuitBreaker.toMethodPath(SERVER_URL + "/unknown"));
+    }
+
+    @Test
+    public void onResponse_clientErrorBetweenFailures_failuresReset() throws Exception {
+        CircuitBreaker circuitBreaker = CircuitBreaker.create(2, 60000);
+
+        circuitBreaker.onFailure(GET_RESULT_URL);
+        circuitBreaker.onResponse(GET_RESULT_URL, 400);
+        circuitBreaker.onFailure(GET_RESULT_URL);
+
+        Assert.assertEquals(CircuitState.CLOSED, circuitBreaker.getState(MethodUrl.AUTHENTICATION_GET_RESULT));
+    }
+
+    @Test
+    public void acquirePermission_openDurationPassed_singleProbeLetThrough() throws Exception {
+        CircuitBreaker circuitBreaker = CircuitBreaker.create(1, 50);
+        circuitBreaker.onFailure(GET_RESULT_URL);
+        Thread.sleep(100);
+
+        Assert.assertEquals(CircuitState.HALF_OPEN, circuitBreaker.getState(MethodUrl.AUTHENTICATION_GET_RESULT));
+        circuitBreaker.acquirePermission(GET_RESULT_URL);
+        try {
+            circuitBreaker.acquirePermission(GET_RESULT_URL);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientCircuitOpenException ex) {
+            Assert.assertEquals(CircuitState.HALF_OPEN, ex.getCircuitState());
+        }
+        circuitBreaker.onResponse(GET_RESULT_URL, 200);
+
+        Assert.assertEquals(CircuitState.CLOSED, circuitBreaker.getState(MethodUrl.AUTHENTICATION_GET_RESULT));
+        circuitBreaker.acquirePermission(GET_RESULT_URL);
+    }
+
+    @Test
+    public void onFailure_probeFails_circuitOpensAgain() throws Exception {
+        CircuitBreaker circuitBreaker = CircuitBreaker.create(3, 50);
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.onFailure(GET_RESULT_URL);
+        }
+        Thread.sleep(100);
+
+        circuitBreaker.acquirePermission(GET_RESULT_URL);
+        circuitBreaker.onFailure(GET_RESULT_URL);
+
+        Assert.assertEquals(CircuitState.OPEN, circuitBreaker.getState(MethodUrl.AUTHENTICATION_GET_RESULT));
+    }
+
+    @Test
+    public void onException_connectionPoolTimeout_notCountedAsFailure() throws Exception {
+        CircuitBreaker circuitBreaker = CircuitBreaker.create(1, 60000);
+
+        circuitBreaker.acquirePermission(GET_RESULT_URL);
+        circuitBreaker.onException(GET_RESULT_URL, new ConnectionPoolTimeoutException());
+
+        Assert.assertEquals(CircuitState.CLOSED, circuitBreaker.getState(MethodUrl.AUTHENTICATION_GET_RESULT));
+        circuitBreaker.acquirePermission(GET_RESULT_URL);
+        circuitBreaker.onException(GET_RESULT_URL, new IOException());
+        Assert.assertEquals(CircuitState.OPEN, circuitBreaker.getState(MethodUrl.AUTHENTICATION_GET_RESULT));
+    }
+
+    @Test
+    public void onException_probeWaitedForPooledConnection_probeReleased() throws Exception {
+        CircuitBreaker circuitBreaker = CircuitBreaker.create(1, 50);
+        circuitBreaker.onFailure(GET_RESULT_URL);
+        Thread.sleep(100);
+
+        circuitBreaker.acquirePermission(GET_RESULT_URL);
+        circuitBreaker.onException(GET_RESULT_URL, new ConnectionPoolTimeoutException());
+
+        Assert.assertEquals(CircuitState.HALF_OPEN, circuitBreaker.getState(MethodUrl.AUTHENTICATION_GET_RESULT));
+        circuitBreaker.acquirePermission(GET_RESULT_URL);
+    }
+
+    @Test
+    public void disabled_manyFailures_neverOpens() throws Exception {
+        CircuitBreaker circuitBreaker = CircuitBreaker.disabled();
+        for (int i = 0; i < 100; i++) {
+            circuitBreaker.acquirePermission(GET_RESULT_URL);
+            circuitBreaker.onFailure(GET_RESULT_URL);
+        }
+
+        Assert.assertEquals(CircuitState.CLOSED, circuitBreaker.getState(MethodUrl.AUTHENTICATION_GET_RESULT));
+        Assert.assertTrue(circuitBreaker.getStates().isEmpty());
+    }
+
+    @Test
+    public void send_serviceUnreachable_failsFastOnceCircuitOpens() throws Exception {
+        CircuitBreaker circuitBreaker = CircuitBreaker.create(2, 60000);
+        try (HttpService httpService = new HttpService(null, 500, 500, ConnectionPoolSettings.createDefault(),
+                                                       RetryPolicy.disabled(), circuitBreaker)) {
+            for (int i = 0; i < 2; i++) {
+                try {
+                    httpService.send(GET_RESULT_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, REQUEST,
+                                     AuthenticationResult.class, null);
+                    Assert.fail("Test should throw exception!");
+                } catch (FrejaEidClientInternalException ex) {
+                    Assert.assertFalse(ex instanceof FrejaEidClientCircuitOpenException);
+                }
+            }
+            try {
+                httpService.send(GET_RESULT_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, REQUEST,
+                                 AuthenticationResult.class, null);
+                Assert.fail("Test should throw exception!");
+            } catch (FrejaEidClientCircuitOpenException ex) {
+                Assert.assertEquals(CircuitState.OPEN, ex.getCircuitState());
+            }
+        }
+        Assert.assertEquals(CircuitState.OPEN,
+                            circuitBreaker.getStates().get(MethodUrl.AUTHENTICATION_GET_RESULT.toString()));
+    }
+
+    @Test
+    public void sendAsync_circuitOpen_completedExceptionallyWithoutSending() throws Exception {
+        CircuitBreaker circuitBreaker = CircuitBreaker.create(1, 60000);
+        circuitBreaker.onFailure(GET_RESULT_URL);
+        try (AsyncHttpService asyncHttpService = new AsyncHttpService(null, 500, 500,
+                                                                      ConnectionPoolSettings.createDefault(),
+                                                                      RetryPolicy.disabled(), circuitBreaker)) {
+            asyncHttpService.sendAsync(GET_RESULT_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, REQUEST,
+                                       AuthenticationResult.class, null).get(1, TimeUnit.SECONDS);
+            Assert.fail("Test should throw exception!");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof FrejaEidClientCircuitOpenException);
+        }
+    }
+
+    @Test
+    public void create_nonPositiveThreshold_expectError() {
+        try {
+            CircuitBreaker.create(0, 1000);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientInternalException ex) {
+            Assert.assertEquals("Circuit breaker failure threshold and open duration must be greater than zero.",
+                                ex.getLocalizedMessage());
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResult;
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResultRequest;
+import com.verisec.frejaeid.client.beans.common.FrejaHttpErrorResponse;
+import com.verisec.frejaeid.client.client.api.AuthenticationClientApi;
+import com.verisec.frejaeid.client.client.impl.AuthenticationClient;
+import com.verisec.frejaeid.client.client.util.TestUtil;
+import com.verisec.frejaeid.client.enums.FrejaEidErrorCode;
+import com.verisec.frejaeid.client.enums.FrejaEnvironment;
+import com.verisec.frejaeid.client.enums.HttpProtocolVersion;
+import com.verisec.frejaeid.client.enums.HttpStatusCode;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import com.verisec.frejaeid.client.util.JsonService;
+import com.verisec.frejaeid.client.util.MethodUrl;
+import com.verisec.frejaeid.client.util.RequestTemplate;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+
+public class Http2ServiceTest extends CommonHttpTest {
+
+    private static final String METHOD_URL = "http://localhost:" + MOCK_SERVICE_PORT
+            + MethodUrl.AUTHENTICATION_GET_RESULT;
+    private static Http2Service http2Service;
+
+    @BeforeClass
+    public static void init() {
+        jsonService = new JsonService();
+        http2Service = new Http2Service(null, 2000, 2000);
+    }
+
+    @Test
+    public void send_success() throws Exception {
+        AuthenticationResultRequest request = AuthenticationResultRequest.create(REFERENCE, RELYING_PARTY_ID);
+        AuthenticationResult expectedResult = new AuthenticationResult(REFERENCE, TransactionStatus.STARTED, null,
+                                                                       null);
+        startMockServer(AuthenticationResultRequest.create(REFERENCE), HttpStatusCode.OK.getCode(),
+                        jsonService.serializeToJson(expectedResult));
+
+        AuthenticationResult result = http2Service.send(METHOD_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE,
+                                                        request, AuthenticationResult.class, RELYING_PARTY_ID);
+
+        Assert.assertEquals(expectedResult, result);
+    }
+
+    @Test
+    public void sendAsync_badRequest_completesWithFrejaEidException() throws Exception {
+        AuthenticationResultRequest request = AuthenticationResultRequest.create(REFERENCE);
+        FrejaHttpErrorResponse errorResponse =
+                new FrejaHttpErrorResponse(FrejaEidErrorCode.INVALID_REFERENCE.getCode(),
+                                           FrejaEidErrorCode.INVALID_REFERENCE.getMessage());
+        startMockServer(request, HttpStatusCode.BAD_REQUEST.getCode(), jsonService.serializeToJson(errorResponse));
+
+        try {
+            http2Service.sendAsync(METHOD_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, request,
+                                   AuthenticationResult.class, null).get();
+            Assert.fail("Test should throw exception!");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof FrejaEidException);
+            Assert.assertEquals(FrejaEidErrorCode.INVALID_REFERENCE.getCode(),
+                                ((FrejaEidException) ex.getCause()).getErrorCode());
+        }
+    }
+
+    @Test
+    public void clientBuiltWithHttp2_getResult_success() throws Exception {
+        AuthenticationResultRequest request = AuthenticationResultRequest.create(REFERENCE);
+        AuthenticationResult expectedResult = new AuthenticationResult(REFERENCE, TransactionStatus.APPROVED, null,
+                                                                       null);
+        startMockServer(request, HttpStatusCode.OK.getCode(), jsonService.serializeToJson(expectedResult));
+
+        try (AuthenticationClientApi authenticationClient =
+                     AuthenticationClient.create(TestUtil.getDefaultSslSettings(), FrejaEnvironment.TEST)
+                             .setTestModeServerCustomUrl("http://localhost:" + MOCK_SERVICE_PORT)
+                             .setHttpProtocolVersion(HttpProtocolVersion.HTTP_2)
+                             .build()) {
+            Assert.assertEquals(expectedResult, authenticationClient.getResult(request));
+        }
+    }
+
+}
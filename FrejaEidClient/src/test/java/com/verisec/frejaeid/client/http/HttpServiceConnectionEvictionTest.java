@@ -0,0 +1,112 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResult;
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResultRequest;
+import com.verisec.frejaeid.client.enums.HttpStatusCode;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.util.JsonService;
+import com.verisec.frejaeid.client.util.MethodUrl;
+import com.verisec.frejaeid.client.util.RequestTemplate;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+public class HttpServiceConnectionEvictionTest extends CommonHttpTest {
+
+    private static final String METHOD_URL = "http://localhost:" + MOCK_SERVICE_PORT
+            + MethodUrl.AUTHENTICATION_GET_RESULT;
+    private static final long KEEP_ALIVE_DURATION = 10000;
+
+    @BeforeClass
+    public static void init() {
+        jsonService = new JsonService();
+    }
+
+    @Test
+    public void getKeepAliveDuration_serverTimeoutShorter_serverTimeoutUsed() {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.addHeader("Keep-Alive", "timeout=5, max=100");
+
+        long duration = new KeepAliveStrategy(KEEP_ALIVE_DURATION).getKeepAliveDuration(response, null);
+
+        Assert.assertEquals(5000, duration);
+    }
+
+    @Test
+    public void getKeepAliveDuration_serverTimeoutLonger_configuredDurationUsed() {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.addHeader("Keep-Alive", "timeout=600");
+
+        long duration = new KeepAliveStrategy(KEEP_ALIVE_DURATION).getKeepAliveDuration(response, null);
+
+        Assert.assertEquals(KEEP_ALIVE_DURATION, duration);
+    }
+
+    @Test
+    public void getKeepAliveDuration_noKeepAliveHeader_configuredDurationUsed() {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+
+        long duration = new KeepAliveStrategy(KEEP_ALIVE_DURATION).getKeepAliveDuration(response, null);
+
+        Assert.assertEquals(KEEP_ALIVE_DURATION, duration);
+    }
+
+    @Test
+    public void evictConnections_serviceNeverClosed_serviceGarbageCollected() throws Exception {
+        WeakReference<HttpService> httpService = new WeakReference<>(createUnclosedHttpService());
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (httpService.get() != null && System.nanoTime() < deadline) {
+            System.gc();
+            Thread.sleep(50);
+        }
+
+        Assert.assertNull(httpService.get());
+    }
+
+    private static HttpService createUnclosedHttpService() throws FrejaEidClientInternalException {
+        ConnectionPoolSettings connectionPoolSettings = ConnectionPoolSettings.createCustom()
+                .setEvictionInterval(10)
+                .build();
+        return new HttpService(null, 2000, 2000, connectionPoolSettings);
+    }
+
+    @Test
+    public void evictConnections_connectionIdleLongerThanKeepAlive_connectionEvicted() throws Exception {
+        ConnectionPoolSettings connectionPoolSettings = ConnectionPoolSettings.createCustom()
+                .setKeepAliveDuration(100)
+                .setEvictionInterval(0)
+                .build();
+        AuthenticationResultRequest request = AuthenticationResultRequest.create(REFERENCE);
+        AuthenticationResult expectedResult = new AuthenticationResult(REFERENCE, TransactionStatus.STARTED, null,
+                                                                       null);
+        startMockServer(request, HttpStatusCode.OK.getCode(), jsonService.serializeToJson(expectedResult));
+
+        try (HttpService httpService = new HttpService(null, 2000, 2000, connectionPoolSettings)) {
+            httpService.send(METHOD_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, request,
+                             AuthenticationResult.class, null);
+            Thread.sleep(300);
+            httpService.evictConnections();
+
+            Assert.assertEquals(1, httpService.getEvictedConnectionCount());
+            Assert.assertEquals(0, httpService.getStaleConnectionCount());
+        }
+    }
+
+    @Test
+    public void createConnectionPoolSettings_nonPositiveKeepAlive_expectError() {
+        try {
+            ConnectionPoolSettings.createCustom().setKeepAliveDuration(0).build();
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientInternalException ex) {
+            Assert.assertEquals("Keep-alive duration must be greater than zero.", ex.getLocalizedMessage());
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HttpServiceConnectionPoolTest {
+
+    @Test
+    public void adjustPoolSize_fixedPool_sizeUnchanged() {
+        HttpService httpService = new HttpService(null, 2000, 2000);
+
+        httpService.adjustPoolSize(100);
+
+        Assert.assertEquals(ConnectionPoolSettings.DEFAULT_MAX_CONNECTIONS_TOTAL,
+                            httpService.getCurrentMaxConnectionsTotal());
+    }
+
+    @Test
+    public void adjustPoolSize_adaptivePool_growsUpToLimit() throws FrejaEidClientInternalException {
+        ConnectionPoolSettings connectionPoolSettings = ConnectionPoolSettings.create(10, 10, 2000, -1, 50);
+        HttpService httpService = new HttpService(null, 2000, 2000, connectionPoolSettings);
+
+        httpService.adjustPoolSize(9);
+        Assert.assertEquals(10, httpService.getCurrentMaxConnectionsTotal());
+        httpService.adjustPoolSize(10);
+        Assert.assertEquals(20, httpService.getCurrentMaxConnectionsTotal());
+        httpService.adjustPoolSize(35);
+        Assert.assertEquals(40, httpService.getCurrentMaxConnectionsTotal());
+        httpService.adjustPoolSize(45);
+        Assert.assertEquals(50, httpService.getCurrentMaxConnectionsTotal());
+        httpService.adjustPoolSize(500);
+        Assert.assertEquals(50, httpService.getCurrentMaxConnectionsTotal());
+    }
+
+    @Test
+    public void create_nonPositiveMaxConnections_expectError() {
+        try {
+            ConnectionPoolSettings.create(0, 0, 2000, -1, 0);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientInternalException ex) {
+            Assert.assertEquals("Maximum number of connections must be greater than zero.", ex.getLocalizedMessage());
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResult;
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResultRequest;
+import com.verisec.frejaeid.client.beans.general.RequestedAttributes;
+import com.verisec.frejaeid.client.enums.HttpStatusCode;
+import com.verisec.frejaeid.client.enums.RegistrationLevel;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.util.JsonService;
+import com.verisec.frejaeid.client.util.MethodUrl;
+import com.verisec.frejaeid.client.util.RequestTemplate;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class HttpServiceResponseTest extends CommonHttpTest {
+
+    private static final String METHOD_URL = "http://localhost:" + MOCK_SERVICE_PORT
+            + MethodUrl.AUTHENTICATION_GET_RESULT;
+    private static HttpService httpService;
+
+    @BeforeClass
+    public static void init() {
+        jsonService = new JsonService();
+        httpService = new HttpService(null, 2000, 2000);
+    }
+
+    @AfterClass
+    public static void close() throws IOException {
+        httpService.close();
+    }
+
+    @Test
+    public void send_largeResult_parsedFromStream() throws Exception {
+        AuthenticationResultRequest request = AuthenticationResultRequest.create(REFERENCE);
+        String photo = StringUtils.repeat("QUJD", 512 * 1024);
+        RequestedAttributes requestedAttributes =
+                new RequestedAttributes(null, null, null, null, null, null, null, null, null, null, null,
+                                        RegistrationLevel.EXTENDED, null, photo, null, photo, null, null, null, null);
+        AuthenticationResult expectedResult = new AuthenticationResult(REFERENCE, TransactionStatus.APPROVED, null,
+                                                                       requestedAttributes);
+        startMockServer(request, HttpStatusCode.OK.getCode(), jsonService.serializeToJson(expectedResult));
+
+        AuthenticationResult result = httpService.send(METHOD_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE,
+                                                       request, AuthenticationResult.class, null);
+
+        Assert.assertEquals(expectedResult, result);
+    }
+
+    @Test
+    public void send_invalidJsonOnOk_expectInternalError() throws Exception {
+        AuthenticationResultRequest request = AuthenticationResultRequest.create(REFERENCE);
+        startMockServer(request, HttpStatusCode.OK.getCode(), "{not json");
+
+        try {
+            httpService.send(METHOD_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, request,
+                             AuthenticationResult.class, null);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientInternalException ex) {
+            Assert.assertEquals("Failed to deserialize response into object of class "
+                                        + AuthenticationResult.class.getName(), ex.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,261 @@
+package com.verisec.frejaeid.client.http;
+
+import com.sun.net.httpserver.HttpServer;
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResult;
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResultRequest;
+import com.verisec.frejaeid.client.enums.HttpStatusCode;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import com.verisec.frejaeid.client.util.JsonService;
+import com.verisec.frejaeid.client.util.MethodUrl;
+import com.verisec.frejaeid.client.util.RequestTemplate;
+import org.apache.http.client.utils.DateUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HttpServiceRetryTest {
+
+    private static final int RETRY_MOCK_SERVICE_PORT = 30666;
+    private static final String METHOD_URL = "http://localhost:" + RETRY_MOCK_SERVICE_PORT
+            + MethodUrl.AUTHENTICATION_GET_RESULT;
+    private static final String REFERENCE = "123456789012345678";
+    private static final AuthenticationResultRequest REQUEST = AuthenticationResultRequest.create(REFERENCE);
+    private static final AuthenticationResult RESULT = new AuthenticationResult(REFERENCE, TransactionStatus.STARTED,
+                                                                                null, null);
+    private static JsonService jsonService;
+    private static RetryPolicy fastRetryPolicy;
+    private final AtomicInteger requestsReceived = new AtomicInteger();
+    private HttpServer server;
+
+    @BeforeClass
+    public static void init() throws FrejaEidClientInternalException {
+        jsonService = new JsonService();
+        fastRetryPolicy = RetryPolicy.createCustom().setInitialBackoff(10).setMaxBackoff(100).build();
+    }
+
+    @After
+    public void stopServer() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void send_idempotentRequestServiceUnavailableOnce_retriedAndSucceeds() throws Exception {
+        startMockServer(1, HttpStatusCode.SERVICE_UNAVAILABLE.getCode(), "0");
+
+        try (HttpService httpService = new HttpService(null, 2000, 2000, ConnectionPoolSettings.createDefault(),
+                                                       fastRetryPolicy)) {
+            AuthenticationResult result = httpService.send(METHOD_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE,
+                                                           REQUEST, AuthenticationResult.class, null);
+
+            Assert.assertEquals(RESULT, result);
+            Assert.assertEquals(2, requestsReceived.get());
+        }
+    }
+
+    @Test
+    public void send_nonIdempotentRequestServiceUnavailable_notRetried() throws Exception {
+        startMockServer(1, HttpStatusCode.SERVICE_UNAVAILABLE.getCode(), null);
+
+        try (HttpService httpService = new HttpService(null, 2000, 2000, ConnectionPoolSettings.createDefault(),
+                                                       fastRetryPolicy)) {
+            httpService.send(METHOD_URL, RequestTemplate.CANCEL_AUTHENTICATION_TEMPLATE, REQUEST,
+                             AuthenticationResult.class, null);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidException ex) {
+            assertHttpStatusCode(HttpStatusCode.SERVICE_UNAVAILABLE, ex);
+        }
+        Assert.assertEquals(1, requestsReceived.get());
+    }
+
+    @Test
+    public void send_retryAfterLongerThanMaxBackoff_notRetried() throws Exception {
+        startMockServer(1, HttpStatusCode.TOO_MANY_REQUESTS.getCode(), "60");
+
+        try (HttpService httpService = new HttpService(null, 2000, 2000, ConnectionPoolSettings.createDefault(),
+                                                       fastRetryPolicy)) {
+            httpService.send(METHOD_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, REQUEST,
+                             AuthenticationResult.class, null);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidException ex) {
+            assertHttpStatusCode(HttpStatusCode.TOO_MANY_REQUESTS, ex);
+        }
+        Assert.assertEquals(1, requestsReceived.get());
+    }
+
+    @Test
+    public void send_retryBudgetExhausted_retriesStop() throws Exception {
+        startMockServer(Integer.MAX_VALUE, HttpStatusCode.SERVICE_UNAVAILABLE.getCode(), null);
+        RetryPolicy retryPolicy = RetryPolicy.createCustom().setInitialBackoff(10).setMaxBackoff(100)
+                .setRetryBudget(0, 2).build();
+
+        try (HttpService httpService = new HttpService(null, 2000, 2000, ConnectionPoolSettings.createDefault(),
+                                                       retryPolicy)) {
+            for (int i = 0; i < 2; i++) {
+                try {
+                    httpService.send(METHOD_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, REQUEST,
+                                     AuthenticationResult.class, null);
+                    Assert.fail("Test should throw exception!");
+                } catch (FrejaEidException ex) {
+                    assertHttpStatusCode(HttpStatusCode.SERVICE_UNAVAILABLE, ex);
+                }
+            }
+        }
+        Assert.assertEquals(4, requestsReceived.get());
+    }
+
+    @Test
+    public void sendAsync_idempotentRequestTooManyRequestsOnce_retriedAndSucceeds() throws Exception {
+        startMockServer(1, HttpStatusCode.TOO_MANY_REQUESTS.getCode(), null);
+
+        try (AsyncHttpService asyncHttpService = new AsyncHttpService(null, 2000, 2000,
+                                                                      ConnectionPoolSettings.createDefault(),
+                                                                      fastRetryPolicy)) {
+            AuthenticationResult result = asyncHttpService.sendAsync(METHOD_URL,
+                                                                     RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE,
+                                                                     REQUEST, AuthenticationResult.class, null)
+                    .get(10, TimeUnit.SECONDS);
+
+            Assert.assertEquals(RESULT, result);
+            Assert.assertEquals(2, requestsReceived.get());
+        }
+    }
+
+    @Test
+    public void sendAsync_nonIdempotentRequestServiceUnavailable_notRetried() throws Exception {
+        startMockServer(1, HttpStatusCode.SERVICE_UNAVAILABLE.getCode(), null);
+
+        try (AsyncHttpService asyncHttpService = new AsyncHttpService(null, 2000, 2000,
+                                                                      ConnectionPoolSettings.createDefault(),
+                                                                      fastRetryPolicy)) {
+            asyncHttpService.sendAsync(METHOD_URL, RequestTemplate.CANCEL_AUTHENTICATION_TEMPLATE, REQUEST,
+                                       AuthenticationResult.class, null).get(10, TimeUnit.SECONDS);
+            Assert.fail("Test should throw exception!");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof FrejaEidException);
+        }
+        Assert.assertEquals(1, requestsReceived.get());
+    }
+
+    @Test
+    public void http2Send_idempotentRequestServiceUnavailableOnce_retriedAndSucceeds() throws Exception {
+        startMockServer(1, HttpStatusCode.SERVICE_UNAVAILABLE.getCode(), "0");
+        Http2Service http2Service = new Http2Service(null, 2000, 2000, fastRetryPolicy,
+                                                     CircuitBreaker.createDefault());
+
+        AuthenticationResult result = http2Service.send(METHOD_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE,
+                                                        REQUEST, AuthenticationResult.class, null);
+
+        Assert.assertEquals(RESULT, result);
+        Assert.assertEquals(2, requestsReceived.get());
+    }
+
+    @Test
+    public void http2SendAsync_idempotentRequestTooManyRequestsOnce_retriedAndSucceeds() throws Exception {
+        startMockServer(1, HttpStatusCode.TOO_MANY_REQUESTS.getCode(), null);
+        Http2Service http2Service = new Http2Service(null, 2000, 2000, fastRetryPolicy,
+                                                     CircuitBreaker.createDefault());
+
+        AuthenticationResult result = http2Service.sendAsync(METHOD_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE,
+                                                             REQUEST, AuthenticationResult.class, null)
+                .get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(RESULT, result);
+        Assert.assertEquals(2, requestsReceived.get());
+    }
+
+    @Test
+    public void http2Send_retryPolicyDisabled_notRetried() throws Exception {
+        startMockServer(1, HttpStatusCode.SERVICE_UNAVAILABLE.getCode(), null);
+        Http2Service http2Service = new Http2Service(null, 2000, 2000, RetryPolicy.disabled(),
+                                                     CircuitBreaker.createDefault());
+
+        try {
+            http2Service.send(METHOD_URL, RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, REQUEST,
+                              AuthenticationResult.class, null);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidException ex) {
+            assertHttpStatusCode(HttpStatusCode.SERVICE_UNAVAILABLE, ex);
+        }
+        Assert.assertEquals(1, requestsReceived.get());
+    }
+
+    @Test
+    public void getRetryDelay_withoutRetryAfter_boundedByExponentialBackoff() {
+        for (int retry = 0; retry < 3; retry++) {
+            long delay = fastRetryPolicy.getRetryDelay(retry, null);
+            Assert.assertTrue(delay >= 0 && delay <= Math.min(10L << retry, 100));
+        }
+        Assert.assertEquals(-1, fastRetryPolicy.getRetryDelay(3, null));
+    }
+
+    @Test
+    public void getRetryDelay_retryAfter_serverDelayUsed() {
+        Assert.assertEquals(0, fastRetryPolicy.getRetryDelay(0, "0"));
+        Assert.assertEquals(-1, fastRetryPolicy.getRetryDelay(0, "1"));
+        Assert.assertEquals(-1, fastRetryPolicy.getRetryDelay(0, DateUtils.formatDate(
+                new Date(System.currentTimeMillis() + 60000))));
+        Assert.assertEquals(0, fastRetryPolicy.getRetryDelay(0, DateUtils.formatDate(
+                new Date(System.currentTimeMillis() - 60000))));
+    }
+
+    @Test
+    public void build_initialBackoffGreaterThanMaxBackoff_expectError() {
+        try {
+            RetryPolicy.createCustom().setInitialBackoff(1000).setMaxBackoff(100).build();
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientInternalException ex) {
+            Assert.assertEquals("Initial backoff cannot exceed maximum backoff.", ex.getLocalizedMessage());
+        }
+    }
+
+    private static void assertHttpStatusCode(HttpStatusCode httpStatusCode, FrejaEidException ex) {
+        Assert.assertTrue(ex.getMessage().startsWith("HTTP code " + httpStatusCode.getCode()));
+    }
+
+    /**
+     * Answers first {@code failures} requests with given status code and the
+     * rest with a result.
+     */
+    private void startMockServer(final int failures, final int failureStatusCode, final String retryAfter)
+            throws IOException, FrejaEidClientInternalException {
+        final byte[] result = jsonService.serializeToJson(RESULT).getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress(RETRY_MOCK_SERVICE_PORT), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream requestBody = exchange.getRequestBody()) {
+                while (requestBody.read() != -1) {
+                    // drain request
+                }
+            }
+            byte[] response = result;
+            int statusCode = HttpStatusCode.OK.getCode();
+            if (requestsReceived.incrementAndGet() <= failures) {
+                response = "unavailable".getBytes(StandardCharsets.UTF_8);
+                statusCode = failureStatusCode;
+                if (retryAfter != null) {
+                    exchange.getResponseHeaders().add("Retry-After", retryAfter);
+                }
+            }
+            exchange.sendResponseHeaders(statusCode, response.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(response);
+            }
+        });
+        server.start();
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResult;
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResultRequest;
+import com.verisec.frejaeid.client.enums.HttpStatusCode;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.util.JsonService;
+import com.verisec.frejaeid.client.util.MethodUrl;
+import com.verisec.frejaeid.client.util.RequestTemplate;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class HttpServiceWarmUpTest extends CommonHttpTest {
+
+    private static final String SERVER_URL = "http://localhost:" + MOCK_SERVICE_PORT;
+
+    @BeforeClass
+    public static void init() {
+        jsonService = new JsonService();
+    }
+
+    @Test
+    public void warmUp_serverReachable_connectionsPooledAndReused() throws Exception {
+        AuthenticationResultRequest request = AuthenticationResultRequest.create(REFERENCE);
+        AuthenticationResult expectedResult = new AuthenticationResult(REFERENCE, TransactionStatus.STARTED, null,
+                                                                       null);
+        startMockServer(request, HttpStatusCode.OK.getCode(), jsonService.serializeToJson(expectedResult));
+
+        try (HttpService httpService = new HttpService(null, 2000, 2000)) {
+            int warmedUp = httpService.warmUp(Arrays.asList(SERVER_URL, SERVER_URL + "/other", null), 3);
+            AuthenticationResult result = httpService.send(SERVER_URL + MethodUrl.AUTHENTICATION_GET_RESULT,
+                                                           RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE, request,
+                                                           AuthenticationResult.class, null);
+
+            Assert.assertEquals(3, warmedUp);
+            Assert.assertEquals(expectedResult, result);
+            Assert.assertEquals(0, httpService.getStaleConnectionCount());
+        }
+    }
+
+    @Test
+    public void warmUp_moreConnectionsThanRouteLimit_cappedByRouteLimit() throws Exception {
+        startMockServer(AuthenticationResultRequest.create(REFERENCE), HttpStatusCode.OK.getCode(), "");
+        ConnectionPoolSettings connectionPoolSettings = ConnectionPoolSettings.createCustom()
+                .setMaxConnectionsTotal(4)
+                .setMaxConnectionsPerRoute(2)
+                .build();
+
+        try (HttpService httpService = new HttpService(null, 2000, 2000, connectionPoolSettings)) {
+            Assert.assertEquals(2, httpService.warmUp(Collections.singletonList(SERVER_URL), 10));
+        }
+    }
+
+    @Test
+    public void warmUp_serverUnreachable_noConnectionsAndNoError() throws Exception {
+        try (HttpService httpService = new HttpService(null, 500, 500)) {
+            Assert.assertEquals(0, httpService.warmUp(Collections.singletonList("http://localhost:1"), 2));
+        }
+    }
+
+}
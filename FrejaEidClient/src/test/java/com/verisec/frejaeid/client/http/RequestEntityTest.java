@@ -0,0 +1,64 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResultRequest;
+import com.verisec.frejaeid.client.beans.sign.init.InitiateSignRequest;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import com.verisec.frejaeid.client.util.JsonService;
+import com.verisec.frejaeid.client.util.RequestTemplate;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.http.util.EntityUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+
+public class RequestEntityTest {
+
+    private static final String RELYING_PARTY_ID = "relying_party_id";
+    private final JsonService jsonService = new JsonService();
+
+    @Test
+    public void writeTo_templateAndRelyingPartyId_sameAsFormattedBody()
+            throws FrejaEidClientInternalException, IOException {
+        InitiateSignRequest request = InitiateSignRequest.createDefaultWithEmail("eid.demo.verisec@gmail.com",
+                                                                                 "title", "Text to be signed ĆČŽ.");
+        String expectedBody = MessageFormat.format(RequestTemplate.INIT_SIGN_TEMPLATE.getTemplate(),
+                                                   Base64.encodeBase64String(jsonService.serializeToJson(request)
+                                                                                     .getBytes(StandardCharsets.UTF_8)))
+                + "&" + MessageFormat.format(RequestTemplate.RELYING_PARTY_ID.getTemplate(), RELYING_PARTY_ID);
+
+        RequestEntity requestEntity = new RequestEntity(jsonService, RequestTemplate.INIT_SIGN_TEMPLATE, request,
+                                                        RELYING_PARTY_ID);
+
+        Assert.assertEquals(expectedBody, EntityUtils.toString(requestEntity, StandardCharsets.UTF_8));
+        Assert.assertTrue(requestEntity.isChunked());
+        Assert.assertEquals(-1, requestEntity.getContentLength());
+    }
+
+    @Test
+    public void writeTo_onlyTemplate_base64PaddedAsFormattedBody() throws FrejaEidClientInternalException, IOException {
+        for (String reference : new String[]{"1", "12", "123"}) {
+            AuthenticationResultRequest request = AuthenticationResultRequest.create(reference);
+            String expectedBody = MessageFormat.format(
+                    RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE.getTemplate(),
+                    Base64.encodeBase64String(jsonService.serializeToJson(request).getBytes(StandardCharsets.UTF_8)));
+            RequestEntity requestEntity = new RequestEntity(jsonService,
+                                                            RequestTemplate.AUTHENTICATION_RESULT_TEMPLATE,
+                                                            request, null);
+
+            Assert.assertEquals(expectedBody, EntityUtils.toString(requestEntity, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void writeTo_onlyRelyingPartyId_relyingPartyIdParameter()
+            throws FrejaEidClientInternalException, IOException {
+        RequestEntity requestEntity = new RequestEntity(jsonService, null, null, RELYING_PARTY_ID);
+
+        Assert.assertEquals("relyingPartyId=" + RELYING_PARTY_ID,
+                            EntityUtils.toString(requestEntity, StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.verisec.frejaeid.client.http;
+
+import com.verisec.frejaeid.client.beans.general.SslSettings;
+import com.verisec.frejaeid.client.client.api.AuthenticationClientApi;
+import com.verisec.frejaeid.client.client.api.SignClientApi;
+import com.verisec.frejaeid.client.client.impl.AuthenticationClient;
+import com.verisec.frejaeid.client.client.impl.SignClient;
+import com.verisec.frejaeid.client.client.util.TestUtil;
+import com.verisec.frejaeid.client.enums.FrejaEnvironment;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SharedHttpTransportTest {
+
+    @Test
+    public void release_lastReference_transportReleased() throws FrejaEidClientInternalException {
+        SharedHttpTransport transport = new SharedHttpTransport(new HttpService(null, 2000, 2000),
+                                                                new AsyncHttpService(null, 2000, 2000));
+
+        transport.acquire();
+        transport.close();
+        transport.close();
+        Assert.assertFalse(transport.isReleased());
+
+        transport.release();
+        Assert.assertTrue(transport.isReleased());
+    }
+
+    @Test
+    public void acquire_releasedTransport_expectError() {
+        SharedHttpTransport transport = new SharedHttpTransport(new HttpService(null, 2000, 2000), null);
+        transport.close();
+
+        try {
+            transport.acquire();
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientInternalException ex) {
+            Assert.assertEquals("Shared HTTP transport is already closed.", ex.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void buildClients_sharedTransport_releasedWhenAllClosed() throws FrejaEidClientInternalException {
+        SslSettings sslSettings = SslSettings.create(TestUtil.KEYSTORE_PATH, TestUtil.KEYSTORE_PASSWORD,
+                                                     TestUtil.CERTIFICATE_PATH);
+        SharedHttpTransport transport = SharedHttpTransport.create(sslSettings);
+        AuthenticationClientApi authenticationClient = AuthenticationClient.create(sslSettings, FrejaEnvironment.TEST)
+                .setSharedTransport(transport)
+                .build();
+        SignClientApi signClient = SignClient.create(sslSettings, FrejaEnvironment.TEST)
+                .setSharedTransport(transport)
+                .build();
+
+        transport.close();
+        authenticationClient.close();
+        authenticationClient.close();
+        Assert.assertFalse(transport.isReleased());
+
+        signClient.close();
+        Assert.assertTrue(transport.isReleased());
+    }
+
+}
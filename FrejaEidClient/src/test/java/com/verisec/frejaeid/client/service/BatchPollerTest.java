@@ -0,0 +1,101 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResult;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchPollerTest {
+
+    private static final String FIRST_REFERENCE = "123456789012345678";
+    private static final String SECOND_REFERENCE = "876543210987654321";
+    private static final int POLLING_TIMEOUT_IN_MILLISECONDS = 100;
+
+    @Test
+    public void register_resultsRequestFailsTransiently_polledAgainUntilFinalStatus() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        BatchPoller<AuthenticationResult> batchPoller = new BatchPoller<>(
+                relyingPartyId -> {
+                    if (attempts.incrementAndGet() < 3) {
+                        throw new FrejaEidException("HTTP code 503 message: Service Unavailable");
+                    }
+                    return Collections.singletonList(result(FIRST_REFERENCE, TransactionStatus.APPROVED));
+                }, (reference, relyingPartyId) -> null, status -> status == TransactionStatus.APPROVED,
+                POLLING_TIMEOUT_IN_MILLISECONDS, null);
+
+        AuthenticationResult result = batchPoller.register(FIRST_REFERENCE, null, 10, null).get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals(TransactionStatus.APPROVED, result.getStatus());
+        Assert.assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void register_referenceRejected_pollerFails() throws Exception {
+        BatchPoller<AuthenticationResult> batchPoller = new BatchPoller<>(
+                relyingPartyId -> Collections.emptyList(), (reference, relyingPartyId) -> {
+                    throw new FrejaEidException("Invalid reference.", 1100);
+                }, status -> status == TransactionStatus.APPROVED, POLLING_TIMEOUT_IN_MILLISECONDS, null);
+
+        try {
+            batchPoller.register(FIRST_REFERENCE, null, 10, null).get(5, TimeUnit.SECONDS);
+            Assert.fail("Test should throw exception!");
+        } catch (ExecutionException ex) {
+            Assert.assertEquals(1100, ((FrejaEidException) ex.getCause()).getErrorCode());
+        }
+    }
+
+    @Test
+    public void register_referencesMissingFromResults_polledConcurrently() throws Exception {
+        CountDownLatch bothPolled = new CountDownLatch(2);
+        BatchPoller<AuthenticationResult> batchPoller = new BatchPoller<>(
+                relyingPartyId -> Collections.emptyList(), (reference, relyingPartyId) -> {
+                    bothPolled.countDown();
+                    try {
+                        if (!bothPolled.await(5, TimeUnit.SECONDS)) {
+                            throw new FrejaEidException("References polled one after another.", 1);
+                        }
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return result(reference, TransactionStatus.APPROVED);
+                }, status -> status == TransactionStatus.APPROVED, POLLING_TIMEOUT_IN_MILLISECONDS, null);
+
+        CompletableFuture<AuthenticationResult> first = batchPoller.register(FIRST_REFERENCE, null, 10, null);
+        CompletableFuture<AuthenticationResult> second = batchPoller.register(SECOND_REFERENCE, null, 10, null);
+
+        Assert.assertEquals(TransactionStatus.APPROVED, first.get(5, TimeUnit.SECONDS).getStatus());
+        Assert.assertEquals(TransactionStatus.APPROVED, second.get(5, TimeUnit.SECONDS).getStatus());
+    }
+
+    @Test
+    public void register_allPollersDone_relyingPartyRemoved() throws Exception {
+        BatchPoller<AuthenticationResult> batchPoller = new BatchPoller<>(
+                relyingPartyId -> Collections.singletonList(result(FIRST_REFERENCE, TransactionStatus.APPROVED)),
+                (reference, relyingPartyId) -> null, status -> status == TransactionStatus.APPROVED,
+                POLLING_TIMEOUT_IN_MILLISECONDS, null);
+
+        batchPoller.register(FIRST_REFERENCE, "relyingPartyId", 10, null).get(5, TimeUnit.SECONDS);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (batchPoller.getRelyingPartyCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        Assert.assertEquals(0, batchPoller.getRelyingPartyCount());
+        Assert.assertEquals(TransactionStatus.APPROVED,
+                            batchPoller.register(FIRST_REFERENCE, "relyingPartyId", 10, null)
+                                    .get(5, TimeUnit.SECONDS).getStatus());
+    }
+
+    private static AuthenticationResult result(String reference, TransactionStatus status) {
+        return new AuthenticationResult(reference, status, null, null);
+    }
+
+}
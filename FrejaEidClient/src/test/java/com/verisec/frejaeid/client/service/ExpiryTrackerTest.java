@@ -0,0 +1,61 @@
+package com.verisec.frejaeid.client.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class ExpiryTrackerTest {
+
+    private static final String REFERENCE = "123456789012345678";
+
+    @Test
+    public void track_expiryInFuture_deadlineMatchesExpiry() {
+        ExpiryTracker expiryTracker = new ExpiryTracker();
+        long now = System.nanoTime();
+
+        expiryTracker.track(REFERENCE, System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(2));
+
+        long timeToExpiry = expiryTracker.getExpiryDeadline(REFERENCE) - now;
+        Assert.assertTrue(Math.abs(timeToExpiry - TimeUnit.MINUTES.toNanos(2)) < TimeUnit.SECONDS.toNanos(1));
+        Assert.assertEquals(1, expiryTracker.getTrackedCount());
+    }
+
+    @Test
+    public void untrack_trackedTransaction_noLongerTracked() {
+        ExpiryTracker expiryTracker = new ExpiryTracker();
+        expiryTracker.track(REFERENCE, System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(2));
+
+        expiryTracker.untrack(REFERENCE);
+
+        Assert.assertNull(expiryTracker.getExpiryDeadline(REFERENCE));
+        Assert.assertEquals(0, expiryTracker.getTrackedCount());
+    }
+
+    @Test
+    public void track_longerGracePeriodNotPassed_stillTracked() throws InterruptedException {
+        ExpiryTracker expiryTracker = new ExpiryTracker();
+        expiryTracker.setGracePeriod(TimeUnit.MINUTES.toMillis(1));
+
+        expiryTracker.track(REFERENCE,
+                            System.currentTimeMillis() - ExpiryTracker.DEFAULT_GRACE_PERIOD_IN_MILLISECONDS);
+        Thread.sleep(500);
+
+        Assert.assertEquals(1, expiryTracker.getTrackedCount());
+    }
+
+    @Test
+    public void track_gracePeriodPassed_evicted() throws InterruptedException {
+        ExpiryTracker expiryTracker = new ExpiryTracker();
+
+        expiryTracker.track(REFERENCE,
+                            System.currentTimeMillis() - ExpiryTracker.DEFAULT_GRACE_PERIOD_IN_MILLISECONDS + 100);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (expiryTracker.getTrackedCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertNull(expiryTracker.getExpiryDeadline(REFERENCE));
+    }
+
+}
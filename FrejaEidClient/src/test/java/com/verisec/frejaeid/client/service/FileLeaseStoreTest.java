@@ -0,0 +1,111 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+public class FileLeaseStoreTest {
+
+    private static final String REFERENCE = "123456789012345678";
+    private static final String RELYING_PARTY_ID = "relyingPartyId";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private Path path;
+
+    @Before
+    public void initialisePath() {
+        path = folder.getRoot().toPath().resolve("leases");
+    }
+
+    @Test
+    public void addTransaction_sharedFile_visibleToOtherStore() throws Exception {
+        new FileLeaseStore(path).addTransaction(new LeaseStore.PendingTransaction(REFERENCE, RELYING_PARTY_ID));
+        new FileLeaseStore(path).addTransaction(new LeaseStore.PendingTransaction("reference", null));
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList(new LeaseStore.PendingTransaction(REFERENCE, RELYING_PARTY_ID),
+                                                        new LeaseStore.PendingTransaction("reference", null))),
+                            new HashSet<>(new FileLeaseStore(path).getTransactions()));
+    }
+
+    @Test
+    public void tryAcquireLease_heldByOtherNode_failsUntilExpired() throws Exception {
+        LeaseStore node1 = new FileLeaseStore(path);
+        LeaseStore node2 = new FileLeaseStore(path);
+        node1.addTransaction(new LeaseStore.PendingTransaction(REFERENCE, null));
+
+        Assert.assertTrue(node1.tryAcquireLease(REFERENCE, "node-1", 200));
+        Assert.assertFalse(node2.tryAcquireLease(REFERENCE, "node-2", 200));
+        Assert.assertTrue(node1.tryAcquireLease(REFERENCE, "node-1", 200));
+        Thread.sleep(300);
+        Assert.assertTrue(node2.tryAcquireLease(REFERENCE, "node-2", 200));
+    }
+
+    @Test
+    public void leave_nodeHoldingLease_leaseReleasedAndNodeNotLive() throws Exception {
+        LeaseStore store = new FileLeaseStore(path);
+        store.addTransaction(new LeaseStore.PendingTransaction(REFERENCE, null));
+        store.renewMembership("node-1", 10000);
+        store.renewMembership("node-2", 10000);
+        store.tryAcquireLease(REFERENCE, "node-1", 10000);
+
+        store.leave("node-1");
+
+        Assert.assertEquals(Collections.singleton("node-2"), store.getLiveNodes());
+        Assert.assertTrue(store.tryAcquireLease(REFERENCE, "node-2", 10000));
+    }
+
+    @Test
+    public void removeTransaction_leaseCannotBeAcquired() throws Exception {
+        LeaseStore store = new FileLeaseStore(path);
+        store.addTransaction(new LeaseStore.PendingTransaction(REFERENCE, null));
+
+        store.removeTransaction(REFERENCE);
+
+        Assert.assertTrue(store.getTransactions().isEmpty());
+        Assert.assertFalse(store.tryAcquireLease(REFERENCE, "node-1", 10000));
+    }
+
+    @Test
+    public void getLiveNodes_membershipExpired_nodeNotLive() throws Exception {
+        LeaseStore store = new FileLeaseStore(path);
+        store.renewMembership("node-1", 100);
+
+        Thread.sleep(200);
+
+        Assert.assertTrue(store.getLiveNodes().isEmpty());
+    }
+
+    @Test
+    public void addTransaction_fileReplaced_noTemporaryFileLeft() throws Exception {
+        new FileLeaseStore(path).addTransaction(new LeaseStore.PendingTransaction(REFERENCE, null));
+
+        Assert.assertFalse(Files.exists(path.resolveSibling("leases.tmp")));
+        Assert.assertEquals(Collections.singletonList(new LeaseStore.PendingTransaction(REFERENCE, null)),
+                            new FileLeaseStore(path).getTransactions());
+    }
+
+    @Test
+    public void getTransactions_corruptFile_throwsFrejaEidClientInternalException() throws Exception {
+        Files.write(path, "lease.123456789012345678=node-1\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        try {
+            new FileLeaseStore(path).getTransactions();
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientInternalException ex) {
+            Assert.assertEquals("Lease store " + path + " is corrupt, restore it from a backup or delete it.",
+                                ex.getMessage());
+        }
+    }
+
+}
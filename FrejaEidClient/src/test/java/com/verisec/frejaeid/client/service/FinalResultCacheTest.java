@@ -0,0 +1,41 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResult;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FinalResultCacheTest {
+
+    @Test
+    public void put_overMaxSize_leastRecentlyUsedEvicted() {
+        FinalResultCache<String> cache = new FinalResultCache<>(2, 60000);
+        cache.put("reference-1", result("reference-1"));
+        cache.put("reference-2", result("reference-2"));
+        cache.get("reference-1");
+
+        cache.put("reference-3", result("reference-3"));
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNotNull(cache.get("reference-1"));
+        Assert.assertNull(cache.get("reference-2"));
+        Assert.assertNotNull(cache.get("reference-3"));
+    }
+
+    @Test
+    public void get_timeToLivePassed_resultDropped() throws InterruptedException {
+        FinalResultCache<String> cache = new FinalResultCache<>(10, 50);
+        cache.put("reference", result("reference"));
+        Assert.assertNotNull(cache.get("reference"));
+
+        Thread.sleep(100);
+
+        Assert.assertNull(cache.get("reference"));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    private static AuthenticationResult result(String reference) {
+        return new AuthenticationResult(reference, TransactionStatus.APPROVED, null, null);
+    }
+
+}
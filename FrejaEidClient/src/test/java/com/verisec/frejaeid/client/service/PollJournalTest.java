@@ -0,0 +1,141 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+public class PollJournalTest {
+
+    private static final String REFERENCE_1 = "123456789012345678";
+    private static final String REFERENCE_2 = "876543210987654321";
+    private static final String RELYING_PARTY_ID = "relyingPartyId";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void open_afterRecords_outstandingTransactionsWithLastStatusRestored() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("journal");
+        try (PollJournal journal = PollJournal.open(path)) {
+            journal.record(REFERENCE_1, null, null, false);
+            journal.record(REFERENCE_2, RELYING_PARTY_ID, null, false);
+            journal.record(REFERENCE_1, null, TransactionStatus.DELIVERED_TO_MOBILE, false);
+            journal.record(REFERENCE_2, RELYING_PARTY_ID, TransactionStatus.APPROVED, true);
+        }
+
+        try (PollJournal journal = PollJournal.open(path)) {
+            List<PollJournal.Entry> outstanding = journal.getOutstanding();
+            Assert.assertEquals(1, outstanding.size());
+            Assert.assertEquals(REFERENCE_1, outstanding.get(0).getReference());
+            Assert.assertNull(outstanding.get(0).getRelyingPartyId());
+            Assert.assertEquals(TransactionStatus.DELIVERED_TO_MOBILE, outstanding.get(0).getStatus());
+        }
+    }
+
+    @Test
+    public void open_afterStatusChanges_expiryOfStartRestored() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("journal");
+        long expiry = System.currentTimeMillis() + 60000;
+        try (PollJournal journal = PollJournal.open(path)) {
+            journal.start(REFERENCE_1, RELYING_PARTY_ID, expiry);
+            journal.record(REFERENCE_1, RELYING_PARTY_ID, TransactionStatus.STARTED, false);
+            journal.record(REFERENCE_2, null, TransactionStatus.STARTED, false);
+        }
+
+        try (PollJournal journal = PollJournal.open(path)) {
+            List<PollJournal.Entry> outstanding = journal.getOutstanding();
+            Assert.assertEquals(2, outstanding.size());
+            Assert.assertEquals(TransactionStatus.STARTED, outstanding.get(0).getStatus());
+            Assert.assertEquals(Long.valueOf(expiry), outstanding.get(0).getExpiry());
+            Assert.assertNull(outstanding.get(1).getExpiry());
+        }
+    }
+
+    @Test
+    public void open_incompleteLastRecord_recordIgnored() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("journal");
+        try (PollJournal journal = PollJournal.open(path)) {
+            journal.record(REFERENCE_1, RELYING_PARTY_ID, TransactionStatus.STARTED, false);
+        }
+        byte[] content = Files.readAllBytes(path);
+        int end = 0;
+        while (content[end] != 0 || content[end + 1] != 0 || content[end + 2] != 0 || content[end + 3] != 0) {
+            end += 8 + ((content[end] & 0xff) << 24 | (content[end + 1] & 0xff) << 16
+                    | (content[end + 2] & 0xff) << 8 | (content[end + 3] & 0xff));
+        }
+        writeTornRecord(path, end);
+
+        try (PollJournal journal = PollJournal.open(path)) {
+            List<PollJournal.Entry> outstanding = journal.getOutstanding();
+            Assert.assertEquals(1, outstanding.size());
+            Assert.assertEquals(TransactionStatus.STARTED, outstanding.get(0).getStatus());
+        }
+    }
+
+    @Test
+    public void record_beyondInitialCapacity_journalGrows() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("journal");
+        try (PollJournal journal = PollJournal.open(path)) {
+            for (int i = 0; i < 5000; i++) {
+                journal.record(REFERENCE_1 + i, RELYING_PARTY_ID, TransactionStatus.STARTED, false);
+            }
+        }
+
+        try (PollJournal journal = PollJournal.open(path)) {
+            Assert.assertEquals(5000, journal.getOutstanding().size());
+            Assert.assertEquals(REFERENCE_1 + 4999, journal.getOutstanding().get(4999).getReference());
+        }
+    }
+
+    @Test
+    public void open_finishedTransactions_compactedWithoutTemporaryFileLeft() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("journal");
+        try (PollJournal journal = PollJournal.open(path)) {
+            journal.record(REFERENCE_1, RELYING_PARTY_ID, TransactionStatus.STARTED, false);
+            journal.record(REFERENCE_2, null, TransactionStatus.STARTED, false);
+            journal.record(REFERENCE_2, null, TransactionStatus.APPROVED, true);
+        }
+
+        try (PollJournal journal = PollJournal.open(path)) {
+            journal.record(REFERENCE_1, RELYING_PARTY_ID, TransactionStatus.DELIVERED_TO_MOBILE, false);
+        }
+        Assert.assertFalse(Files.exists(path.resolveSibling("journal.tmp")));
+
+        try (PollJournal journal = PollJournal.open(path)) {
+            List<PollJournal.Entry> outstanding = journal.getOutstanding();
+            Assert.assertEquals(1, outstanding.size());
+            Assert.assertEquals(REFERENCE_1, outstanding.get(0).getReference());
+            Assert.assertEquals(TransactionStatus.DELIVERED_TO_MOBILE, outstanding.get(0).getStatus());
+        }
+    }
+
+    @Test
+    public void record_closed_throwsException() throws Exception {
+        PollJournal journal = PollJournal.open(folder.getRoot().toPath().resolve("journal"));
+        journal.close();
+
+        try {
+            journal.record(REFERENCE_1, null, null, false);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientInternalException ex) {
+            Assert.assertTrue(ex.getMessage().endsWith("is closed."));
+        }
+    }
+
+    private static void writeTornRecord(Path path, int position) throws IOException {
+        byte[] tornRecord = {0, 0, 0, 40, 1, 2, 3, 4, 0, 0, 0};
+        byte[] content = Files.readAllBytes(path);
+        System.arraycopy(tornRecord, 0, content, position, tornRecord.length);
+        Files.write(path, content, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+}
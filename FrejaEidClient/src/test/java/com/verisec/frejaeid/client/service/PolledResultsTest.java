@@ -0,0 +1,66 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.beans.sign.get.SignResult;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class PolledResultsTest {
+
+    private static final String REFERENCE = "123456789012345678";
+
+    @Test
+    public void hasNext_whileTakeWaits_doesNotBlock() throws Exception {
+        PolledResults<SignResult> polledResults = new PolledResults<>();
+        CompletableFuture<SignResult> futureResult = new CompletableFuture<>();
+        polledResults.add(REFERENCE, futureResult);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<CompletionStage<SignResult>> taken = executor.submit(polledResults::take);
+            Thread.sleep(200);
+
+            CompletableFuture<Boolean> hasNext = CompletableFuture.supplyAsync(polledResults::hasNext);
+
+            Assert.assertFalse(hasNext.get(1, TimeUnit.SECONDS));
+            Assert.assertFalse(taken.isDone());
+            SignResult result = new SignResult(REFERENCE, TransactionStatus.APPROVED, null, null);
+            futureResult.complete(result);
+            Assert.assertEquals(result, taken.get(1, TimeUnit.SECONDS).toCompletableFuture().get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void poll_timedOut_resultStillAvailable() throws Exception {
+        PolledResults<SignResult> polledResults = new PolledResults<>();
+        CompletableFuture<SignResult> futureResult = new CompletableFuture<>();
+        polledResults.add(REFERENCE, futureResult);
+
+        Assert.assertNull(polledResults.poll(50, TimeUnit.MILLISECONDS));
+
+        Assert.assertTrue(polledResults.hasNext());
+        futureResult.complete(new SignResult(REFERENCE, TransactionStatus.APPROVED, null, null));
+        Assert.assertNotNull(polledResults.poll(1, TimeUnit.SECONDS));
+        Assert.assertFalse(polledResults.hasNext());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void take_allTaken_throwsNoSuchElementException() throws InterruptedException {
+        PolledResults<SignResult> polledResults = new PolledResults<>();
+        polledResults.add(REFERENCE, CompletableFuture.completedFuture(
+                new SignResult(REFERENCE, TransactionStatus.APPROVED, null, null)));
+        polledResults.take();
+
+        polledResults.take();
+    }
+
+}
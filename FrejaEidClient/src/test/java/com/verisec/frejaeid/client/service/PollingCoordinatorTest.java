@@ -0,0 +1,156 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResult;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.exceptions.FrejaEidException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PollingCoordinatorTest {
+
+    private static final int POLLING_TIMEOUT_IN_MILLISECONDS = 100;
+    private static final int TRANSACTIONS = 20;
+
+    private final Map<String, AtomicInteger> polls = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> pollingNodes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> finalNotifications = new ConcurrentHashMap<>();
+    private final CountDownLatch finished = new CountDownLatch(TRANSACTIONS);
+
+    @Test
+    public void submit_twoNodes_everyTransactionFinishedOnceAndShardsSplit() throws Exception {
+        InMemoryLeaseStore leaseStore = new InMemoryLeaseStore();
+        leaseStore.renewMembership("node-1", 5000);
+        leaseStore.renewMembership("node-2", 5000);
+
+        try (PollingCoordinator<AuthenticationResult> node1 = createCoordinator("node-1", leaseStore);
+             PollingCoordinator<AuthenticationResult> node2 = createCoordinator("node-2", leaseStore)) {
+            for (int i = 0; i < TRANSACTIONS; i++) {
+                node1.submit("reference-" + i, null);
+            }
+
+            Assert.assertTrue(finished.await(5, TimeUnit.SECONDS));
+            awaitNoTransactions(leaseStore);
+        }
+        Set<String> nodes = ConcurrentHashMap.newKeySet();
+        for (Map.Entry<String, Set<String>> referenceNodes : pollingNodes.entrySet()) {
+            Assert.assertEquals(1, referenceNodes.getValue().size());
+            nodes.addAll(referenceNodes.getValue());
+            Assert.assertEquals(1, finalNotifications.get(referenceNodes.getKey()).get());
+        }
+        Assert.assertEquals(2, nodes.size());
+    }
+
+    @Test
+    public void submit_leasesHeldByDeadNode_transactionsTakenOverOnceLeasesExpire() throws Exception {
+        InMemoryLeaseStore leaseStore = new InMemoryLeaseStore();
+        leaseStore.renewMembership("dead-node", 300);
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            leaseStore.addTransaction(new LeaseStore.PendingTransaction("reference-" + i, null));
+            leaseStore.tryAcquireLease("reference-" + i, "dead-node", 300);
+        }
+        long start = System.nanoTime();
+
+        try (PollingCoordinator<AuthenticationResult> node = createCoordinator("node-1", leaseStore)) {
+            Assert.assertTrue(finished.await(5, TimeUnit.SECONDS));
+            awaitNoTransactions(leaseStore);
+        }
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(250));
+        Assert.assertEquals(TRANSACTIONS, pollingNodes.size());
+    }
+
+    @Test
+    public void submit_serverReturnsError_transactionDropped() throws Exception {
+        InMemoryLeaseStore leaseStore = new InMemoryLeaseStore();
+        CountDownLatch abandoned = new CountDownLatch(1);
+        TransactionListener<AuthenticationResult> listener = new TransactionListener<AuthenticationResult>() {
+            @Override
+            public void onStatusChange(AuthenticationResult result) {
+            }
+
+            @Override
+            public void onPollingAbandoned(String reference, FrejaEidException cause) {
+                Assert.assertEquals("reference", reference);
+                Assert.assertEquals(1100, cause.getErrorCode());
+                abandoned.countDown();
+            }
+        };
+        PollingCoordinator<AuthenticationResult> node = new PollingCoordinator<>(
+                "node-1", leaseStore, (reference, relyingPartyId) -> {
+                    throw new FrejaEidException("Invalid reference.", 1100);
+                }, status -> status == TransactionStatus.APPROVED, POLLING_TIMEOUT_IN_MILLISECONDS, null, listener);
+        node.start();
+
+        try {
+            node.submit("reference", null);
+            Assert.assertTrue(abandoned.await(5, TimeUnit.SECONDS));
+            awaitNoTransactions(leaseStore);
+        } finally {
+            node.close();
+        }
+        Assert.assertTrue(leaseStore.getLiveNodes().isEmpty());
+    }
+
+    @Test
+    public void submit_serverTemporarilyUnavailable_transactionPolledAgain() throws Exception {
+        InMemoryLeaseStore leaseStore = new InMemoryLeaseStore();
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch approved = new CountDownLatch(1);
+        PollingCoordinator<AuthenticationResult> node = new PollingCoordinator<>(
+                "node-1", leaseStore, (reference, relyingPartyId) -> {
+                    if (attempts.incrementAndGet() < 3) {
+                        throw new FrejaEidException("HTTP code 503 message: Service Unavailable");
+                    }
+                    return new AuthenticationResult(reference, TransactionStatus.APPROVED, null, null);
+                }, status -> status == TransactionStatus.APPROVED, POLLING_TIMEOUT_IN_MILLISECONDS, null,
+                result -> approved.countDown());
+        node.start();
+
+        try {
+            node.submit("reference", null);
+            Assert.assertTrue(approved.await(10, TimeUnit.SECONDS));
+            awaitNoTransactions(leaseStore);
+        } finally {
+            node.close();
+        }
+        Assert.assertEquals(3, attempts.get());
+    }
+
+    /**
+     * Transactions are removed from the store right after their final status
+     * is handed to the listener.
+     */
+    private static void awaitNoTransactions(LeaseStore leaseStore) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!leaseStore.getTransactions().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(leaseStore.getTransactions().isEmpty());
+    }
+
+    private PollingCoordinator<AuthenticationResult> createCoordinator(String nodeId, LeaseStore leaseStore) {
+        PollingCoordinator<AuthenticationResult> coordinator = new PollingCoordinator<>(
+                nodeId, leaseStore, (reference, relyingPartyId) -> {
+                    pollingNodes.computeIfAbsent(reference, key -> ConcurrentHashMap.newKeySet()).add(nodeId);
+                    int poll = polls.computeIfAbsent(reference, key -> new AtomicInteger()).incrementAndGet();
+                    return new AuthenticationResult(reference, poll < 2 ? TransactionStatus.STARTED
+                                                                        : TransactionStatus.APPROVED, null, null);
+                }, status -> status == TransactionStatus.APPROVED, POLLING_TIMEOUT_IN_MILLISECONDS, null,
+                result -> {
+                    if (result.getStatus() == TransactionStatus.APPROVED) {
+                        finalNotifications.computeIfAbsent(result.getReference(), key -> new AtomicInteger())
+                                .incrementAndGet();
+                        finished.countDown();
+                    }
+                });
+        coordinator.start();
+        return coordinator;
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.verisec.frejaeid.client.service;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PollingSchedulerTest {
+
+    private final List<PollingScheduler> pollingSchedulers = new ArrayList<>();
+
+    @After
+    public void shutdownSchedulers() {
+        for (PollingScheduler pollingScheduler : pollingSchedulers) {
+            pollingScheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void schedule_delayLongerThanWheelRound_runsAfterDelay() throws InterruptedException {
+        PollingScheduler pollingScheduler = createPollingScheduler(10, 4);
+        final CountDownLatch executed = new CountDownLatch(1);
+        final AtomicLong executedAt = new AtomicLong();
+        long scheduledAt = System.nanoTime();
+
+        pollingScheduler.schedule(() -> {
+            executedAt.set(System.nanoTime());
+            executed.countDown();
+        }, 200);
+
+        Assert.assertTrue(executed.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(executedAt.get() - scheduledAt) >= 200);
+        Assert.assertEquals(0, pollingScheduler.getScheduledCount());
+    }
+
+    @Test
+    public void schedule_delaysSpanningWheelLevels_eachRunsAfterItsDelay() throws InterruptedException {
+        PollingScheduler pollingScheduler = createPollingScheduler(5, 4);
+        final long[] delays = {7, 30, 150, 700};
+        final CountDownLatch executed = new CountDownLatch(delays.length);
+        final long[] elapsed = new long[delays.length];
+        final long scheduledAt = System.nanoTime();
+
+        for (int i = 0; i < delays.length; i++) {
+            final int task = i;
+            pollingScheduler.schedule(() -> {
+                elapsed[task] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scheduledAt);
+                executed.countDown();
+            }, delays[i]);
+        }
+
+        Assert.assertTrue(executed.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < delays.length; i++) {
+            Assert.assertTrue(elapsed[i] >= delays[i]);
+            Assert.assertTrue(elapsed[i] < delays[i] + 200);
+        }
+        Assert.assertEquals(0, pollingScheduler.getScheduledCount());
+    }
+
+    @Test
+    public void schedule_cancelledBeforeDue_neverRuns() throws InterruptedException {
+        PollingScheduler pollingScheduler = createPollingScheduler(10, 8);
+        final AtomicInteger executions = new AtomicInteger();
+
+        PollingScheduler.Timeout timeout = pollingScheduler.schedule(executions::incrementAndGet, 50);
+        timeout.cancel();
+        Thread.sleep(200);
+
+        Assert.assertEquals(0, executions.get());
+        Assert.assertEquals(0, pollingScheduler.getScheduledCount());
+    }
+
+    @Test
+    public void execute_moreBlockingCallsThanWorkers_runAtMostMaxWorkersAtOnce() throws Exception {
+        PollingScheduler pollingScheduler = new PollingScheduler(10, 8, 4);
+        pollingSchedulers.add(pollingScheduler);
+        int calls = 50;
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+
+        for (int i = 0; i < calls; i++) {
+            results.add(pollingScheduler.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(10);
+                    return true;
+                } catch (InterruptedException ex) {
+                    return false;
+                } finally {
+                    running.decrementAndGet();
+                }
+            }));
+        }
+
+        for (CompletableFuture<Boolean> result : results) {
+            Assert.assertTrue(result.get(5, TimeUnit.SECONDS));
+        }
+        Assert.assertEquals(4, maxRunning.get());
+    }
+
+    @Test
+    public void shutdown_pendingTask_neverRunsAndThreadsStop() throws InterruptedException {
+        PollingScheduler pollingScheduler = new PollingScheduler(10, 8);
+        final AtomicInteger executions = new AtomicInteger();
+        pollingScheduler.schedule(executions::incrementAndGet, 100);
+
+        pollingScheduler.shutdown();
+        Thread.sleep(300);
+
+        Assert.assertEquals(0, executions.get());
+        Assert.assertTrue(pollingScheduler.isTerminated());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shutdown_sharedScheduler_throwsIllegalStateException() {
+        PollingScheduler.SHARED.shutdown();
+    }
+
+    @Test
+    public void millisecondsUntil_roundsUpAndStopsAtZero() {
+        long now = System.nanoTime();
+
+        Assert.assertEquals(0, PollingScheduler.millisecondsUntil(now - TimeUnit.SECONDS.toNanos(1)));
+        long remaining = PollingScheduler.millisecondsUntil(now + TimeUnit.MILLISECONDS.toNanos(500) + 1);
+        Assert.assertTrue(remaining > 0 && remaining <= 501);
+    }
+
+    @Test
+    public void schedule_manyPendingTasks_noThreadPerTask() throws InterruptedException {
+        PollingScheduler pollingScheduler = createPollingScheduler(10, 64);
+        int tasks = 10000;
+        final CountDownLatch executed = new CountDownLatch(tasks);
+        int threadsBefore = Thread.activeCount();
+
+        for (int i = 0; i < tasks; i++) {
+            pollingScheduler.schedule(executed::countDown, 100 + i % 100);
+        }
+        Assert.assertTrue(Thread.activeCount() <= threadsBefore + 2);
+
+        Assert.assertTrue(executed.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(0, pollingScheduler.getScheduledCount());
+    }
+
+    private PollingScheduler createPollingScheduler(long tickDurationInMilliseconds, int wheelSize) {
+        PollingScheduler pollingScheduler = new PollingScheduler(tickDurationInMilliseconds, wheelSize);
+        pollingSchedulers.add(pollingScheduler);
+        return pollingScheduler;
+    }
+
+}
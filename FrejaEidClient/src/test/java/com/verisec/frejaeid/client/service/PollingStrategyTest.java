@@ -0,0 +1,67 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientInternalException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PollingStrategyTest {
+
+    @Test
+    public void getInterval_fixed_pollingTimeoutUsed() {
+        PollingStrategy pollingStrategy = PollingStrategy.fixed();
+
+        Assert.assertFalse(pollingStrategy.isAdaptive());
+        Assert.assertEquals(3000, pollingStrategy.getInterval(1, 3000));
+        Assert.assertEquals(3000, pollingStrategy.getInterval(10, 3000));
+    }
+
+    @Test
+    public void getInterval_adaptive_growsWhileStatusUnchangedUpToMaximum() throws FrejaEidClientInternalException {
+        PollingStrategy pollingStrategy = PollingStrategy.createAdaptive(1000, 6000, 2);
+
+        Assert.assertEquals(1000, pollingStrategy.getInterval(1, 60000));
+        Assert.assertEquals(2000, pollingStrategy.getInterval(2, 60000));
+        Assert.assertEquals(4000, pollingStrategy.getInterval(3, 60000));
+        Assert.assertEquals(6000, pollingStrategy.getInterval(4, 60000));
+        Assert.assertEquals(6000, pollingStrategy.getInterval(100, 60000));
+    }
+
+    @Test
+    public void getInterval_adaptive_neverExceedsPollingTimeout() {
+        PollingStrategy pollingStrategy = PollingStrategy.createAdaptive();
+
+        Assert.assertEquals(1000, pollingStrategy.getInterval(1, 3000));
+        Assert.assertEquals(3000, pollingStrategy.getInterval(10, 3000));
+    }
+
+    @Test
+    public void createAdaptive_intervalBelowMinimum_expectError() {
+        try {
+            PollingStrategy.createAdaptive(500, 3000, 2);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientInternalException ex) {
+            Assert.assertEquals("Polling intervals cannot be less than 1000ms.", ex.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void createAdaptive_initialIntervalGreaterThanMaximum_expectError() {
+        try {
+            PollingStrategy.createAdaptive(5000, 1000, 2);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientInternalException ex) {
+            Assert.assertEquals("Initial polling interval cannot exceed maximum interval.", ex.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void createAdaptive_multiplierLessThanOne_expectError() {
+        try {
+            PollingStrategy.createAdaptive(1000, 2000, 0.5);
+            Assert.fail("Test should throw exception!");
+        } catch (FrejaEidClientInternalException ex) {
+            Assert.assertEquals("Polling interval multiplier cannot be less than 1.", ex.getLocalizedMessage());
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.verisec.frejaeid.client.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class RequestLimiterTest {
+
+    @Test
+    public void submit_overLimit_waitsForEarlierRequests() {
+        RequestLimiter requestLimiter = new RequestLimiter(2);
+        final List<CompletableFuture<String>> sent = new ArrayList<>();
+        List<CompletableFuture<String>> responses = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            responses.add(requestLimiter.submit(() -> {
+                CompletableFuture<String> response = new CompletableFuture<>();
+                sent.add(response);
+                return response;
+            }));
+        }
+        Assert.assertEquals(2, sent.size());
+        Assert.assertEquals(2, requestLimiter.getInFlightCount());
+
+        sent.get(1).complete("second");
+        Assert.assertEquals(3, sent.size());
+        Assert.assertEquals("second", responses.get(1).join());
+        for (int i = 0; i < sent.size(); i++) {
+            sent.get(i).complete("response");
+        }
+
+        Assert.assertEquals(5, sent.size());
+        Assert.assertEquals(0, requestLimiter.getInFlightCount());
+        for (CompletableFuture<String> response : responses) {
+            Assert.assertTrue(response.isDone());
+        }
+    }
+
+    @Test
+    public void submit_requestsCompletingImmediately_noRecursion() {
+        RequestLimiter requestLimiter = new RequestLimiter(1);
+        CompletableFuture<String> blocking = new CompletableFuture<>();
+        requestLimiter.submit(() -> blocking);
+        List<CompletableFuture<String>> responses = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            responses.add(requestLimiter.submit(() -> CompletableFuture.completedFuture("response")));
+        }
+
+        blocking.complete("response");
+
+        for (CompletableFuture<String> response : responses) {
+            Assert.assertEquals("response", response.join());
+        }
+        Assert.assertEquals(0, requestLimiter.getInFlightCount());
+    }
+
+    @Test
+    public void submit_requestThrows_failsAndReleasesPermit() {
+        RequestLimiter requestLimiter = new RequestLimiter(1);
+
+        CompletableFuture<String> failed = requestLimiter.submit(() -> {
+            throw new IllegalStateException("Request failed.");
+        });
+        CompletableFuture<String> next = requestLimiter.submit(() -> CompletableFuture.completedFuture("response"));
+
+        Assert.assertTrue(failed.isCompletedExceptionally());
+        Assert.assertEquals("response", next.join());
+    }
+
+}
@@ -0,0 +1,211 @@
+package com.verisec.frejaeid.client.service;
+
+import com.verisec.frejaeid.client.beans.authentication.get.AuthenticationResult;
+import com.verisec.frejaeid.client.enums.TransactionStatus;
+import com.verisec.frejaeid.client.exceptions.FrejaEidClientPollingException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class ResultPublisherTest {
+
+    private static final String REFERENCE = "123456789012345678";
+
+    @Test
+    public void subscribe_unboundedDemand_publishesDistinctStatusesAndCompletes() throws InterruptedException {
+        CountingSupplier results = new CountingSupplier(TransactionStatus.STARTED, TransactionStatus.STARTED,
+                                                        TransactionStatus.DELIVERED_TO_MOBILE,
+                                                        TransactionStatus.APPROVED);
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+
+        createPublisher(results, 10).subscribe(subscriber);
+
+        Assert.assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(TransactionStatus.STARTED, TransactionStatus.DELIVERED_TO_MOBILE,
+                                          TransactionStatus.APPROVED), subscriber.statuses);
+        Assert.assertTrue(subscriber.completed);
+        Assert.assertEquals(4, results.polls.get());
+    }
+
+    @Test
+    public void subscribe_noDemand_noPolls() throws InterruptedException {
+        CountingSupplier results = new CountingSupplier(TransactionStatus.STARTED, TransactionStatus.APPROVED);
+        TestSubscriber subscriber = new TestSubscriber(0);
+
+        createPublisher(results, 10).subscribe(subscriber);
+        Thread.sleep(300);
+        Assert.assertEquals(0, results.polls.get());
+
+        subscriber.subscription.request(1);
+        Thread.sleep(300);
+        Assert.assertEquals(1, results.polls.get());
+        Assert.assertEquals(Collections.singletonList(TransactionStatus.STARTED), subscriber.statuses);
+
+        subscriber.subscription.request(1);
+        Assert.assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(TransactionStatus.STARTED, TransactionStatus.APPROVED),
+                            subscriber.statuses);
+        Assert.assertEquals(2, results.polls.get());
+    }
+
+    @Test
+    public void subscribe_cancelled_stopsPolling() throws InterruptedException {
+        CountingSupplier results = new CountingSupplier(TransactionStatus.STARTED);
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+
+        createPublisher(results, 10).subscribe(subscriber);
+        Thread.sleep(150);
+        subscriber.subscription.cancel();
+        int polls = results.polls.get();
+        Thread.sleep(300);
+
+        Assert.assertEquals(polls, results.polls.get());
+        Assert.assertEquals(1, subscriber.done.getCount());
+    }
+
+    @Test
+    public void subscribe_noFinalStatus_failsWithTimeout() throws InterruptedException {
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+
+        createPublisher(new CountingSupplier(TransactionStatus.STARTED), 1).subscribe(subscriber);
+
+        Assert.assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(subscriber.error instanceof FrejaEidClientPollingException);
+        Assert.assertEquals("A timeout of 1s was reached while sending request.", subscriber.error.getMessage());
+    }
+
+    @Test
+    public void request_notPositive_failsSubscription() throws InterruptedException {
+        TestSubscriber subscriber = new TestSubscriber(0);
+
+        createPublisher(new CountingSupplier(TransactionStatus.STARTED), 10).subscribe(subscriber);
+        subscriber.subscription.request(0);
+
+        Assert.assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void request_notPositiveWhilePolling_failsSubscriptionAndCancelsPoll() throws Exception {
+        CompletableFuture<AuthenticationResult> poll = new CompletableFuture<>();
+        CountDownLatch polled = new CountDownLatch(1);
+        TestSubscriber subscriber = new TestSubscriber(1);
+        createPublisher(() -> {
+            polled.countDown();
+            return poll;
+        }, 10).subscribe(subscriber);
+        Assert.assertTrue(polled.await(5, TimeUnit.SECONDS));
+
+        subscriber.subscription.request(-1);
+
+        Assert.assertEquals(0, subscriber.done.getCount());
+        Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertCancelled(poll);
+    }
+
+    @Test
+    public void cancel_pollInFlight_pollCancelled() throws Exception {
+        CompletableFuture<AuthenticationResult> poll = new CompletableFuture<>();
+        CountDownLatch polled = new CountDownLatch(1);
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+        createPublisher(() -> {
+            polled.countDown();
+            return poll;
+        }, 10).subscribe(subscriber);
+        Assert.assertTrue(polled.await(5, TimeUnit.SECONDS));
+
+        subscriber.subscription.cancel();
+
+        assertCancelled(poll);
+        Assert.assertEquals(1, subscriber.done.getCount());
+    }
+
+    private static void assertCancelled(CompletableFuture<AuthenticationResult> poll) throws Exception {
+        try {
+            poll.get(5, TimeUnit.SECONDS);
+            Assert.fail("Poll should be cancelled!");
+        } catch (CancellationException ex) {
+            Assert.assertTrue(poll.isCancelled());
+        }
+    }
+
+    private static ResultPublisher<AuthenticationResult> createPublisher(
+            Supplier<CompletableFuture<AuthenticationResult>> results, int maxWaitingTimeInSec) {
+        return new ResultPublisher<>(results, status -> status == TransactionStatus.APPROVED,
+                                     PollingStrategy.createAdaptive(), 50, maxWaitingTimeInSec);
+    }
+
+    private static final class CountingSupplier implements Supplier<CompletableFuture<AuthenticationResult>> {
+
+        private final AtomicInteger polls = new AtomicInteger();
+        private final Iterator<TransactionStatus> statuses;
+        private TransactionStatus lastStatus;
+
+        private CountingSupplier(TransactionStatus... statuses) {
+            this.statuses = Arrays.asList(statuses).iterator();
+        }
+
+        @Override
+        public synchronized CompletableFuture<AuthenticationResult> get() {
+            polls.incrementAndGet();
+            if (statuses.hasNext()) {
+                lastStatus = statuses.next();
+            }
+            return CompletableFuture.completedFuture(new AuthenticationResult(REFERENCE, lastStatus, null, null));
+        }
+
+    }
+
+    private static final class TestSubscriber implements Flow.Subscriber<AuthenticationResult> {
+
+        private final long initialDemand;
+        private final List<TransactionStatus> statuses = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+        private volatile boolean completed;
+        private volatile Throwable error;
+
+        private TestSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialDemand > 0) {
+                subscription.request(initialDemand);
+            }
+        }
+
+        @Override
+        public void onNext(AuthenticationResult item) {
+            statuses.add(item.getStatus());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+
+    }
+
+}
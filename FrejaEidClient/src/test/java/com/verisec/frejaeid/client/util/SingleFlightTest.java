@@ -0,0 +1,78 @@
+package com.verisec.frejaeid.client.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class SingleFlightTest {
+
+    private static final String KEY = "key";
+
+    @Test
+    public void execute_callFailsWithError_followerReceivesError() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch followerJoined = new CountDownLatch(1);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> {
+            try {
+                return singleFlight.execute(KEY, () -> {
+                    try {
+                        followerJoined.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new OutOfMemoryError("Test");
+                });
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        while (singleFlight.getInFlightCount() == 0) {
+            Thread.sleep(10);
+        }
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> {
+            try {
+                return singleFlight.execute(KEY, () -> "response");
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        Thread.sleep(100);
+        followerJoined.countDown();
+
+        try {
+            follower.get(5, TimeUnit.SECONDS);
+            Assert.fail("Test should throw exception!");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof OutOfMemoryError);
+        }
+        try {
+            leader.get(5, TimeUnit.SECONDS);
+            Assert.fail("Test should throw exception!");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof OutOfMemoryError);
+        }
+        Assert.assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    @Test
+    public void executeAsync_callThrowsError_futureCompletedExceptionally() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+        CompletableFuture<String> response = singleFlight.executeAsync(KEY, () -> {
+            throw new AssertionError("Test");
+        });
+
+        try {
+            response.get();
+            Assert.fail("Test should throw exception!");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof AssertionError);
+        }
+        Assert.assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+}